@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.executer.GradleContextualExecuter
+import spock.lang.IgnoreIf
+
+// Each build needs a new process, as generated classes are also reused in memory
+@IgnoreIf({ GradleContextualExecuter.daemon })
+class GeneratedClassCacheIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        executer.requireGradleDistribution()
+        executer.requireOwnGradleUserHomeDir()
+        buildFile << """
+            class CustomExtension {
+                String message
+            }
+            extensions.create("custom", CustomExtension)
+            custom.message = "hello"
+            task show {
+                doLast { println custom.message }
+            }
+        """
+    }
+
+    def "loads decorated classes generated by an earlier build from the cache"() {
+        when:
+        runWithCache()
+
+        then:
+        generatedCount > 0
+        loadedCount == 0
+
+        when:
+        runWithCache()
+
+        then:
+        loadedCount > 0
+        output.contains("hello")
+    }
+
+    def "does not cache decorated classes when disabled"() {
+        when:
+        run "show", "--info"
+        run "show", "--info"
+
+        then:
+        generatedCount > 0
+        loadedCount == 0
+    }
+
+    private void runWithCache() {
+        executer.withArgument("-D${DefaultGeneratedClassBytecodeCache.ENABLED_PROPERTY}=true")
+        run "show", "--info"
+    }
+
+    private int getGeneratedCount() {
+        statistic(1)
+    }
+
+    private int getLoadedCount() {
+        statistic(2)
+    }
+
+    private int statistic(int group) {
+        def matcher = output =~ /Generated (\d+) decorated classes in \d+ms, loaded (\d+) decorated classes from cache in \d+ms\./
+        assert matcher.find()
+        return matcher.group(group) as int
+    }
+}
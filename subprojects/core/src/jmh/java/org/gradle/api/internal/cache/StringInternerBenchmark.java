@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures interning file paths with a {@link StringInterner}, for paths that have already been interned and for new paths, with the work split between a number of threads.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class StringInternerBenchmark {
+    @Param({"1000", "100000"})
+    int stringCount;
+
+    @Param({"1", "4"})
+    int threadCount;
+
+    private StringInterner interner;
+    private String[] strings;
+    private ExecutorService executor;
+    private int generation;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        interner = new StringInterner();
+        strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            strings[i] = path(i, 0);
+            interner.intern(strings[i]);
+        }
+        executor = Executors.newFixedThreadPool(threadCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void internExisting(final Blackhole bh) throws Exception {
+        run(new Task() {
+            @Override
+            public void run(int index) {
+                // A distinct but equal instance, as read from a cache or produced by File.getAbsolutePath()
+                bh.consume(interner.intern(new String(strings[index])));
+            }
+        });
+    }
+
+    @Benchmark
+    public void internNew(final Blackhole bh) throws Exception {
+        final int current = ++generation;
+        run(new Task() {
+            @Override
+            public void run(int index) {
+                bh.consume(interner.intern(path(index, current)));
+            }
+        });
+    }
+
+    private static String path(int index, int generation) {
+        return "/home/user/project/build/classes/main/org/gradle/generation" + generation + "/Class" + index + ".class";
+    }
+
+    private void run(final Task task) throws Exception {
+        List<Future<?>> results = new ArrayList<Future<?>>(threadCount);
+        for (int thread = 0; thread < threadCount; thread++) {
+            final int offset = thread;
+            results.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    for (int i = offset; i < stringCount; i += threadCount) {
+                        task.run(i);
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+
+    private interface Task {
+        void run(int index);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates file trees of a given shape for benchmarks.
+ */
+class BenchmarkFileTrees {
+    private BenchmarkFileTrees() {
+    }
+
+    enum Shape {
+        /**
+         * All files in a single directory.
+         */
+        FLAT,
+        /**
+         * Ten files per directory, in directories nested like Java packages.
+         */
+        DEEP
+    }
+
+    static File createTempDir(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, "benchmark");
+        dir.delete();
+        if (!dir.mkdirs()) {
+            throw new IOException("Could not create " + dir);
+        }
+        return dir;
+    }
+
+    static List<File> create(File root, Shape shape, int fileCount, int fileSize) throws IOException {
+        List<File> files = new ArrayList<File>(fileCount);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < fileCount; i++) {
+            File dir = root;
+            if (shape == Shape.DEEP) {
+                for (int parent = i / 10; parent > 0; parent /= 10) {
+                    dir = new File(dir, "p" + parent % 10);
+                }
+            }
+            dir.mkdirs();
+            File file = new File(dir, "File" + i + ".java");
+            content[0] = (byte) i;
+            FileOutputStream outputStream = new FileOutputStream(file);
+            try {
+                outputStream.write(content);
+            } finally {
+                outputStream.close();
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
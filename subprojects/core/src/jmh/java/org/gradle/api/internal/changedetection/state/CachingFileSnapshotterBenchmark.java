@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.cache.internal.MapBackedInMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures hashing a set of files with a {@link CachingFileSnapshotter}, both when the hashes have to be calculated and when they are served from the cache,
+ * with the files split between a number of threads.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class CachingFileSnapshotterBenchmark {
+    @Param({"100", "1000", "10000"})
+    int fileCount;
+
+    @Param({"1024", "65536"})
+    int fileSize;
+
+    @Param({"1", "4"})
+    int threadCount;
+
+    private File root;
+    private List<File> files;
+    private ExecutorService executor;
+    private CachingFileSnapshotter warmSnapshotter;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = BenchmarkFileTrees.createTempDir("snapshotter");
+        files = BenchmarkFileTrees.create(root, BenchmarkFileTrees.Shape.FLAT, fileCount, fileSize);
+        executor = Executors.newFixedThreadPool(threadCount);
+        warmSnapshotter = createSnapshotter();
+        snapshotAll(warmSnapshotter, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        BenchmarkFileTrees.delete(root);
+    }
+
+    @Benchmark
+    public void hashUncachedFiles(Blackhole bh) throws Exception {
+        snapshotAll(createSnapshotter(), bh);
+    }
+
+    @Benchmark
+    public void hashCachedFiles(Blackhole bh) throws Exception {
+        snapshotAll(warmSnapshotter, bh);
+    }
+
+    private static CachingFileSnapshotter createSnapshotter() {
+        return new CachingFileSnapshotter(new DefaultHasher(), new MapBackedInMemoryStore(), new StringInterner());
+    }
+
+    private void snapshotAll(final CachingFileSnapshotter snapshotter, final Blackhole bh) throws Exception {
+        List<Future<?>> results = new ArrayList<Future<?>>(threadCount);
+        for (int thread = 0; thread < threadCount; thread++) {
+            final int offset = thread;
+            results.add(executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws IOException {
+                    for (int i = offset; i < files.size(); i += threadCount) {
+                        Object hash = snapshotter.snapshot(files.get(i)).getHash();
+                        if (bh != null) {
+                            bh.consume(hash);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.cache.internal.MapBackedInMemoryStore;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+
+/**
+ * Measures snapshotting a directory tree with a {@link DefaultFileCollectionSnapshotter}, with the file hashes already cached, as happens for the
+ * inputs of an up-to-date task.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class DefaultFileCollectionSnapshotterBenchmark {
+    @Param({"100", "1000", "10000"})
+    int fileCount;
+
+    @Param({"FLAT", "DEEP"})
+    BenchmarkFileTrees.Shape shape;
+
+    @Param({"ABSOLUTE", "RELATIVE"})
+    TaskFilePropertySnapshotNormalizationStrategy normalizationStrategy;
+
+    private File root;
+    private CachingFileSnapshotter fileSnapshotter;
+    private StringInterner stringInterner;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        NativeServices.initialize(new File(System.getProperty("java.io.tmpdir"), "gradle-jmh-native"));
+        root = BenchmarkFileTrees.createTempDir("tree");
+        BenchmarkFileTrees.create(root, shape, fileCount, 1024);
+        stringInterner = new StringInterner();
+        fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), new MapBackedInMemoryStore(), stringInterner);
+        snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFileTrees.delete(root);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshot() {
+        // A new snapshotter for each invocation, so that the directory tree is walked each time
+        DefaultFileCollectionSnapshotter snapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, stringInterner, FileSystems.getDefault(), new DefaultDirectoryFileTreeFactory());
+        return snapshotter.snapshot(new SimpleFileCollection(root), TaskFilePropertyCompareStrategy.UNORDERED, normalizationStrategy);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures writing and reading file collection snapshots, as stored in the task history cache, using {@link DefaultFileCollectionSnapshot.SerializerImpl}
+ * and the {@link SnapshotMapSerializer} it delegates to.
+ */
+@State(Scope.Benchmark)
+public class FileCollectionSnapshotSerializerBenchmark {
+    private static final long SEED = 1234L;
+
+    @Param({"10", "1000", "10000"})
+    int fileCount;
+
+    @Param({"ABSOLUTE", "RELATIVE"})
+    String paths;
+
+    private DefaultFileCollectionSnapshot.SerializerImpl serializer;
+    private DefaultFileCollectionSnapshot snapshot;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serializer = new DefaultFileCollectionSnapshot.SerializerImpl(new StringInterner());
+        Random random = new Random(SEED);
+        byte[] hash = new byte[16];
+        Map<String, NormalizedFileSnapshot> snapshots = new LinkedHashMap<String, NormalizedFileSnapshot>();
+        for (int i = 0; i < fileCount; i++) {
+            String absolutePath = "/home/user/project/module" + (i % 20) + "/src/main/java/org/gradle/package" + (i % 50) + "/File" + i + ".java";
+            random.nextBytes(hash);
+            IncrementalFileSnapshot fileSnapshot = new FileHashSnapshot(HashCode.fromBytes(hash), random.nextLong());
+            if (paths.equals("ABSOLUTE")) {
+                snapshots.put(absolutePath, new NonNormalizedFileSnapshot(absolutePath, fileSnapshot));
+            } else {
+                snapshots.put(absolutePath, new DefaultNormalizedFileSnapshot(absolutePath.substring(absolutePath.indexOf("/src/") + 1), fileSnapshot));
+            }
+        }
+        snapshot = new DefaultFileCollectionSnapshot(snapshots, TaskFilePropertyCompareStrategy.UNORDERED, paths.equals("ABSOLUTE"));
+        serialized = write();
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, snapshot);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public DefaultFileCollectionSnapshot read() throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(serialized));
+        return serializer.read(decoder);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures lookups and updates of a {@link BTreePersistentIndexedCache} holding file paths, as the file hash and task history caches do.
+ */
+@State(Scope.Benchmark)
+@Threads(1)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final long SEED = 1234L;
+
+    @Param({"1000", "10000", "100000"})
+    int entryCount;
+
+    @Param({"64", "512"})
+    short maxChildIndexEntries;
+
+    private File cacheDir;
+    private BTreePersistentIndexedCache<String, Long> cache;
+    private String[] keys;
+    private String[] missingKeys;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheDir = File.createTempFile("btree", "benchmark");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+        cache = new BTreePersistentIndexedCache<String, Long>(new File(cacheDir, "cache.bin"), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER, maxChildIndexEntries, 512);
+        keys = new String[entryCount];
+        missingKeys = new String[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            keys[i] = "/home/user/project/module" + (i % 100) + "/src/main/java/org/gradle/File" + i + ".java";
+            missingKeys[i] = "/home/user/project/module" + (i % 100) + "/src/test/java/org/gradle/File" + i + ".java";
+            cache.put(keys[i], (long) i);
+        }
+        random = new Random(SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        new File(cacheDir, "cache.bin").delete();
+        cacheDir.delete();
+    }
+
+    @Benchmark
+    public void getExisting(Blackhole bh) {
+        bh.consume(cache.get(keys[random.nextInt(entryCount)]));
+    }
+
+    @Benchmark
+    public void getMissing(Blackhole bh) {
+        bh.consume(cache.get(missingKeys[random.nextInt(entryCount)]));
+    }
+
+    @Benchmark
+    public void update() {
+        int index = random.nextInt(entryCount);
+        cache.put(keys[index], (long) index + 1);
+    }
+}
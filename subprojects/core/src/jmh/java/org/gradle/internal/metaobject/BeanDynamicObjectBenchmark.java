@@ -0,0 +1,153 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import org.gradle.api.internal.plugins.DefaultConvention;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replays the dynamic property and method lookups that a typical build script makes while configuring a project:
+ * properties of the project itself, properties contributed by convention objects, extension configure methods and lookups of unknown names that
+ * fall through all of them.
+ */
+@State(Scope.Benchmark)
+public class BeanDynamicObjectBenchmark {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    @Param({"1", "5", "20"})
+    int conventionCount;
+
+    private DynamicObject project;
+    private DynamicObject conventions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DefaultConvention convention = new DefaultConvention();
+        for (int i = 0; i < conventionCount - 1; i++) {
+            convention.getPlugins().put("other" + i, new OtherConvention());
+        }
+        convention.getPlugins().put("java", new JavaConvention());
+        convention.add("publishing", new PublishingExtension());
+        project = new BeanDynamicObject(new Project());
+        conventions = convention.getExtensionsAsDynamicObject();
+    }
+
+    @Benchmark
+    public void configureProject(Blackhole bh) {
+        // version = '1.0', description = '...'
+        project.setProperty("version", "1.0");
+        project.setProperty("description", "A project");
+        // println name
+        bh.consume(project.getProperty("name"));
+        bh.consume(project.invokeMethod("file", "src/main/java"));
+    }
+
+    @Benchmark
+    public void configureConventions(Blackhole bh) {
+        // sourceCompatibility = '1.7', targetCompatibility = '1.7'
+        SetPropertyResult setResult = new SetPropertyResult();
+        conventions.setProperty("sourceCompatibility", "1.7", setResult);
+        setResult = new SetPropertyResult();
+        conventions.setProperty("targetCompatibility", "1.7", setResult);
+        GetPropertyResult getResult = new GetPropertyResult();
+        conventions.getProperty("sourceCompatibility", getResult);
+        bh.consume(getResult.getValue());
+    }
+
+    @Benchmark
+    public void lookupUnknownNames(Blackhole bh) {
+        // Names such as task names or extra properties are looked up on the project and its conventions before they are found elsewhere
+        bh.consume(project.hasProperty("compileJava"));
+        GetPropertyResult getResult = new GetPropertyResult();
+        conventions.getProperty("compileJava", getResult);
+        bh.consume(getResult.isFound());
+        InvokeMethodResult invokeResult = new InvokeMethodResult();
+        conventions.invokeMethod("dependencies", invokeResult, NO_ARGS);
+        bh.consume(invokeResult.isFound());
+    }
+
+    public static class Project {
+        private String version;
+        private String description;
+
+        public String getName() {
+            return "project";
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public String file(String path) {
+            return path;
+        }
+    }
+
+    public static class JavaConvention {
+        private String sourceCompatibility;
+        private String targetCompatibility;
+
+        public String getSourceCompatibility() {
+            return sourceCompatibility;
+        }
+
+        public void setSourceCompatibility(String sourceCompatibility) {
+            this.sourceCompatibility = sourceCompatibility;
+        }
+
+        public String getTargetCompatibility() {
+            return targetCompatibility;
+        }
+
+        public void setTargetCompatibility(String targetCompatibility) {
+            this.targetCompatibility = targetCompatibility;
+        }
+    }
+
+    public static class OtherConvention {
+        private String reportsDirName = "reports";
+
+        public String getReportsDirName() {
+            return reportsDirName;
+        }
+
+        public void setReportsDirName(String reportsDirName) {
+            this.reportsDirName = reportsDirName;
+        }
+    }
+
+    public static class PublishingExtension {
+    }
+}
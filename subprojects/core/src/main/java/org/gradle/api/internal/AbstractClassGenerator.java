@@ -53,6 +53,7 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
     private static final Map<Class<?>, Map<Class<?>, Class<?>>> GENERATED_CLASSES = new HashMap<Class<?>, Map<Class<?>, Class<?>>>();
     private static final Lock CACHE_LOCK = new ReentrantLock();
     private static final Collection<String> SKIP_PROPERTIES = Arrays.asList("class", "metaClass", "conventionMapping", "convention", "asDynamicObject", "extensions");
+    private final ClassGenerationStatistics statistics = new ClassGenerationStatistics();
 
     public <T> T newInstance(Class<T> type, Object... parameters) {
         return DirectInstantiator.instantiate(generate(type), parameters);
@@ -91,119 +92,146 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         }
 
         Class<? extends T> subclass;
+        long start = System.nanoTime();
         try {
-            ClassMetaData classMetaData = inspectType(type);
+            subclass = loadGeneratedClass(type);
+            if (subclass != null) {
+                statistics.classLoaded(System.nanoTime() - start);
+            } else {
+                subclass = generateClass(type);
+                statistics.classGenerated(System.nanoTime() - start);
+            }
+        } catch (Throwable e) {
+            throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
+        }
 
-            ClassBuilder<T> builder = start(type, classMetaData);
+        cache.put(type, subclass);
+        cache.put(subclass, subclass);
+        return subclass;
+    }
 
-            builder.startClass();
+    private <T> Class<? extends T> generateClass(Class<T> type) throws Exception {
+        ClassMetaData classMetaData = inspectType(type);
 
-            if (!DynamicObjectAware.class.isAssignableFrom(type)) {
-                if (ExtensionAware.class.isAssignableFrom(type)) {
-                    throw new UnsupportedOperationException("A type that implements ExtensionAware must currently also implement DynamicObjectAware.");
-                }
-                builder.mixInDynamicAware();
-            }
-            if (!GroovyObject.class.isAssignableFrom(type)) {
-                builder.mixInGroovyObject();
-            }
-            builder.addDynamicMethods();
-            if (classMetaData.conventionAware && !IConventionAware.class.isAssignableFrom(type)) {
-                builder.mixInConventionAware();
+        ClassBuilder<T> builder = start(type, classMetaData);
+
+        builder.startClass();
+
+        if (!DynamicObjectAware.class.isAssignableFrom(type)) {
+            if (ExtensionAware.class.isAssignableFrom(type)) {
+                throw new UnsupportedOperationException("A type that implements ExtensionAware must currently also implement DynamicObjectAware.");
             }
+            builder.mixInDynamicAware();
+        }
+        if (!GroovyObject.class.isAssignableFrom(type)) {
+            builder.mixInGroovyObject();
+        }
+        builder.addDynamicMethods();
+        if (classMetaData.conventionAware && !IConventionAware.class.isAssignableFrom(type)) {
+            builder.mixInConventionAware();
+        }
 
-            Class noMappingClass = Object.class;
-            for (Class<?> c = type; c != null && noMappingClass == Object.class; c = c.getSuperclass()) {
-                if (c.getAnnotation(NoConventionMapping.class) != null) {
-                    noMappingClass = c;
-                }
+        Class noMappingClass = Object.class;
+        for (Class<?> c = type; c != null && noMappingClass == Object.class; c = c.getSuperclass()) {
+            if (c.getAnnotation(NoConventionMapping.class) != null) {
+                noMappingClass = c;
             }
+        }
 
-            Set<PropertyMetaData> conventionProperties = new HashSet<PropertyMetaData>();
+        Set<PropertyMetaData> conventionProperties = new HashSet<PropertyMetaData>();
 
-            for (PropertyMetaData property : classMetaData.properties.values()) {
-                if (SKIP_PROPERTIES.contains(property.name)) {
-                    continue;
-                }
+        for (PropertyMetaData property : classMetaData.properties.values()) {
+            if (SKIP_PROPERTIES.contains(property.name)) {
+                continue;
+            }
 
-                if (property.injector) {
-                    builder.addInjectorProperty(property);
-                    for (Method getter : property.getters) {
-                        builder.applyServiceInjectionToGetter(property, getter);
-                    }
-                    for (Method setter : property.setters) {
-                        builder.applyServiceInjectionToSetter(property, setter);
-                    }
-                    continue;
+            if (property.injector) {
+                builder.addInjectorProperty(property);
+                for (Method getter : property.getters) {
+                    builder.applyServiceInjectionToGetter(property, getter);
                 }
+                for (Method setter : property.setters) {
+                    builder.applyServiceInjectionToSetter(property, setter);
+                }
+                continue;
+            }
 
-                boolean needsConventionMapping = false;
-                if (classMetaData.isExtensible()) {
-                    for (Method getter : property.getters) {
-                        if (!Modifier.isFinal(getter.getModifiers()) && !getter.getDeclaringClass().isAssignableFrom(noMappingClass)) {
-                            needsConventionMapping = true;
-                            break;
-                        }
+            boolean needsConventionMapping = false;
+            if (classMetaData.isExtensible()) {
+                for (Method getter : property.getters) {
+                    if (!Modifier.isFinal(getter.getModifiers()) && !getter.getDeclaringClass().isAssignableFrom(noMappingClass)) {
+                        needsConventionMapping = true;
+                        break;
                     }
                 }
+            }
 
-                if (needsConventionMapping) {
-                    conventionProperties.add(property);
-                    builder.addConventionProperty(property);
-                    for (Method getter : property.getters) {
-                        builder.applyConventionMappingToGetter(property, getter);
-                    }
+            if (needsConventionMapping) {
+                conventionProperties.add(property);
+                builder.addConventionProperty(property);
+                for (Method getter : property.getters) {
+                    builder.applyConventionMappingToGetter(property, getter);
                 }
+            }
 
-                if (needsConventionMapping) {
-                    for (Method setter : property.setters) {
-                        if (!Modifier.isFinal(setter.getModifiers())) {
-                            builder.applyConventionMappingToSetter(property, setter);
-                        }
+            if (needsConventionMapping) {
+                for (Method setter : property.setters) {
+                    if (!Modifier.isFinal(setter.getModifiers())) {
+                        builder.applyConventionMappingToSetter(property, setter);
                     }
                 }
             }
+        }
 
-            Set<Method> actionMethods = classMetaData.missingOverloads;
-            for (Method method : actionMethods) {
-                builder.addActionMethod(method);
+        Set<Method> actionMethods = classMetaData.missingOverloads;
+        for (Method method : actionMethods) {
+            builder.addActionMethod(method);
+        }
+
+        // Adds a set method for each mutable property
+        for (PropertyMetaData property : classMetaData.properties.values()) {
+            if (property.setters.isEmpty()) {
+                continue;
+            }
+            if (Iterable.class.isAssignableFrom(property.getType())) {
+                // Currently not supported
+                continue;
             }
 
-            // Adds a set method for each mutable property
-            for (PropertyMetaData property : classMetaData.properties.values()) {
-                if (property.setters.isEmpty()) {
-                    continue;
-                }
-                if (Iterable.class.isAssignableFrom(property.getType())) {
-                    // Currently not supported
-                    continue;
+            if (property.setMethods.isEmpty()) {
+                for (Method setter : property.setters) {
+                    builder.addSetMethod(property, setter);
                 }
-
-                if (property.setMethods.isEmpty()) {
-                    for (Method setter : property.setters) {
-                        builder.addSetMethod(property, setter);
-                    }
-                } else if (conventionProperties.contains(property)) {
-                    for (Method setMethod : property.setMethods) {
-                        builder.applyConventionMappingToSetMethod(property, setMethod);
-                    }
+            } else if (conventionProperties.contains(property)) {
+                for (Method setMethod : property.setMethods) {
+                    builder.applyConventionMappingToSetMethod(property, setMethod);
                 }
             }
+        }
 
-            for (Constructor<?> constructor : type.getConstructors()) {
-                if (Modifier.isPublic(constructor.getModifiers())) {
-                    builder.addConstructor(constructor);
-                }
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (Modifier.isPublic(constructor.getModifiers())) {
+                builder.addConstructor(constructor);
             }
-
-            subclass = builder.generate();
-        } catch (Throwable e) {
-            throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
 
-        cache.put(type, subclass);
-        cache.put(subclass, subclass);
-        return subclass;
+        return builder.generate();
+    }
+
+    /**
+     * Returns statistics about the classes generated by this generator.
+     */
+    public ClassGenerationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns a class that was previously generated for the given type, for example in another process. Returns null when the class needs to be generated,
+     * including when the previously generated class cannot be loaded.
+     */
+    @Nullable
+    protected <T> Class<? extends T> loadGeneratedClass(Class<T> type) throws Exception {
+        return null;
     }
 
     protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
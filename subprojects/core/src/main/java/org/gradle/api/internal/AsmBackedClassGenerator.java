@@ -25,6 +25,8 @@ import groovy.lang.MetaClassRegistry;
 import org.gradle.api.Action;
 import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ExtensionAware;
 import org.gradle.internal.UncheckedException;
@@ -37,6 +39,7 @@ import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.util.CollectionUtils;
 import org.gradle.util.ConfigureUtil;
 import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -61,11 +64,55 @@ import static org.objectweb.asm.Type.VOID_TYPE;
 
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
 
+    private static final Logger LOGGER = Logging.getLogger(AsmBackedClassGenerator.class);
     private static final JavaMethod<ClassLoader, Class> DEFINE_CLASS_METHOD = JavaReflectionUtil.method(ClassLoader.class, Class.class, "defineClass", String.class, byte[].class, Integer.TYPE, Integer.TYPE);
+    private final GeneratedClassBytecodeCache bytecodeCache;
+
+    public AsmBackedClassGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param bytecodeCache The cache to reuse the bytecode of classes generated by other processes, or by this process for another class loader.
+     */
+    public AsmBackedClassGenerator(@Nullable GeneratedClassBytecodeCache bytecodeCache) {
+        this.bytecodeCache = bytecodeCache;
+    }
+
+    @Override
+    protected <T> Class<? extends T> loadGeneratedClass(Class<T> type) {
+        if (bytecodeCache == null) {
+            return null;
+        }
+        String key = bytecodeCache.keyFor(type);
+        if (key == null) {
+            return null;
+        }
+        byte[] bytecode = bytecodeCache.load(key);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            String className = new ClassReader(bytecode).getClassName();
+            if (!className.equals(Type.getInternalName(type) + "_Decorated")) {
+                throw new IllegalArgumentException(String.format("Cached bytecode defines class %s.", className));
+            }
+            return defineClass(type, bytecode);
+        } catch (Throwable e) {
+            // The class is generated again below, so discard the broken entry rather than failing
+            LOGGER.debug("Could not load generated class for {} from cached bytecode. Discarding it.", type.getName(), e);
+            bytecodeCache.remove(key);
+            return null;
+        }
+    }
 
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+        return new ClassBuilderImpl<T>(type, classMetaData, bytecodeCache);
+    }
+
+    private static <T> Class<? extends T> defineClass(Class<T> type, byte[] bytecode) {
+        return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), type.getName() + "_Decorated", bytecode, 0, bytecode.length);
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -126,9 +173,11 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean conventionAware;
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
+        private final GeneratedClassBytecodeCache bytecodeCache;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, @Nullable GeneratedClassBytecodeCache bytecodeCache) {
             this.type = type;
+            this.bytecodeCache = bytecodeCache;
 
             visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
             typeName = type.getName() + "_Decorated";
@@ -905,7 +954,14 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             visitor.visitEnd();
 
             byte[] bytecode = visitor.toByteArray();
-            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            Class<? extends T> generatedClass = defineClass(type, bytecode);
+            if (bytecodeCache != null) {
+                String key = bytecodeCache.keyFor(type);
+                if (key != null) {
+                    bytecodeCache.store(key, bytecode);
+                }
+            }
+            return generatedClass;
         }
 
         private void writeGenericReturnTypeFields() {
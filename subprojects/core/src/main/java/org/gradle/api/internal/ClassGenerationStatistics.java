@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the classes produced by a {@link ClassGenerator}, and the time spent producing them.
+ */
+public class ClassGenerationStatistics {
+    private final AtomicLong generatedCount = new AtomicLong();
+    private final AtomicLong generatedNanos = new AtomicLong();
+    private final AtomicLong loadedCount = new AtomicLong();
+    private final AtomicLong loadedNanos = new AtomicLong();
+
+    void classGenerated(long nanos) {
+        generatedCount.incrementAndGet();
+        generatedNanos.addAndGet(nanos);
+    }
+
+    void classLoaded(long nanos) {
+        loadedCount.incrementAndGet();
+        loadedNanos.addAndGet(nanos);
+    }
+
+    /**
+     * The number of classes that were generated.
+     */
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+
+    public long getGeneratedNanos() {
+        return generatedNanos.get();
+    }
+
+    /**
+     * The number of classes that were loaded from previously generated bytecode.
+     */
+    public long getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    public long getLoadedNanos() {
+        return loadedNanos.get();
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.util.GradleVersion;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Stores generated classes in a cache in the Gradle user home directory, so that they can be reused by later builds and other daemons.
+ *
+ * <p>The key of a generated class is calculated from the bytecode of the type and all of its supertypes, along with the implementation of the generator,
+ * which includes its supertypes and their nested and anonymous classes. Classes whose supertypes cannot be located are not cached. Entries are written atomically, so the cache does not need to be locked.</p>
+ */
+public class DefaultGeneratedClassBytecodeCache implements GeneratedClassBytecodeCache, Closeable {
+    public static final String ENABLED_PROPERTY = "org.gradle.cache.generated-classes";
+    private static final Logger LOGGER = Logging.getLogger(DefaultGeneratedClassBytecodeCache.class);
+    private static final int CACHE_FORMAT_VERSION = 1;
+
+    private final PersistentCache cache;
+    private final LoadingCache<Class<?>, Optional<HashCode>> classHashes = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<Class<?>, Optional<HashCode>>() {
+        @Override
+        public Optional<HashCode> load(Class<?> type) throws Exception {
+            return hashClass(type);
+        }
+    });
+    private final String generatorIdentity;
+    private volatile boolean closed;
+
+    public DefaultGeneratedClassBytecodeCache(CacheRepository cacheRepository, Class<? extends ClassGenerator> generatorType) {
+        this.cache = cacheRepository
+            .cache("generated-classes")
+            .withDisplayName("generated classes")
+            .withLockOptions(mode(FileLockManager.LockMode.None))
+            .open();
+        Optional<HashCode> generatorHash = hashImplementation(generatorType);
+        this.generatorIdentity = generatorType.getName() + ":" + (generatorHash.isPresent() ? generatorHash.get().toString() : GradleVersion.current().getBuildTime());
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    @Nullable
+    @Override
+    public String keyFor(Class<?> type) {
+        if (closed) {
+            return null;
+        }
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putInt(CACHE_FORMAT_VERSION);
+        hasher.putString(GradleVersion.current().getVersion(), Charsets.UTF_8);
+        hasher.putString(System.getProperty("java.version"), Charsets.UTF_8);
+        hasher.putString(generatorIdentity, Charsets.UTF_8);
+        for (Class<?> superType : collectHierarchy(type)) {
+            Optional<HashCode> hash = classHashes.getUnchecked(superType);
+            if (!hash.isPresent()) {
+                LOGGER.debug("Not caching generated class for {} as the bytecode of {} could not be located.", type.getName(), superType.getName());
+                return null;
+            }
+            hasher.putString(superType.getName(), Charsets.UTF_8);
+            hasher.putBytes(hash.get().asBytes());
+        }
+        return hasher.hash().toString();
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(String key) {
+        if (closed) {
+            return null;
+        }
+        File file = fileFor(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.toByteArray(file);
+        } catch (IOException e) {
+            LOGGER.debug("Could not read generated class from {}.", file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void store(String key, byte[] bytecode) {
+        if (closed) {
+            return;
+        }
+        File file = fileFor(key);
+        if (file.isFile()) {
+            return;
+        }
+        try {
+            File dir = file.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                throw new IOException(String.format("Could not create directory %s.", dir));
+            }
+            File tmpFile = File.createTempFile(key, ".tmp", dir);
+            try {
+                Files.write(bytecode, tmpFile);
+                if (!tmpFile.renameTo(file) && !file.isFile()) {
+                    throw new IOException(String.format("Could not rename %s to %s.", tmpFile, file));
+                }
+            } finally {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not write generated class to {}.", file, e);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        if (closed) {
+            return;
+        }
+        File file = fileFor(key);
+        if (file.isFile() && !file.delete()) {
+            LOGGER.debug("Could not delete generated class {}.", file);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cache.close();
+    }
+
+    private File fileFor(String key) {
+        return new File(cache.getBaseDir(), key.substring(0, 2) + "/" + key + ".class");
+    }
+
+    private static Set<Class<?>> collectHierarchy(Class<?> type) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        collectHierarchy(type, types);
+        return types;
+    }
+
+    private static void collectHierarchy(Class<?> type, Set<Class<?>> types) {
+        if (type == null || !types.add(type)) {
+            return;
+        }
+        collectHierarchy(type.getSuperclass(), types);
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            collectHierarchy(interfaceType, types);
+        }
+    }
+
+    private static Optional<HashCode> hashImplementation(Class<?> generatorType) {
+        Hasher hasher = Hashing.md5().newHasher();
+        for (Class<?> type : collectHierarchy(generatorType)) {
+            if (!putImplementation(type, hasher)) {
+                return Optional.absent();
+            }
+        }
+        return Optional.of(hasher.hash());
+    }
+
+    private static boolean putImplementation(Class<?> type, Hasher hasher) {
+        Optional<HashCode> hash = hashClass(type);
+        if (!hash.isPresent()) {
+            return false;
+        }
+        hasher.putString(type.getName(), Charsets.UTF_8);
+        hasher.putBytes(hash.get().asBytes());
+        if (isJvmClass(type)) {
+            return true;
+        }
+        // Anonymous classes are not reachable through reflection, so look them up by name
+        for (int i = 1;; i++) {
+            Optional<HashCode> anonymousClassHash = hashClass(type.getClassLoader(), type.getName() + "$" + i);
+            if (!anonymousClassHash.isPresent()) {
+                break;
+            }
+            hasher.putBytes(anonymousClassHash.get().asBytes());
+        }
+        for (Class<?> nestedType : type.getDeclaredClasses()) {
+            if (!putImplementation(nestedType, hasher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJvmClass(Class<?> type) {
+        return type.getClassLoader() == null || type.getName().startsWith("java.");
+    }
+
+    private static Optional<HashCode> hashClass(Class<?> type) {
+        if (isJvmClass(type)) {
+            // Classes of the JVM are covered by the Java version
+            return Optional.of(Hashing.md5().hashString(type.getName(), Charsets.UTF_8));
+        }
+        return hashClass(type.getClassLoader(), type.getName());
+    }
+
+    private static Optional<HashCode> hashClass(ClassLoader classLoader, String className) {
+        InputStream inputStream = classLoader.getResourceAsStream(className.replace('.', '/') + ".class");
+        if (inputStream == null) {
+            return Optional.absent();
+        }
+        try {
+            try {
+                return Optional.of(Hashing.md5().hashBytes(ByteStreams.toByteArray(inputStream)));
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not read bytecode of {}.", className, e);
+            return Optional.absent();
+        }
+    }
+}
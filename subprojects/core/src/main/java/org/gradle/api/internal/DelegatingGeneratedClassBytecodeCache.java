@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.api.Nullable;
+
+/**
+ * A {@link GeneratedClassBytecodeCache} for the global {@link ClassGenerator}, which delegates to the cache of the Gradle user home directory in use.
+ * Generated classes are not cached while no Gradle user home directory is in use.
+ */
+public class DelegatingGeneratedClassBytecodeCache implements GeneratedClassBytecodeCache {
+    private volatile GeneratedClassBytecodeCache delegate;
+
+    /**
+     * Uses the given cache in place of any cache that was attached before.
+     */
+    public void attach(GeneratedClassBytecodeCache cache) {
+        delegate = cache;
+    }
+
+    @Nullable
+    @Override
+    public String keyFor(Class<?> type) {
+        GeneratedClassBytecodeCache cache = delegate;
+        return cache == null ? null : cache.keyFor(type);
+    }
+
+    @Nullable
+    @Override
+    public byte[] load(String key) {
+        GeneratedClassBytecodeCache cache = delegate;
+        return cache == null ? null : cache.load(key);
+    }
+
+    @Override
+    public void store(String key, byte[] bytecode) {
+        GeneratedClassBytecodeCache cache = delegate;
+        if (cache != null) {
+            cache.store(key, bytecode);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        GeneratedClassBytecodeCache cache = delegate;
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+}
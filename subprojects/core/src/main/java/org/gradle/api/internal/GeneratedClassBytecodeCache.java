@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import org.gradle.api.Nullable;
+
+/**
+ * Stores the bytecode of classes generated by a {@link ClassGenerator}, so that it can be reused by later builds.
+ */
+public interface GeneratedClassBytecodeCache {
+    /**
+     * Returns the key of the class generated for the given type, or null when the generated class should not be cached.
+     * The key changes whenever the generated class may change.
+     */
+    @Nullable
+    String keyFor(Class<?> type);
+
+    /**
+     * Returns the bytecode stored with the given key, or null when there is none.
+     */
+    @Nullable
+    byte[] load(String key);
+
+    void store(String key, byte[] bytecode);
+
+    /**
+     * Discards the bytecode stored with the given key, for example when it cannot be loaded.
+     */
+    void remove(String key);
+}
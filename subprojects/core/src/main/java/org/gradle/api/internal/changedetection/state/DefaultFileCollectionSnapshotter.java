@@ -31,6 +31,7 @@ import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.SingletonFileTree;
 import org.gradle.api.internal.tasks.TaskFilePropertySpec;
 import org.gradle.api.internal.tasks.execution.TaskOutputsGenerationListener;
+import org.gradle.internal.Factory;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.serialize.SerializerRegistry;
 
@@ -45,7 +46,8 @@ import static org.gradle.api.internal.changedetection.state.TaskFilePropertyComp
 /**
  * Responsible for calculating a {@link FileCollectionSnapshot} for a particular {@link FileCollection}.
  *
- * <p>Implementation performs some in-memory caching, should be notified of potential changes by calling {@link #beforeTaskOutputsGenerated()}.</p>
+ * <p>Implementation performs some in-memory caching, should be notified of potential changes by calling {@link #beforeTaskOutputsGenerated()}.
+ * The details of files and directory trees can also be retained across builds by a {@link FileSystemMirror}.</p>
  */
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter, TaskOutputsGenerationListener {
     private static final DefaultFileCollectionSnapshot EMPTY_SNAPSHOT = new DefaultFileCollectionSnapshot(ImmutableMap.<String, NormalizedFileSnapshot>of(), UNORDERED, true);
@@ -53,20 +55,27 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
     private final StringInterner stringInterner;
     private final FileSystem fileSystem;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final FileSystemMirror fileSystemMirror;
     // Map from interned absolute path for a file to known details for the file. Currently used only for root files, not those nested in a directory
     private final Map<String, DefaultFileDetails> rootFiles = new ConcurrentHashMap<String, DefaultFileDetails>();
 
     public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(snapshotter, stringInterner, fileSystem, directoryFileTreeFactory, FileSystemMirror.NO_OP);
+    }
+
+    public DefaultFileCollectionSnapshotter(FileSnapshotter snapshotter, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
         this.snapshotter = snapshotter;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.fileSystemMirror = fileSystemMirror;
     }
 
     @Override
     public void beforeTaskOutputsGenerated() {
         // When the task outputs are generated, throw away all cached state. This is intentionally very simple, to be improved later
         rootFiles.clear();
+        fileSystemMirror.beforeTaskOutputsGenerated();
     }
 
     @Override
@@ -98,7 +107,7 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
                 if (fileDetails.type == Directory) {
                     snapshot = DirSnapshot.getInstance();
                 } else {
-                    snapshot = new FileHashSnapshot(snapshotter.snapshot(fileDetails.details).getHash(), fileDetails.details.getLastModified());
+                    snapshot = fileDetails.getContent(snapshotter);
                 }
                 NormalizedFileSnapshot normalizedSnapshot = snapshotNormalizationStrategy.getNormalizedSnapshot(fileDetails, snapshot, stringInterner);
                 if (normalizedSnapshot != null) {
@@ -131,10 +140,15 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
         @Override
         public void visitCollection(FileCollectionInternal fileCollection) {
-            for (File file : fileCollection) {
+            for (final File file : fileCollection) {
                 DefaultFileDetails details = rootFiles.get(file.getPath());
                 if (details == null) {
-                    details = calculateDetails(file);
+                    details = fileSystemMirror.getFile(file, new Factory<DefaultFileDetails>() {
+                        @Override
+                        public DefaultFileDetails create() {
+                            return calculateDetails(file);
+                        }
+                    });
                     rootFiles.put(details.path, details);
                 }
                 switch (details.type) {
@@ -176,8 +190,15 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
 
         @Override
-        public void visitDirectoryTree(DirectoryFileTree directoryTree) {
-            directoryTree.visit(this);
+        public void visitDirectoryTree(final DirectoryFileTree directoryTree) {
+            fileTreeElements.addAll(fileSystemMirror.getDirectoryTree(directoryTree, new Factory<List<DefaultFileDetails>>() {
+                @Override
+                public List<DefaultFileDetails> create() {
+                    List<DefaultFileDetails> contents = Lists.newArrayList();
+                    directoryTree.visit(new FileCollectionVisitorImpl(contents, missingFiles));
+                    return contents;
+                }
+            }));
         }
 
         @Override
@@ -24,6 +24,8 @@ class DefaultFileDetails implements FileDetails {
     final String path;
     final FileType type;
     final FileTreeElement details;
+    // The snapshot of the content of the file, once calculated
+    private volatile IncrementalFileSnapshot content;
 
     DefaultFileDetails(String path, FileType type, FileTreeElement details) {
         this.path = path;
@@ -31,6 +33,15 @@ class DefaultFileDetails implements FileDetails {
         this.details = details;
     }
 
+    IncrementalFileSnapshot getContent(FileSnapshotter snapshotter) {
+        IncrementalFileSnapshot content = this.content;
+        if (content == null) {
+            content = new FileHashSnapshot(snapshotter.snapshot(details).getHash(), details.getLastModified());
+            this.content = content;
+        }
+        return content;
+    }
+
     @Override
     public String getPath() {
         return path;
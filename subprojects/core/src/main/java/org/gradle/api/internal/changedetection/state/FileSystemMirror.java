@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.internal.tasks.execution.TaskOutputsGenerationListener;
+import org.gradle.internal.Factory;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Retains the details of files and directory trees between snapshots, so that they do not need to be read from the file system again.
+ *
+ * <p>Implementations are notified of potential changes by calling {@link #beforeBuildStarted()} and {@link #beforeTaskOutputsGenerated()}.</p>
+ */
+public interface FileSystemMirror extends TaskOutputsGenerationListener {
+    FileSystemMirror NO_OP = new FileSystemMirror() {
+        @Override
+        public DefaultFileDetails getFile(File file, Factory<DefaultFileDetails> calculator) {
+            return calculator.create();
+        }
+
+        @Override
+        public List<DefaultFileDetails> getDirectoryTree(DirectoryFileTree directoryTree, Factory<List<DefaultFileDetails>> walker) {
+            return walker.create();
+        }
+
+        @Override
+        public void beforeBuildStarted() {
+        }
+
+        @Override
+        public void beforeTaskOutputsGenerated() {
+        }
+    };
+
+    /**
+     * Called at the start of each build, before any details are requested by that build.
+     */
+    void beforeBuildStarted();
+
+    /**
+     * Returns the details of the given file, using the given calculator when the details are not known.
+     */
+    DefaultFileDetails getFile(File file, Factory<DefaultFileDetails> calculator);
+
+    /**
+     * Returns the details of the contents of the given directory tree, using the given walker when the contents are not known.
+     */
+    List<DefaultFileDetails> getDirectoryTree(DirectoryFileTree directoryTree, Factory<List<DefaultFileDetails>> walker);
+}
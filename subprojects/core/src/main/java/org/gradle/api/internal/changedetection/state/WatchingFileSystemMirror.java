@@ -0,0 +1,348 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.file.collections.DirectoryFileTree;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link FileSystemMirror} that retains the details of files and directory trees across builds, and uses a file watcher to discard the
+ * details of anything that changes.
+ *
+ * <p>A file or directory tree is watched before it is first read, and its details are only retained when no change was reported while
+ * they were being read. Missing files, and directory trees filtered using specs, are not retained.</p>
+ *
+ * <p>Because change notifications are delivered asynchronously, all retained details are discarded before task outputs are generated,
+ * so that a task never sees stale details of the files written by an earlier task. A build in which no task does any work does not
+ * need to read the file system at all.</p>
+ *
+ * <p>For the same reason, changes made between builds may not have been reported yet when the next build starts. At the start of each
+ * build, the mirror creates a marker file in a watched directory and waits for its notification. As the watcher delivers notifications
+ * in order, all changes made before the build started have been processed by then. When the notification does not arrive in time,
+ * all retained details are discarded.</p>
+ *
+ * <p>Enabled using the {@value #ENABLED_PROPERTY} system property. Not supported on macOS, where the JDK watch service polls for changes.</p>
+ */
+public class WatchingFileSystemMirror implements FileSystemMirror, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.filewatch.snapshots";
+    private static final Logger LOGGER = Logging.getLogger(WatchingFileSystemMirror.class);
+    private static final long SYNC_TIMEOUT_MILLIS = 2000;
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final File syncDir;
+    private final long syncTimeoutMillis;
+    private final Map<String, DefaultFileDetails> files = new ConcurrentHashMap<String, DefaultFileDetails>();
+    private final Map<DirectoryTreeKey, List<DefaultFileDetails>> trees = new ConcurrentHashMap<DirectoryTreeKey, List<DefaultFileDetails>>();
+    private final Object lock = new Object();
+    // All of the following are guarded by lock
+    private FileWatcher watcher;
+    private long changeCount;
+    private boolean stopped;
+    private long syncRequested;
+    private long syncReceived;
+
+    public WatchingFileSystemMirror(FileWatcherFactory fileWatcherFactory, File syncDir) {
+        this(fileWatcherFactory, syncDir, SYNC_TIMEOUT_MILLIS);
+    }
+
+    WatchingFileSystemMirror(FileWatcherFactory fileWatcherFactory, File syncDir, long syncTimeoutMillis) {
+        this.fileWatcherFactory = fileWatcherFactory;
+        this.syncDir = syncDir.getAbsoluteFile();
+        this.syncTimeoutMillis = syncTimeoutMillis;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY) && !OperatingSystem.current().isMacOsX();
+    }
+
+    @Override
+    public DefaultFileDetails getFile(File file, Factory<DefaultFileDetails> calculator) {
+        String path = file.getAbsolutePath();
+        DefaultFileDetails details = files.get(path);
+        if (details != null) {
+            return details;
+        }
+        long changesBefore = watch(file);
+        details = calculator.create();
+        if (details.type != FileDetails.FileType.Missing) {
+            synchronized (lock) {
+                if (changesBefore == changeCount) {
+                    files.put(path, details);
+                }
+            }
+        }
+        return details;
+    }
+
+    @Override
+    public List<DefaultFileDetails> getDirectoryTree(DirectoryFileTree directoryTree, Factory<List<DefaultFileDetails>> walker) {
+        DirectoryTreeKey key = DirectoryTreeKey.of(directoryTree);
+        if (key == null) {
+            return walker.create();
+        }
+        List<DefaultFileDetails> contents = trees.get(key);
+        if (contents != null) {
+            return contents;
+        }
+        long changesBefore = watch(directoryTree.getDir());
+        contents = walker.create();
+        synchronized (lock) {
+            if (changesBefore == changeCount) {
+                trees.put(key, contents);
+            }
+        }
+        return contents;
+    }
+
+    @Override
+    public void beforeBuildStarted() {
+        long token;
+        synchronized (lock) {
+            if (watcher == null || files.isEmpty() && trees.isEmpty()) {
+                return;
+            }
+            token = ++syncRequested;
+        }
+        if (!sync(token)) {
+            LOGGER.info("Discarding retained file system state, as pending changes could not be processed in time.");
+            synchronized (lock) {
+                discardAll();
+            }
+        }
+    }
+
+    @Override
+    public void beforeTaskOutputsGenerated() {
+        synchronized (lock) {
+            discardAll();
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            discardAll();
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+            lock.notifyAll();
+        }
+        GFileUtils.deleteQuietly(syncDir);
+    }
+
+    /**
+     * Starts watching the given file or directory, and returns the change count at that point. Returns -1 when changes cannot be watched.
+     */
+    private long watch(File file) {
+        FileWatcher currentWatcher;
+        long changesBefore;
+        synchronized (lock) {
+            if (stopped) {
+                return -1;
+            }
+            if (watcher == null) {
+                watcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                    @Override
+                    public void execute(Throwable throwable) {
+                        onWatchFailure(throwable);
+                    }
+                }, new FileWatcherListener() {
+                    @Override
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        onFileChange(event);
+                    }
+                });
+            }
+            currentWatcher = watcher;
+            changesBefore = changeCount;
+        }
+        try {
+            currentWatcher.watch(FileSystemSubset.builder().add(file).build());
+            return changesBefore;
+        } catch (IOException e) {
+            LOGGER.debug("Could not watch {} for changes.", file, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Creates a marker file in the sync directory and waits until the watcher reports it, so that all changes reported before it have been processed.
+     */
+    private boolean sync(long token) {
+        syncDir.mkdirs();
+        if (watch(syncDir) < 0) {
+            return false;
+        }
+        File marker = new File(syncDir, String.valueOf(token));
+        try {
+            if (!marker.createNewFile()) {
+                return false;
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not create file watch marker {}.", marker, e);
+            return false;
+        }
+        try {
+            long deadline = System.currentTimeMillis() + syncTimeoutMillis;
+            synchronized (lock) {
+                while (syncReceived < token) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0 || watcher == null) {
+                        return false;
+                    }
+                    try {
+                        lock.wait(remaining);
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                return true;
+            }
+        } finally {
+            marker.delete();
+        }
+    }
+
+    private void onFileChange(FileWatcherEvent event) {
+        synchronized (lock) {
+            if (event.getType() == FileWatcherEvent.Type.UNDEFINED || event.getFile() == null) {
+                discardAll();
+                return;
+            }
+            if (syncDir.equals(event.getFile().getAbsoluteFile().getParentFile())) {
+                onSyncMarkerChange(event);
+                return;
+            }
+            changeCount++;
+            String changedPath = event.getFile().getAbsolutePath();
+            for (Iterator<String> iterator = files.keySet().iterator(); iterator.hasNext();) {
+                if (isAffectedBy(iterator.next(), changedPath)) {
+                    iterator.remove();
+                }
+            }
+            for (Iterator<DirectoryTreeKey> iterator = trees.keySet().iterator(); iterator.hasNext();) {
+                if (isAffectedBy(iterator.next().dir, changedPath)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private void onSyncMarkerChange(FileWatcherEvent event) {
+        if (event.getType() != FileWatcherEvent.Type.CREATE) {
+            return;
+        }
+        try {
+            long token = Long.parseLong(event.getFile().getName());
+            if (token > syncReceived) {
+                syncReceived = token;
+                lock.notifyAll();
+            }
+        } catch (NumberFormatException e) {
+            // Not a marker
+        }
+    }
+
+    private void onWatchFailure(Throwable failure) {
+        LOGGER.info("Discarding retained file system state, as watching for changes failed.", failure);
+        synchronized (lock) {
+            discardAll();
+            watcher = null;
+            lock.notifyAll();
+        }
+    }
+
+    private void discardAll() {
+        changeCount++;
+        files.clear();
+        trees.clear();
+    }
+
+    private static boolean isAffectedBy(String path, String changedPath) {
+        return path.equals(changedPath) || isAncestor(changedPath, path) || isAncestor(path, changedPath);
+    }
+
+    private static boolean isAncestor(String ancestor, String path) {
+        return path.length() > ancestor.length() && path.startsWith(ancestor) && path.charAt(ancestor.length()) == File.separatorChar;
+    }
+
+    private static class DirectoryTreeKey {
+        private final String dir;
+        private final ImmutableSet<String> includes;
+        private final ImmutableSet<String> excludes;
+        private final boolean caseSensitive;
+
+        private DirectoryTreeKey(String dir, ImmutableSet<String> includes, ImmutableSet<String> excludes, boolean caseSensitive) {
+            this.dir = dir;
+            this.includes = includes;
+            this.excludes = excludes;
+            this.caseSensitive = caseSensitive;
+        }
+
+        @Nullable
+        static DirectoryTreeKey of(DirectoryFileTree directoryTree) {
+            PatternSet patterns = directoryTree.getPatterns();
+            if (!patterns.getIncludeSpecs().isEmpty() || !patterns.getExcludeSpecs().isEmpty()) {
+                // Specs cannot be compared reliably
+                return null;
+            }
+            return new DirectoryTreeKey(directoryTree.getDir().getAbsolutePath(), ImmutableSet.copyOf(patterns.getIncludes()), ImmutableSet.copyOf(patterns.getExcludes()), patterns.isCaseSensitive());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DirectoryTreeKey other = (DirectoryTreeKey) o;
+            return caseSensitive == other.caseSensitive && dir.equals(other.dir) && includes.equals(other.includes) && excludes.equals(other.excludes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(dir, includes, excludes, caseSensitive);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.internal.IoActions;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Manages the directory into which the entries of an archive are extracted, for consumers that need a file for an entry.
+ *
+ * <p>When the archive is a local file, the directory is keyed by a hash of the size and timestamp of the archive, so that entries extracted
+ * by earlier visits are reused for as long as the archive does not change, and the directories for earlier versions of the archive are removed.
+ * An extracted entry is only reused when its content still matches the CRC-32 of the entry recorded in the archive, so that extracted files that
+ * have been modified, or an archive that has been rewritten without changing its size and timestamp, are detected.
+ * Otherwise, the entries are extracted again each time a file is requested.</p>
+ */
+class ArchiveExtractionCache {
+    private final File baseDir;
+    private final String prefix;
+    private final File archive;
+
+    /**
+     * @param archive The local archive file, or null if not known.
+     */
+    ArchiveExtractionCache(File baseDir, String baseName, String archiveId, @Nullable File archive) {
+        this.baseDir = baseDir;
+        this.prefix = baseName + "_" + HashUtil.createCompactMD5(archiveId);
+        this.archive = archive;
+    }
+
+    /**
+     * Returns the directory into which the current version of the archive is extracted.
+     */
+    File getDir() {
+        if (archive == null) {
+            return new File(baseDir, prefix);
+        }
+        return new File(baseDir, prefix + "_" + HashUtil.createCompactMD5(archive.length() + ":" + archive.lastModified()));
+    }
+
+    /**
+     * Returns the file for the given entry, extracting it if it has not been extracted for the current version of the archive.
+     *
+     * @param crc The CRC-32 of the content of the entry, or -1 if not known. An entry without a known CRC is always extracted again.
+     */
+    File getFile(AbstractFileTreeElement entry, long crc) {
+        File dir = getDir();
+        File target = new File(dir, entry.getPath());
+        if (entry.isDirectory()) {
+            entry.copyTo(target);
+            return target;
+        }
+        if (archive != null && crc != -1 && target.isFile() && target.length() == entry.getSize() && crc(target) == crc) {
+            return target;
+        }
+        if (archive != null && !dir.exists()) {
+            removeStaleDirs(dir);
+        }
+
+        // Extract to a temporary file first, so that other consumers never see a partially extracted entry
+        GFileUtils.mkdirs(baseDir);
+        File tmpFile;
+        try {
+            tmpFile = File.createTempFile("entry", ".tmp", baseDir);
+        } catch (IOException e) {
+            throw new GradleException(String.format("Could not copy %s to '%s'.", entry.getDisplayName(), target), e);
+        }
+        try {
+            entry.copyTo(tmpFile);
+            GFileUtils.mkdirs(target.getParentFile());
+            if (!tmpFile.renameTo(target)) {
+                GFileUtils.deleteQuietly(target);
+                GFileUtils.moveFile(tmpFile, target);
+            }
+        } finally {
+            GFileUtils.deleteQuietly(tmpFile);
+        }
+        return target;
+    }
+
+    private static long crc(File file) {
+        CRC32 crc = new CRC32();
+        InputStream inputStream = GFileUtils.openInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            IoActions.closeQuietly(inputStream);
+        }
+        return crc.getValue();
+    }
+
+    private void removeStaleDirs(final File current) {
+        File[] staleDirs = baseDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory() && file.getName().startsWith(prefix + "_") && !file.equals(current);
+            }
+        });
+        if (staleDirs != null) {
+            for (File staleDir : staleDirs) {
+                GFileUtils.deleteQuietly(staleDir);
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Creates a ZIP file, compressing the entries in parallel.
+ *
+ * <p>The content of each entry is read on the calling thread, as the source of an entry may only be readable while the copy stream is being processed.
+ * The content is then compressed into a separate buffer on a worker thread, and the compressed entries are written to the archive in their original order.
+ * Content larger than {@value #IN_MEMORY_THRESHOLD} bytes is buffered in the temporary directory rather than in memory, and the number of entries
+ * waiting to be written is bounded.</p>
+ *
+ * <p>When the archive is reproducible, no entry is written until all entries have been read, so that they can be written in
+ * {@link ZipCopyAction#REPRODUCIBLE_ENTRY_ORDER}. Once more than {@value #MAX_PENDING_BYTES} bytes are buffered in memory, the content of
+ * further entries is buffered in the temporary directory.</p>
+ */
+public class ParallelZipCopyAction implements CopyAction {
+    /**
+     * Enables compressing ZIP entries in parallel.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.archives.parallel-deflate";
+
+    private static final int IN_MEMORY_THRESHOLD = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_PENDING_ENTRIES_PER_THREAD = 16;
+    private static final InputStream EMPTY = new ByteArrayInputStream(new byte[0]);
+
+    private final File zipFile;
+    private final int entryCompressionMethod;
+    private final boolean allowZip64;
+    private final DocumentationRegistry documentationRegistry;
+    private final String encoding;
+    private final boolean reproducible;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    private final File temporaryDir;
+
+    public ParallelZipCopyAction(File zipFile, int entryCompressionMethod, boolean allowZip64, DocumentationRegistry documentationRegistry, String encoding, boolean reproducible,
+                                 ExecutorFactory executorFactory, int maxThreads, File temporaryDir) {
+        this.zipFile = zipFile;
+        this.entryCompressionMethod = entryCompressionMethod;
+        this.allowZip64 = allowZip64;
+        this.documentationRegistry = documentationRegistry;
+        this.encoding = encoding;
+        this.reproducible = reproducible;
+        this.executorFactory = executorFactory;
+        this.maxThreads = Math.max(1, maxThreads);
+        this.temporaryDir = temporaryDir;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        RawZipWriter writer;
+        try {
+            writer = new RawZipWriter(zipFile, encoding == null ? Charset.defaultCharset() : Charset.forName(encoding), allowZip64);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+
+        boolean completed = false;
+        try {
+            StoppableExecutor executor = executorFactory.create("Compress entries of " + zipFile.getName(), maxThreads);
+            StreamAction action = new StreamAction(writer, executor);
+            try {
+                stream.process(action);
+                action.writeRemainingEntries();
+            } finally {
+                action.cancelPendingEntries();
+                executor.stop();
+                action.discardPendingEntries();
+            }
+            writer.close();
+            completed = true;
+        } catch (Zip64RequiredException e) {
+            throw ZipCopyAction.zip64Required(e, documentationRegistry);
+        } catch (UncheckedIOException e) {
+            if (e.getCause() instanceof Zip64RequiredException) {
+                throw ZipCopyAction.zip64Required((Zip64RequiredException) e.getCause(), documentationRegistry);
+            }
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!completed) {
+                writer.abort();
+            }
+        }
+
+        return new SimpleWorkResult(true);
+    }
+
+    private class StreamAction implements CopyActionProcessingStreamAction {
+        private final RawZipWriter writer;
+        private final StoppableExecutor executor;
+        private final Deque<PendingEntry> pending = new ArrayDeque<PendingEntry>();
+        private long pendingBytes;
+
+        public StreamAction(RawZipWriter writer, StoppableExecutor executor) {
+            this.writer = writer;
+            this.executor = executor;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            long time = reproducible ? ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES : details.getLastModified();
+            PendingEntry entry;
+            if (details.isDirectory()) {
+                // Trailing slash in name indicates that entry is a directory
+                entry = new PendingEntry(details.toString(), details.getRelativePath().getPathString() + '/', time, details.getMode(), null);
+            } else {
+                ContentBuffer content = new ContentBuffer(temporaryDir, reproducible && pendingBytes >= MAX_PENDING_BYTES ? 0 : IN_MEMORY_THRESHOLD);
+                try {
+                    try {
+                        details.copyTo(content);
+                    } finally {
+                        content.close();
+                    }
+                } catch (Exception e) {
+                    content.discard();
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", details, zipFile), e);
+                }
+                entry = new PendingEntry(details.toString(), details.getRelativePath().getPathString(), time, details.getMode(), content);
+                entry.result = executor.submit(new CompressEntry(content));
+                pendingBytes += content.getBufferedSize();
+            }
+            pending.add(entry);
+            if (!reproducible) {
+                writePendingEntries(maxThreads * MAX_PENDING_ENTRIES_PER_THREAD, MAX_PENDING_BYTES);
+            }
+        }
+
+        void writeRemainingEntries() {
+            if (reproducible) {
+                List<PendingEntry> sorted = new ArrayList<PendingEntry>(pending);
+                Collections.sort(sorted, new Comparator<PendingEntry>() {
+                    @Override
+                    public int compare(PendingEntry entry1, PendingEntry entry2) {
+                        return ZipCopyAction.REPRODUCIBLE_ENTRY_ORDER.compare(entry1.path, entry2.path);
+                    }
+                });
+                pending.clear();
+                pending.addAll(sorted);
+            }
+            writePendingEntries(0, 0);
+        }
+
+        /**
+         * Writes entries in order until no more than the given number of entries and bytes are pending, and the next entry has not been compressed yet.
+         */
+        void writePendingEntries(int maxEntries, long maxBytes) {
+            while (!pending.isEmpty()) {
+                PendingEntry next = pending.peek();
+                if (pending.size() <= maxEntries && pendingBytes <= maxBytes && next.result != null && !next.result.isDone()) {
+                    return;
+                }
+                pending.remove();
+                if (next.content != null) {
+                    pendingBytes -= next.content.getBufferedSize();
+                }
+                write(next);
+            }
+        }
+
+        private void write(PendingEntry entry) {
+            try {
+                if (entry.result == null) {
+                    writer.addEntry(entry.path, true, entry.time, entry.mode, ZipOutputStream.STORED, 0, 0, EMPTY, 0);
+                    return;
+                }
+                CompressedEntry compressed;
+                try {
+                    compressed = entry.result.get();
+                } catch (ExecutionException e) {
+                    throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.displayName, zipFile), e.getCause());
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                try {
+                    InputStream content = compressed.content.open();
+                    try {
+                        writer.addEntry(entry.path, false, entry.time, entry.mode, entryCompressionMethod, compressed.crc, compressed.size, content, compressed.content.getLength());
+                    } finally {
+                        content.close();
+                    }
+                } finally {
+                    compressed.content.discard();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void cancelPendingEntries() {
+            for (PendingEntry entry : pending) {
+                if (entry.result != null) {
+                    entry.result.cancel(false);
+                }
+            }
+        }
+
+        void discardPendingEntries() {
+            for (PendingEntry entry : pending) {
+                if (entry.content == null) {
+                    continue;
+                }
+                entry.content.discard();
+                if (entry.result.isDone() && !entry.result.isCancelled()) {
+                    try {
+                        entry.result.get().content.discard();
+                    } catch (Exception e) {
+                        // Ignore, already failed
+                    }
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    private static class PendingEntry {
+        final String displayName;
+        final String path;
+        final long time;
+        final int mode;
+        final ContentBuffer content;
+        Future<CompressedEntry> result;
+
+        PendingEntry(String displayName, String path, long time, int mode, ContentBuffer content) {
+            this.displayName = displayName;
+            this.path = path;
+            this.time = time;
+            this.mode = mode;
+            this.content = content;
+        }
+    }
+
+    private static class CompressedEntry {
+        final ContentBuffer content;
+        final long crc;
+        final long size;
+
+        CompressedEntry(ContentBuffer content, long crc, long size) {
+            this.content = content;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+
+    private class CompressEntry implements Callable<CompressedEntry> {
+        private final ContentBuffer input;
+
+        CompressEntry(ContentBuffer input) {
+            this.input = input;
+        }
+
+        @Override
+        public CompressedEntry call() throws Exception {
+            CRC32 crc = new CRC32();
+            if (entryCompressionMethod == ZipOutputStream.STORED) {
+                InputStream inputStream = new CheckedInputStream(input.open(), crc);
+                try {
+                    byte[] buffer = new byte[8192];
+                    while (inputStream.read(buffer) >= 0) {
+                        // Calculate the CRC only
+                    }
+                } finally {
+                    inputStream.close();
+                }
+                return new CompressedEntry(input, crc.getValue(), input.getLength());
+            }
+
+            ContentBuffer output = new ContentBuffer(temporaryDir, input.inMemoryThreshold);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                InputStream inputStream = new CheckedInputStream(input.open(), crc);
+                try {
+                    DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(output, deflater, 8192);
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = inputStream.read(buffer)) >= 0) {
+                        deflaterOutput.write(buffer, 0, read);
+                    }
+                    deflaterOutput.finish();
+                } finally {
+                    inputStream.close();
+                    output.close();
+                }
+                return new CompressedEntry(output, crc.getValue(), input.getLength());
+            } catch (Exception e) {
+                output.discard();
+                throw e;
+            } finally {
+                deflater.end();
+                input.discard();
+            }
+        }
+    }
+
+    /**
+     * Buffers content in memory, and in a temporary file once it grows beyond the given threshold.
+     */
+    private static class ContentBuffer extends OutputStream {
+        private final File temporaryDir;
+        private final int inMemoryThreshold;
+        private byte[] buffer = new byte[256];
+        private int count;
+        private long length;
+        private File file;
+        private OutputStream fileOutput;
+
+        ContentBuffer(File temporaryDir, int inMemoryThreshold) {
+            this.temporaryDir = temporaryDir;
+            this.inMemoryThreshold = inMemoryThreshold;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int len) throws IOException {
+            length += len;
+            if (file == null && count + len <= inMemoryThreshold) {
+                if (count + len > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(inMemoryThreshold, Math.max(buffer.length * 2, count + len)));
+                }
+                System.arraycopy(bytes, offset, buffer, count, len);
+                count += len;
+                return;
+            }
+            if (file == null) {
+                spill();
+            }
+            fileOutput.write(bytes, offset, len);
+        }
+
+        private void spill() throws IOException {
+            temporaryDir.mkdirs();
+            file = File.createTempFile("zip-entry", ".bin", temporaryDir);
+            fileOutput = new BufferedOutputStream(new FileOutputStream(file));
+            fileOutput.write(buffer, 0, count);
+            buffer = null;
+            count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fileOutput != null) {
+                fileOutput.close();
+            }
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        long getBufferedSize() {
+            return file == null ? length : 0;
+        }
+
+        InputStream open() throws IOException {
+            if (file != null) {
+                return new BufferedInputStream(new FileInputStream(file));
+            }
+            return new ByteArrayInputStream(buffer, 0, count);
+        }
+
+        void discard() {
+            buffer = null;
+            if (file != null) {
+                IoActions.closeQuietly(fileOutput);
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.internal.IoActions;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Writes a ZIP file from entries whose content has already been compressed, along with the CRC and sizes of each entry.
+ *
+ * <p>As the CRC and sizes are known when an entry is written, they are written in the local file header and no data descriptors are used.
+ * The Zip64 extensions are used only when required.</p>
+ */
+class RawZipWriter implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG = 0x07064b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int PLATFORM_UNIX = 3;
+    private static final int MIN_VERSION = 10;
+    private static final int DEFLATE_MIN_VERSION = 20;
+    private static final int ZIP64_MIN_VERSION = 45;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final long DOS_TIME_BEFORE_1980 = (1 << 21) | (1 << 16);
+
+    private final CountingOutputStream output;
+    private final Charset charset;
+    private final boolean allowZip64;
+    private final List<CentralDirectoryEntry> entries = new ArrayList<CentralDirectoryEntry>();
+    private final byte[] header = new byte[64];
+    private final Calendar calendar = Calendar.getInstance();
+    private boolean usedZip64;
+
+    RawZipWriter(File zipFile, Charset charset, boolean allowZip64) throws IOException {
+        this.output = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), 64 * 1024));
+        this.charset = charset;
+        this.allowZip64 = allowZip64;
+    }
+
+    /**
+     * Adds an entry to the archive.
+     *
+     * @param method {@link ZipOutputStream#STORED} or {@link ZipOutputStream#DEFLATED}. The content must already be compressed using this method.
+     * @param size The uncompressed size of the entry.
+     * @param content The compressed content of the entry, which is {@code contentLength} bytes long.
+     */
+    void addEntry(String name, boolean directory, long time, int mode, int method, long crc, long size, InputStream content, long contentLength) throws IOException {
+        long offset = output.getCount();
+        byte[] nameBytes = name.getBytes(charset);
+        boolean zip64Sizes = size >= ZIP64_MAGIC || contentLength >= ZIP64_MAGIC;
+        boolean zip64 = zip64Sizes || offset >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            throw new Zip64RequiredException(zip64Sizes ? name + "'s size exceeds the limit of 4GByte." : "archive's size exceeds the limit of 4GByte.");
+        }
+        usedZip64 |= zip64;
+
+        CentralDirectoryEntry entry = new CentralDirectoryEntry();
+        entry.name = nameBytes;
+        entry.dosTime = toDosTime(time);
+        entry.method = method;
+        entry.crc = crc;
+        entry.size = size;
+        entry.compressedSize = contentLength;
+        entry.offset = offset;
+        entry.externalAttributes = ((long) ((directory ? UnixStat.DIR_FLAG : UnixStat.FILE_FLAG) | mode) << 16)
+            | ((mode & 0200) == 0 ? 1 : 0)
+            | (directory ? 0x10 : 0);
+        entry.versionNeeded = zip64 ? ZIP64_MIN_VERSION : (method == ZipOutputStream.DEFLATED || directory) ? DEFLATE_MIN_VERSION : MIN_VERSION;
+        entries.add(entry);
+
+        int pos = 0;
+        pos = putInt(header, pos, LOCAL_FILE_HEADER_SIG);
+        pos = putShort(header, pos, entry.versionNeeded);
+        pos = putShort(header, pos, getFlags());
+        pos = putShort(header, pos, method);
+        pos = putInt(header, pos, entry.dosTime);
+        pos = putInt(header, pos, crc);
+        pos = putInt(header, pos, zip64Sizes ? ZIP64_MAGIC : contentLength);
+        pos = putInt(header, pos, zip64Sizes ? ZIP64_MAGIC : size);
+        pos = putShort(header, pos, nameBytes.length);
+        pos = putShort(header, pos, zip64Sizes ? 20 : 0);
+        output.write(header, 0, pos);
+        output.write(nameBytes);
+        if (zip64Sizes) {
+            pos = 0;
+            pos = putShort(header, pos, ZIP64_EXTRA_FIELD_ID);
+            pos = putShort(header, pos, 16);
+            pos = putLong(header, pos, size);
+            pos = putLong(header, pos, contentLength);
+            output.write(header, 0, pos);
+        }
+        long copied = ByteStreams.copy(content, output);
+        if (copied != contentLength) {
+            throw new IOException(String.format("Expected %d bytes of content for ZIP entry '%s' but found %d bytes.", contentLength, name, copied));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Closes the file without completing the archive.
+     */
+    void abort() {
+        IoActions.closeQuietly(output);
+    }
+
+    private void finish() throws IOException {
+        long centralDirectoryOffset = output.getCount();
+        for (CentralDirectoryEntry entry : entries) {
+            writeCentralFileHeader(entry);
+        }
+        long centralDirectorySize = output.getCount() - centralDirectoryOffset;
+        int entryCount = entries.size();
+
+        boolean zip64 = entryCount >= ZIP64_MAGIC_SHORT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            throw new Zip64RequiredException(entryCount >= ZIP64_MAGIC_SHORT ? "archive contains more than 65535 entries." : "archive's size exceeds the limit of 4GByte.");
+        }
+        if (zip64) {
+            long zip64EndOffset = output.getCount();
+            int pos = 0;
+            pos = putInt(header, pos, ZIP64_END_OF_CENTRAL_DIR_SIG);
+            pos = putLong(header, pos, 44);
+            pos = putShort(header, pos, (PLATFORM_UNIX << 8) | ZIP64_MIN_VERSION);
+            pos = putShort(header, pos, ZIP64_MIN_VERSION);
+            pos = putInt(header, pos, 0);
+            pos = putInt(header, pos, 0);
+            pos = putLong(header, pos, entryCount);
+            pos = putLong(header, pos, entryCount);
+            pos = putLong(header, pos, centralDirectorySize);
+            pos = putLong(header, pos, centralDirectoryOffset);
+            output.write(header, 0, pos);
+
+            pos = 0;
+            pos = putInt(header, pos, ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG);
+            pos = putInt(header, pos, 0);
+            pos = putLong(header, pos, zip64EndOffset);
+            pos = putInt(header, pos, 1);
+            output.write(header, 0, pos);
+        }
+
+        int pos = 0;
+        pos = putInt(header, pos, END_OF_CENTRAL_DIR_SIG);
+        pos = putShort(header, pos, 0);
+        pos = putShort(header, pos, 0);
+        pos = putShort(header, pos, Math.min(entryCount, ZIP64_MAGIC_SHORT));
+        pos = putShort(header, pos, Math.min(entryCount, ZIP64_MAGIC_SHORT));
+        pos = putInt(header, pos, Math.min(centralDirectorySize, ZIP64_MAGIC));
+        pos = putInt(header, pos, Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        pos = putShort(header, pos, 0);
+        output.write(header, 0, pos);
+        output.flush();
+    }
+
+    private void writeCentralFileHeader(CentralDirectoryEntry entry) throws IOException {
+        boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC || entry.offset >= ZIP64_MAGIC;
+        int pos = 0;
+        pos = putInt(header, pos, CENTRAL_FILE_HEADER_SIG);
+        pos = putShort(header, pos, (PLATFORM_UNIX << 8) | (usedZip64 ? ZIP64_MIN_VERSION : DEFLATE_MIN_VERSION));
+        pos = putShort(header, pos, entry.versionNeeded);
+        pos = putShort(header, pos, getFlags());
+        pos = putShort(header, pos, entry.method);
+        pos = putInt(header, pos, entry.dosTime);
+        pos = putInt(header, pos, entry.crc);
+        pos = putInt(header, pos, zip64 ? ZIP64_MAGIC : entry.compressedSize);
+        pos = putInt(header, pos, zip64 ? ZIP64_MAGIC : entry.size);
+        pos = putShort(header, pos, entry.name.length);
+        pos = putShort(header, pos, zip64 ? 28 : 0);
+        pos = putShort(header, pos, 0);
+        pos = putShort(header, pos, 0);
+        pos = putShort(header, pos, 0);
+        pos = putInt(header, pos, entry.externalAttributes);
+        pos = putInt(header, pos, zip64 ? ZIP64_MAGIC : entry.offset);
+        output.write(header, 0, pos);
+        output.write(entry.name);
+        if (zip64) {
+            pos = 0;
+            pos = putShort(header, pos, ZIP64_EXTRA_FIELD_ID);
+            pos = putShort(header, pos, 24);
+            pos = putLong(header, pos, entry.size);
+            pos = putLong(header, pos, entry.compressedSize);
+            pos = putLong(header, pos, entry.offset);
+            output.write(header, 0, pos);
+        }
+    }
+
+    private int getFlags() {
+        return "UTF-8".equals(charset.name()) ? UTF8_FLAG : 0;
+    }
+
+    private long toDosTime(long time) {
+        calendar.setTimeInMillis(time);
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return DOS_TIME_BEFORE_1980;
+        }
+        return ((long) (year - 1980) << 25)
+            | (calendar.get(Calendar.MONTH) + 1) << 21
+            | calendar.get(Calendar.DAY_OF_MONTH) << 16
+            | calendar.get(Calendar.HOUR_OF_DAY) << 11
+            | calendar.get(Calendar.MINUTE) << 5
+            | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    private static int putShort(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) value;
+        buffer[pos + 1] = (byte) (value >>> 8);
+        return pos + 2;
+    }
+
+    private static int putInt(byte[] buffer, int pos, long value) {
+        buffer[pos] = (byte) value;
+        buffer[pos + 1] = (byte) (value >>> 8);
+        buffer[pos + 2] = (byte) (value >>> 16);
+        buffer[pos + 3] = (byte) (value >>> 24);
+        return pos + 4;
+    }
+
+    private static int putLong(byte[] buffer, int pos, long value) {
+        pos = putInt(buffer, pos, value);
+        return putInt(buffer, pos, value >>> 32);
+    }
+
+    private static class CentralDirectoryEntry {
+        byte[] name;
+        long dosTime;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        long offset;
+        long externalAttributes;
+        int versionNeeded;
+    }
+}
@@ -29,7 +29,6 @@ import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.api.internal.file.collections.*;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.api.resources.internal.ReadableResourceInternal;
-import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 import org.gradle.internal.nativeintegration.filesystem.Stat;
 import org.gradle.util.GFileUtils;
@@ -45,7 +44,7 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     private final Chmod chmod;
     private final Stat stat;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
-    private final File tmpDir;
+    private final ArchiveExtractionCache extractionCache;
 
     public TarFileTree(@Nullable File tarFile, ReadableResourceInternal resource, File tmpDir, Chmod chmod, Stat stat, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.tarFile = tarFile;
@@ -53,8 +52,7 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         this.chmod = chmod;
         this.stat = stat;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
-        String expandDirName = resource.getBaseName() + "_" + HashUtil.createCompactMD5(resource.getURI().toString());
-        this.tmpDir = new File(tmpDir, expandDirName);
+        this.extractionCache = new ArchiveExtractionCache(tmpDir, resource.getBaseName(), resource.getURI().toString(), getBackingFile());
     }
 
     public String getDisplayName() {
@@ -62,7 +60,7 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     }
 
     public DirectoryFileTree getMirror() {
-        return directoryFileTreeFactory.create(tmpDir);
+        return directoryFileTreeFactory.create(extractionCache.getDir());
     }
 
     public void visit(FileVisitor visitor) {
@@ -135,8 +133,8 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         public File getFile() {
             if (file == null) {
-                file = new File(tmpDir, entry.getName());
-                copyTo(file);
+                // Tar entries do not record a checksum of their content
+                file = extractionCache.getFile(this, -1);
             }
             return file;
         }
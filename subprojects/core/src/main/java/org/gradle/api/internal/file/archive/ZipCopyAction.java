@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.file.archive;
 
+import com.google.common.io.Files;
 import org.apache.tools.zip.UnixStat;
 import org.apache.tools.zip.Zip64RequiredException;
 import org.apache.tools.zip.ZipEntry;
@@ -34,19 +35,86 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.bundling.Zip;
 import org.gradle.internal.IoActions;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.GregorianCalendar;
+import java.util.List;
 
 public class ZipCopyAction implements CopyAction {
+    /**
+     * Enables reproducible archives, where the timestamps of all entries are set to {@link #CONSTANT_TIME_FOR_ZIP_ENTRIES}
+     * and the entries are written in {@link #REPRODUCIBLE_ENTRY_ORDER}.
+     */
+    public static final String REPRODUCIBLE_PROPERTY = "org.gradle.archives.reproducible";
+
+    /**
+     * The timestamp used for all entries of a reproducible archive. This is 1980-02-01 rather than the start of the DOS epoch, so that the timestamp stays valid in all time zones.
+     */
+    public static final long CONSTANT_TIME_FOR_ZIP_ENTRIES = new GregorianCalendar(1980, Calendar.FEBRUARY, 1, 0, 0, 0).getTimeInMillis();
+
+    /**
+     * The order of the entries of a reproducible archive. Entries are sorted by path, except that the manifest and its directory
+     * are kept first, where {@link java.util.jar.JarInputStream} expects them.
+     */
+    static final Comparator<String> REPRODUCIBLE_ENTRY_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String path1, String path2) {
+            int rank1 = rank(path1);
+            int rank2 = rank(path2);
+            if (rank1 != rank2) {
+                return rank1 - rank2;
+            }
+            return path1.compareTo(path2);
+        }
+
+        private int rank(String path) {
+            if (path.equals("META-INF/")) {
+                return 0;
+            }
+            if (path.equals("META-INF/MANIFEST.MF")) {
+                return 1;
+            }
+            return 2;
+        }
+    };
+
     private final File zipFile;
     private final ZipCompressor compressor;
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
+    private final boolean reproducible;
+    private final File temporaryDir;
 
     public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding) {
+        this(zipFile, compressor, documentationRegistry, encoding, false, null);
+    }
+
+    /**
+     * @param temporaryDir the directory to buffer the content of entries in until they can be written in order. Required when the archive is reproducible.
+     */
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean reproducible, File temporaryDir) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
+        this.reproducible = reproducible;
+        this.temporaryDir = temporaryDir;
+    }
+
+    public static boolean isReproducible() {
+        return Boolean.getBoolean(REPRODUCIBLE_PROPERTY);
+    }
+
+    static org.gradle.api.tasks.bundling.internal.Zip64RequiredException zip64Required(Zip64RequiredException cause, DocumentationRegistry documentationRegistry) {
+        return new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+                String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", cause.getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+        );
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
@@ -61,14 +129,23 @@ public class ZipCopyAction implements CopyAction {
         try {
             IoActions.withResource(zipOutStr, new Action<ZipOutputStream>() {
                 public void execute(ZipOutputStream outputStream) {
-                    stream.process(new StreamAction(outputStream, encoding));
+                    StreamAction action = new StreamAction(outputStream, encoding);
+                    if (!reproducible) {
+                        stream.process(action);
+                        return;
+                    }
+                    SortingStreamAction sortingAction = new SortingStreamAction(action);
+                    try {
+                        stream.process(sortingAction);
+                        sortingAction.writeEntries();
+                    } finally {
+                        sortingAction.discardEntries();
+                    }
                 }
             });
         } catch (UncheckedIOException e) {
             if (e.getCause() instanceof Zip64RequiredException) {
-                throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
-                        String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getCause().getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
-                );
+                throw zip64Required((Zip64RequiredException) e.getCause(), documentationRegistry);
             }
         }
 
@@ -96,7 +173,7 @@ public class ZipCopyAction implements CopyAction {
         private void visitFile(FileCopyDetails fileDetails) {
             try {
                 ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
-                archiveEntry.setTime(fileDetails.getLastModified());
+                archiveEntry.setTime(reproducible ? CONSTANT_TIME_FOR_ZIP_ENTRIES : fileDetails.getLastModified());
                 archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
                 zipOutStr.putNextEntry(archiveEntry);
                 fileDetails.copyTo(zipOutStr);
@@ -106,11 +183,26 @@ public class ZipCopyAction implements CopyAction {
             }
         }
 
+        void writeBufferedEntry(BufferedEntry entry) {
+            try {
+                ZipEntry archiveEntry = new ZipEntry(entry.path);
+                archiveEntry.setTime(CONSTANT_TIME_FOR_ZIP_ENTRIES);
+                archiveEntry.setUnixMode((entry.content == null ? UnixStat.DIR_FLAG : UnixStat.FILE_FLAG) | entry.mode);
+                zipOutStr.putNextEntry(archiveEntry);
+                if (entry.content != null) {
+                    Files.copy(entry.content, zipOutStr);
+                }
+                zipOutStr.closeEntry();
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.displayName, zipFile), e);
+            }
+        }
+
         private void visitDir(FileCopyDetails dirDetails) {
             try {
                 // Trailing slash in name indicates that entry is a directory
                 ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
-                archiveEntry.setTime(dirDetails.getLastModified());
+                archiveEntry.setTime(reproducible ? CONSTANT_TIME_FOR_ZIP_ENTRIES : dirDetails.getLastModified());
                 archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
                 zipOutStr.putNextEntry(archiveEntry);
                 zipOutStr.closeEntry();
@@ -119,4 +211,76 @@ public class ZipCopyAction implements CopyAction {
             }
         }
     }
+
+    /**
+     * Buffers the entries of a reproducible archive, as the copy stream does not visit files in a stable order. The content of each file
+     * is read while the stream is processed and buffered in the temporary directory, then the entries are written sorted by path.
+     */
+    private class SortingStreamAction implements CopyActionProcessingStreamAction {
+        private final StreamAction delegate;
+        private final List<BufferedEntry> entries = new ArrayList<BufferedEntry>();
+
+        SortingStreamAction(StreamAction delegate) {
+            this.delegate = delegate;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            if (details.isDirectory()) {
+                // Trailing slash in name indicates that entry is a directory
+                entries.add(new BufferedEntry(details.toString(), details.getRelativePath().getPathString() + '/', details.getMode(), null));
+                return;
+            }
+            try {
+                temporaryDir.mkdirs();
+                File content = File.createTempFile("zip-entry", ".bin", temporaryDir);
+                entries.add(new BufferedEntry(details.toString(), details.getRelativePath().getPathString(), details.getMode(), content));
+                OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(content));
+                try {
+                    details.copyTo(outputStream);
+                } finally {
+                    outputStream.close();
+                }
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", details, zipFile), e);
+            }
+        }
+
+        void writeEntries() {
+            Collections.sort(entries, new Comparator<BufferedEntry>() {
+                @Override
+                public int compare(BufferedEntry entry1, BufferedEntry entry2) {
+                    return REPRODUCIBLE_ENTRY_ORDER.compare(entry1.path, entry2.path);
+                }
+            });
+            for (BufferedEntry entry : entries) {
+                delegate.writeBufferedEntry(entry);
+                if (entry.content != null) {
+                    entry.content.delete();
+                }
+            }
+        }
+
+        void discardEntries() {
+            for (BufferedEntry entry : entries) {
+                if (entry.content != null) {
+                    entry.content.delete();
+                }
+            }
+            entries.clear();
+        }
+    }
+
+    private static class BufferedEntry {
+        final String displayName;
+        final String path;
+        final int mode;
+        final File content;
+
+        BufferedEntry(String displayName, String path, int mode, File content) {
+            this.displayName = displayName;
+            this.path = path;
+            this.mode = mode;
+            this.content = content;
+        }
+    }
 }
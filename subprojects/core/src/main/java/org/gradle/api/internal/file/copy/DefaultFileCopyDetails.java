@@ -17,12 +17,14 @@
 package org.gradle.api.internal.file.copy;
 
 import groovy.lang.Closure;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.ContentFilterable;
 import org.gradle.api.file.DuplicatesStrategy;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
 
 import java.io.*;
@@ -65,6 +67,17 @@ public class DefaultFileCopyDetails extends AbstractFileTreeElement implements F
         }
     }
 
+    /**
+     * Returns the source file when the content of this file is copied unchanged from a file in the file system, or null otherwise.
+     */
+    @Nullable
+    public File getUnfilteredSourceFile() {
+        if (filterChain.hasFilters() || !(fileDetails instanceof DefaultFileTreeElement) || fileDetails.isDirectory()) {
+            return null;
+        }
+        return fileDetails.getFile();
+    }
+
     public boolean isDirectory() {
         return fileDetails.isDirectory();
     }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A variant of {@link SyncCopyActionDecorator} that leaves destination files untouched when their content is already up-to-date, and that
+ * uses a manifest of the files written by the previous execution to find the files to delete, rather than walking the destination directory.
+ *
+ * <p>Source and destination files are compared by size and then by content hash, using the {@link FileSnapshotter} for files that are
+ * copied unchanged from the file system. When there is no usable manifest, the whole destination directory is walked, as for a regular sync.
+ * Files added to the destination directory by something other than the sync are only removed by such a full walk.</p>
+ *
+ * <p>Enabled with the {@value #ENABLED_PROPERTY} system property.</p>
+ */
+public class IncrementalSyncCopyActionDecorator implements CopyAction {
+    public static final String ENABLED_PROPERTY = "org.gradle.sync.incremental";
+    private static final Logger LOGGER = Logging.getLogger(IncrementalSyncCopyActionDecorator.class);
+    private static final String MANIFEST_VERSION = "1";
+
+    private final File baseDestDir;
+    private final CopyAction delegate;
+    private final PatternFilterable preserveSpec;
+    private final File manifestFile;
+    private final PathToFileResolver fileResolver;
+    private final FileSnapshotter fileSnapshotter;
+    private final FileSystem fileSystem;
+
+    public IncrementalSyncCopyActionDecorator(File baseDestDir, CopyAction delegate, PatternFilterable preserveSpec, File manifestFile,
+                                              PathToFileResolver fileResolver, FileSnapshotter fileSnapshotter, FileSystem fileSystem) {
+        this.baseDestDir = baseDestDir;
+        this.delegate = delegate;
+        this.preserveSpec = preserveSpec;
+        this.manifestFile = manifestFile;
+        this.fileResolver = fileResolver;
+        this.fileSnapshotter = fileSnapshotter;
+        this.fileSystem = fileSystem;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        List<RelativePath> previous = readManifest();
+        // Discard the manifest until this execution has completed, so that a failed execution is followed by a full walk
+        GFileUtils.deleteQuietly(manifestFile);
+
+        final Set<RelativePath> visited = new LinkedHashSet<RelativePath>();
+        CopyActionProcessingStream recordingStream = new CopyActionProcessingStream() {
+            public void process(final CopyActionProcessingStreamAction action) {
+                stream.process(new CopyActionProcessingStreamAction() {
+                    public void processFile(FileCopyDetailsInternal details) {
+                        visited.add(details.getRelativePath());
+                        action.processFile(details);
+                    }
+                });
+            }
+        };
+
+        CopyAction copyAction = new SkipUpToDateFilesCopyAction(delegate);
+        boolean didWork;
+        if (previous == null) {
+            LOGGER.info("No sync manifest found for {}, checking the whole destination directory.", baseDestDir);
+            didWork = new SyncCopyActionDecorator(baseDestDir, copyAction, preserveSpec).execute(recordingStream).getDidWork();
+        } else {
+            didWork = copyAction.execute(recordingStream).getDidWork();
+            didWork |= deleteStaleFiles(previous, visited);
+        }
+
+        writeManifest(visited);
+        return new SimpleWorkResult(didWork);
+    }
+
+    private boolean deleteStaleFiles(List<RelativePath> previous, Set<RelativePath> visited) {
+        // Compare paths by name only, as a path may have changed between file and directory. Also keep the parent directories of everything that was copied
+        Set<String> visitedPaths = new HashSet<String>();
+        for (RelativePath path : visited) {
+            RelativePath current = path;
+            while (current != null && visitedPaths.add(current.getPathString())) {
+                current = current.getParent();
+            }
+        }
+
+        PatternSet preserveSet = new PatternSet();
+        if (preserveSpec != null) {
+            preserveSet.include(preserveSpec.getIncludes());
+            preserveSet.exclude(preserveSpec.getExcludes());
+        }
+        Spec<FileTreeElement> preserved = preserveSet.getAsSpec();
+
+        boolean didWork = false;
+        // The manifest lists directories before their contents
+        for (int i = previous.size() - 1; i >= 0; i--) {
+            RelativePath path = previous.get(i);
+            if (visitedPaths.contains(path.getPathString())) {
+                continue;
+            }
+            File file = path.getFile(baseDestDir);
+            if (!file.exists()) {
+                continue;
+            }
+            if (!preserveSet.isEmpty() && preserved.isSatisfiedBy(new DefaultFileTreeElement(file, path, fileSystem, fileSystem))) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                GFileUtils.deleteDirectory(file);
+            } else {
+                GFileUtils.deleteQuietly(file);
+            }
+            didWork = true;
+        }
+        return didWork;
+    }
+
+    private List<RelativePath> readManifest() {
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readLines(manifestFile, Charsets.UTF_8);
+            if (lines.size() < 2 || !lines.get(0).equals(MANIFEST_VERSION) || !lines.get(1).equals(baseDestDir.getAbsolutePath())) {
+                return null;
+            }
+            List<RelativePath> paths = new ArrayList<RelativePath>(lines.size() - 2);
+            for (String line : lines.subList(2, lines.size())) {
+                paths.add(RelativePath.parse(line.charAt(0) == 'f', line.substring(2)));
+            }
+            return paths;
+        } catch (Exception e) {
+            LOGGER.info("Could not read sync manifest {}.", manifestFile, e);
+            return null;
+        }
+    }
+
+    private void writeManifest(Set<RelativePath> visited) {
+        StringBuilder content = new StringBuilder();
+        content.append(MANIFEST_VERSION).append('\n');
+        content.append(baseDestDir.getAbsolutePath()).append('\n');
+        for (RelativePath path : visited) {
+            content.append(path.isFile() ? 'f' : 'd').append(' ').append(path.getPathString()).append('\n');
+        }
+        GFileUtils.mkdirs(manifestFile.getParentFile());
+        try {
+            Files.write(content, manifestFile, Charsets.UTF_8);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private class SkipUpToDateFilesCopyAction implements CopyAction {
+        private final CopyAction delegate;
+
+        SkipUpToDateFilesCopyAction(CopyAction delegate) {
+            this.delegate = delegate;
+        }
+
+        public WorkResult execute(final CopyActionProcessingStream stream) {
+            final Set<RelativePath> seen = new HashSet<RelativePath>();
+            return delegate.execute(new CopyActionProcessingStream() {
+                public void process(final CopyActionProcessingStreamAction action) {
+                    stream.process(new CopyActionProcessingStreamAction() {
+                        public void processFile(FileCopyDetailsInternal details) {
+                            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+                            // Always copy duplicates, as the destination may have been changed by an earlier one
+                            if (seen.add(details.getRelativePath())) {
+                                if (isUpToDate(details, target)) {
+                                    fileSystem.chmod(target, details.getMode());
+                                    return;
+                                }
+                            }
+                            if (target.isDirectory() && !details.isDirectory()) {
+                                // The path has changed from a directory to a file
+                                GFileUtils.deleteDirectory(target);
+                            } else if (target.isFile() && details.isDirectory()) {
+                                GFileUtils.deleteQuietly(target);
+                            }
+                            action.processFile(details);
+                        }
+                    });
+                }
+            });
+        }
+
+        private boolean isUpToDate(FileCopyDetailsInternal details, File target) {
+            if (details.isDirectory()) {
+                return target.isDirectory();
+            }
+            if (!target.isFile()) {
+                return false;
+            }
+            File sourceFile = details instanceof DefaultFileCopyDetails ? ((DefaultFileCopyDetails) details).getUnfilteredSourceFile() : null;
+            if (sourceFile != null) {
+                return sourceFile.length() == target.length()
+                    && fileSnapshotter.snapshot(sourceFile).getHash().equals(fileSnapshotter.snapshot(target).getHash());
+            }
+            if (details.getSize() != target.length()) {
+                return false;
+            }
+            Hasher hasher = Hashing.md5().newHasher();
+            details.copyTo(Funnels.asOutputStream(hasher));
+            HashCode targetHash;
+            try {
+                targetHash = Files.hash(target, Hashing.md5());
+            } catch (IOException e) {
+                return false;
+            }
+            return hasher.hash().equals(targetHash);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import com.google.common.io.Files;
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.nativeintegration.filesystem.Chmod;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Copies files into a destination directory, like {@link FileCopyAction}, writing the files concurrently.
+ *
+ * <p>The copy stream is processed on the calling thread as usual, so the copy spec is applied in the same order as for a sequential copy.
+ * Files whose content is copied unchanged from a file in the file system are then copied on worker threads, using {@link FileChannel#transferTo},
+ * and are not written when the destination already has the same content. All other files and directories are copied on the calling thread.
+ * Copies to the same destination are applied in order.</p>
+ */
+public class ParallelFileCopyAction implements CopyAction {
+    /**
+     * Enables copying files concurrently for the {@code Copy} and {@code Sync} tasks.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.copy.parallel";
+
+    private static final int MAX_PENDING_COPIES_PER_THREAD = 64;
+
+    private final PathToFileResolver fileResolver;
+    private final Chmod chmod;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+
+    public ParallelFileCopyAction(PathToFileResolver fileResolver, Chmod chmod, ExecutorFactory executorFactory, int maxThreads) {
+        this.fileResolver = fileResolver;
+        this.chmod = chmod;
+        this.executorFactory = executorFactory;
+        this.maxThreads = Math.max(1, maxThreads);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        StoppableExecutor executor = executorFactory.create("Copy files", maxThreads);
+        ParallelCopyAction action = new ParallelCopyAction(executor);
+        try {
+            stream.process(action);
+            action.waitForPendingCopies(0);
+        } finally {
+            action.cancelPendingCopies();
+            executor.stop();
+        }
+        return new SimpleWorkResult(action.didWork);
+    }
+
+    private class ParallelCopyAction implements CopyActionProcessingStreamAction {
+        private final StoppableExecutor executor;
+        // Pending copies, by destination, in the order they were submitted
+        private final Map<File, Future<Boolean>> pending = new LinkedHashMap<File, Future<Boolean>>();
+        private boolean didWork;
+
+        ParallelCopyAction(StoppableExecutor executor) {
+            this.executor = executor;
+        }
+
+        public void processFile(FileCopyDetailsInternal details) {
+            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            waitFor(target);
+            File source = details instanceof DefaultFileCopyDetails ? ((DefaultFileCopyDetails) details).getUnfilteredSourceFile() : null;
+            if (source == null) {
+                if (details.copyTo(target)) {
+                    didWork = true;
+                }
+                return;
+            }
+            pending.put(target, executor.submit(new CopyFile(details.toString(), source, target, details.getMode())));
+            waitForPendingCopies(maxThreads * MAX_PENDING_COPIES_PER_THREAD);
+        }
+
+        private void waitFor(File target) {
+            Future<Boolean> copy = pending.remove(target);
+            if (copy != null) {
+                complete(copy);
+            }
+        }
+
+        void waitForPendingCopies(int maxPending) {
+            Iterator<Future<Boolean>> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                Future<Boolean> copy = iterator.next();
+                if (pending.size() <= maxPending && !copy.isDone()) {
+                    return;
+                }
+                iterator.remove();
+                complete(copy);
+            }
+        }
+
+        private void complete(Future<Boolean> copy) {
+            try {
+                if (copy.get()) {
+                    didWork = true;
+                }
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        void cancelPendingCopies() {
+            for (Future<Boolean> copy : pending.values()) {
+                copy.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+
+    private class CopyFile implements Callable<Boolean> {
+        private final String displayName;
+        private final File source;
+        private final File target;
+        private final int mode;
+
+        CopyFile(String displayName, File source, File target, int mode) {
+            this.displayName = displayName;
+            this.source = source;
+            this.target = target;
+            this.mode = mode;
+        }
+
+        @Override
+        public Boolean call() {
+            try {
+                boolean copied = false;
+                if (!target.isFile() || target.length() != source.length() || !Files.equal(source, target)) {
+                    GFileUtils.mkdirs(target.getParentFile());
+                    transfer();
+                    copied = true;
+                }
+                chmod.chmod(target, mode);
+                return copied;
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not copy %s to '%s'.", displayName, target), e);
+            }
+        }
+
+        private void transfer() throws IOException {
+            FileInputStream inputStream = new FileInputStream(source);
+            try {
+                FileOutputStream outputStream = new FileOutputStream(target);
+                try {
+                    FileChannel input = inputStream.getChannel();
+                    FileChannel output = outputStream.getChannel();
+                    long size = input.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += input.transferTo(position, size - position, output);
+                    }
+                } finally {
+                    outputStream.close();
+                }
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+}
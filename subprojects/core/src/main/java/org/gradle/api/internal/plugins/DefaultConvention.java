@@ -143,6 +143,9 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
     }
     
     private class ExtensionsDynamicObject extends AbstractDynamicObject {
+        // Dynamic objects for the convention objects, reused for as long as the convention object remains registered
+        private final Map<Object, BeanDynamicObject> pluginDynamicObjects = new IdentityHashMap<Object, BeanDynamicObject>();
+
         @Override
         public String getDisplayName() {
             return "extensions";
@@ -154,7 +157,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 return true;
             }
             for (Object object : plugins.values()) {
-                if (new BeanDynamicObject(object).hasProperty(name)) {
+                if (asDynamicObject(object).hasProperty(name)) {
                     return true;
                 }
             }
@@ -167,7 +170,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
             List<Object> reverseOrder = new ArrayList<Object>(plugins.values());
             Collections.reverse(reverseOrder);
             for (Object object : reverseOrder) {
-                properties.putAll(new BeanDynamicObject(object).getProperties());
+                properties.putAll(asDynamicObject(object).getProperties());
             }
             properties.putAll(extensionsStorage.getAsMap());
             return properties;
@@ -181,7 +184,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 return;
             }
             for (Object object : plugins.values()) {
-                DynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+                DynamicObject dynamicObject = asDynamicObject(object);
                 dynamicObject.getProperty(name, result);
                 if (result.isFound()) {
                     return;
@@ -197,7 +200,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
         public void setProperty(String name, Object value, SetPropertyResult result) {
             extensionsStorage.checkExtensionIsNotReassigned(name);
             for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+                BeanDynamicObject dynamicObject = asDynamicObject(object);
                 dynamicObject.setProperty(name, value, result);
                 if (result.isFound()) {
                     return;
@@ -216,7 +219,7 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 return;
             }
             for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+                BeanDynamicObject dynamicObject = asDynamicObject(object);
                 dynamicObject.invokeMethod(name, result, args);
                 if (result.isFound()) {
                     return;
@@ -234,12 +237,28 @@ public class DefaultConvention implements Convention, ExtensionContainerInternal
                 return true;
             }
             for (Object object : plugins.values()) {
-                BeanDynamicObject dynamicObject = new BeanDynamicObject(object);
+                BeanDynamicObject dynamicObject = asDynamicObject(object);
                 if (dynamicObject.hasMethod(name, args)) {
                     return true;
                 }
             }
             return false;
         }
+
+        private BeanDynamicObject asDynamicObject(Object object) {
+            // Projects may be accessed from multiple threads when building in parallel
+            synchronized (pluginDynamicObjects) {
+                BeanDynamicObject dynamicObject = pluginDynamicObjects.get(object);
+                if (dynamicObject == null) {
+                    if (pluginDynamicObjects.size() >= plugins.size()) {
+                        // Some convention objects have been replaced or removed
+                        pluginDynamicObjects.clear();
+                    }
+                    dynamicObject = new BeanDynamicObject(object).withNotImplementsMissing();
+                    pluginDynamicObjects.put(object, dynamicObject);
+                }
+                return dynamicObject;
+            }
+        }
     }
 }
\ No newline at end of file
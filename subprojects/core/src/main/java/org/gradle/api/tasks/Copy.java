@@ -22,6 +22,9 @@ import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.ParallelFileCopyAction;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
@@ -76,7 +79,11 @@ public class Copy extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        PathToFileResolver fileResolver = getFileLookup().getFileResolver(destinationDir);
+        if (ParallelFileCopyAction.isEnabled()) {
+            return new ParallelFileCopyAction(fileResolver, getFileSystem(), getServices().get(ExecutorFactory.class), getProject().getGradle().getStartParameter().getMaxWorkerCount());
+        }
+        return new FileCopyAction(fileResolver);
     }
 
     @Override
@@ -19,14 +19,19 @@ package org.gradle.api.tasks;
 import org.gradle.api.Action;
 import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.IncrementalSyncCopyActionDecorator;
+import org.gradle.api.internal.file.copy.ParallelFileCopyAction;
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
@@ -74,7 +79,15 @@ public class Sync extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new SyncCopyActionDecorator(destinationDir, new FileCopyAction(getFileLookup().getFileResolver(destinationDir)), preserveInDestination);
+        PathToFileResolver fileResolver = getFileLookup().getFileResolver(destinationDir);
+        CopyAction copyAction = ParallelFileCopyAction.isEnabled()
+            ? new ParallelFileCopyAction(fileResolver, getFileSystem(), getServices().get(ExecutorFactory.class), getProject().getGradle().getStartParameter().getMaxWorkerCount())
+            : new FileCopyAction(fileResolver);
+        if (IncrementalSyncCopyActionDecorator.isEnabled()) {
+            File manifestFile = new File(getTemporaryDir(), "sync-manifest.txt");
+            return new IncrementalSyncCopyActionDecorator(destinationDir, copyAction, preserveInDestination, manifestFile, fileResolver, getServices().get(FileSnapshotter.class), getFileSystem());
+        }
+        return new SyncCopyActionDecorator(destinationDir, copyAction, preserveInDestination);
     }
 
     @Override
@@ -19,6 +19,7 @@ import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.ParallelZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
@@ -26,6 +27,7 @@ import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.internal.concurrent.ExecutorFactory;
 
 import java.nio.charset.Charset;
 
@@ -60,7 +62,15 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset);
+        ZipCompressor compressor = getCompressor();
+        boolean reproducible = ZipCopyAction.isReproducible();
+        if (ParallelZipCopyAction.isEnabled() && compressor instanceof DefaultZipCompressor) {
+            DefaultZipCompressor zipCompressor = (DefaultZipCompressor) compressor;
+            int maxThreads = getProject().getGradle().getStartParameter().getMaxWorkerCount();
+            return new ParallelZipCopyAction(getArchivePath(), zipCompressor.getEntryCompressionMethod(), zipCompressor.isZip64Allowed(), documentationRegistry, metadataCharset, reproducible,
+                getServices().get(ExecutorFactory.class), maxThreads, getTemporaryDir());
+        }
+        return new ZipCopyAction(getArchivePath(), compressor, documentationRegistry, metadataCharset, reproducible, getTemporaryDir());
     }
 
     /**
@@ -17,30 +17,59 @@
 package org.gradle.cache.internal;
 
 import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheAccess;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorPolicy;
 import org.gradle.internal.concurrent.Stoppable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Applies the operations queued for a cache on a worker thread.
+ *
+ * <p>Queued operations are applied in batches: the worker drains everything that is queued and applies it under a single {@link CacheAccess#useCache(String, Runnable)} call,
+ * waiting only a short time for further operations before handing ownership of the cache back, so that other threads and processes are not kept waiting while the worker is idle.</p>
+ *
+ * <p>A read only has to wait for the operations queued before it. When there are none, and the worker does not currently own the cache, it is run directly on
+ * the requesting thread rather than being queued behind the worker. While the worker owns the cache, including while it waits for further operations at the end of a batch,
+ * a direct read would have to wait for the worker to hand ownership back, so the read is queued and applied by the worker instead.</p>
+ */
 class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
+    private static final Logger LOGGER = Logging.getLogger(CacheAccessWorker.class);
+
     private final BlockingQueue<Runnable> workQueue;
     private final String displayName;
     private final CacheAccess cacheAccess;
     private final long batchWindowMillis;
     private final long maximumLockingTimeMillis;
-    private boolean closed;
-    private boolean workerCompleted;
+    // Operations taken from the queue by the worker that did not fit into the previous batch. Only accessed by the worker thread
+    private final Deque<Runnable> carriedOver = new ArrayDeque<Runnable>();
+    private final AtomicInteger pendingUpdates = new AtomicInteger();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maximumQueueDepth = new AtomicInteger();
+    private final AtomicLong queuedOperations = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong directReads = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile Thread workerThread;
+    private volatile boolean workerOwnsCache;
+    private volatile boolean closed;
+    private volatile boolean workerCompleted;
     private boolean stopSeen;
     private final CountDownLatch doneSignal = new CountDownLatch(1);
     private final ExecutorPolicy.CatchAndRecordFailures failureHandler = new ExecutorPolicy.CatchAndRecordFailures();
@@ -48,16 +77,25 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
     CacheAccessWorker(String displayName, CacheAccess cacheAccess) {
         this.displayName = displayName;
         this.cacheAccess = cacheAccess;
-        this.batchWindowMillis = 200;
+        this.batchWindowMillis = 20;
         this.maximumLockingTimeMillis = 5000;
         HeapProportionalCacheSizer heapProportionalCacheSizer = new HeapProportionalCacheSizer();
         int queueCapacity = Math.min(4000, heapProportionalCacheSizer.scaleCacheSize(40000));
-        workQueue = new ArrayBlockingQueue<Runnable>(queueCapacity, true);
+        workQueue = new LinkedBlockingQueue<Runnable>(queueCapacity);
     }
 
     @Override
     public void enqueue(Runnable task) {
-        addToQueue(AsyncCacheAccessRunnable.wrapWhenContextIsUsed(task));
+        pendingUpdates.incrementAndGet();
+        boolean queued = false;
+        try {
+            addToQueue(new QueuedOperation(AsyncCacheAccessRunnable.wrapWhenContextIsUsed(task), true));
+            queued = true;
+        } finally {
+            if (!queued) {
+                pendingUpdates.decrementAndGet();
+            }
+        }
     }
 
     private void addToQueue(Runnable task) {
@@ -72,13 +110,17 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
     }
 
     public <T> T read(final Factory<T> task) {
+        if (canReadDirectly()) {
+            directReads.incrementAndGet();
+            return cacheAccess.useCache("CacheAccessWorker reading", task);
+        }
         FutureTask<T> futureTask = AsyncCacheAccessFutureTask.wrapWhenContextIsUsed(new Callable<T>() {
             @Override
             public T call() throws Exception {
                 return task.create();
             }
         });
-        addToQueue(futureTask);
+        addToQueue(new QueuedOperation(futureTask, false));
         try {
             return futureTask.get();
         } catch (ExecutionException e) {
@@ -88,6 +130,17 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
         }
     }
 
+    /**
+     * A read may bypass the worker when all previously queued updates have been applied and the worker does not own the cache, as there is then nothing it needs to wait for.
+     * Reads requested by the worker itself are always run directly.
+     */
+    private boolean canReadDirectly() {
+        if (Thread.currentThread() == workerThread) {
+            return true;
+        }
+        return !closed && pendingUpdates.get() == 0 && !workerOwnsCache;
+    }
+
     @Override
     public synchronized void flush() {
         if (!workerCompleted && !closed) {
@@ -102,6 +155,42 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
         failureHandler.onStop();
     }
 
+    /**
+     * Returns the number of operations currently waiting to be applied by the worker.
+     */
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns the largest number of operations that have been waiting to be applied at the same time.
+     */
+    int getMaximumQueueDepth() {
+        return maximumQueueDepth.get();
+    }
+
+    /**
+     * Returns the average time, in milliseconds, that queued operations waited before they were applied.
+     */
+    double getAverageQueueWaitMillis() {
+        long count = queuedOperations.get();
+        return count == 0 ? 0 : (double) totalQueueWaitNanos.get() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the number of reads that ran on the requesting thread, without being queued.
+     */
+    long getDirectReadCount() {
+        return directReads.get();
+    }
+
+    /**
+     * Returns the number of batches of queued operations the worker has applied.
+     */
+    long getBatchCount() {
+        return batches.get();
+    }
+
     private static class FlushOperationsCommand implements Runnable {
         private CountDownLatch latch = new CountDownLatch(1);
 
@@ -124,6 +213,7 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
 
     @Override
     public void run() {
+        workerThread = Thread.currentThread();
         try {
             while (!Thread.currentThread().isInterrupted() && !stopSeen) {
                 try {
@@ -149,7 +239,8 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
             failureHandler.onFailure("Failed to execute cache operations on " + displayName, t);
         } finally {
             // Notify any waiting flush threads that the worker is done, possibly with a failure
-            List<Runnable> runnables = new ArrayList<Runnable>();
+            List<Runnable> runnables = new ArrayList<Runnable>(carriedOver);
+            carriedOver.clear();
             workQueue.drainTo(runnables);
             for (Runnable runnable : runnables) {
                 if (runnable instanceof FlushOperationsCommand) {
@@ -163,35 +254,53 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
     }
 
     private Runnable takeFromQueue() throws InterruptedException {
+        if (!carriedOver.isEmpty()) {
+            return carriedOver.removeFirst();
+        }
         return workQueue.take();
     }
 
     private void flushOperations(final Runnable updateOperation) {
         final List<FlushOperationsCommand> flushOperations = new ArrayList<FlushOperationsCommand>();
+        batches.incrementAndGet();
+        workerOwnsCache = true;
         try {
             cacheAccess.useCache("CacheAccessWorker flushing operations", new Runnable() {
                 @Override
                 public void run() {
                     long lockingStarted = System.currentTimeMillis();
-                    if (updateOperation != null) {
-                        failureHandler.onExecute(updateOperation);
-                    }
-                    Runnable otherOperation;
+                    failureHandler.onExecute(updateOperation);
+                    List<Runnable> batch = new ArrayList<Runnable>();
                     try {
-                        while ((otherOperation = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS)) != null) {
-                            failureHandler.onExecute(otherOperation);
-                            final Class<? extends Runnable> runnableClass = otherOperation.getClass();
-                            if (runnableClass == FlushOperationsCommand.class) {
-                                flushOperations.add((FlushOperationsCommand) otherOperation);
-                            }
-                            if (runnableClass == ShutdownOperationsCommand.class) {
-                                stopSeen = true;
+                        while (true) {
+                            // Apply everything that has been queued in the meantime, and only wait for more work when the queue is empty
+                            batch.addAll(carriedOver);
+                            carriedOver.clear();
+                            if (workQueue.drainTo(batch) == 0 && batch.isEmpty()) {
+                                Runnable next = workQueue.poll(batchWindowMillis, TimeUnit.MILLISECONDS);
+                                if (next == null) {
+                                    return;
+                                }
+                                batch.add(next);
                             }
-                            if (runnableClass == ShutdownOperationsCommand.class
-                                    || runnableClass == FlushOperationsCommand.class
-                                    || maximumLockingTimeMillis > 0L && System.currentTimeMillis() - lockingStarted > maximumLockingTimeMillis) {
-                                break;
+                            for (int i = 0; i < batch.size(); i++) {
+                                Runnable otherOperation = batch.get(i);
+                                final Class<? extends Runnable> runnableClass = otherOperation.getClass();
+                                if (runnableClass == FlushOperationsCommand.class) {
+                                    flushOperations.add((FlushOperationsCommand) otherOperation);
+                                } else if (runnableClass == ShutdownOperationsCommand.class) {
+                                    stopSeen = true;
+                                } else {
+                                    failureHandler.onExecute(otherOperation);
+                                }
+                                if (runnableClass == ShutdownOperationsCommand.class
+                                        || runnableClass == FlushOperationsCommand.class
+                                        || maximumLockingTimeMillis > 0L && System.currentTimeMillis() - lockingStarted > maximumLockingTimeMillis) {
+                                    carriedOver.addAll(batch.subList(i + 1, batch.size()));
+                                    return;
+                                }
                             }
+                            batch.clear();
                         }
                     } catch (InterruptedException e) {
                         throw UncheckedException.throwAsUncheckedException(e);
@@ -199,6 +308,7 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
                 }
             });
         } finally {
+            workerOwnsCache = false;
             for (FlushOperationsCommand flushOperation : flushOperations) {
                 flushOperation.completed();
             }
@@ -207,6 +317,10 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
 
     public synchronized void stop() {
         if (!closed && !workerCompleted) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Stopping cache worker for {}: applied {} operations in {} batches, average wait {} ms, maximum queue depth {}, {} direct reads.",
+                    displayName, queuedOperations.get(), batches.get(), String.format("%.2f", getAverageQueueWaitMillis()), maximumQueueDepth.get(), directReads.get());
+            }
             closed = true;
             try {
                 workQueue.put(new ShutdownOperationsCommand());
@@ -229,6 +343,42 @@ class CacheAccessWorker implements Runnable, Stoppable, AsyncCacheAccess {
         }
     }
 
+    /**
+     * Records how long an operation waited in the queue, and whether all preceding updates have been applied.
+     */
+    private class QueuedOperation implements Runnable {
+        private final Runnable delegate;
+        private final boolean update;
+        private final long queuedAt;
+
+        QueuedOperation(Runnable delegate, boolean update) {
+            this.delegate = delegate;
+            this.update = update;
+            this.queuedAt = System.nanoTime();
+            int depth = queueDepth.incrementAndGet();
+            while (true) {
+                int maximum = maximumQueueDepth.get();
+                if (depth <= maximum || maximumQueueDepth.compareAndSet(maximum, depth)) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            queueDepth.decrementAndGet();
+            queuedOperations.incrementAndGet();
+            totalQueueWaitNanos.addAndGet(System.nanoTime() - queuedAt);
+            try {
+                delegate.run();
+            } finally {
+                if (update) {
+                    pendingUpdates.decrementAndGet();
+                }
+            }
+        }
+    }
+
     // passes ThreadLocal context from requesting thread over to worker thread
     private static class AsyncCacheAccessFutureTask<V> extends FutureTask<V> implements Runnable {
         private final AsyncCacheAccessContext context;
@@ -31,11 +31,15 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
 /**
  * Uses file system locks on a lock file per target file.
+ *
+ * <p>While waiting for a lock held by another process, pings the owner and then waits for the owner to report that it has released the lock, rather than
+ * polling the lock file at a fixed interval. Owners that do not report releases, such as older Gradle versions, are polled as before.</p>
  */
 public class DefaultFileLockManager implements FileLockManager {
     private static final Logger LOGGER = Logging.getLogger(DefaultFileLockManager.class);
@@ -47,6 +51,7 @@ public class DefaultFileLockManager implements FileLockManager {
     private final IdGenerator<Long> generator;
     private final FileLockContentionHandler fileLockContentionHandler;
     private final long shortTimeoutMs = 10000;
+    private final FileLockStatistics statistics = new FileLockStatistics();
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler);
@@ -85,9 +90,19 @@ public class DefaultFileLockManager implements FileLockManager {
         }
     }
 
-    public void allowContention(FileLock fileLock, Runnable whenContended) {
-        DefaultFileLock internalLock = (DefaultFileLock) fileLock;
-        fileLockContentionHandler.start(internalLock.lockId, whenContended);
+    public void allowContention(FileLock fileLock, final Runnable whenContended) {
+        final DefaultFileLock internalLock = (DefaultFileLock) fileLock;
+        fileLockContentionHandler.start(internalLock.lockId, new Runnable() {
+            @Override
+            public void run() {
+                internalLock.contentionRequested = true;
+                whenContended.run();
+            }
+        });
+    }
+
+    public FileLockStatistics getStatistics() {
+        return statistics;
     }
 
     private class DefaultFileLock extends AbstractFileAccess implements FileLock {
@@ -101,6 +116,8 @@ public class DefaultFileLockManager implements FileLockManager {
         private LockState lockState;
         private int port;
         private final long lockId;
+        private volatile boolean contentionRequested;
+        private boolean contended;
 
         public DefaultFileLock(File target, LockOptions options, String displayName, String operationDisplayName, int port) throws Throwable {
             this.port = port;
@@ -246,6 +263,14 @@ public class DefaultFileLockManager implements FileLockManager {
                     lockedFiles.remove(target);
                 }
             });
+            stoppable.add(new Stoppable() {
+                public void stop() {
+                    if (contentionRequested) {
+                        statistics.handedOver(displayName);
+                    }
+                    fileLockContentionHandler.released(lockId);
+                }
+            });
             stoppable.stop();
         }
 
@@ -258,11 +283,17 @@ public class DefaultFileLockManager implements FileLockManager {
             long waitUntil = System.currentTimeMillis() + lockTimeoutMs;
 
             // Lock the state region, with the requested mode
+            long startNanos = System.nanoTime();
             java.nio.channels.FileLock stateRegionLock = lockStateRegion(lockMode, waitUntil);
             if (stateRegionLock == null) {
                 LockInfo lockInfo = readInformationRegion(System.currentTimeMillis() + shortTimeoutMs);
                 throw new LockTimeoutException(displayName, lockInfo.pid, metaDataProvider.getProcessIdentifier(), lockInfo.operation, operationDisplayName, lockFile);
             }
+            long waitNanos = System.nanoTime() - startNanos;
+            statistics.acquired(displayName, waitNanos, contended);
+            if (contended) {
+                LOGGER.info("Waited {} ms for {} lock on {}.", TimeUnit.NANOSECONDS.toMillis(waitNanos), lockMode.toString().toLowerCase(), displayName);
+            }
 
             try {
                 LockState lockState;
@@ -313,22 +344,33 @@ public class DefaultFileLockManager implements FileLockManager {
         }
 
         private java.nio.channels.FileLock lockStateRegion(LockMode lockMode, final long waitUntil) throws IOException, InterruptedException {
+            contended = false;
             do {
                 java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
                 if (fileLock != null) {
                     return fileLock;
                 }
+                contended = true;
+                boolean ownerPinged = false;
+                long ownerLockId = 0;
                 if (port != -1) { //we don't like the assumption about the port very much
                     LockInfo lockInfo = readInformationRegion(System.currentTimeMillis()); //no need for timeout here, as we're already looping with timeout
                     if (lockInfo.port != -1) {
                         LOGGER.debug("The file lock is held by a different Gradle process (pid: {}, operation: {}). Will attempt to ping owner at port {}", lockInfo.pid, lockInfo.operation, lockInfo.port);
                         fileLockContentionHandler.pingOwner(lockInfo.port, lockInfo.lockId, displayName);
+                        ownerPinged = true;
+                        ownerLockId = lockInfo.lockId;
                     } else {
                         LOGGER.debug("The file lock is held by a different Gradle process. I was unable to read on which port the owner listens for lock access requests.");
                     }
                 }
                 //TODO SF we should inform on the progress/status bar that we're waiting
-                Thread.sleep(200L);
+                if (ownerPinged) {
+                    // Wakes up early when the owner reports that it has released the lock
+                    fileLockContentionHandler.waitForRelease(ownerLockId, 200L);
+                } else {
+                    Thread.sleep(200L);
+                }
             } while (System.currentTimeMillis() < waitUntil);
             return null;
         }
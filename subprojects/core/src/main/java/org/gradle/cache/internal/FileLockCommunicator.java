@@ -22,12 +22,22 @@ import java.io.*;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
+/**
+ * Sends and receives the messages used to coordinate access to a lock file between processes.
+ *
+ * <p>A process that wants a lock held by another process pings the owner. The ping is a protocol version byte followed by the lock id, and
+ * may be followed by a flag asking the owner to send a release notification back to the pinging process once it has released the lock. Older
+ * Gradle versions only read the version and lock id, so they ignore the flag and never send release notifications.</p>
+ */
 public class FileLockCommunicator {
     private static final byte PROTOCOL_VERSION = 1;
+    private static final byte NOTIFY_WHEN_RELEASED = 1;
+    private static final byte RELEASED = 2;
     private final DatagramSocket socket;
     private final InetAddressFactory addressFactory;
     private boolean stopped;
@@ -43,7 +53,7 @@ public class FileLockCommunicator {
 
     public void pingOwner(int ownerPort, long lockId, String displayName) {
         try {
-            byte[] bytesToSend = encode(lockId);
+            byte[] bytesToSend = encode(lockId, NOTIFY_WHEN_RELEASED);
             // Ping the owner via all available local addresses
             for (InetAddress address : addressFactory.getCommunicationAddresses()) {
                 socket.send(new DatagramPacket(bytesToSend, bytesToSend.length, address, ownerPort));
@@ -53,12 +63,24 @@ public class FileLockCommunicator {
         }
     }
 
-    public long receive() throws GracefullyStoppedException {
+    /**
+     * Notifies a process that pinged this process that the given lock has been released.
+     */
+    public void notifyReleased(SocketAddress requester, long lockId) {
+        try {
+            byte[] bytesToSend = encode(lockId, RELEASED);
+            socket.send(new DatagramPacket(bytesToSend, bytesToSend.length, requester));
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Failed to notify %s of release of lock (lock id: %s)", requester, lockId), e);
+        }
+    }
+
+    public FileLockPacket receive() throws GracefullyStoppedException {
         try {
-            byte[] bytes = new byte[9];
+            byte[] bytes = new byte[10];
             DatagramPacket packet = new DatagramPacket(bytes, bytes.length);
             socket.receive(packet);
-            return decode(bytes);
+            return decode(bytes, packet.getLength(), packet.getSocketAddress());
         } catch (IOException e) {
             if (!stopped) {
                 throw new RuntimeException(e);
@@ -72,22 +94,33 @@ public class FileLockCommunicator {
         socket.close();
     }
 
-    private static byte[] encode(long lockId) throws IOException {
+    private static byte[] encode(long lockId, byte type) throws IOException {
         ByteArrayOutputStream packet = new ByteArrayOutputStream();
         DataOutputStream dataOutput = new DataOutputStream(packet);
         dataOutput.writeByte(PROTOCOL_VERSION);
         dataOutput.writeLong(lockId);
+        dataOutput.writeByte(type);
         dataOutput.flush();
         return packet.toByteArray();
     }
 
-    private static long decode(byte[] bytes) throws IOException {
-        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes));
+    private static FileLockPacket decode(byte[] bytes, int length, SocketAddress sender) throws IOException {
+        DataInputStream dataInput = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
         byte version = dataInput.readByte();
         if (version != PROTOCOL_VERSION) {
             throw new IllegalArgumentException(String.format("Unexpected protocol version %s received in lock contention notification message", version));
         }
-        return dataInput.readLong();
+        long lockId = dataInput.readLong();
+        byte type = length > 9 ? dataInput.readByte() : 0;
+        switch (type) {
+            case RELEASED:
+                return new FileLockPacket(lockId, FileLockPacket.Type.RELEASED, sender);
+            case NOTIFY_WHEN_RELEASED:
+                return new FileLockPacket(lockId, FileLockPacket.Type.PING_NOTIFY_WHEN_RELEASED, sender);
+            default:
+                // A ping from an older Gradle version, or a flag that this version does not understand
+                return new FileLockPacket(lockId, FileLockPacket.Type.PING, sender);
+        }
     }
 
     public int getPort() {
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import java.net.SocketAddress;
+
+/**
+ * A message received by a {@link FileLockCommunicator}.
+ */
+public class FileLockPacket {
+    public enum Type {
+        /**
+         * Another process wants the lock.
+         */
+        PING,
+        /**
+         * Another process wants the lock, and wants to be notified when it has been released.
+         */
+        PING_NOTIFY_WHEN_RELEASED,
+        /**
+         * The owner of a lock that this process asked for has released it.
+         */
+        RELEASED
+    }
+
+    private final long lockId;
+    private final Type type;
+    private final SocketAddress sender;
+
+    public FileLockPacket(long lockId, Type type, SocketAddress sender) {
+        this.lockId = lockId;
+        this.type = type;
+        this.sender = sender;
+    }
+
+    public long getLockId() {
+        return lockId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public SocketAddress getSender() {
+        return sender;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts, per lock target, how often a file lock was acquired, how long this process waited for it and how often this process handed the lock
+ * over to another process that asked for it.
+ */
+public class FileLockStatistics {
+    private final ConcurrentMap<String, Counters> targets = new ConcurrentHashMap<String, Counters>();
+
+    void acquired(String displayName, long waitNanos, boolean contended) {
+        Counters counters = getCounters(displayName);
+        counters.acquired.incrementAndGet();
+        counters.waitNanos.addAndGet(waitNanos);
+        if (contended) {
+            counters.contended.incrementAndGet();
+        }
+    }
+
+    void handedOver(String displayName) {
+        getCounters(displayName).handOvers.incrementAndGet();
+    }
+
+    private Counters getCounters(String displayName) {
+        Counters counters = targets.get(displayName);
+        if (counters == null) {
+            counters = new Counters();
+            Counters existing = targets.putIfAbsent(displayName, counters);
+            if (existing != null) {
+                counters = existing;
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Returns the current counts for each lock target, sorted by display name.
+     */
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshot = new TreeMap<String, Snapshot>();
+        for (Map.Entry<String, Counters> entry : targets.entrySet()) {
+            Counters counters = entry.getValue();
+            snapshot.put(entry.getKey(), new Snapshot(counters.acquired.get(), counters.contended.get(), counters.waitNanos.get(), counters.handOvers.get()));
+        }
+        return snapshot;
+    }
+
+    private static class Counters {
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong contended = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong handOvers = new AtomicLong();
+    }
+
+    public static class Snapshot {
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0);
+
+        private final long acquired;
+        private final long contended;
+        private final long waitNanos;
+        private final long handOvers;
+
+        Snapshot(long acquired, long contended, long waitNanos, long handOvers) {
+            this.acquired = acquired;
+            this.contended = contended;
+            this.waitNanos = waitNanos;
+            this.handOvers = handOvers;
+        }
+
+        /**
+         * The number of times the lock was acquired.
+         */
+        public long getAcquired() {
+            return acquired;
+        }
+
+        /**
+         * The number of times the lock was held by another process when this process asked for it.
+         */
+        public long getContended() {
+            return contended;
+        }
+
+        /**
+         * The total time spent acquiring the lock.
+         */
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        /**
+         * The number of times this process released the lock because another process asked for it.
+         */
+        public long getHandOvers() {
+            return handOvers;
+        }
+
+        public Snapshot minus(Snapshot other) {
+            return new Snapshot(acquired - other.acquired, contended - other.contended, waitNanos - other.waitNanos, handOvers - other.handOvers);
+        }
+    }
+}
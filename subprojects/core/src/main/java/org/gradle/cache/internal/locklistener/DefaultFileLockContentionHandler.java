@@ -19,21 +19,43 @@ package org.gradle.cache.internal.locklistener;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.internal.FileLockCommunicator;
+import org.gradle.cache.internal.FileLockPacket;
 import org.gradle.cache.internal.GracefullyStoppedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 
+import java.net.SocketAddress;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Listens for requests from other processes for the locks held by this process, and for notifications that locks this process is waiting for have been released.
+ *
+ * <p>Processes that ask to be notified when a lock is released are remembered, and notified when the lock is released, so that they do not need to poll the lock file.</p>
+ */
 public class DefaultFileLockContentionHandler implements FileLockContentionHandler, Stoppable {
     private static final Logger LOGGER = Logging.getLogger(DefaultFileLockContentionHandler.class);
+    // Release notifications for locks that nobody is currently waiting for are kept for a while, in case a waiter is about to start waiting
+    private static final int MAX_UNCLAIMED_RELEASES = 100;
     private final Lock lock = new ReentrantLock();
+    private final Condition releaseReceived = lock.newCondition();
     private final Map<Long, Runnable> contendedActions = new HashMap<Long, Runnable>();
+    private final Map<Long, Set<SocketAddress>> waitingProcesses = new HashMap<Long, Set<SocketAddress>>();
+    private final Map<Long, Boolean> releasedLocks = new LinkedHashMap<Long, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_UNCLAIMED_RELEASES;
+        }
+    };
     private final ExecutorFactory executorFactory;
     private final InetAddressFactory addressFactory;
 
@@ -62,20 +84,34 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
 
             private void doRun() {
                 while (true) {
-                    long lockId;
+                    FileLockPacket packet;
                     try {
-                        lockId = communicator.receive();
+                        packet = communicator.receive();
                     } catch (GracefullyStoppedException e) {
                         return;
                     }
+                    long lockId = packet.getLockId();
                     lock.lock();
                     Runnable action;
                     try {
+                        if (packet.getType() == FileLockPacket.Type.RELEASED) {
+                            releasedLocks.put(lockId, Boolean.TRUE);
+                            releaseReceived.signalAll();
+                            continue;
+                        }
                         action = contendedActions.get(lockId);
                         if (action == null) {
                             //received access request for lock that is already closed
                             continue;
                         }
+                        if (packet.getType() == FileLockPacket.Type.PING_NOTIFY_WHEN_RELEASED) {
+                            Set<SocketAddress> waiting = waitingProcesses.get(lockId);
+                            if (waiting == null) {
+                                waiting = new LinkedHashSet<SocketAddress>();
+                                waitingProcesses.put(lockId, waiting);
+                            }
+                            waiting.add(packet.getSender());
+                        }
                     } finally {
                         lock.unlock();
                     }
@@ -92,10 +128,7 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
             if (communicator == null) {
                 throw new IllegalStateException("Must initialize the handler by reserving the port first.");
             }
-            if (executor == null) {
-                executor = executorFactory.create("File lock request listener");
-                executor.execute(listener());
-            }
+            startListening();
             if (contendedActions.containsKey(lockId)) {
                 throw new UnsupportedOperationException("Multiple contention actions for a given lock are currently not supported.");
             }
@@ -105,10 +138,58 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
         }
     }
 
+    /**
+     * Starts the listener thread, if not already running. Must be called while holding the lock.
+     */
+    private void startListening() {
+        if (executor == null) {
+            executor = executorFactory.create("File lock request listener");
+            executor.execute(listener());
+        }
+    }
+
     public void pingOwner(int port, long lockId, String displayName) {
         getCommunicator().pingOwner(port, lockId, displayName);
     }
 
+    public void waitForRelease(long lockId, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (!stopped && communicator != null) {
+                startListening();
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+                while (!stopped && releasedLocks.remove(lockId) == null && remainingNanos > 0) {
+                    remainingNanos = releaseReceived.awaitNanos(remainingNanos);
+                }
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Cannot receive notifications, so just wait
+        Thread.sleep(timeoutMillis);
+    }
+
+    public void released(long lockId) {
+        Set<SocketAddress> waiting;
+        lock.lock();
+        try {
+            waiting = waitingProcesses.remove(lockId);
+            if (waiting == null || stopped || communicator == null) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (SocketAddress process : waiting) {
+            try {
+                communicator.notifyReleased(process, lockId);
+            } catch (Exception e) {
+                LOGGER.debug("Could not notify {} of release of lock {}.", process, lockId, e);
+            }
+        }
+    }
+
     private void assertNotStopped() {
         if (stopped) {
             throw new IllegalStateException(
@@ -130,6 +211,8 @@ public class DefaultFileLockContentionHandler implements FileLockContentionHandl
         try {
             stopped = true;
             contendedActions.clear();
+            waitingProcesses.clear();
+            releaseReceived.signalAll();
             if (communicator != null) {
                 communicator.stop();
             }
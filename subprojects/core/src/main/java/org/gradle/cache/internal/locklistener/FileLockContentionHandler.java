@@ -24,4 +24,14 @@ public interface FileLockContentionHandler {
     int reservePort();
 
     void pingOwner(int port, long lockId, String displayName);
+
+    /**
+     * Waits until the owner of the given lock, which has previously been pinged, reports that it has released the lock, or until the timeout expires.
+     */
+    void waitForRelease(long lockId, long timeoutMillis) throws InterruptedException;
+
+    /**
+     * Notifies the processes waiting for the given lock, which is owned by this process, that it has been released.
+     */
+    void released(long lockId);
 }
@@ -18,18 +18,24 @@ package org.gradle.initialization;
 
 import com.google.common.collect.ImmutableList;
 import org.gradle.StartParameter;
+import org.gradle.api.internal.AbstractClassGenerator;
+import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.internal.ExceptionAnalyser;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.tasks.cache.TaskExecutionStatisticsEventAdapter;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.api.logging.configuration.ShowStacktrace;
+import org.gradle.cache.internal.DefaultFileLockManager;
+import org.gradle.cache.internal.FileLockManager;
 import org.gradle.configuration.BuildConfigurer;
 import org.gradle.deployment.internal.DeploymentRegistry;
 import org.gradle.execution.BuildConfigurationActionExecuter;
 import org.gradle.execution.BuildExecuter;
 import org.gradle.internal.buildevents.BuildLogger;
 import org.gradle.internal.buildevents.CacheStatisticsReporter;
+import org.gradle.internal.buildevents.ClassGenerationStatisticsReporter;
+import org.gradle.internal.buildevents.FileLockStatisticsReporter;
 import org.gradle.internal.buildevents.TaskExecutionLogger;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerManager;
@@ -156,6 +162,17 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         }
         listenerManager.addListener(tracker);
 
+        if (tracker.getCurrentBuild() == null) {
+            ClassGenerator classGenerator = serviceRegistry.get(ClassGenerator.class);
+            if (classGenerator instanceof AbstractClassGenerator) {
+                listenerManager.addListener(new ClassGenerationStatisticsReporter(((AbstractClassGenerator) classGenerator).getStatistics()));
+            }
+            FileLockManager fileLockManager = serviceRegistry.get(FileLockManager.class);
+            if (fileLockManager instanceof DefaultFileLockManager) {
+                listenerManager.addListener(new FileLockStatisticsReporter(((DefaultFileLockManager) fileLockManager).getStatistics()));
+            }
+        }
+
         if (startParameter.isTaskOutputCacheEnabled()) {
             listenerManager.addListener(serviceRegistry.get(TaskExecutionStatisticsEventAdapter.class));
             listenerManager.addListener(new CacheStatisticsReporter(serviceRegistry.get(StyledTextOutputFactory.class)));
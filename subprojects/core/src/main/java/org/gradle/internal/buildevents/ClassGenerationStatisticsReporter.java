@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.buildevents;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.internal.ClassGenerationStatistics;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the number of decorated classes generated or loaded from the generated class cache during a build, and the time spent doing so.
+ */
+public class ClassGenerationStatisticsReporter extends BuildAdapter {
+    private static final Logger LOGGER = Logging.getLogger(ClassGenerationStatisticsReporter.class);
+
+    private final ClassGenerationStatistics statistics;
+    private final long generatedCountAtStart;
+    private final long generatedNanosAtStart;
+    private final long loadedCountAtStart;
+    private final long loadedNanosAtStart;
+
+    public ClassGenerationStatisticsReporter(ClassGenerationStatistics statistics) {
+        this.statistics = statistics;
+        this.generatedCountAtStart = statistics.getGeneratedCount();
+        this.generatedNanosAtStart = statistics.getGeneratedNanos();
+        this.loadedCountAtStart = statistics.getLoadedCount();
+        this.loadedNanosAtStart = statistics.getLoadedNanos();
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        long generatedCount = statistics.getGeneratedCount() - generatedCountAtStart;
+        long loadedCount = statistics.getLoadedCount() - loadedCountAtStart;
+        if (generatedCount == 0 && loadedCount == 0) {
+            return;
+        }
+        long generatedMillis = TimeUnit.NANOSECONDS.toMillis(statistics.getGeneratedNanos() - generatedNanosAtStart);
+        long loadedMillis = TimeUnit.NANOSECONDS.toMillis(statistics.getLoadedNanos() - loadedNanosAtStart);
+        LOGGER.info("Generated {} decorated classes in {}ms, loaded {} decorated classes from cache in {}ms.", generatedCount, generatedMillis, loadedCount, loadedMillis);
+    }
+}
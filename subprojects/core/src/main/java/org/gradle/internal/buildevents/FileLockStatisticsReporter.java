@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.buildevents;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.internal.FileLockStatistics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports, for each lock that another process held while this build needed it, how long the build waited for the lock and how often the build handed the lock over.
+ */
+public class FileLockStatisticsReporter extends BuildAdapter {
+    private static final Logger LOGGER = Logging.getLogger(FileLockStatisticsReporter.class);
+
+    private final FileLockStatistics statistics;
+    private final Map<String, FileLockStatistics.Snapshot> atStart;
+
+    public FileLockStatisticsReporter(FileLockStatistics statistics) {
+        this.statistics = statistics;
+        this.atStart = statistics.snapshot();
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, FileLockStatistics.Snapshot> entry : statistics.snapshot().entrySet()) {
+            FileLockStatistics.Snapshot start = atStart.get(entry.getKey());
+            FileLockStatistics.Snapshot counts = entry.getValue().minus(start == null ? FileLockStatistics.Snapshot.EMPTY : start);
+            if (counts.getContended() == 0 && counts.getHandOvers() == 0) {
+                continue;
+            }
+            LOGGER.info("Lock on {}: waited {}ms for {} of {} acquisitions, handed over {} times.",
+                entry.getKey(), TimeUnit.NANOSECONDS.toMillis(counts.getWaitNanos()), counts.getContended(), counts.getAcquired(), counts.getHandOvers());
+        }
+    }
+}
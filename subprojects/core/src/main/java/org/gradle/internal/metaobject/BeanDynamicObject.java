@@ -15,6 +15,9 @@
  */
 package org.gradle.internal.metaobject;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import groovy.lang.GroovyObject;
 import groovy.lang.GroovySystem;
 import groovy.lang.MetaBeanProperty;
@@ -24,6 +27,7 @@ import groovy.lang.MetaMethod;
 import groovy.lang.MetaProperty;
 import groovy.lang.MissingMethodException;
 import groovy.lang.MissingPropertyException;
+import org.codehaus.groovy.runtime.GroovyCategorySupport;
 import org.codehaus.groovy.runtime.InvokerInvocationException;
 import org.codehaus.groovy.runtime.MetaClassHelper;
 import org.codehaus.groovy.runtime.metaclass.MultipleSetterProperty;
@@ -44,6 +48,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A {@link DynamicObject} which uses groovy reflection to provide access to the properties and methods of a bean.
@@ -51,10 +57,21 @@ import java.util.Map;
  * <p>Uses some deep hacks to avoid some expensive reflections and the use of exceptions when a particular property or method cannot be found,
  * for example, when a decorated object is used as the delegate of a configuration closure. Also uses some hacks to insert some customised type
  * coercion and error reporting. Enjoy.
+ *
+ * <p>The results of looking up properties and methods are cached per meta-class, for meta-classes that cannot change once they have been
+ * initialized. A build script looks up the same handful of properties and methods on many objects of the same type, so most lookups are served from the cache.</p>
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
     private static final Method META_PROP_METHOD;
     private static final Field MISSING_PROPERTY_GET_METHOD;
+    private static final LoadingCache<MetaClass, MetaClassLookups> LOOKUPS = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(new CacheLoader<MetaClass, MetaClassLookups>() {
+            @Override
+            public MetaClassLookups load(MetaClass metaClass) {
+                return new MetaClassLookups();
+            }
+        });
     private final Object bean;
     private final boolean includeProperties;
     private final MetaClassAdapter delegate;
@@ -236,11 +253,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         private MetaMethod findPropertyMissingMethod(MetaClass metaClass) {
             if (metaClass instanceof MetaClassImpl) {
                 // Reach into meta class to avoid lookup
-                try {
-                    return (MetaMethod) MISSING_PROPERTY_GET_METHOD.get(metaClass);
-                } catch (IllegalAccessException e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return getPropertyMissingGetMethod((MetaClassImpl) metaClass);
             }
 
             // Query the declared methods of the meta class
@@ -254,13 +267,11 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
+            if (isCacheable(metaClass)) {
+                return LOOKUPS.getUnchecked(metaClass).getProperty((MetaClassImpl) metaClass, name);
+            }
             if (metaClass instanceof MetaClassImpl) {
-                // MetaClass.getMetaProperty(name) is very expensive when the property is not known. Instead, reach into the meta class to call a much more efficient lookup method
-                try {
-                    return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
-                } catch (Throwable e) {
-                    throw UncheckedException.throwAsUncheckedException(e);
-                }
+                return getMetaProperty((MetaClassImpl) metaClass, name);
             }
 
             // Some other meta-class implementation - fall back to the public API
@@ -419,6 +430,9 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
+            if (isCacheable(metaClass)) {
+                return LOOKUPS.getUnchecked(metaClass).getMethod((MetaClassImpl) metaClass, name, arguments);
+            }
             return metaClass.getMetaMethod(name, arguments);
         }
 
@@ -513,4 +527,104 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             return null;
         }
     }
+
+    /**
+     * Only plain {@link MetaClassImpl} instances are cached. Subclasses such as {@link groovy.lang.ExpandoMetaClass} can have properties and methods added at any time.
+     */
+    private static boolean isCacheable(MetaClass metaClass) {
+        // Categories in use by the current thread change the methods and properties of the meta class, so don't cache lookups while any are active
+        return metaClass.getClass() == MetaClassImpl.class && !GroovyCategorySupport.hasCategoryInCurrentThread();
+    }
+
+    @Nullable
+    private static MetaProperty getMetaProperty(MetaClassImpl metaClass, String name) {
+        // MetaClass.getMetaProperty(name) is very expensive when the property is not known. Instead, reach into the meta class to call a much more efficient lookup method
+        try {
+            return (MetaProperty) META_PROP_METHOD.invoke(metaClass, name, false);
+        } catch (Throwable e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Nullable
+    private static MetaMethod getPropertyMissingGetMethod(MetaClassImpl metaClass) {
+        try {
+            return (MetaMethod) MISSING_PROPERTY_GET_METHOD.get(metaClass);
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * The properties and methods found for a meta-class, including those that could not be found. Does not reference the meta-class itself, so that
+     * it does not keep the meta-class reachable from the cache.
+     */
+    private static class MetaClassLookups {
+        // Guards against an unbounded number of misses, for example when a map is used as a bean
+        private static final int MAX_ENTRIES = 2000;
+        private static final Object MISSING = new Object();
+
+        private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+        private final ConcurrentMap<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+
+        @Nullable
+        MetaProperty getProperty(MetaClassImpl metaClass, String name) {
+            Object property = properties.get(name);
+            if (property == null) {
+                property = getMetaProperty(metaClass, name);
+                if (property == null) {
+                    property = MISSING;
+                }
+                if (properties.size() < MAX_ENTRIES) {
+                    properties.putIfAbsent(name, property);
+                }
+            }
+            return property == MISSING ? null : (MetaProperty) property;
+        }
+
+        @Nullable
+        MetaMethod getMethod(MetaClassImpl metaClass, String name, Class[] arguments) {
+            MethodKey key = new MethodKey(name, arguments);
+            Object method = methods.get(key);
+            if (method == null) {
+                method = metaClass.getMetaMethod(name, arguments);
+                if (method == null) {
+                    method = MISSING;
+                }
+                if (methods.size() < MAX_ENTRIES) {
+                    methods.putIfAbsent(key, method);
+                }
+            }
+            return method == MISSING ? null : (MetaMethod) method;
+        }
+    }
+
+    private static class MethodKey {
+        private final String name;
+        private final Class[] arguments;
+        private final int hashCode;
+
+        MethodKey(String name, Class[] arguments) {
+            this.name = name;
+            this.arguments = arguments;
+            this.hashCode = 31 * name.hashCode() + Arrays.hashCode(arguments);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return hashCode == other.hashCode && name.equals(other.name) && Arrays.equals(arguments, other.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
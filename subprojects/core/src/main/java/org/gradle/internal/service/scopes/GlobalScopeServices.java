@@ -24,6 +24,8 @@ import org.gradle.api.internal.ClassGeneratorBackedInstantiator;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.DefaultGeneratedClassBytecodeCache;
+import org.gradle.api.internal.DelegatingGeneratedClassBytecodeCache;
 import org.gradle.api.internal.DependencyInjectingInstantiator;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.DynamicModulesClassPathProvider;
@@ -125,6 +127,7 @@ import org.gradle.model.internal.manage.schema.extract.ModelSchemaExtractionStra
 import org.gradle.model.internal.manage.schema.extract.ModelSchemaExtractor;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandleFactory;
+import org.gradle.process.internal.worker.WorkerProcessIdGenerator;
 
 import java.util.List;
 
@@ -249,12 +252,21 @@ public class GlobalScopeServices {
         return messagingServices.get(MessagingServer.class);
     }
 
+    WorkerProcessIdGenerator createWorkerProcessIdGenerator() {
+        return new WorkerProcessIdGenerator();
+    }
+
     InetAddressFactory createInetAddressFactory(MessagingServices messagingServices) {
         return messagingServices.get(InetAddressFactory.class);
     }
 
-    ClassGenerator createClassGenerator() {
-        return new AsmBackedClassGenerator();
+    DelegatingGeneratedClassBytecodeCache createGeneratedClassBytecodeCache() {
+        return new DelegatingGeneratedClassBytecodeCache();
+    }
+
+    ClassGenerator createClassGenerator(DelegatingGeneratedClassBytecodeCache bytecodeCache) {
+        // Reuses generated classes from the cache of the Gradle user home directory in use, when enabled. See GradleUserHomeScopeServices
+        return new AsmBackedClassGenerator(DefaultGeneratedClassBytecodeCache.isEnabled() ? bytecodeCache : null);
     }
 
     Instantiator createInstantiator(ClassGenerator classGenerator) {
@@ -16,6 +16,13 @@
 
 package org.gradle.internal.service.scopes;
 
+import org.gradle.api.internal.AsmBackedClassGenerator;
+import org.gradle.api.internal.DefaultGeneratedClassBytecodeCache;
+import org.gradle.api.internal.DelegatingGeneratedClassBytecodeCache;
+import org.gradle.api.internal.GeneratedClassBytecodeCache;
+import org.gradle.api.internal.changedetection.state.FileSystemMirror;
+import org.gradle.api.internal.changedetection.state.WatchingFileSystemMirror;
+import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheRepositoryServices;
 import org.gradle.initialization.GradleUserHomeDirProvider;
@@ -23,6 +30,7 @@ import org.gradle.internal.classpath.CachedClasspathTransformer;
 import org.gradle.internal.classpath.CachedJarFileStore;
 import org.gradle.internal.classpath.DefaultCachedClasspathTransformer;
 import org.gradle.internal.file.JarCache;
+import org.gradle.internal.filewatch.FileWatcherFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 
@@ -41,9 +49,30 @@ public class GradleUserHomeScopeServices {
         for (GradleUserHomeScopePluginServices plugin : globalServices.getAll(GradleUserHomeScopePluginServices.class)) {
             plugin.registerGradleUserHomeServices(registration);
         }
+        if (DefaultGeneratedClassBytecodeCache.isEnabled()) {
+            registration.addProvider(new GeneratedClassCacheServices());
+        }
     }
 
     CachedClasspathTransformer createCachedClasspathTransformer(CacheRepository cacheRepository, ServiceRegistry serviceRegistry) {
         return new DefaultCachedClasspathTransformer(cacheRepository, new JarCache(), serviceRegistry.getAll(CachedJarFileStore.class));
     }
+
+    FileSystemMirror createFileSystemMirror(FileWatcherFactory fileWatcherFactory, TemporaryFileProvider temporaryFileProvider) {
+        if (WatchingFileSystemMirror.isEnabled()) {
+            return new WatchingFileSystemMirror(fileWatcherFactory, temporaryFileProvider.createTemporaryDirectory("filewatch", "sync"));
+        }
+        return FileSystemMirror.NO_OP;
+    }
+
+    private static class GeneratedClassCacheServices {
+        GeneratedClassBytecodeCache createGeneratedClassBytecodeCache(CacheRepository cacheRepository) {
+            return new DefaultGeneratedClassBytecodeCache(cacheRepository, AsmBackedClassGenerator.class);
+        }
+
+        void configure(DelegatingGeneratedClassBytecodeCache globalBytecodeCache, GeneratedClassBytecodeCache bytecodeCache) {
+            // The global class generator is used by all scopes, so point it at the cache of this Gradle user home directory
+            globalBytecodeCache.attach(bytecodeCache);
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultGeneratedClassBytecodeCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def cacheRepository = Mock(CacheRepository)
+    def cacheBuilder = Mock(CacheBuilder)
+    def persistentCache = Mock(PersistentCache)
+    DefaultGeneratedClassBytecodeCache cache
+
+    def setup() {
+        _ * cacheRepository.cache("generated-classes") >> cacheBuilder
+        _ * cacheBuilder.withDisplayName(_) >> cacheBuilder
+        _ * cacheBuilder.withLockOptions(_) >> cacheBuilder
+        _ * cacheBuilder.open() >> persistentCache
+        _ * persistentCache.baseDir >> tmpDir.testDirectory
+        cache = new DefaultGeneratedClassBytecodeCache(cacheRepository, AsmBackedClassGenerator)
+    }
+
+    def "calculates stable key from type hierarchy"() {
+        expect:
+        def key = cache.keyFor(TestJavaObject)
+        key != null
+        key == cache.keyFor(TestJavaObject)
+        key != cache.keyFor(TestDecoratedGroovyBean)
+        cache.keyFor(TestDecoratedGroovyBean) == new DefaultGeneratedClassBytecodeCache(cacheRepository, AsmBackedClassGenerator).keyFor(TestDecoratedGroovyBean)
+    }
+
+    def "stores and loads bytecode"() {
+        def bytecode = [1, 2, 3] as byte[]
+
+        expect:
+        cache.load("0123abcd") == null
+
+        when:
+        cache.store("0123abcd", bytecode)
+
+        then:
+        cache.load("0123abcd") == bytecode
+        tmpDir.testDirectory.file("01/0123abcd.class").file
+    }
+
+    def "removes bytecode"() {
+        cache.store("0123abcd", [1, 2, 3] as byte[])
+
+        when:
+        cache.remove("0123abcd")
+
+        then:
+        cache.load("0123abcd") == null
+        !tmpDir.testDirectory.file("01/0123abcd.class").exists()
+    }
+
+    def "does not use cache after it has been closed"() {
+        cache.store("0123abcd", [1, 2, 3] as byte[])
+
+        when:
+        cache.close()
+
+        then:
+        1 * persistentCache.close()
+        cache.load("0123abcd") == null
+        cache.keyFor(TestJavaObject) == null
+    }
+
+    def "generator stores bytecode of generated class"() {
+        def bytecodeCache = Mock(GeneratedClassBytecodeCache)
+        def generator = new AsmBackedClassGenerator(bytecodeCache)
+
+        when:
+        def generated = generator.generate(BeanWithCachedBytecode)
+
+        then:
+        generated.name == BeanWithCachedBytecode.name + "_Decorated"
+        _ * bytecodeCache.keyFor(BeanWithCachedBytecode) >> "key"
+        1 * bytecodeCache.load("key") >> null
+        1 * bytecodeCache.store("key", { it.length > 0 })
+        generator.statistics.generatedCount == 1
+        generator.statistics.loadedCount == 0
+    }
+
+    def "generator loads class from bytecode stored for another class loader"() {
+        def bytecodeCache = Mock(GeneratedClassBytecodeCache)
+        def generator = new AsmBackedClassGenerator(bytecodeCache)
+        def type1 = new GroovyClassLoader(getClass().classLoader).parseClass("class BeanInOtherLoader { String prop }")
+        def type2 = new GroovyClassLoader(getClass().classLoader).parseClass("class BeanInOtherLoader { String prop }")
+        byte[] stored = null
+
+        when:
+        generator.generate(type1)
+
+        then:
+        _ * bytecodeCache.keyFor(type1) >> "key"
+        1 * bytecodeCache.load("key") >> null
+        1 * bytecodeCache.store("key", _) >> { String key, byte[] bytecode -> stored = bytecode }
+
+        when:
+        def generated = generator.generate(type2)
+
+        then:
+        generated.superclass.is(type2)
+        _ * bytecodeCache.keyFor(type2) >> "key"
+        1 * bytecodeCache.load("key") >> { stored }
+        0 * bytecodeCache.store(_, _)
+        generator.statistics.generatedCount == 1
+        generator.statistics.loadedCount == 1
+    }
+
+    def "delegating cache uses the cache that was attached most recently"() {
+        def delegatingCache = new DelegatingGeneratedClassBytecodeCache()
+        def first = Mock(GeneratedClassBytecodeCache)
+        def second = Mock(GeneratedClassBytecodeCache)
+        def bytecode = [1, 2, 3] as byte[]
+
+        expect:
+        delegatingCache.keyFor(TestJavaObject) == null
+        delegatingCache.load("key") == null
+
+        when:
+        delegatingCache.attach(first)
+        delegatingCache.store("key", bytecode)
+        delegatingCache.attach(second)
+        def key = delegatingCache.keyFor(TestJavaObject)
+        def loaded = delegatingCache.load("key")
+
+        then:
+        key == "key"
+        loaded == bytecode
+        1 * first.store("key", bytecode)
+        1 * second.keyFor(TestJavaObject) >> "key"
+        1 * second.load("key") >> bytecode
+        0 * first._
+    }
+
+    def "generator discards cached bytecode that cannot be loaded and generates the class instead"() {
+        def bytecodeCache = Mock(GeneratedClassBytecodeCache)
+        def generator = new AsmBackedClassGenerator(bytecodeCache)
+
+        when:
+        def generated = generator.generate(BeanWithBrokenCachedBytecode)
+
+        then:
+        generated.name == BeanWithBrokenCachedBytecode.name + "_Decorated"
+        _ * bytecodeCache.keyFor(BeanWithBrokenCachedBytecode) >> "key"
+        1 * bytecodeCache.load("key") >> ([1, 2, 3] as byte[])
+        1 * bytecodeCache.remove("key")
+        1 * bytecodeCache.store("key", { it.length > 0 })
+        generator.statistics.generatedCount == 1
+        generator.statistics.loadedCount == 0
+    }
+}
+
+class BeanWithCachedBytecode {
+    String prop
+}
+
+class BeanWithBrokenCachedBytecode {
+    String prop
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileTreeElement
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.specs.Spec
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.filewatch.FileWatcherListener
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.changedetection.state.FileDetails.FileType.RegularFile
+
+class WatchingFileSystemMirrorTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def fileWatcherFactory = Mock(FileWatcherFactory)
+    def watcher = Mock(FileWatcher)
+    FileWatcherListener listener
+    def syncDir = tmpDir.file("sync")
+    def mirror = new WatchingFileSystemMirror(fileWatcherFactory, syncDir, 1000)
+    def dir = tmpDir.createDir("dir")
+    def tree = new DirectoryFileTree(dir)
+    int walks
+
+    def setup() {
+        _ * fileWatcherFactory.watch(_, _) >> { args ->
+            listener = args[1]
+            watcher
+        }
+    }
+
+    def "retains directory tree until a change is reported within it"() {
+        when:
+        mirror.getDirectoryTree(tree, walker())
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 1
+        1 * watcher.watch({ it.contains(dir) })
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.create(tmpDir.file("other")))
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 1
+
+        when:
+        listener.onChange(watcher, FileWatcherEvent.modify(dir.file("a/b.txt")))
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 2
+    }
+
+    def "discards directory tree when an ancestor changes"() {
+        when:
+        mirror.getDirectoryTree(tree, walker())
+        listener.onChange(watcher, FileWatcherEvent.delete(tmpDir.testDirectory))
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 2
+    }
+
+    def "discards everything when an undefined change is reported"() {
+        def file = tmpDir.createFile("file.txt")
+
+        when:
+        mirror.getDirectoryTree(tree, walker())
+        mirror.getFile(file, fileDetails(file))
+        listener.onChange(watcher, FileWatcherEvent.undefined())
+        mirror.getDirectoryTree(tree, walker())
+        mirror.getFile(file, fileDetails(file))
+
+        then:
+        walks == 4
+    }
+
+    def "discards everything before task outputs are generated"() {
+        when:
+        mirror.getDirectoryTree(tree, walker())
+        mirror.beforeTaskOutputsGenerated()
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 2
+    }
+
+    def "keeps retained directory tree when the build starts and no change is reported"() {
+        given:
+        mirror.getDirectoryTree(tree, walker())
+        _ * watcher.watch({ it.contains(syncDir) }) >> { reportBeforeSyncMarker() }
+
+        when:
+        mirror.beforeBuildStarted()
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 1
+        !syncDir.list()
+    }
+
+    def "processes changes reported before the sync marker when the build starts"() {
+        given:
+        mirror.getDirectoryTree(tree, walker())
+        _ * watcher.watch({ it.contains(syncDir) }) >> { reportBeforeSyncMarker(FileWatcherEvent.modify(dir.file("a.txt"))) }
+
+        when:
+        mirror.beforeBuildStarted()
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 2
+    }
+
+    def "discards everything when the sync marker is not reported in time"() {
+        given:
+        mirror.getDirectoryTree(tree, walker())
+
+        when:
+        mirror.beforeBuildStarted()
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 2
+    }
+
+    def "does not retain directory tree when a change is reported while walking it"() {
+        def walker = {
+            walks++
+            listener.onChange(watcher, FileWatcherEvent.create(dir.file("new.txt")))
+            []
+        } as Factory
+
+        when:
+        mirror.getDirectoryTree(tree, walker)
+        mirror.getDirectoryTree(tree, walker)
+
+        then:
+        walks == 2
+    }
+
+    def "does not retain directory tree filtered using specs"() {
+        def patterns = new PatternSet()
+        patterns.include({ true } as Spec)
+        def filteredTree = new DirectoryFileTree(dir, patterns)
+
+        when:
+        mirror.getDirectoryTree(filteredTree, walker())
+        mirror.getDirectoryTree(filteredTree, walker())
+
+        then:
+        walks == 2
+        0 * watcher.watch(_)
+    }
+
+    def "does not retain anything after it has been stopped"() {
+        when:
+        mirror.getDirectoryTree(tree, walker())
+        mirror.stop()
+        mirror.getDirectoryTree(tree, walker())
+        mirror.getDirectoryTree(tree, walker())
+
+        then:
+        walks == 3
+        1 * watcher.stop()
+    }
+
+    private void reportBeforeSyncMarker(FileWatcherEvent... events) {
+        Thread.start {
+            File marker = null
+            for (int i = 0; marker == null && i < 100; i++) {
+                def markers = syncDir.listFiles()
+                if (markers) {
+                    marker = markers[0]
+                } else {
+                    Thread.sleep(10)
+                }
+            }
+            events.each { listener.onChange(watcher, it) }
+            if (marker != null) {
+                listener.onChange(watcher, FileWatcherEvent.create(marker))
+            }
+        }
+    }
+
+    private Factory<List<DefaultFileDetails>> walker() {
+        return {
+            walks++
+            [new DefaultFileDetails(dir.file("a.txt").absolutePath, RegularFile, Stub(FileTreeElement))]
+        } as Factory
+    }
+
+    private Factory<DefaultFileDetails> fileDetails(File file) {
+        return {
+            walks++
+            new DefaultFileDetails(file.absolutePath, RegularFile, Stub(FileTreeElement))
+        } as Factory
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.zip.ZipFile
+
+import static org.gradle.api.file.FileVisitorUtil.assertVisitsPermissions
+import static org.gradle.api.internal.file.TestFiles.directoryFileTreeFactory
+import static org.gradle.api.internal.file.TestFiles.fileSystem
+import static org.hamcrest.Matchers.equalTo
+
+class ParallelZipCopyActionTest extends Specification {
+
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def executorFactory = new DefaultExecutorFactory()
+    TestFile zipFile = tmpDir.getTestDirectory().file("test.zip")
+    TestFile temporaryDir = tmpDir.getTestDirectory().file("tmp")
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    @Unroll
+    def "creates ZIP file with #method entries"() {
+        given:
+        zip(action(method), dir("dir"), file("dir/file1"), file("file2"), file("large", "0123456789abcdef" * (512 * 1024)))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+        expandDir.file("large").length() == 8 * 1024 * 1024
+        new ZipFile(zipFile).entries()*.name == ["dir/", "dir/file1", "file2", "large"]
+        temporaryDir.listFiles() == null || temporaryDir.listFiles().length == 0
+
+        where:
+        method << [ZipOutputStream.DEFLATED, ZipOutputStream.STORED]
+    }
+
+    def "keeps the order of many entries"() {
+        def files = (0..<500).collect { file("file$it") }
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED), files as FileCopyDetailsInternal[])
+
+        then:
+        new ZipFile(zipFile).entries()*.name == (0..<500).collect { "file$it" }
+    }
+
+    def "zip file contains expected permissions"() {
+        given:
+        zip(action(ZipOutputStream.DEFLATED), dir("dir"), file("file"))
+
+        when:
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+        expected.put("dir", 2);
+        expected.put("file", 1);
+
+        then:
+        assertVisitsPermissions(new ZipFileTree(zipFile, null, fileSystem(), directoryFileTreeFactory()), expected)
+    }
+
+    def "creates identical archives when reproducible"() {
+        def otherZipFile = tmpDir.getTestDirectory().file("other.zip")
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED, true), dir("dir"), file("dir/file1", "contents", 1000L))
+        zip(new ParallelZipCopyAction(otherZipFile, ZipOutputStream.DEFLATED, false, new DocumentationRegistry(), 'UTF-8', true, executorFactory, 4, temporaryDir),
+            dir("dir"), file("dir/file1", "contents", 2000L))
+
+        then:
+        zipFile.bytes == otherZipFile.bytes
+        new ZipFile(zipFile).getEntry("dir/file1").time == ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES
+    }
+
+    @Unroll
+    def "sorts #method entries by path when reproducible"() {
+        when:
+        zip(action(method, true), file("b"), dir("dir"), file("dir/file1"), file("a"), dir("META-INF"), file("META-INF/MANIFEST.MF"), file("META-INF/LICENSE"))
+
+        then:
+        new ZipFile(zipFile).entries()*.name == ["META-INF/", "META-INF/MANIFEST.MF", "META-INF/LICENSE", "a", "b", "dir/", "dir/file1"]
+        new ZipFile(zipFile).getInputStream(new ZipFile(zipFile).getEntry("dir/file1")).text == "contents of dir/file1"
+
+        where:
+        method << [ZipOutputStream.DEFLATED, ZipOutputStream.STORED]
+    }
+
+    def "creates identical archives when reproducible regardless of the order entries are visited in"() {
+        def otherZipFile = tmpDir.getTestDirectory().file("other.zip")
+        def files = (0..<100).collect { file("file$it") }
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED, true), files as FileCopyDetailsInternal[])
+        zip(new ParallelZipCopyAction(otherZipFile, ZipOutputStream.DEFLATED, false, new DocumentationRegistry(), 'UTF-8', true, executorFactory, 4, temporaryDir),
+            files.reverse() as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == otherZipFile.bytes
+        temporaryDir.listFiles() == null || temporaryDir.listFiles().length == 0
+    }
+
+    def "wraps failure to open output file"() {
+        given:
+        def invalidZipFile = tmpDir.createDir("invalid.zip")
+        def action = new ParallelZipCopyAction(invalidZipFile, ZipOutputStream.DEFLATED, false, new DocumentationRegistry(), 'UTF-8', false, executorFactory, 4, temporaryDir)
+
+        when:
+        zip(action)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not create ZIP '%s'.", invalidZipFile)
+    }
+
+    def "wraps failure to add element"() {
+        given:
+        Throwable failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file1", failure)
+
+        when:
+        zip(action(ZipOutputStream.DEFLATED), file("file1"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+    }
+
+    def "reports that zip64 is required for more than 65535 entries"() {
+        def docRegistry = Mock(DocumentationRegistry)
+        1 * docRegistry.getDslRefForProperty(Zip, "zip64") >> "doc url"
+        def action = new ParallelZipCopyAction(zipFile, ZipOutputStream.STORED, false, docRegistry, 'UTF-8', false, executorFactory, 4, temporaryDir)
+        def dirs = [dir("dir")] * 65536
+
+        when:
+        zip(action, dirs as FileCopyDetailsInternal[])
+
+        then:
+        def e = thrown(org.gradle.api.tasks.bundling.internal.Zip64RequiredException)
+        e.message == "archive contains more than 65535 entries.\n\nTo build this archive, please enable the zip64 extension.\nSee: doc url"
+    }
+
+    private ParallelZipCopyAction action(int method, boolean reproducible = false) {
+        new ParallelZipCopyAction(zipFile, method, false, new DocumentationRegistry(), 'UTF-8', reproducible, executorFactory, 4, temporaryDir)
+    }
+
+    private static void zip(ParallelZipCopyAction action, final FileCopyDetailsInternal... files) {
+        action.execute(new CopyActionProcessingStream() {
+            public void process(CopyActionProcessingStreamAction streamAction) {
+                for (FileCopyDetailsInternal f : files) {
+                    streamAction.processFile(f);
+                }
+            }
+        });
+    }
+
+    private FileCopyDetailsInternal file(final String path, String contents = "contents of $path", long lastModified = 1000L) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> lastModified
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << contents
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal dir(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> true
+        mock.getMode() >> 2
+        mock
+    }
+
+    private FileCopyDetailsInternal brokenFile(final String path, final Throwable failure) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            failure.fillInStackTrace()
+            throw failure
+        }
+        mock
+    }
+}
@@ -89,6 +89,30 @@ class ZipCopyActionTest extends Specification {
         assertVisitsPermissions(new ZipFileTree(zipFile, null, fileSystem(), directoryFileTreeFactory()), expected)
     }
 
+    void usesConstantTimestampsWhenReproducible() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, true, tmpDir.file("tmp"))
+        zip(dir("dir"), file("dir/file1"))
+
+        expect:
+        new java.util.zip.ZipFile(zipFile).entries()*.time == [ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES] * 2
+    }
+
+    void sortsEntriesByPathWhenReproducible() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, true, tmpDir.file("tmp"))
+        zip(file("b"), dir("dir"), file("dir/file1"), file("a"), dir("META-INF"), file("META-INF/MANIFEST.MF"), file("META-INF/LICENSE"))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        new java.util.zip.ZipFile(zipFile).entries()*.name == ["META-INF/", "META-INF/MANIFEST.MF", "META-INF/LICENSE", "a", "b", "dir/", "dir/file1"]
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        tmpDir.file("tmp").listFiles().length == 0
+    }
+
     void wrapsFailureToOpenOutputFile() {
         given:
         def invalidZipFile = tmpDir.createDir("test.zip")
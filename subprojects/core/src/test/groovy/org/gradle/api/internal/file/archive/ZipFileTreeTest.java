@@ -17,12 +17,15 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -122,4 +125,80 @@ public class ZipFileTreeTest {
 
         assertVisitsPermissions(tree, expected);
     }
+
+    @Test
+    public void reusesExtractedFilesWhileZipFileIsUnchanged() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+
+        TestFile extracted = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        extracted.assertContents(equalTo("content"));
+        long lastModified = extracted.lastModified() - 10000;
+        extracted.setLastModified(lastModified);
+
+        TestFile extractedAgain = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        assertThat(extractedAgain, equalTo(extracted));
+        assertThat(extractedAgain.lastModified(), equalTo(lastModified));
+    }
+
+    @Test
+    public void extractsFilesAgainWhenZipFileChanges() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+        TestFile extracted = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        assertThat(tree.getMirror().getDir(), equalTo((File) extracted.getParentFile().getParentFile()));
+
+        rootDir.file("subdir/file1.txt").write("new content");
+        rootDir.zipTo(zipFile);
+        zipFile.setLastModified(zipFile.lastModified() + 10000);
+
+        TestFile extractedAgain = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        extractedAgain.assertContents(equalTo("new content"));
+        assertThat(tree.getMirror().getDir(), equalTo((File) extractedAgain.getParentFile().getParentFile()));
+        extracted.assertDoesNotExist();
+        assertThat(expandDir.list().length, equalTo(1));
+    }
+
+    @Test
+    public void extractsFileAgainWhenExtractedFileHasBeenModified() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+        TestFile extracted = new TestFile(visitAndGetFile("subdir/file1.txt"));
+
+        extracted.write("CONTENT");
+
+        TestFile extractedAgain = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        assertThat(extractedAgain, equalTo(extracted));
+        extractedAgain.assertContents(equalTo("content"));
+    }
+
+    @Test
+    public void extractsFileAgainWhenZipFileIsRewrittenWithSameSizeAndTimestamp() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.zipTo(zipFile);
+        long lastModified = zipFile.lastModified();
+        long length = zipFile.length();
+        visitAndGetFile("subdir/file1.txt");
+
+        rootDir.file("subdir/file1.txt").write("CONTENT");
+        rootDir.zipTo(zipFile);
+        zipFile.setLastModified(lastModified);
+        assertThat(zipFile.length(), equalTo(length));
+
+        TestFile extractedAgain = new TestFile(visitAndGetFile("subdir/file1.txt"));
+        extractedAgain.assertContents(equalTo("CONTENT"));
+    }
+
+    private File visitAndGetFile(final String path) {
+        final File[] result = new File[1];
+        tree.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                if (fileDetails.getPath().equals(path)) {
+                    result[0] = fileDetails.getFile();
+                }
+            }
+        });
+        return result[0];
+    }
 }
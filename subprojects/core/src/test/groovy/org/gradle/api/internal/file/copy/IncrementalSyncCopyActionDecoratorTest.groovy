@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.cache.internal.MapBackedInMemoryStore
+import org.gradle.internal.reflect.DirectInstantiator
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+class IncrementalSyncCopyActionDecoratorTest extends WorkspaceTest {
+    def resolver = TestFiles.resolver(testDirectory)
+    def destResolver = TestFiles.resolver(file("dest"))
+    def snapshotter = new CachingFileSnapshotter(new DefaultHasher(), new MapBackedInMemoryStore(), new StringInterner())
+    def preserve = new PatternSet()
+    def copySpec = new DestinationRootCopySpec(resolver, new DefaultCopySpec(resolver, DirectInstantiator.INSTANCE))
+    def manifest = file("tmp/sync-manifest.txt")
+    def copyAction = new IncrementalSyncCopyActionDecorator(file("dest"), new FileCopyAction(destResolver), preserve, manifest, destResolver, snapshotter, TestFiles.fileSystem())
+
+    def setup() {
+        copySpec.with {
+            into "dest"
+            from "src"
+        }
+    }
+
+    def "deletes extra files from the destination when there is no manifest"() {
+        given:
+        file("src").with {
+            createFile("subdir/included.txt")
+            createFile("included.txt")
+        }
+        file("dest").with {
+            createFile("subdir/extra.txt")
+            createFile("extra.txt")
+            createDir("extra")
+        }
+
+        when:
+        def result = execute()
+
+        then:
+        result.didWork
+        file("dest").assertHasDescendants("subdir/included.txt", "included.txt")
+        manifest.file
+    }
+
+    def "does not rewrite destination files that are up-to-date"() {
+        given:
+        file("src/same.txt").text = "same"
+        file("src/changed.txt").text = "new"
+        file("src/filtered.txt").text = "filtered"
+        copySpec.filesMatching("filtered.txt") { it.filter { String line -> line.toUpperCase() } }
+        execute()
+        [file("dest/same.txt"), file("dest/changed.txt"), file("dest/filtered.txt")]*.lastModified = 1000
+
+        when:
+        def result = execute()
+
+        then:
+        !result.didWork
+        file("dest/same.txt").lastModified() == 1000
+        file("dest/filtered.txt").lastModified() == 1000
+
+        when:
+        file("src/changed.txt").text = "changed"
+        result = execute()
+
+        then:
+        result.didWork
+        file("dest/changed.txt").text == "changed"
+        file("dest/same.txt").lastModified() == 1000
+        file("dest/filtered.txt").lastModified() == 1000
+    }
+
+    def "deletes files written by the previous execution that are no longer copied"() {
+        given:
+        file("src/keep.txt").createFile()
+        file("src/removed/file.txt").createFile()
+        execute()
+        file("src/removed").deleteDir()
+
+        when:
+        def result = execute()
+
+        then:
+        result.didWork
+        file("dest").assertHasDescendants("keep.txt")
+    }
+
+    def "does not delete preserved files listed in the manifest"() {
+        given:
+        file("src/keep.txt").createFile()
+        file("src/preserved.txt").createFile()
+        execute()
+        file("src/preserved.txt").delete()
+        preserve.include("preserved.txt")
+
+        when:
+        execute()
+
+        then:
+        file("dest").assertHasDescendants("keep.txt", "preserved.txt")
+    }
+
+    def "handles a path that changes from file to directory and back"() {
+        given:
+        file("src/keep.txt").createFile()
+        file("src/thing").text = "file"
+        execute()
+
+        when:
+        file("src/thing").delete()
+        file("src/thing/nested.txt").text = "nested"
+        def result = execute()
+
+        then:
+        result.didWork
+        file("dest").assertHasDescendants("keep.txt", "thing/nested.txt")
+        file("dest/thing/nested.txt").text == "nested"
+
+        when:
+        file("src/thing").deleteDir()
+        file("src/thing").text = "file again"
+        result = execute()
+
+        then:
+        result.didWork
+        file("dest").assertHasDescendants("keep.txt", "thing")
+        file("dest/thing").text == "file again"
+    }
+
+    def "walks the destination when the previous execution did not complete"() {
+        given:
+        file("src/file.txt").createFile()
+        execute()
+        manifest.delete()
+        file("dest/extra.txt").createFile()
+
+        when:
+        execute()
+
+        then:
+        file("dest").assertHasDescendants("file.txt")
+    }
+
+    private def execute() {
+        new CopyActionExecuter(DirectInstantiator.INSTANCE, TestFiles.fileSystem()).execute(copySpec, copyAction)
+    }
+}
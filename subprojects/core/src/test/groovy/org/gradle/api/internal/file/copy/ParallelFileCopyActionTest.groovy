@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.reflect.DirectInstantiator
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+class ParallelFileCopyActionTest extends WorkspaceTest {
+    def executorFactory = new DefaultExecutorFactory()
+    def resolver = TestFiles.resolver(testDirectory)
+    def copySpec = new DestinationRootCopySpec(resolver, new DefaultCopySpec(resolver, DirectInstantiator.INSTANCE))
+    def copyAction = new ParallelFileCopyAction(TestFiles.resolver(file("out")), TestFiles.fileSystem(), executorFactory, 4)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "copies files and applies filters"() {
+        given:
+        (0..<200).each { file("src/dir${it % 10}/file$it").text = "content $it" }
+        file("src/filtered.txt").text = "hello"
+        copySpec.with {
+            into "out"
+            from "src"
+            filesMatching("filtered.txt") { it.filter { String line -> line.toUpperCase() } }
+        }
+
+        when:
+        def result = execute()
+
+        then:
+        result.didWork
+        (0..<200).every { file("out/dir${it % 10}/file$it").text == "content $it" }
+        file("out/filtered.txt").text.trim() == "HELLO"
+    }
+
+    def "does not write files whose destination has the same content"() {
+        given:
+        file("src/same").text = "same"
+        file("src/changed").text = "new content"
+        file("out/same").text = "same"
+        file("out/changed").text = "old content"
+        file("out/same").lastModified = 1000
+        copySpec.with {
+            into "out"
+            from "src"
+        }
+
+        when:
+        def result = execute()
+
+        then:
+        result.didWork
+        file("out/same").lastModified() == 1000
+        file("out/changed").text == "new content"
+
+        when:
+        file("out/changed").lastModified = 1000
+        result = execute()
+
+        then:
+        !result.didWork
+        file("out/changed").lastModified() == 1000
+    }
+
+    def "later copies to the same destination win"() {
+        given:
+        file("a/file").text = "a"
+        file("b/file").text = "b"
+        file("c/file").text = "c"
+        copySpec.with {
+            into "out"
+            from "a"
+            from "b"
+            from "c"
+        }
+
+        when:
+        execute()
+
+        then:
+        file("out/file").text == "c"
+    }
+
+    def "wraps failure to copy file"() {
+        given:
+        file("src/file").text = "content"
+        file("out/file").createDir()
+        copySpec.with {
+            into "out"
+            from "src"
+        }
+
+        when:
+        execute()
+
+        then:
+        def e = thrown(Exception)
+        e.message.startsWith("Could not copy file '${file("src/file")}' to '${file("out/file")}'.")
+    }
+
+    private def execute() {
+        new CopyActionExecuter(DirectInstantiator.INSTANCE, TestFiles.fileSystem()).execute(copySpec, copyAction)
+    }
+}
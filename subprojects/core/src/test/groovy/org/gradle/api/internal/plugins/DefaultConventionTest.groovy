@@ -61,6 +61,14 @@ class DefaultConventionTest {
         assertEquals('newvalue', convention1.a)
     }
 
+    @Test public void usesConventionObjectThatReplacesAnotherConventionObject() {
+        assertEquals(convention1.b, convention.extensionsAsDynamicObject.b)
+        def replacement = new TestPluginConvention1()
+        replacement.b = 'replaced'
+        convention.plugins.plugin1 = replacement
+        assertEquals('replaced', convention.extensionsAsDynamicObject.b)
+    }
+
     @Test(expected = MissingPropertyException) public void throwsMissingPropertyExceptionForUnknownProperty() {
         convention.extensionsAsDynamicObject.prop
     }
@@ -17,19 +17,28 @@
 package org.gradle.cache.internal
 
 import org.gradle.cache.CacheAccess
+import org.gradle.internal.Factory
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+
 class CacheAccessWorkerTest extends ConcurrentSpec {
     CacheAccess cacheAccess
     CacheAccessWorker cacheAccessWorker
 
     def setup() {
         cacheAccess = Stub(CacheAccess) {
-            useCache(_, _) >> { String operationDisplayName, Runnable action -> action.run() }
+            useCache(_, _) >> { String operationDisplayName, action -> runAction(action) }
         }
         cacheAccessWorker = new CacheAccessWorker("<cache>", cacheAccess)
     }
 
+    private static runAction(action) {
+        return action instanceof Factory ? ((Factory) action).create() : ((Runnable) action).run()
+    }
+
     def "read runs after queued writes are processed"() {
         given:
         def counter = 0
@@ -47,6 +56,92 @@ class CacheAccessWorkerTest extends ConcurrentSpec {
         cacheAccessWorker?.stop()
     }
 
+    def "read runs on requesting thread when no writes are queued"() {
+        given:
+        def readThread = null
+        start(cacheAccessWorker)
+
+        when:
+        def result = cacheAccessWorker.read {
+            readThread = Thread.currentThread()
+            "value"
+        }
+
+        then:
+        result == "value"
+        readThread == Thread.currentThread()
+        cacheAccessWorker.directReadCount == 1
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "read after write does not wait for the worker to hand back ownership of the cache"() {
+        given:
+        def lock = new ReentrantLock()
+        cacheAccess = Stub(CacheAccess) {
+            useCache(_, _) >> { String operationDisplayName, action ->
+                lock.lock()
+                try {
+                    return runAction(action)
+                } finally {
+                    lock.unlock()
+                }
+            }
+        }
+        cacheAccessWorker = new CacheAccessWorker("<cache>", cacheAccess)
+        def counter = 0
+        start(cacheAccessWorker)
+
+        when:
+        def results = []
+        def readNanos = 0L
+        10.times {
+            def applied = new CountDownLatch(1)
+            cacheAccessWorker.enqueue {
+                ++counter
+                applied.countDown()
+            }
+            applied.await()
+            // The worker now owns the cache while it waits for further operations
+            def started = System.nanoTime()
+            results << cacheAccessWorker.read { counter }
+            readNanos += System.nanoTime() - started
+        }
+
+        then:
+        results == (1..10).toList()
+        // Each read would otherwise wait for most of the 20ms batch window
+        TimeUnit.NANOSECONDS.toMillis(readNanos) < 100
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
+    def "applies queued writes in batches and records queue metrics"() {
+        given:
+        def counter = 0
+        10.times { cacheAccessWorker.enqueue { ++counter } }
+
+        expect:
+        cacheAccessWorker.queueDepth == 10
+        cacheAccessWorker.maximumQueueDepth == 10
+
+        when:
+        start(cacheAccessWorker)
+        cacheAccessWorker.flush()
+
+        then:
+        counter == 10
+        cacheAccessWorker.queueDepth == 0
+        cacheAccessWorker.maximumQueueDepth == 10
+        cacheAccessWorker.batchCount == 1
+        cacheAccessWorker.averageQueueWaitMillis > 0
+
+        cleanup:
+        cacheAccessWorker?.stop()
+    }
+
     def "read propagates failure"() {
         given:
         def failure = new RuntimeException()
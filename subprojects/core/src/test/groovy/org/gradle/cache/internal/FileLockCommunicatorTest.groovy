@@ -46,7 +46,7 @@ class FileLockCommunicatorTest extends ConcurrentSpecification {
 
     def "can receive lock id"() {
         start {
-            receivedId = communicator.receive()
+            receivedId = communicator.receive().lockId
         }
 
         poll {
@@ -62,6 +62,41 @@ class FileLockCommunicatorTest extends ConcurrentSpecification {
         }
     }
 
+    def "ping asks owner to notify when lock is released"() {
+        def owner = new FileLockCommunicator(new InetAddressFactory())
+        FileLockPacket ping = null
+        FileLockPacket released = null
+
+        when:
+        start {
+            ping = owner.receive()
+        }
+        communicator.pingOwner(owner.getPort(), 155, "lock")
+
+        then:
+        poll {
+            assert ping != null
+        }
+        ping.lockId == 155
+        ping.type == FileLockPacket.Type.PING_NOTIFY_WHEN_RELEASED
+
+        when:
+        start {
+            released = communicator.receive()
+        }
+        owner.notifyReleased(ping.sender, 155)
+
+        then:
+        poll {
+            assert released != null
+        }
+        released.lockId == 155
+        released.type == FileLockPacket.Type.RELEASED
+
+        cleanup:
+        owner?.stop()
+    }
+
     def "may not receive after the stop"() {
         communicator.stop()
         when:
@@ -53,6 +53,32 @@ class DefaultFileLockContentionHandlerTest extends ConcurrentSpecification {
         }
     }
 
+    def "notifies processes waiting for a lock when it is released"() {
+        when:
+        int port = handler.reservePort()
+        client.reservePort()
+        handler.start(10, {} as Runnable)
+        client.pingOwner(port, 10, "lock 1")
+        start {
+            client.waitForRelease(10, 20000)
+        }
+        sleep(300) //so that the owner receives the ping
+        handler.released(10)
+
+        then:
+        finished()
+    }
+
+    def "waiting for release of a lock times out when owner does not notify"() {
+        when:
+        client.reservePort()
+        def startTime = System.currentTimeMillis()
+        client.waitForRelease(10, 200)
+
+        then:
+        System.currentTimeMillis() - startTime >= 190
+    }
+
     def "there is only one executor thread"() {
         def factory = Mock(ExecutorFactory)
         handler = new DefaultFileLockContentionHandler(factory, addressFactory)
@@ -51,6 +51,25 @@ class BeanDynamicObjectTest extends Specification {
         dynamicObject.getProperty("metaClass") == bean.metaClass
     }
 
+    def "can get property added to meta-class of groovy object after lookup"() {
+        def bean = new Bean(prop: "value")
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        !dynamicObject.hasProperty("added")
+        !dynamicObject.hasMethod("addedMethod", [12] as Object[])
+
+        when:
+        bean.metaClass.added = "added"
+        bean.metaClass.addedMethod = { Integer i -> i + 1 }
+
+        then:
+        dynamicObject.hasProperty("added")
+        dynamicObject.getProperty("added") == "added"
+        dynamicObject.invokeMethod("addedMethod", [12] as Object[]) == 13
+        !new BeanDynamicObject(new Bean()).hasProperty("added")
+    }
+
     def "can get property of dynamic groovy object"() {
         def bean = new BeanWithDynamicProperties(prop: "value")
         def dynamicObject = new BeanDynamicObject(bean)
@@ -476,6 +495,18 @@ class BeanDynamicObjectTest extends Specification {
         !dynamicObject.hasMethod("methodWithValue", [Integer] as Object[])
     }
 
+    def "can check for methods added by a category after the method has been looked up"() {
+        def bean = new Bean()
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        !dynamicObject.hasMethod("categoryMethod", [12] as Object[])
+        use(BeanCategory) {
+            dynamicObject.hasMethod("categoryMethod", [12] as Object[])
+        }
+        !dynamicObject.hasMethod("categoryMethod", [12] as Object[])
+    }
+
     def "coerces parameters of method of groovy object"() {
         def bean = new EnumBean()
         def dynamicObject = new BeanDynamicObject(bean, EnumBean, true, false, new SomeEnumConverter(), new SomeEnumConverter())
@@ -741,6 +772,12 @@ class BeanDynamicObjectTest extends Specification {
         }
     }
 
+    static class BeanCategory {
+        static String categoryMethod(Bean bean, int l) {
+            return "<$l>"
+        }
+    }
+
     static class WithStaticFields {
         static String prop
 
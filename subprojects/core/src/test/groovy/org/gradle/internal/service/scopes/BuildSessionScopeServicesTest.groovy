@@ -35,6 +35,7 @@ import org.gradle.internal.service.ServiceRegistry
 import org.gradle.process.internal.JavaExecHandleFactory
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory
 import org.gradle.process.internal.worker.WorkerProcessFactory
+import org.gradle.process.internal.worker.WorkerProcessIdGenerator
 import org.gradle.process.internal.worker.child.WorkerProcessClassPathProvider
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -72,6 +73,7 @@ class BuildSessionScopeServicesTest extends Specification {
         expectParentServiceLocated(TemporaryFileProvider)
         expectParentServiceLocated(JavaExecHandleFactory)
         expectParentServiceLocated(JvmVersionDetector)
+        parent.get(WorkerProcessIdGenerator) >> new WorkerProcessIdGenerator()
 
         expect:
         registry.get(WorkerProcessFactory) instanceof DefaultWorkerProcessFactory
@@ -28,4 +28,11 @@ public class NoOpFileLockContentionHandler implements FileLockContentionHandler
 
     public void pingOwner(int port, long lockId, String displayName) {
     }
+
+    public void waitForRelease(long lockId, long timeoutMillis) throws InterruptedException {
+        Thread.sleep(timeoutMillis);
+    }
+
+    public void released(long lockId) {
+    }
 }
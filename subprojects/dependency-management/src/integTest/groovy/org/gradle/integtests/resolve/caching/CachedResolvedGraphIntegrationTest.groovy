@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve.caching
+
+import org.gradle.integtests.fixtures.AbstractHttpDependencyResolutionTest
+
+class CachedResolvedGraphIntegrationTest extends AbstractHttpDependencyResolutionTest {
+
+    def "cached resolved graph expires with the cached version list it was resolved from"() {
+        given:
+        def module1 = ivyHttpRepo.module("group", "projectA", "1.1").publish()
+        def module2 = ivyHttpRepo.module("group", "projectA", "1.2")
+
+        buildFile << """
+        repositories {
+            ivy { url '${ivyHttpRepo.uri}' }
+        }
+        configurations {
+            first
+            second
+        }
+        configurations.all {
+            resolutionStrategy.cacheDynamicVersionsFor Integer.parseInt(dynamicVersionsTtl), 'seconds'
+        }
+        dependencies {
+            first 'group:projectA:1.+'
+            second 'group:projectA:1.+'
+        }
+        task retrieveFirst(type: Sync) {
+            into 'first'
+            from configurations.first
+        }
+        task retrieveSecond(type: Sync) {
+            into 'second'
+            from configurations.second
+        }
+        """
+
+        when: "the version list is cached while resolving the first configuration"
+        ivyHttpRepo.directoryList("group", "projectA").expectGet()
+        module1.ivy.expectGet()
+        module1.jar.expectGet()
+        executer.withArgument("-PdynamicVersionsTtl=3600")
+        run 'retrieveFirst'
+
+        then:
+        file('first').assertHasDescendants('projectA-1.1.jar')
+
+        when: "the second configuration is resolved later from the cached version list, and its graph is cached"
+        server.resetExpectations()
+        sleep(4000)
+        executer.withArgument("-PdynamicVersionsTtl=3600")
+        run 'retrieveSecond'
+
+        then:
+        file('second').assertHasDescendants('projectA-1.1.jar')
+
+        when: "the cached version list has expired, but the cached graph is younger than the TTL"
+        module2.publish()
+        server.resetExpectations()
+        ivyHttpRepo.directoryList("group", "projectA").expectGet()
+        module2.ivy.expectGet()
+        module2.jar.expectGet()
+        executer.withArgument("-PdynamicVersionsTtl=3")
+        run 'retrieveSecond'
+
+        then:
+        file('second').assertHasDescendants('projectA-1.2.jar')
+    }
+
+    def "does not reuse cached resolved graph when dependency resolve rule is edited"() {
+        given:
+        def module1 = ivyHttpRepo.module("group", "projectA", "1.1").publish()
+        def module2 = ivyHttpRepo.module("group", "projectA", "1.2").publish()
+
+        buildFile << """
+        repositories {
+            ivy { url '${ivyHttpRepo.uri}' }
+        }
+        configurations {
+            compile
+        }
+        configurations.all {
+            resolutionStrategy.eachDependency { details ->
+                if (details.requested.name == 'projectA') {
+                    details.useVersion '1.1'
+                }
+            }
+        }
+        dependencies {
+            compile 'group:projectA:1.0'
+        }
+        task retrieve(type: Sync) {
+            into 'libs'
+            from configurations.compile
+        }
+        """
+
+        when:
+        module1.ivy.expectGet()
+        module1.jar.expectGet()
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.1.jar')
+
+        when: "the rule is edited to select a different version"
+        buildFile.text = buildFile.text.replace("details.useVersion '1.1'", "details.useVersion '1.2'")
+        server.resetExpectations()
+        module2.ivy.expectGet()
+        module2.jar.expectGet()
+        run 'retrieve'
+
+        then:
+        file('libs').assertHasDescendants('projectA-1.2.jar')
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Parses and compares version strings with {@link VersionParser} and {@link DefaultVersionComparator}, as done when selecting versions and resolving conflicts.
+ */
+@State(Scope.Benchmark)
+public class VersionComparisonBenchmark {
+    private static final String[] QUALIFIERS = {"", "", "", "-rc-1", "-SNAPSHOT", "-beta-2", ".RELEASE", ".Final", "-dev"};
+
+    @Param({"100", "10000"})
+    int versionCount;
+
+    private final List<String> versions = new ArrayList<String>();
+    private final VersionParser parser = new VersionParser();
+    private final DefaultVersionComparator comparator = new DefaultVersionComparator();
+    private final List<Version> parsed = new ArrayList<Version>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < versionCount; i++) {
+            String version = random.nextInt(4) + "." + random.nextInt(15) + "." + random.nextInt(30) + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+            versions.add(version);
+            parsed.add(parser.transform(version));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (String version : versions) {
+            bh.consume(parser.transform(version));
+        }
+    }
+
+    @Benchmark
+    public List<String> sortStrings() {
+        List<String> copy = new ArrayList<String>(versions);
+        Collections.sort(copy, comparator.asStringComparator());
+        return copy;
+    }
+
+    @Benchmark
+    public List<Version> sortParsed() {
+        List<Version> copy = new ArrayList<Version>(parsed);
+        Collections.sort(copy, comparator.asVersionComparator());
+        return copy;
+    }
+
+    @Benchmark
+    public void compareAdjacentStrings(Blackhole bh) {
+        Comparator<String> stringComparator = comparator.asStringComparator();
+        for (int i = 1; i < versions.size(); i++) {
+            bh.consume(stringComparator.compare(versions.get(i - 1), versions.get(i)));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.SyntheticModuleRepository;
+import org.gradle.internal.component.external.model.MavenModuleResolveMetadata;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Writes and reads module metadata with a {@link ModuleMetadataSerializer} and with a {@link CompactModuleMetadataSerializer}, as done by the module metadata cache.
+ */
+@State(Scope.Benchmark)
+public class ModuleMetadataSerializerBenchmark {
+    @Param({"0", "20"})
+    int excludesPerDependency;
+
+    private final ModuleMetadataSerializer serializer = new ModuleMetadataSerializer();
+    private final CompactModuleMetadataSerializer compactSerializer = new CompactModuleMetadataSerializer();
+    private List<MavenModuleResolveMetadata> modules;
+    private byte[] serialized;
+    private ByteBuffer[] compactSerialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        modules = new SyntheticModuleRepository(100, SyntheticModuleRepository.Shape.WIDE, true, excludesPerDependency, 42).getModules();
+        serialized = write();
+        compactSerialized = new ByteBuffer[modules.size()];
+        for (int i = 0; i < modules.size(); i++) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            compactSerializer.write(outputStream, modules.get(i));
+            compactSerialized[i] = ByteBuffer.wrap(outputStream.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        for (MavenModuleResolveMetadata module : modules) {
+            serializer.write(encoder, module);
+        }
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public void read(Blackhole bh) throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(serialized));
+        for (int i = 0; i < modules.size(); i++) {
+            bh.consume(serializer.read(decoder));
+        }
+    }
+
+    @Benchmark
+    public void writeCompact(Blackhole bh) throws Exception {
+        for (MavenModuleResolveMetadata module : modules) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            compactSerializer.write(outputStream, module);
+            bh.consume(outputStream.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public void readCompact(Blackhole bh) throws Exception {
+        for (ByteBuffer buffer : compactSerialized) {
+            bh.consume(compactSerializer.read(buffer).createMetadata());
+        }
+    }
+
+    @Benchmark
+    public void readCompactRequestedModules(Blackhole bh) throws Exception {
+        for (ByteBuffer buffer : compactSerialized) {
+            CompactModuleMetadata metadata = compactSerializer.read(buffer);
+            for (int i = 0; i < metadata.getDependencyCount(); i++) {
+                bh.consume(metadata.getRequested(i));
+            }
+        }
+    }
+}
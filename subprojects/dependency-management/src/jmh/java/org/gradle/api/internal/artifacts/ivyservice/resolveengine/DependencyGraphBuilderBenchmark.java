@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Resolves the dependency graph of a {@link SyntheticModuleRepository}, including conflict resolution with the default {@link LatestModuleConflictResolver}.
+ */
+@State(Scope.Benchmark)
+public class DependencyGraphBuilderBenchmark {
+    @Param({"100", "1000", "10000"})
+    int moduleCount;
+
+    @Param({"WIDE", "DEEP", "DIAMOND"})
+    SyntheticModuleRepository.Shape shape;
+
+    @Param({"false", "true"})
+    boolean conflicts;
+
+    @Param({"0", "20"})
+    int excludesPerDependency;
+
+    private SyntheticModuleRepository repository;
+    private VersionParser versionParser;
+    private DefaultVersionComparator versionComparator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new SyntheticModuleRepository(moduleCount, shape, conflicts, excludesPerDependency, 42);
+        versionParser = new VersionParser();
+        versionComparator = new DefaultVersionComparator(versionParser);
+    }
+
+    @Benchmark
+    public int resolve() {
+        // The conflict handler keeps state for a single resolution
+        DefaultConflictHandler conflictHandler = new DefaultConflictHandler(new LatestModuleConflictResolver(versionComparator, versionParser), ModuleReplacementsData.NO_OP);
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(repository, repository, repository, conflictHandler);
+        NodeCounter visitor = new NodeCounter();
+        builder.resolve(repository.getResolveContext(), visitor);
+        return visitor.nodes + visitor.edges;
+    }
+
+    private static class NodeCounter implements DependencyGraphVisitor {
+        int nodes;
+        int edges;
+
+        @Override
+        public void start(DependencyGraphNode root) {
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode resolvedConfiguration) {
+            nodes++;
+        }
+
+        @Override
+        public void visitEdge(DependencyGraphNode resolvedConfiguration) {
+            edges += resolvedConfiguration.getOutgoingEdges().size();
+        }
+
+        @Override
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
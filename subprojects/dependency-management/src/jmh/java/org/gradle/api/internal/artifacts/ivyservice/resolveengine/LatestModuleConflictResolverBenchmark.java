@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selects the winning version from sets of conflicting candidates, with a mix of release, milestone and snapshot versions.
+ */
+@State(Scope.Benchmark)
+public class LatestModuleConflictResolverBenchmark {
+    private static final String[] QUALIFIERS = {"", "", "-rc-1", "-SNAPSHOT", "-beta", ".RELEASE", "-20161012.102030-4"};
+
+    @Param({"2", "10"})
+    int candidatesPerConflict;
+
+    private final List<List<Candidate>> conflicts = new ArrayList<List<Candidate>>();
+    private LatestModuleConflictResolver resolver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        VersionParser versionParser = new VersionParser();
+        resolver = new LatestModuleConflictResolver(new DefaultVersionComparator(versionParser), versionParser);
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            List<Candidate> candidates = new ArrayList<Candidate>(candidatesPerConflict);
+            for (int j = 0; j < candidatesPerConflict; j++) {
+                String version = random.nextInt(3) + "." + random.nextInt(12) + "." + random.nextInt(20) + QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+                candidates.add(new Candidate(DefaultModuleVersionIdentifier.newId("org.group" + (i % 50), "module" + i, version)));
+            }
+            conflicts.add(candidates);
+        }
+    }
+
+    @Benchmark
+    public void select(Blackhole bh) {
+        for (List<Candidate> candidates : conflicts) {
+            bh.consume(resolver.select(candidates));
+        }
+    }
+
+    private static class Candidate implements ComponentResolutionState {
+        private final ModuleVersionIdentifier id;
+        private ComponentSelectionReason selectionReason;
+
+        Candidate(ModuleVersionIdentifier id) {
+            this.id = id;
+        }
+
+        @Override
+        public ModuleVersionIdentifier getId() {
+            return id;
+        }
+
+        @Override
+        public String getVersion() {
+            return id.getVersion();
+        }
+
+        @Override
+        public ComponentResolveMetadata getMetaData() {
+            return null;
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return selectionReason;
+        }
+
+        @Override
+        public void setSelectionReason(ComponentSelectionReason selectionReason) {
+            this.selectionReason = selectionReason;
+        }
+    }
+}
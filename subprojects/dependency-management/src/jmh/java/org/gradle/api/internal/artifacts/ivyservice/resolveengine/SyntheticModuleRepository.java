@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.component.DefaultBuildIdentifier;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.PatternMatchers;
+import org.gradle.api.internal.tasks.DefaultTaskDependency;
+import org.gradle.internal.component.external.descriptor.Artifact;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.descriptor.MavenScope;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata;
+import org.gradle.internal.component.external.model.MavenDependencyMetadata;
+import org.gradle.internal.component.external.model.MavenModuleResolveMetadata;
+import org.gradle.internal.component.local.model.DefaultLocalComponentMetadata;
+import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalComponentDependencyMetadata;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
+import org.gradle.internal.resolve.resolver.ResolveContextToComponentResolver;
+import org.gradle.internal.resolve.result.BuildableComponentIdResolveResult;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * An in-memory repository of Maven modules that depend on each other, along with a root component that depends on some of them.
+ * Used to benchmark dependency resolution without any network or file system access.
+ *
+ * <p>The modules are arranged in layers, and each module only depends on modules in the next layer, so the graph is acyclic.
+ * Every module is published in {@value #VERSIONS} versions, which allows dependencies to request conflicting versions.</p>
+ */
+public class SyntheticModuleRepository implements DependencyToComponentIdResolver, ComponentMetaDataResolver, ResolveContextToComponentResolver {
+    public static final int VERSIONS = 3;
+    private static final String[] ALL_CONFIGURATIONS = {"*"};
+    private static final int EXCLUDE_POOL_SIZE = 200;
+    private static final int EXCLUDE_SETS = 10;
+
+    public enum Shape {
+        /**
+         * A few layers, each with many modules.
+         */
+        WIDE,
+        /**
+         * Many narrow layers, giving long dependency chains.
+         */
+        DEEP,
+        /**
+         * Modules in adjacent layers share most of their dependencies, so that every module is reached through many paths.
+         */
+        DIAMOND
+    }
+
+    private final Map<ComponentIdentifier, MavenModuleResolveMetadata> modules = new HashMap<ComponentIdentifier, MavenModuleResolveMetadata>();
+    private final List<MavenModuleResolveMetadata> moduleList = new ArrayList<MavenModuleResolveMetadata>();
+    private final DefaultLocalComponentMetadata root;
+    private final List<List<Exclude>> excludeSets;
+
+    /**
+     * @param moduleCount The number of distinct modules. Each is published in {@value #VERSIONS} versions.
+     * @param conflicts Whether dependencies request different versions of the same module. If not, all dependencies request the lowest version.
+     * @param excludesPerDependency The number of exclude rules declared by a dependency that has excludes. One in five dependencies declares excludes, using one of a few
+     * shared sets of rules, as happens when excludes are applied through dependency management. Most of the rules match modules that are not part of the graph.
+     */
+    public SyntheticModuleRepository(int moduleCount, Shape shape, boolean conflicts, int excludesPerDependency, long seed) {
+        Random random = new Random(seed);
+        excludeSets = createExcludeSets(random, moduleCount, excludesPerDependency);
+        int layerWidth = layerWidth(moduleCount, shape);
+        int fanOut = shape == Shape.DIAMOND ? 2 : Math.min(4, layerWidth);
+        for (int index = 0; index < moduleCount; index++) {
+            for (int version = 0; version < VERSIONS; version++) {
+                List<DependencyMetadata> dependencies = new ArrayList<DependencyMetadata>();
+                int nextLayer = (index / layerWidth + 1) * layerWidth;
+                int width = Math.min(layerWidth, moduleCount - nextLayer);
+                for (int i = 0; i < fanOut && width > 0; i++) {
+                    int target = nextLayer + (shape == Shape.DIAMOND ? (index + i) % width : random.nextInt(width));
+                    String targetVersion = version(conflicts ? random.nextInt(VERSIONS) : 0);
+                    ModuleVersionSelector selector = DefaultModuleVersionSelector.newSelector(group(target), name(target), targetVersion);
+                    dependencies.add(new MavenDependencyMetadata(MavenScope.Compile, false, selector, Collections.<Artifact>emptyList(), excludes(random)));
+                }
+                ModuleComponentIdentifier id = DefaultModuleComponentIdentifier.newId(group(index), name(index), version(version));
+                Set<IvyArtifactName> artifacts = ImmutableSet.<IvyArtifactName>of(new DefaultIvyArtifactName(name(index), "jar", "jar"));
+                DefaultMutableMavenModuleResolveMetadata metadata = new DefaultMutableMavenModuleResolveMetadata(id, artifacts);
+                metadata.setDependencies(dependencies);
+                MavenModuleResolveMetadata immutable = metadata.asImmutable();
+                modules.put(id, immutable);
+                moduleList.add(immutable);
+            }
+        }
+
+        root = new DefaultLocalComponentMetadata(DefaultModuleVersionIdentifier.newId("org.test", "root", "1.0"), new DefaultProjectComponentIdentifier(new DefaultBuildIdentifier(":", true), ":"), "release");
+        root.addConfiguration("default", "default", Collections.<String>emptySet(), Collections.singleton("default"), true, true, null, new DefaultTaskDependency());
+        for (int index = 0; index < Math.min(layerWidth, moduleCount); index++) {
+            String version = version(conflicts ? random.nextInt(VERSIONS) : 0);
+            ModuleVersionSelector selector = DefaultModuleVersionSelector.newSelector(group(index), name(index), version);
+            root.addDependency(new LocalComponentDependencyMetadata(DefaultModuleComponentSelector.newSelector(selector), selector, "default", null, "default",
+                Collections.<IvyArtifactName>emptySet(), excludes(random), false, false, true));
+        }
+    }
+
+    private static int layerWidth(int moduleCount, Shape shape) {
+        switch (shape) {
+            case WIDE:
+                return Math.max(1, moduleCount / 3);
+            case DEEP:
+                // Up to 50 layers, which is deeper than real world graphs tend to be
+                return Math.max(10, moduleCount / 50);
+            default:
+                return Math.max(2, (int) Math.sqrt(moduleCount));
+        }
+    }
+
+    private static List<List<Exclude>> createExcludeSets(Random random, int moduleCount, int excludesPerSet) {
+        List<Exclude> pool = new ArrayList<Exclude>(EXCLUDE_POOL_SIZE);
+        for (int i = 0; i < EXCLUDE_POOL_SIZE; i++) {
+            if (i % 20 == 0) {
+                // Excludes a module from the graph
+                int target = random.nextInt(moduleCount);
+                pool.add(new DefaultExclude(group(target), name(target), ALL_CONFIGURATIONS, PatternMatchers.EXACT));
+            } else {
+                pool.add(new DefaultExclude("org.excluded" + (i % 50), "excluded" + i, ALL_CONFIGURATIONS, PatternMatchers.EXACT));
+            }
+        }
+        List<List<Exclude>> excludeSets = new ArrayList<List<Exclude>>(EXCLUDE_SETS);
+        for (int i = 0; i < EXCLUDE_SETS; i++) {
+            List<Exclude> excludes = new ArrayList<Exclude>(excludesPerSet);
+            for (int j = 0; j < excludesPerSet; j++) {
+                excludes.add(pool.get(random.nextInt(pool.size())));
+            }
+            excludeSets.add(excludes);
+        }
+        return excludeSets;
+    }
+
+    private List<Exclude> excludes(Random random) {
+        if (random.nextInt(EXCLUDE_SETS) >= EXCLUDE_SETS / 5) {
+            return Collections.emptyList();
+        }
+        return excludeSets.get(random.nextInt(EXCLUDE_SETS));
+    }
+
+    private static String group(int index) {
+        return "org.group" + (index % 100);
+    }
+
+    private static String name(int index) {
+        return "module" + index;
+    }
+
+    private static String version(int version) {
+        return "1." + version;
+    }
+
+    /**
+     * Returns all versions of all modules.
+     */
+    public List<MavenModuleResolveMetadata> getModules() {
+        return moduleList;
+    }
+
+    public ResolveContext getResolveContext() {
+        return new ResolveContext() {
+            @Override
+            public String getName() {
+                return "default";
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "synthetic root";
+            }
+
+            @Override
+            public ResolutionStrategyInternal getResolutionStrategy() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ComponentResolveMetadata toRootComponentMetaData() {
+                return root;
+            }
+        };
+    }
+
+    @Override
+    public void resolve(ResolveContext resolveContext, BuildableComponentResolveResult result) {
+        result.resolved(root);
+    }
+
+    @Override
+    public void resolve(DependencyMetadata dependency, BuildableComponentIdResolveResult result) {
+        ModuleVersionSelector requested = dependency.getRequested();
+        ModuleComponentIdentifier id = DefaultModuleComponentIdentifier.newId(requested.getGroup(), requested.getName(), requested.getVersion());
+        result.resolved(id, DefaultModuleVersionIdentifier.newId(id));
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        MavenModuleResolveMetadata metadata = modules.get(identifier);
+        if (metadata == null) {
+            result.notFound((ModuleComponentIdentifier) identifier);
+        } else {
+            result.resolved(metadata);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.Exclude;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Combines and evaluates exclusions the way the dependency graph builder does, for a synthetic graph where each dependency declares many
+ * BOM-style excludes, most of them shared with other dependencies.
+ */
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final String[] MATCHERS = {PatternMatchers.EXACT, PatternMatchers.EXACT, PatternMatchers.EXACT, "regexp"};
+
+    @Param({"10", "50"})
+    int excludesPerDependency;
+
+    private final List<ModuleExclusion> edgeExclusions = new ArrayList<ModuleExclusion>();
+    private final List<ModuleIdentifier> modules = new ArrayList<ModuleIdentifier>();
+    private int[][] incomingEdges;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            modules.add(DefaultModuleIdentifier.newId("org.group" + random.nextInt(20), "module" + i));
+        }
+        for (int i = 0; i < 100; i++) {
+            List<Exclude> excludes = new ArrayList<Exclude>();
+            for (int j = 0; j < excludesPerDependency; j++) {
+                ModuleIdentifier module = modules.get(random.nextInt(modules.size()));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        excludes.add(new DefaultExclude(module.getGroup(), "*", new String[0], PatternMatchers.EXACT));
+                        break;
+                    case 1:
+                        excludes.add(new DefaultExclude("*", module.getName(), new String[0], MATCHERS[random.nextInt(MATCHERS.length)]));
+                        break;
+                    default:
+                        excludes.add(new DefaultExclude(module.getGroup(), module.getName(), new String[0], PatternMatchers.EXACT));
+                }
+            }
+            edgeExclusions.add(ModuleExclusions.excludeAny(excludes));
+        }
+        incomingEdges = new int[500][];
+        for (int i = 0; i < incomingEdges.length; i++) {
+            incomingEdges[i] = new int[1 + random.nextInt(4)];
+            for (int j = 0; j < incomingEdges[i].length; j++) {
+                incomingEdges[i][j] = random.nextInt(edgeExclusions.size());
+            }
+        }
+    }
+
+    @Benchmark
+    public void combineExclusions(Blackhole bh) {
+        for (int[] edges : incomingEdges) {
+            bh.consume(nodeExclusions(edges));
+        }
+    }
+
+    @Benchmark
+    public void excludeModules(Blackhole bh) {
+        for (int[] edges : incomingEdges) {
+            ModuleExclusion exclusion = nodeExclusions(edges);
+            for (int i = 0; i < 20; i++) {
+                bh.consume(exclusion.excludeModule(modules.get(i)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void compareExclusions(Blackhole bh) {
+        ModuleExclusion previous = ModuleExclusions.excludeNone();
+        for (int[] edges : incomingEdges) {
+            ModuleExclusion exclusion = nodeExclusions(edges);
+            bh.consume(previous.excludesSameModulesAs(exclusion));
+            previous = exclusion;
+        }
+    }
+
+    private ModuleExclusion nodeExclusions(int[] edges) {
+        ModuleExclusion exclusion = null;
+        for (int edge : edges) {
+            ModuleExclusion edgeExclusion = ModuleExclusions.intersect(edgeExclusions.get(edge), edgeExclusions.get((edge + 1) % edgeExclusions.size()));
+            exclusion = exclusion == null ? edgeExclusion : ModuleExclusions.union(exclusion, edgeExclusion);
+        }
+        return exclusion;
+    }
+}
@@ -61,6 +61,12 @@ public interface ResolutionStrategyInternal extends ResolutionStrategy {
      */
     boolean resolveGraphToDetermineTaskDependencies();
 
+    /**
+     * Are any dependency substitution rules used to resolve the configuration? Unlike {@link #resolveGraphToDetermineTaskDependencies()}, this includes the rules
+     * registered using {@link org.gradle.api.artifacts.ResolutionStrategy#eachDependency(org.gradle.api.Action)}.
+     */
+    boolean hasDependencySubstitutionRules();
+
     DependencySubstitutionsInternal getDependencySubstitution();
 
     /**
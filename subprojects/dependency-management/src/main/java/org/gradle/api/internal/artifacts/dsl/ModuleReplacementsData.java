@@ -26,7 +26,14 @@ public interface ModuleReplacementsData {
         public ModuleIdentifier getReplacementFor(ModuleIdentifier sourceModule) {
             return null;
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     @Nullable ModuleIdentifier getReplacementFor(ModuleIdentifier sourceModule);
+
+    boolean hasRules();
 }
@@ -36,4 +36,11 @@ public interface ArtifactCacheMetaData {
      * @return Metadata store location
      */
     File getMetaDataStoreDirectory();
+
+    /**
+     * Returns the root directory for the meta-data file store of the previous cache layout, from which missing descriptors are imported.
+     *
+     * @return Previous metadata store location
+     */
+    File getPreviousMetaDataStoreDirectory();
 }
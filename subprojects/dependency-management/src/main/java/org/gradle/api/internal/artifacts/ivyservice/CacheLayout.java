@@ -22,9 +22,12 @@ import java.io.File;
 public enum CacheLayout {
     ROOT(null, "modules", 2),
     FILE_STORE(ROOT, "files", 1),
-    META_DATA(ROOT, "metadata", 23);
+    META_DATA(ROOT, "metadata", 24),
+    // The META_DATA layout replaced by the current one. Entries missing from the current layout are imported from it, see DefaultCacheLockingManager
+    PREVIOUS_META_DATA(ROOT, "metadata", 23);
 
     // If you update the META_DATA version, also update DefaultGradleDistribution.getArtifactCacheLayoutVersion() (which is the historical record)
+    // and PREVIOUS_META_DATA, or remove the import when entries written with the previous version can no longer be read
     // If you update FILE_STORE, you may also need to update LocallyAvailableResourceFinderFactory
 
     private final String name;
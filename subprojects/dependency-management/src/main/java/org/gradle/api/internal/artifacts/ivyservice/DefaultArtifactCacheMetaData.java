@@ -48,6 +48,10 @@ public class DefaultArtifactCacheMetaData implements ArtifactCacheMetaData, Cach
         return new File(createCacheRelativeDir(CacheLayout.META_DATA), "descriptors");
     }
 
+    public File getPreviousMetaDataStoreDirectory() {
+        return new File(createCacheRelativeDir(CacheLayout.PREVIOUS_META_DATA), "descriptors");
+    }
+
     private File createCacheRelativeDir(CacheLayout cacheLayout) {
         return cacheLayout.getPath(getCacheDir());
     }
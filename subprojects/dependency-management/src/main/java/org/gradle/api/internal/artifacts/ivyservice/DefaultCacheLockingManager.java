@@ -25,6 +25,7 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.io.File;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
@@ -60,8 +61,18 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
         return cache.longRunningOperation(operationDisplayName, action);
     }
 
+    /**
+     * Creates a cache in the current metadata layout. When the previous metadata layout has the same cache, which happens when the cache directory
+     * has been used by an earlier Gradle version, entries missing from the current layout are imported from it, as the format of the index entries has not changed.
+     */
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + cacheName;
-        return cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer));
+        PersistentIndexedCache<K, V> indexedCache = cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer));
+        String cacheFileInPreviousMetaDataStore = CacheLayout.PREVIOUS_META_DATA.getKey() + "/" + cacheName;
+        if (!new File(cache.getBaseDir(), cacheFileInPreviousMetaDataStore + ".bin").isFile()) {
+            return indexedCache;
+        }
+        PersistentIndexedCache<K, V> previousCache = cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInPreviousMetaDataStore, keySerializer, valueSerializer));
+        return new ImportingPersistentIndexedCache<K, V>(indexedCache, previousCache);
     }
 }
@@ -16,7 +16,12 @@
 
 package org.gradle.api.internal.artifacts.ivyservice;
 
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleDependency;
 import org.gradle.api.artifacts.ResolveException;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.UnresolvedDependency;
+import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
@@ -25,14 +30,24 @@ import org.gradle.api.internal.artifacts.DefaultResolverResults;
 import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
 import org.gradle.api.internal.artifacts.ResolverResults;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ErrorHandlingArtifactResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedGraphCacheEntry;
+import org.gradle.api.internal.artifacts.ivyservice.resolutioncache.ResolvedGraphRecorder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactsBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.DefaultResolvedConfigurationBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.DefaultResolvedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
@@ -42,6 +57,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResultGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.RecordingBinaryStore;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
@@ -49,40 +65,67 @@ import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
 import org.gradle.internal.Factory;
 import org.gradle.internal.Transformers;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.resolve.resolver.ArtifactResolver;
 import org.gradle.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultConfigurationResolver.class);
     private final ArtifactDependencyResolver resolver;
     private final RepositoryHandler repositories;
     private final GlobalDependencyResolutionRules metadataHandler;
     private final CacheLockingManager cacheLockingManager;
     private final ResolutionResultsStoreFactory storeFactory;
+    private final ResolvedGraphCache resolvedGraphCache;
+    private final ResolveIvyFactory ivyFactory;
     private final boolean buildProjectDependencies;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
                                         GlobalDependencyResolutionRules metadataHandler, CacheLockingManager cacheLockingManager,
-                                        ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies) {
+                                        ResolutionResultsStoreFactory storeFactory, ResolvedGraphCache resolvedGraphCache,
+                                        ResolveIvyFactory ivyFactory, boolean buildProjectDependencies) {
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
         this.cacheLockingManager = cacheLockingManager;
         this.storeFactory = storeFactory;
+        this.resolvedGraphCache = resolvedGraphCache;
+        this.ivyFactory = ivyFactory;
         this.buildProjectDependencies = buildProjectDependencies;
     }
 
     public void resolve(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
         List<ResolutionAwareRepository> resolutionAwareRepositories = CollectionUtils.collect(repositories, Transformers.cast(ResolutionAwareRepository.class));
         StoreSet stores = storeFactory.createStoreSet();
+        DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
+
+        HashValue cacheKey = resolvedGraphCache.createKey(configuration, resolutionAwareRepositories, metadataHandler);
+        if (cacheKey != null && restoreCachedGraph(cacheKey, configuration, resolutionAwareRepositories, stores, defaultResolverResults)) {
+            return;
+        }
 
         BinaryStore oldModelStore = stores.nextBinaryStore();
+        BinaryStore newModelStore = stores.nextBinaryStore();
+        ResolvedGraphRecorder recorder = null;
+        if (cacheKey != null) {
+            recorder = resolvedGraphCache.createRecorder(configuration);
+            oldModelStore = recorder.recordTransientResults(oldModelStore);
+            newModelStore = recorder.recordResolutionResult(newModelStore);
+        }
+
         Store<TransientConfigurationResults> oldModelCache = stores.oldModelCache();
         TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache);
         DefaultResolvedConfigurationBuilder oldModelBuilder = new DefaultResolvedConfigurationBuilder(oldTransientModelBuilder);
         ResolvedConfigurationDependencyGraphVisitor oldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(oldModelBuilder);
 
-        BinaryStore newModelStore = stores.nextBinaryStore();
         Store<ResolvedComponentResult> newModelCache = stores.newModelCache();
         StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, newModelCache);
 
@@ -93,14 +136,65 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
 
         DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(oldModelVisitor, newModelBuilder, projectModelVisitor);
         DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(oldModelVisitor, artifactsBuilder);
+        if (recorder != null) {
+            graphVisitor = new CompositeDependencyGraphVisitor(graphVisitor, recorder);
+            artifactsVisitor = new CompositeDependencyArtifactsVisitor(artifactsVisitor, recorder);
+        }
 
         resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, graphVisitor, artifactsVisitor);
 
-        DefaultResolverResults defaultResolverResults = (DefaultResolverResults) results;
         defaultResolverResults.resolved(newModelBuilder.complete(), localComponentsResultBuilder.complete());
 
         ResolvedGraphResults graphResults = oldModelBuilder.complete();
         defaultResolverResults.retainState(graphResults, artifactsBuilder, oldTransientModelBuilder);
+
+        if (recorder != null && !graphResults.hasError()) {
+            resolvedGraphCache.store(cacheKey, configuration, resolutionAwareRepositories, recorder);
+        }
+    }
+
+    private boolean restoreCachedGraph(HashValue cacheKey, ConfigurationInternal configuration, List<ResolutionAwareRepository> resolutionAwareRepositories,
+                                       StoreSet stores, DefaultResolverResults results) {
+        ResolvedGraphCacheEntry entry = resolvedGraphCache.get(cacheKey);
+        if (entry == null) {
+            return false;
+        }
+
+        // Creating the resolvers also applies the command-line overrides, such as --refresh-dependencies, to the cache policy
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        ComponentResolvers resolvers = ivyFactory.create(resolutionStrategy, resolutionAwareRepositories, metadataHandler.getComponentMetadataProcessor());
+        if (!resolvedGraphCache.isUpToDate(entry, resolutionStrategy.getCachePolicy())) {
+            return false;
+        }
+        LOGGER.debug("Using cached resolved graph for {}", configuration);
+
+        BinaryStore oldModelStore = stores.nextBinaryStore();
+        TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, stores.oldModelCache());
+        RecordingBinaryStore.replay(oldModelStore, entry.getTransientResults());
+        oldTransientModelBuilder.done();
+
+        BinaryStore newModelStore = stores.nextBinaryStore();
+        StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, stores.newModelCache());
+        RecordingBinaryStore.replay(newModelStore, entry.getResolutionResult());
+
+        List<ModuleDependency> declaredDependencies = resolvedGraphCache.getDeclaredDependencies(configuration);
+        Map<Long, ModuleDependency> firstLevelDependencies = Maps.newHashMap();
+        for (Map.Entry<Long, Integer> firstLevelDependency : entry.getFirstLevelDependencies().entrySet()) {
+            firstLevelDependencies.put(firstLevelDependency.getKey(), declaredDependencies.get(firstLevelDependency.getValue()));
+        }
+
+        ArtifactResolver artifactResolver = new ErrorHandlingArtifactResolver(new CacheLockingArtifactResolver(cacheLockingManager, resolvers.getArtifactResolver()));
+        Map<ComponentArtifactIdentifier, ResolvedArtifact> allResolvedArtifacts = Maps.newHashMap();
+        DefaultResolvedArtifactsBuilder artifactsBuilder = new DefaultResolvedArtifactsBuilder();
+        for (ResolvedGraphCacheEntry.CachedArtifactSet artifactSet : entry.getArtifactSets()) {
+            artifactsBuilder.addArtifactSet(new DefaultArtifactSet(artifactSet.getModuleVersionIdentifier(), artifactSet.getModuleSource(), ModuleExclusions.excludeNone(),
+                new LinkedHashSet<ComponentArtifactMetadata>(artifactSet.getArtifacts()), artifactResolver, allResolvedArtifacts, artifactSet.getId()));
+        }
+
+        results.resolved(newModelBuilder.complete(), new DefaultResolvedLocalComponentsResultBuilder(buildProjectDependencies).complete());
+        ResolvedGraphResults graphResults = new DefaultResolvedGraphResults(Collections.<UnresolvedDependency>emptySet(), firstLevelDependencies);
+        results.retainState(graphResults, artifactsBuilder, oldTransientModelBuilder);
+        return true;
     }
 
     public void resolveArtifacts(ConfigurationInternal configuration, ResolverResults results) throws ResolveException {
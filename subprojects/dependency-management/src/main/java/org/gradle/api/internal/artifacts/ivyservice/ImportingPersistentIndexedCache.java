@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.cache.PersistentIndexedCache;
+
+/**
+ * A cache that imports entries from the cache of a previous layout version the first time they are requested.
+ *
+ * <p>The previous cache is only read, so that Gradle versions that use the previous layout are not affected. An entry removed from this cache
+ * is imported again the next time it is requested, as long as it is still present in the previous cache.</p>
+ */
+class ImportingPersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    private final PersistentIndexedCache<K, V> cache;
+    private final PersistentIndexedCache<K, V> previousCache;
+
+    ImportingPersistentIndexedCache(PersistentIndexedCache<K, V> cache, PersistentIndexedCache<K, V> previousCache) {
+        this.cache = cache;
+        this.previousCache = previousCache;
+    }
+
+    @Override
+    public V get(K key) {
+        V value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = previousCache.get(key);
+        if (value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        cache.remove(key);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.api.Nullable;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the POMs that are parsed as the parent of another POM, or that are imported into another POM, for the duration of a build.
+ * A parent or BOM shared by many modules is then parsed once rather than once for each module.
+ *
+ * <p>Entries are keyed by the local file containing the POM, and are discarded when the size or timestamp of the file changes.
+ * A cached {@link PomReader} has its parent and imported POMs applied, and is not modified further.</p>
+ */
+public class ParsedPomCache {
+    private final ConcurrentMap<File, CachedPom> cache = new ConcurrentHashMap<File, CachedPom>();
+
+    @Nullable
+    public PomReader get(File pomFile) {
+        CachedPom cachedPom = cache.get(pomFile);
+        if (cachedPom == null || cachedPom.length != pomFile.length() || cachedPom.lastModified != pomFile.lastModified()) {
+            return null;
+        }
+        return cachedPom.pomReader;
+    }
+
+    public void put(File pomFile, PomReader pomReader) {
+        cache.put(pomFile, new CachedPom(pomFile.length(), pomFile.lastModified(), pomReader));
+    }
+
+    private static class CachedPom {
+        private final long length;
+        private final long lastModified;
+        private final PomReader pomReader;
+
+        CachedPom(long length, long lastModified, PomReader pomReader) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.pomReader = pomReader;
+        }
+    }
+}
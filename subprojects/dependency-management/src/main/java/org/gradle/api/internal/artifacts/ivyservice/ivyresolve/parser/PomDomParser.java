@@ -16,39 +16,152 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.*;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Reads a POM into a tree of {@link PomElement}s, using a streaming parser. Only the elements that are used to build the module metadata are retained:
+ * the children of the project and profile elements other than those listed in {@link #RETAINED_ELEMENTS} are skipped without being read into memory.
+ */
 public final class PomDomParser {
+    private static final Set<String> RETAINED_ELEMENTS = ImmutableSet.of(
+        "parent", "groupId", "artifactId", "version", "packaging", "description", "dependencies", "dependencyManagement",
+        "distributionManagement", "properties", "profiles", "id", "activation");
+    private static final String PROFILES = "profiles";
+    private static final String PROFILE = "profile";
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+        XML_INPUT_FACTORY.setXMLResolver(new XMLResolver() {
+            @Override
+            public Object resolveEntity(String publicId, String systemId, String baseURI, String namespace) {
+                if ((systemId != null) && systemId.endsWith("m2-entities.ent")) {
+                    return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+                }
+                return null;
+            }
+        });
+    }
+
     private PomDomParser() {}
 
-    public static String getTextContent(Element element) {
-        StringBuilder result = new StringBuilder();
+    /**
+     * Parses the given POM content, returning the root element.
+     */
+    public static PomElement parse(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new AddDTDFilterInputStream(stream));
+        try {
+            List<PomElement> elements = new ArrayList<PomElement>();
+            List<StringBuilder> texts = new ArrayList<StringBuilder>();
+            PomElement root = null;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        PomElement element = new PomElement(getName(reader));
+                        if (elements.isEmpty()) {
+                            root = element;
+                        } else {
+                            PomElement parent = elements.get(elements.size() - 1);
+                            if (isFiltered(elements) && !RETAINED_ELEMENTS.contains(element.getName())) {
+                                skipElement(reader);
+                                break;
+                            }
+                            parent.addChild(element);
+                        }
+                        elements.add(element);
+                        texts.add(new StringBuilder());
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (!texts.isEmpty()) {
+                            texts.get(texts.size() - 1).append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        elements.remove(elements.size() - 1).setTextContent(texts.remove(texts.size() - 1).toString());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Are the children of the current element, which is the last of the given elements, filtered? Only the children of the project element and of profile elements are filtered.
+     */
+    private static boolean isFiltered(List<PomElement> elements) {
+        int depth = elements.size();
+        if (depth == 1) {
+            return true;
+        }
+        return depth == 3 && PROFILE.equals(elements.get(2).getName()) && PROFILES.equals(elements.get(1).getName());
+    }
 
-        NodeList childNodes = element.getChildNodes();
-        for (int i = 0; i < childNodes.getLength(); i++) {
-            Node child = childNodes.item(i);
+    private static String getName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        if (prefix == null || prefix.length() == 0) {
+            return reader.getLocalName();
+        }
+        return prefix + ":" + reader.getLocalName();
+    }
 
-            switch (child.getNodeType()) {
-                case Node.CDATA_SECTION_NODE:
-                case Node.TEXT_NODE:
-                    result.append(child.getNodeValue());
-                    break;
-                default:
-                    break;
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
             }
         }
+    }
 
-        return result.toString();
+    public static String getTextContent(PomElement element) {
+        return element.getTextContent();
     }
 
-    public static String getFirstChildText(Element parentElem, String name) {
-        Element node = getFirstChildElement(parentElem, name);
+    public static String getFirstChildText(PomElement parentElem, String name) {
+        PomElement node = getFirstChildElement(parentElem, name);
         if (node != null) {
             return getTextContent(node);
         } else {
@@ -56,30 +169,22 @@ public final class PomDomParser {
         }
     }
 
-    public static Element getFirstChildElement(Element parentElem, String name) {
+    public static PomElement getFirstChildElement(PomElement parentElem, String name) {
         if (parentElem == null) {
             return null;
         }
-        NodeList childs = parentElem.getChildNodes();
-        for (int i = 0; i < childs.getLength(); i++) {
-            Node node = childs.item(i);
-            if (node instanceof Element && name.equals(node.getNodeName())) {
-                return (Element) node;
+        for (PomElement node : parentElem.getChildren()) {
+            if (name.equals(node.getName())) {
+                return node;
             }
         }
         return null;
     }
 
-    public static List<Element> getAllChilds(Element parent) {
-        List<Element> r = new LinkedList<Element>();
+    public static List<PomElement> getAllChilds(PomElement parent) {
+        List<PomElement> r = new LinkedList<PomElement>();
         if (parent != null) {
-            NodeList childs = parent.getChildNodes();
-            for (int i = 0; i < childs.getLength(); i++) {
-                Node node = childs.item(i);
-                if (node instanceof Element) {
-                    r.add((Element) node);
-                }
-            }
+            r.addAll(parent.getChildren());
         }
         return r;
     }
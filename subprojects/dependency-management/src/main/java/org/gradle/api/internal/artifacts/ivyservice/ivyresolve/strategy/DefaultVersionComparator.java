@@ -21,7 +21,7 @@ import java.util.Comparator;
 
 public class DefaultVersionComparator implements VersionComparator {
     private final Comparator<Version> baseComparator = new StaticVersionComparator();
-    private final VersionParser versionParser = new VersionParser();
+    private final VersionParser versionParser;
     private final Comparator<String> stringComparator = new Comparator<String>() {
         @Override
         public int compare(String string1, String string2) {
@@ -29,6 +29,14 @@ public class DefaultVersionComparator implements VersionComparator {
         }
     };
 
+    public DefaultVersionComparator() {
+        this(new VersionParser());
+    }
+
+    public DefaultVersionComparator(VersionParser versionParser) {
+        this.versionParser = versionParser;
+    }
+
     public int compare(Versioned element1, Versioned element2) {
         String version1 = element1.getVersion();
         String version2 = element2.getVersion();
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
 
 import com.google.common.collect.ImmutableMap;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser.DefaultVersion;
 
 import java.util.Comparator;
 import java.util.Locale;
@@ -30,6 +31,9 @@ class StaticVersionComparator implements Comparator<Version> {
      * Compares 2 versions. Algorithm is inspired by PHP version_compare one.
      */
     public int compare(Version version1, Version version2) {
+        if (version1 instanceof DefaultVersion && version2 instanceof DefaultVersion) {
+            return compare((DefaultVersion) version1, (DefaultVersion) version2);
+        }
         if (version1.equals(version2)) {
             return 0;
         }
@@ -75,6 +79,63 @@ class StaticVersionComparator implements Comparator<Version> {
         return 0;
     }
 
+    /**
+     * Same as {@link #compare(Version, Version)}, using the classification of the parts calculated by the parser.
+     */
+    private int compare(DefaultVersion version1, DefaultVersion version2) {
+        if (version1 == version2) {
+            return 0;
+        }
+
+        String[] parts1 = version1.getParts();
+        String[] parts2 = version2.getParts();
+        byte[] kinds1 = version1.getKinds();
+        byte[] kinds2 = version2.getKinds();
+        long[] keys1 = version1.getKeys();
+        long[] keys2 = version2.getKeys();
+
+        int i = 0;
+        for (; i < parts1.length && i < parts2.length; i++) {
+            byte kind1 = kinds1[i];
+            byte kind2 = kinds2[i];
+            if (kind1 == DefaultVersion.NUMBER && kind2 == DefaultVersion.NUMBER) {
+                if (keys1[i] != keys2[i]) {
+                    return keys1[i] < keys2[i] ? -1 : 1;
+                }
+                continue;
+            }
+            if (parts1[i].equals(parts2[i])) {
+                continue;
+            }
+            boolean is1Number = kind1 >= DefaultVersion.NUMBER;
+            boolean is2Number = kind2 >= DefaultVersion.NUMBER;
+            if (is1Number && !is2Number) {
+                return 1;
+            }
+            if (is2Number && !is1Number) {
+                return -1;
+            }
+            if (is1Number && is2Number) {
+                return Long.valueOf(parts1[i]).compareTo(Long.valueOf(parts2[i]));
+            }
+            if (kind1 == DefaultVersion.SPECIAL) {
+                return (int) (keys1[i] - (kind2 == DefaultVersion.SPECIAL ? keys2[i] : 0));
+            }
+            if (kind2 == DefaultVersion.SPECIAL) {
+                return (int) -keys2[i];
+            }
+            return parts1[i].compareTo(parts2[i]);
+        }
+        if (i < parts1.length) {
+            return kinds1[i] >= DefaultVersion.NUMBER ? 1 : -1;
+        }
+        if (i < parts2.length) {
+            return kinds2[i] >= DefaultVersion.NUMBER ? -1 : 1;
+        }
+
+        return 0;
+    }
+
     private boolean isNumber(String str) {
         return str.matches("\\d+");
     }
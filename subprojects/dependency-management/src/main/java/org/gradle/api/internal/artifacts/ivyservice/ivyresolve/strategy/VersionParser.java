@@ -16,14 +16,43 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
 
+import net.jcip.annotations.ThreadSafe;
 import org.gradle.api.Transformer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Parses version strings into {@link Version} instances.
+ *
+ * <p>Parsed versions are cached, so that each distinct version string is parsed and analyzed for comparison only once. A single instance is shared by
+ * dependency resolution for the whole build.</p>
+ */
+@ThreadSafe
 public class VersionParser implements Transformer<Version, String> {
+    private static final int MAX_CACHED_VERSIONS = 100000;
+
+    private final ConcurrentMap<String, Version> versions = new ConcurrentHashMap<String, Version>();
+
     @Override
     public Version transform(String original) {
+        Version version = versions.get(original);
+        if (version == null) {
+            version = parse(original);
+            if (versions.size() < MAX_CACHED_VERSIONS) {
+                Version existing = versions.putIfAbsent(original, version);
+                if (existing != null) {
+                    version = existing;
+                }
+            }
+        }
+        return version;
+    }
+
+    private Version parse(String original) {
         List<String> parts = new ArrayList<String>();
         boolean digit = false;
         int startPart = 0;
@@ -72,17 +101,86 @@ public class VersionParser implements Transformer<Version, String> {
         return new DefaultVersion(original, parts, base);
     }
 
-    private static class DefaultVersion implements Version {
+    /**
+     * A parsed version. Each part is classified when the version is parsed, so that {@link StaticVersionComparator} can compare most parts using only
+     * primitive operations.
+     */
+    static class DefaultVersion implements Version {
+        /**
+         * A part that contains no digits and has no special meaning.
+         */
+        static final byte TEXT = 0;
+        /**
+         * A part with a special meaning, such as 'rc'. The key holds the meaning.
+         */
+        static final byte SPECIAL = 1;
+        /**
+         * A number without leading zeros, small enough to be held in the key.
+         */
+        static final byte NUMBER = 2;
+        /**
+         * A number with leading zeros, or one too large to be held in the key. These are compared using their string form.
+         */
+        static final byte DIGITS = 3;
+
+        private static final int MAX_NUMBER_LENGTH = 18;
+
         private final String source;
         private final String[] parts;
+        private final byte[] kinds;
+        private final long[] keys;
         private final DefaultVersion baseVersion;
 
         public DefaultVersion(String source, List<String> parts, DefaultVersion baseVersion) {
             this.source = source;
             this.parts = parts.toArray(new String[0]);
+            this.kinds = new byte[this.parts.length];
+            this.keys = new long[this.parts.length];
+            for (int i = 0; i < this.parts.length; i++) {
+                classify(i);
+            }
             this.baseVersion = baseVersion == null ? this : baseVersion;
         }
 
+        private void classify(int index) {
+            String part = parts[index];
+            if (isDigits(part)) {
+                if (part.length() <= MAX_NUMBER_LENGTH && (part.length() == 1 || part.charAt(0) != '0')) {
+                    kinds[index] = NUMBER;
+                    keys[index] = Long.parseLong(part);
+                } else {
+                    kinds[index] = DIGITS;
+                }
+                return;
+            }
+            String lowerCase = part.toLowerCase(Locale.US);
+            if (lowerCase.equals("dev")) {
+                kinds[index] = SPECIAL;
+                keys[index] = -1;
+            } else if (lowerCase.equals("rc")) {
+                kinds[index] = SPECIAL;
+                keys[index] = 1;
+            } else if (lowerCase.equals("final")) {
+                kinds[index] = SPECIAL;
+                keys[index] = 2;
+            } else {
+                kinds[index] = TEXT;
+            }
+        }
+
+        private static boolean isDigits(String part) {
+            if (part.length() == 0) {
+                return false;
+            }
+            for (int i = 0; i < part.length(); i++) {
+                char ch = part.charAt(i);
+                if (ch < '0' || ch > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         public String toString() {
             return source;
@@ -118,5 +216,13 @@ public class VersionParser implements Transformer<Version, String> {
         public String[] getParts() {
             return parts;
         }
+
+        byte[] getKinds() {
+            return kinds;
+        }
+
+        long[] getKeys() {
+            return keys;
+        }
     }
 }
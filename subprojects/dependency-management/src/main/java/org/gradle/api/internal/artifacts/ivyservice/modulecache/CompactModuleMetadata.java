@@ -0,0 +1,352 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.internal.component.external.descriptor.Artifact;
+import org.gradle.internal.component.external.descriptor.Configuration;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.descriptor.MavenScope;
+import org.gradle.internal.component.external.descriptor.MutableModuleDescriptorState;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultMutableIvyModuleResolveMetadata;
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata;
+import org.gradle.internal.component.external.model.IvyDependencyMetadata;
+import org.gradle.internal.component.external.model.MavenDependencyMetadata;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.gradle.api.internal.artifacts.ivyservice.modulecache.CompactModuleMetadataSerializer.*;
+
+/**
+ * Module metadata in the format written by {@link CompactModuleMetadataSerializer}, decoded on demand from a buffer.
+ *
+ * <p>Each section is decoded when it is requested, and each string in the string table is decoded at most once. The requested module of a dependency
+ * can be looked up without decoding the dependencies section.</p>
+ */
+public class CompactModuleMetadata {
+    private final ByteBuffer buffer;
+    private final byte type;
+    private final int[] sectionOffsets = new int[SECTION_COUNT + 1];
+    private final String[] strings;
+    private final int stringOffsets;
+    private final int stringOffsetWidth;
+    private final int stringData;
+    private final int dependencyCount;
+    private final int dependencyReferenceWidth;
+    private final int dependencyOffsetWidth;
+
+    CompactModuleMetadata(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.slice();
+        int limit = this.buffer.limit();
+        if (limit < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a module metadata file.");
+        }
+        int version = this.buffer.get(4);
+        if (version != FORMAT_VERSION) {
+            throw new IOException(String.format("Unexpected module metadata format version %d, expected %d.", version, FORMAT_VERSION));
+        }
+        type = this.buffer.get(5);
+        if (type != TYPE_IVY && type != TYPE_MAVEN) {
+            throw new IOException("Unexpected metadata type found.");
+        }
+        int previous = HEADER_SIZE;
+        for (int i = 0; i <= SECTION_COUNT; i++) {
+            int offset = this.buffer.getInt(6 + 4 * i);
+            if (offset < previous || offset > limit) {
+                throw new IOException("Module metadata file is truncated or corrupt.");
+            }
+            sectionOffsets[i] = offset;
+            previous = offset;
+        }
+
+        int stringCount = this.buffer.getInt(sectionOffsets[SECTION_STRINGS]);
+        stringOffsetWidth = this.buffer.get(sectionOffsets[SECTION_STRINGS] + 4);
+        stringOffsets = sectionOffsets[SECTION_STRINGS] + 5;
+        stringData = stringOffsets + stringOffsetWidth * (stringCount + 1);
+        dependencyCount = this.buffer.getInt(sectionOffsets[SECTION_DEPENDENCIES]);
+        dependencyReferenceWidth = this.buffer.get(sectionOffsets[SECTION_DEPENDENCIES] + 4);
+        dependencyOffsetWidth = this.buffer.get(sectionOffsets[SECTION_DEPENDENCIES] + 5);
+        if (stringCount < 0 || stringData > sectionOffsets[SECTION_STRINGS + 1] || dependencyCount < 0
+            || !isValidWidth(stringOffsetWidth) || !isValidWidth(dependencyReferenceWidth) || !isValidWidth(dependencyOffsetWidth)) {
+            throw new IOException("Module metadata file is truncated or corrupt.");
+        }
+        strings = new String[stringCount];
+    }
+
+    public boolean isMaven() {
+        return type == TYPE_MAVEN;
+    }
+
+    public ModuleComponentIdentifier getComponentId() {
+        return new Cursor(SECTION_INFO).readId();
+    }
+
+    public int getDependencyCount() {
+        return dependencyCount;
+    }
+
+    /**
+     * Returns the module requested by the dependency with the given index, without decoding the rest of the dependency.
+     */
+    public ModuleVersionSelector getRequested(int index) {
+        if (index < 0 || index >= dependencyCount) {
+            throw new IndexOutOfBoundsException("Dependency index " + index + " out of range, dependency count is " + dependencyCount);
+        }
+        int column = sectionOffsets[SECTION_DEPENDENCIES] + 6 + dependencyReferenceWidth * index;
+        int columnSize = dependencyReferenceWidth * dependencyCount;
+        String group = string(fixed(column, dependencyReferenceWidth));
+        String name = string(fixed(column + columnSize, dependencyReferenceWidth));
+        String version = string(fixed(column + 2 * columnSize, dependencyReferenceWidth));
+        return DefaultModuleVersionSelector.newSelector(group, name, version);
+    }
+
+    public List<DependencyMetadata> getDependencies() {
+        int detailOffsets = sectionOffsets[SECTION_DEPENDENCIES] + 6 + 3 * dependencyReferenceWidth * dependencyCount;
+        int details = detailOffsets + dependencyOffsetWidth * dependencyCount;
+        List<DependencyMetadata> dependencies = new ArrayList<DependencyMetadata>(dependencyCount);
+        for (int i = 0; i < dependencyCount; i++) {
+            Cursor cursor = new Cursor();
+            cursor.position = details + fixed(detailOffsets + dependencyOffsetWidth * i, dependencyOffsetWidth);
+            dependencies.add(cursor.readDependency(getRequested(i)));
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the configurations declared by an Ivy module. Maven modules always have the same configurations, which are not stored.
+     */
+    public List<Configuration> getConfigurations() {
+        Cursor cursor = new Cursor(SECTION_CONFIGURATIONS);
+        int count = cursor.readCount();
+        List<Configuration> configurations = new ArrayList<Configuration>(count);
+        for (int i = 0; i < count; i++) {
+            String name = cursor.readString();
+            int flags = cursor.readCount();
+            List<String> extendsFrom = cursor.readStringList();
+            configurations.add(new Configuration(name, (flags & FLAG_TRANSITIVE) != 0, (flags & FLAG_VISIBLE) != 0, extendsFrom));
+        }
+        return configurations;
+    }
+
+    public List<Artifact> getArtifacts() {
+        return new Cursor(SECTION_ARTIFACTS).readArtifacts();
+    }
+
+    public List<Exclude> getExcludes() {
+        return new Cursor(SECTION_EXCLUDES).readExcludes();
+    }
+
+    /**
+     * Decodes all sections into mutable module metadata.
+     */
+    public MutableModuleComponentResolveMetadata createMetadata() {
+        Cursor cursor = new Cursor(SECTION_INFO);
+        ModuleComponentIdentifier id = cursor.readId();
+        ModuleComponentIdentifier descriptorId = cursor.readId();
+        String status = cursor.readString();
+        boolean generated = cursor.readBoolean();
+        MutableModuleDescriptorState md = new MutableModuleDescriptorState(descriptorId, status, generated);
+        md.setDescription(cursor.readString());
+        long publicationDate = cursor.readLong();
+        md.setPublicationDate(publicationDate == -1 ? null : new Date(publicationDate));
+        md.setBranch(cursor.readString());
+        int extraInfoCount = cursor.readCount();
+        for (int i = 0; i < extraInfoCount; i++) {
+            NamespaceId namespaceId = new NamespaceId(cursor.readString(), cursor.readString());
+            md.getExtraInfo().put(namespaceId, cursor.readString());
+        }
+        for (Artifact artifact : getArtifacts()) {
+            md.addArtifact(artifact.getArtifactName(), artifact.getConfigurations());
+        }
+        for (Exclude exclude : getExcludes()) {
+            md.addExclude(exclude);
+        }
+
+        if (type == TYPE_IVY) {
+            return new DefaultMutableIvyModuleResolveMetadata(id, md, getConfigurations(), getDependencies());
+        }
+        String snapshotTimestamp = cursor.readString();
+        String packaging = cursor.readString();
+        boolean relocated = cursor.readBoolean();
+        DefaultMutableMavenModuleResolveMetadata metadata = new DefaultMutableMavenModuleResolveMetadata(id, md, packaging, relocated, getDependencies());
+        metadata.setSnapshotTimestamp(snapshotTimestamp);
+        return metadata;
+    }
+
+    private String string(int reference) {
+        if (reference == 0) {
+            return null;
+        }
+        int index = reference - 1;
+        String value = strings[index];
+        if (value == null) {
+            int start = fixed(stringOffsets + stringOffsetWidth * index, stringOffsetWidth);
+            int end = fixed(stringOffsets + stringOffsetWidth * (index + 1), stringOffsetWidth);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer data = buffer.duplicate();
+            data.position(stringData + start);
+            data.get(bytes);
+            value = new String(bytes, Charsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private static boolean isValidWidth(int width) {
+        return width == 1 || width == 2 || width == 4;
+    }
+
+    private int fixed(int position, int width) {
+        switch (width) {
+            case 1:
+                return buffer.get(position) & 0xff;
+            case 2:
+                return buffer.getShort(position) & 0xffff;
+            default:
+                return buffer.getInt(position);
+        }
+    }
+
+    private class Cursor {
+        private int position;
+
+        private Cursor() {
+        }
+
+        private Cursor(int section) {
+            position = sectionOffsets[section];
+        }
+
+        DependencyMetadata readDependency(ModuleVersionSelector requested) {
+            byte dependencyType = buffer.get(position++);
+            switch (dependencyType) {
+                case TYPE_IVY:
+                    SetMultimap<String, String> confMappings = LinkedHashMultimap.create();
+                    int mappingCount = readCount();
+                    for (int i = 0; i < mappingCount; i++) {
+                        String from = readString();
+                        confMappings.putAll(from, readStringSet());
+                    }
+                    List<Artifact> artifacts = readArtifacts();
+                    List<Exclude> excludes = readExcludes();
+                    String dynamicConstraintVersion = readString();
+                    int flags = readCount();
+                    return new IvyDependencyMetadata(requested, dynamicConstraintVersion, (flags & FLAG_FORCE) != 0, (flags & FLAG_CHANGING) != 0, (flags & FLAG_TRANSITIVE) != 0, confMappings, artifacts, excludes);
+                case TYPE_MAVEN:
+                    artifacts = readArtifacts();
+                    excludes = readExcludes();
+                    MavenScope scope = MavenScope.values()[readCount()];
+                    boolean optional = readBoolean();
+                    return new MavenDependencyMetadata(scope, optional, requested, artifacts, excludes);
+                default:
+                    throw new IllegalArgumentException("Unexpected dependency type found.");
+            }
+        }
+
+        ModuleComponentIdentifier readId() {
+            return DefaultModuleComponentIdentifier.newId(readString(), readString(), readString());
+        }
+
+        List<Artifact> readArtifacts() {
+            int count = readCount();
+            List<Artifact> artifacts = new ArrayList<Artifact>(count);
+            for (int i = 0; i < count; i++) {
+                IvyArtifactName artifactName = new DefaultIvyArtifactName(readString(), readString(), readString(), readString());
+                artifacts.add(new Artifact(artifactName, readStringSet()));
+            }
+            return artifacts;
+        }
+
+        List<Exclude> readExcludes() {
+            int count = readCount();
+            List<Exclude> excludes = new ArrayList<Exclude>(count);
+            for (int i = 0; i < count; i++) {
+                String group = readString();
+                String module = readString();
+                String artifact = readString();
+                String artifactType = readString();
+                String extension = readString();
+                String[] configurations = readStringList().toArray(new String[0]);
+                String matcher = readString();
+                excludes.add(new DefaultExclude(group, module, artifact, artifactType, extension, configurations, matcher));
+            }
+            return excludes;
+        }
+
+        boolean readBoolean() {
+            return buffer.get(position++) != 0;
+        }
+
+        long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        int readCount() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = buffer.get(position++);
+                value |= (current & 0x7f) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        String readString() {
+            return string(readCount());
+        }
+
+        List<String> readStringList() {
+            int count = readCount();
+            List<String> values = new ArrayList<String>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        Set<String> readStringSet() {
+            int count = readCount();
+            Set<String> values = new LinkedHashSet<String>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.SetMultimap;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId;
+import org.gradle.internal.component.external.descriptor.Artifact;
+import org.gradle.internal.component.external.descriptor.Configuration;
+import org.gradle.internal.component.external.descriptor.ModuleDescriptorState;
+import org.gradle.internal.component.external.model.IvyDependencyMetadata;
+import org.gradle.internal.component.external.model.IvyModuleResolveMetadata;
+import org.gradle.internal.component.external.model.MavenDependencyMetadata;
+import org.gradle.internal.component.external.model.MavenModuleResolveMetadata;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.Exclude;
+import org.gradle.internal.component.model.IvyArtifactName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes module metadata into a compact binary format that can be read in place, for example from a memory-mapped file.
+ *
+ * <p>A file starts with a header that holds the type of the module and the offset of each section. Every string is stored once in a string table,
+ * and is referenced by index from the other sections. The requested module of each dependency is stored column by column with fixed width references,
+ * so that it can be looked up without decoding the rest of the dependency. Fixed width values use the fewest of 1, 2 or 4 bytes that can hold the largest
+ * value of the column. All other values are stored as variable length integers.</p>
+ *
+ * @see CompactModuleMetadata
+ */
+public class CompactModuleMetadataSerializer {
+    public static final int FORMAT_VERSION = 1;
+
+    static final int MAGIC = 0x474d4d44;
+    static final byte TYPE_IVY = 1;
+    static final byte TYPE_MAVEN = 2;
+
+    static final int SECTION_STRINGS = 0;
+    static final int SECTION_INFO = 1;
+    static final int SECTION_CONFIGURATIONS = 2;
+    static final int SECTION_DEPENDENCIES = 3;
+    static final int SECTION_ARTIFACTS = 4;
+    static final int SECTION_EXCLUDES = 5;
+    static final int SECTION_COUNT = 6;
+    // Magic, format version, module type and the start of each section followed by the end of the last section
+    static final int HEADER_SIZE = 4 + 1 + 1 + 4 * (SECTION_COUNT + 1);
+
+    static final int FLAG_TRANSITIVE = 1;
+    static final int FLAG_VISIBLE = 2;
+    static final int FLAG_FORCE = 4;
+    static final int FLAG_CHANGING = 8;
+
+    public void write(OutputStream outputStream, ModuleComponentResolveMetadata metadata) throws IOException {
+        new Writer().write(outputStream, metadata);
+    }
+
+    /**
+     * Reads the metadata from the remaining content of the given buffer. The sections are decoded on demand, so the buffer must not be modified while the result is in use.
+     */
+    public CompactModuleMetadata read(ByteBuffer buffer) throws IOException {
+        return new CompactModuleMetadata(buffer);
+    }
+
+    private static class Writer {
+        private final Map<String, Integer> stringIndexes = new HashMap<String, Integer>();
+        private final List<String> strings = new ArrayList<String>();
+
+        public void write(OutputStream outputStream, ModuleComponentResolveMetadata metadata) throws IOException {
+            byte type;
+            if (metadata instanceof IvyModuleResolveMetadata) {
+                type = TYPE_IVY;
+            } else if (metadata instanceof MavenModuleResolveMetadata) {
+                type = TYPE_MAVEN;
+            } else {
+                throw new IllegalArgumentException("Unexpected metadata type: " + metadata.getClass());
+            }
+
+            ModuleDescriptorState md = metadata.getDescriptor();
+            SectionOutput[] sections = new SectionOutput[SECTION_COUNT];
+            sections[SECTION_INFO] = writeInfoSection(metadata);
+            sections[SECTION_CONFIGURATIONS] = writeConfigurations(type == TYPE_IVY ? metadata.getConfigurationDefinitions().values() : new ArrayList<Configuration>());
+            sections[SECTION_DEPENDENCIES] = writeDependencies(metadata.getDependencies());
+            sections[SECTION_ARTIFACTS] = new SectionOutput();
+            writeArtifacts(sections[SECTION_ARTIFACTS], md.getArtifacts());
+            sections[SECTION_EXCLUDES] = new SectionOutput();
+            writeExcludes(sections[SECTION_EXCLUDES], md.getExcludes());
+            // Written last, once all strings are known
+            sections[SECTION_STRINGS] = writeStrings();
+
+            DataOutputStream output = new DataOutputStream(outputStream);
+            output.writeInt(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeByte(type);
+            int offset = HEADER_SIZE;
+            for (SectionOutput section : sections) {
+                output.writeInt(offset);
+                offset += section.size();
+            }
+            output.writeInt(offset);
+            for (SectionOutput section : sections) {
+                section.writeTo(output);
+            }
+            output.flush();
+        }
+
+        private SectionOutput writeInfoSection(ModuleComponentResolveMetadata metadata) {
+            SectionOutput output = new SectionOutput();
+            writeId(output, metadata.getComponentId());
+
+            ModuleDescriptorState md = metadata.getDescriptor();
+            writeId(output, md.getComponentIdentifier());
+            writeString(output, md.getStatus());
+            output.writeBoolean(md.isGenerated());
+            writeString(output, md.getDescription());
+            Date publicationDate = md.getPublicationDate();
+            output.writeLong(publicationDate == null ? -1 : publicationDate.getTime());
+            writeString(output, md.getBranch());
+
+            Map<NamespaceId, String> extraInfo = md.getExtraInfo();
+            output.writeVarInt(extraInfo.size());
+            for (Map.Entry<NamespaceId, String> entry : extraInfo.entrySet()) {
+                writeString(output, entry.getKey().getNamespace());
+                writeString(output, entry.getKey().getName());
+                writeString(output, entry.getValue());
+            }
+
+            if (metadata instanceof MavenModuleResolveMetadata) {
+                MavenModuleResolveMetadata mavenMetadata = (MavenModuleResolveMetadata) metadata;
+                writeString(output, mavenMetadata.getSnapshotTimestamp());
+                writeString(output, mavenMetadata.getPackaging());
+                output.writeBoolean(mavenMetadata.isRelocated());
+            }
+            return output;
+        }
+
+        private void writeId(SectionOutput output, ModuleComponentIdentifier id) {
+            writeString(output, id.getGroup());
+            writeString(output, id.getModule());
+            writeString(output, id.getVersion());
+        }
+
+        private SectionOutput writeConfigurations(Collection<Configuration> configurations) {
+            SectionOutput output = new SectionOutput();
+            output.writeVarInt(configurations.size());
+            for (Configuration configuration : configurations) {
+                writeString(output, configuration.getName());
+                output.writeVarInt((configuration.isTransitive() ? FLAG_TRANSITIVE : 0) | (configuration.isVisible() ? FLAG_VISIBLE : 0));
+                writeStrings(output, configuration.getExtendsFrom());
+            }
+            return output;
+        }
+
+        private SectionOutput writeDependencies(List<? extends DependencyMetadata> dependencies) {
+            int count = dependencies.size();
+            int[] groups = new int[count];
+            int[] modules = new int[count];
+            int[] versions = new int[count];
+            int[] detailOffsets = new int[count];
+            int maxReference = 0;
+            SectionOutput details = new SectionOutput();
+            for (int i = 0; i < count; i++) {
+                DependencyMetadata dependency = dependencies.get(i);
+                ModuleVersionSelector requested = dependency.getRequested();
+                groups[i] = reference(requested.getGroup());
+                modules[i] = reference(requested.getName());
+                versions[i] = reference(requested.getVersion());
+                maxReference = Math.max(maxReference, Math.max(groups[i], Math.max(modules[i], versions[i])));
+                detailOffsets[i] = details.size();
+                writeDependencyDetails(details, dependency);
+            }
+
+            SectionOutput output = new SectionOutput();
+            int referenceWidth = width(maxReference);
+            int offsetWidth = width(details.size());
+            output.writeInt(count);
+            output.write(referenceWidth);
+            output.write(offsetWidth);
+            output.writeFixed(groups, referenceWidth);
+            output.writeFixed(modules, referenceWidth);
+            output.writeFixed(versions, referenceWidth);
+            output.writeFixed(detailOffsets, offsetWidth);
+            details.writeTo(output);
+            return output;
+        }
+
+        private void writeDependencyDetails(SectionOutput output, DependencyMetadata dependency) {
+            if (dependency instanceof IvyDependencyMetadata) {
+                IvyDependencyMetadata ivyDependency = (IvyDependencyMetadata) dependency;
+                output.write(TYPE_IVY);
+                SetMultimap<String, String> confMappings = ivyDependency.getConfMappings();
+                output.writeVarInt(confMappings.keySet().size());
+                for (String conf : confMappings.keySet()) {
+                    writeString(output, conf);
+                    writeStrings(output, confMappings.get(conf));
+                }
+                writeArtifacts(output, ivyDependency.getDependencyArtifacts());
+                writeExcludes(output, ivyDependency.getDependencyExcludes());
+                writeString(output, ivyDependency.getDynamicConstraintVersion());
+                output.writeVarInt((ivyDependency.isForce() ? FLAG_FORCE : 0) | (ivyDependency.isChanging() ? FLAG_CHANGING : 0) | (ivyDependency.isTransitive() ? FLAG_TRANSITIVE : 0));
+            } else if (dependency instanceof MavenDependencyMetadata) {
+                MavenDependencyMetadata mavenDependency = (MavenDependencyMetadata) dependency;
+                output.write(TYPE_MAVEN);
+                writeArtifacts(output, mavenDependency.getDependencyArtifacts());
+                writeExcludes(output, mavenDependency.getDependencyExcludes());
+                output.writeVarInt(mavenDependency.getScope().ordinal());
+                output.writeBoolean(mavenDependency.isOptional());
+            } else {
+                throw new IllegalStateException("Unexpected dependency type");
+            }
+        }
+
+        private void writeArtifacts(SectionOutput output, List<Artifact> artifacts) {
+            output.writeVarInt(artifacts.size());
+            for (Artifact artifact : artifacts) {
+                IvyArtifactName artifactName = artifact.getArtifactName();
+                writeString(output, artifactName.getName());
+                writeString(output, artifactName.getType());
+                writeString(output, artifactName.getExtension());
+                writeString(output, artifactName.getClassifier());
+                writeStrings(output, artifact.getConfigurations());
+            }
+        }
+
+        private void writeExcludes(SectionOutput output, List<Exclude> excludes) {
+            output.writeVarInt(excludes.size());
+            for (Exclude exclude : excludes) {
+                IvyArtifactName artifact = exclude.getArtifact();
+                writeString(output, exclude.getModuleId().getGroup());
+                writeString(output, exclude.getModuleId().getName());
+                writeString(output, artifact.getName());
+                writeString(output, artifact.getType());
+                writeString(output, artifact.getExtension());
+                writeStrings(output, exclude.getConfigurations());
+                writeString(output, exclude.getMatcher());
+            }
+        }
+
+        private void writeStrings(SectionOutput output, Collection<String> values) {
+            output.writeVarInt(values.size());
+            for (String value : values) {
+                writeString(output, value);
+            }
+        }
+
+        private void writeString(SectionOutput output, String value) {
+            output.writeVarInt(reference(value));
+        }
+
+        /**
+         * Returns the reference for the given string: 0 for null, otherwise its index in the string table plus one.
+         */
+        private int reference(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer index = stringIndexes.get(value);
+            if (index == null) {
+                index = strings.size();
+                stringIndexes.put(value, index);
+                strings.add(value);
+            }
+            return index + 1;
+        }
+
+        private SectionOutput writeStrings() {
+            int count = strings.size();
+            int[] offsets = new int[count + 1];
+            SectionOutput data = new SectionOutput();
+            for (int i = 0; i < count; i++) {
+                offsets[i] = data.size();
+                byte[] bytes = strings.get(i).getBytes(Charsets.UTF_8);
+                data.write(bytes, 0, bytes.length);
+            }
+            offsets[count] = data.size();
+
+            SectionOutput output = new SectionOutput();
+            int offsetWidth = width(data.size());
+            output.writeInt(count);
+            output.write(offsetWidth);
+            output.writeFixed(offsets, offsetWidth);
+            data.writeTo(output);
+            return output;
+        }
+    }
+
+    /**
+     * Returns the number of bytes used to store values up to the given maximum in a fixed width column.
+     */
+    static int width(int maxValue) {
+        if (maxValue <= 0xff) {
+            return 1;
+        }
+        if (maxValue <= 0xffff) {
+            return 2;
+        }
+        return 4;
+    }
+
+    private static class SectionOutput extends ByteArrayOutputStream {
+        void writeTo(SectionOutput output) {
+            output.write(buf, 0, count);
+        }
+
+        void writeBoolean(boolean value) {
+            write(value ? 1 : 0);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7f) != 0) {
+                write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeFixed(int[] values, int width) {
+            for (int value : values) {
+                for (int shift = 8 * (width - 1); shift >= 0; shift -= 8) {
+                    write(value >>> shift);
+                }
+            }
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+    }
+}
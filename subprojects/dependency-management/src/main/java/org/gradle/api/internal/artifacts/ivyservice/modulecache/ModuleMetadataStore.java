@@ -20,23 +20,43 @@ import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
+/**
+ * Stores module metadata in the format written by {@link CompactModuleMetadataSerializer}.
+ *
+ * <p>A descriptor missing from this store is imported from the store of the previous cache layout, where descriptors were written by {@link ModuleMetadataSerializer}.
+ * The previous descriptor is converted and added to this store, and is left in place for the Gradle versions that still use the previous layout.</p>
+ */
 public class ModuleMetadataStore {
+    private static final String DESCRIPTOR_FILE_NAME = "descriptor.bin";
+    // Mapping a file has a fixed cost, and on Windows prevents the file from being replaced until the buffer has been garbage collected
+    private static final long MAPPED_FILE_SIZE_THRESHOLD = 64 * 1024;
 
     private final PathKeyFileStore metaDataStore;
-    private final ModuleMetadataSerializer moduleMetadataSerializer;
+    private final CompactModuleMetadataSerializer moduleMetadataSerializer;
+    private final PathKeyFileStore previousMetaDataStore;
+    private final ModuleMetadataSerializer previousModuleMetadataSerializer;
 
-    public ModuleMetadataStore(PathKeyFileStore metaDataStore, ModuleMetadataSerializer moduleMetadataSerializer) {
+    public ModuleMetadataStore(PathKeyFileStore metaDataStore, CompactModuleMetadataSerializer moduleMetadataSerializer,
+                               PathKeyFileStore previousMetaDataStore, ModuleMetadataSerializer previousModuleMetadataSerializer) {
         this.metaDataStore = metaDataStore;
         this.moduleMetadataSerializer = moduleMetadataSerializer;
+        this.previousMetaDataStore = previousMetaDataStore;
+        this.previousModuleMetadataSerializer = previousModuleMetadataSerializer;
     }
 
     public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
@@ -44,29 +64,44 @@ public class ModuleMetadataStore {
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(resource.getFile()));
-                try {
-                    return moduleMetadataSerializer.read(decoder);
-                } finally {
-                    decoder.close();
-                }
+                return moduleMetadataSerializer.read(load(resource.getFile())).createMetadata();
             } catch (Exception e) {
                 throw new RuntimeException("Could not load module metadata from " + resource.getDisplayName(), e);
             }
         }
+        LocallyAvailableResource previousResource = previousMetaDataStore.get(filePath);
+        if (previousResource != null) {
+            return importPreviousDescriptor(component, previousResource);
+        }
         return null;
     }
 
+    private MutableModuleComponentResolveMetadata importPreviousDescriptor(ModuleComponentAtRepositoryKey component, LocallyAvailableResource previousResource) {
+        MutableModuleComponentResolveMetadata metadata;
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(previousResource.getFile()));
+            try {
+                metadata = previousModuleMetadataSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load module metadata from " + previousResource.getDisplayName(), e);
+        }
+        putModuleDescriptor(component, metadata.asImmutable());
+        return metadata;
+    }
+
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryKey component, final ModuleComponentResolveMetadata metadata) {
         String filePath = getFilePath(component);
         return metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
-                    KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile));
+                    OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(moduleDescriptorFile));
                     try {
-                        moduleMetadataSerializer.write(encoder, metadata);
+                        moduleMetadataSerializer.write(outputStream, metadata);
                     } finally {
-                        encoder.close();
+                        outputStream.close();
                     }
                 } catch (Exception e) {
                     throw UncheckedException.throwAsUncheckedException(e);
@@ -75,9 +110,31 @@ public class ModuleMetadataStore {
         });
     }
 
+    private static ByteBuffer load(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size >= MAPPED_FILE_SIZE_THRESHOLD && !OperatingSystem.current().isWindows()) {
+                // The mapping remains valid after the channel has been closed
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of file " + file);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
     private String getFilePath(ModuleComponentAtRepositoryKey componentId) {
         ModuleComponentIdentifier moduleComponentIdentifier = componentId.getComponentId();
-        return moduleComponentIdentifier.getGroup() + "/" + moduleComponentIdentifier.getModule() + "/" + moduleComponentIdentifier.getVersion() + "/" + componentId.getRepositoryId() + "/descriptor.bin";
+        return moduleComponentIdentifier.getGroup() + "/" + moduleComponentIdentifier.getModule() + "/" + moduleComponentIdentifier.getVersion() + "/" + componentId.getRepositoryId() + "/" + DESCRIPTOR_FILE_NAME;
     }
 
 }
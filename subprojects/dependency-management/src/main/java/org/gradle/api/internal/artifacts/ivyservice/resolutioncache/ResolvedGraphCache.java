@@ -0,0 +1,339 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.Module;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.DefaultResolvedModuleVersion;
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.util.BuildCommencedTimeProvider;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the result of resolving a configuration in the Gradle user home, so that later builds can reuse the result instead of resolving the graph again.
+ *
+ * <p>Results are keyed by a hash of everything the graph depends on: the declared dependencies and excludes of the configuration hierarchy, the resolution
+ * strategy and the repositories. Configurations that depend on something that cannot be hashed, such as dependency substitution, dependency resolve,
+ * component selection or component metadata rules, project dependencies or local repositories, are not cached. A cached result is discarded when the
+ * cache policy requires any of the dynamic versions, changing modules or modules in the graph to be refreshed. The age of a dynamic version or changing module is that of the
+ * oldest cached version list or meta-data that was used to resolve it, so that a cached result does not outlive the entries it was resolved from.</p>
+ *
+ * <p>Caching of resolved graphs can be disabled with the {@value #DISABLED_PROPERTY} system property.</p>
+ */
+public class ResolvedGraphCache {
+    public static final String DISABLED_PROPERTY = "org.gradle.resolution.disableGraphCache";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+    private static final int CACHE_FORMAT_VERSION = 2;
+
+    private final CacheLockingManager cacheLockingManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ModuleVersionsCache moduleVersionsCache;
+    private final ModuleMetaDataCache moduleMetaDataCache;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final boolean enabled;
+    private PersistentIndexedCache<HashValue, ResolvedGraphCacheEntry> cache;
+
+    public ResolvedGraphCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, ModuleVersionsCache moduleVersionsCache,
+                              ModuleMetaDataCache moduleMetaDataCache, BuildCommencedTimeProvider timeProvider) {
+        this(cacheLockingManager, versionSelectorScheme, moduleVersionsCache, moduleMetaDataCache, timeProvider, !Boolean.getBoolean(DISABLED_PROPERTY));
+    }
+
+    ResolvedGraphCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, ModuleVersionsCache moduleVersionsCache,
+                       ModuleMetaDataCache moduleMetaDataCache, BuildCommencedTimeProvider timeProvider, boolean enabled) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleVersionsCache = moduleVersionsCache;
+        this.moduleMetaDataCache = moduleMetaDataCache;
+        this.timeProvider = timeProvider;
+        this.enabled = enabled;
+    }
+
+    private synchronized PersistentIndexedCache<HashValue, ResolvedGraphCacheEntry> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-graphs", new HashValueSerializer(), new ResolvedGraphCacheEntrySerializer());
+        }
+        return cache;
+    }
+
+    /**
+     * Calculates the cache key for the result of resolving the given configuration.
+     *
+     * @return The key, or null when the result cannot be cached.
+     */
+    @Nullable
+    public HashValue createKey(ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        if (!enabled || repositories.isEmpty()) {
+            return null;
+        }
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            || resolutionStrategy.hasDependencySubstitutionRules()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || metadataHandler.getComponentMetadataProcessor().hasRules()
+            || metadataHandler.getModuleMetadataProcessor().getModuleReplacements().hasRules()) {
+            LOGGER.debug("Not caching result of resolving {} as it uses resolution rules.", configuration);
+            return null;
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        putString(hasher, "resolved-graph");
+        hasher.putInt(CACHE_FORMAT_VERSION);
+        putString(hasher, GradleVersion.current().getVersion());
+
+        putString(hasher, configuration.getPath());
+        Module module = configuration.getModule();
+        putString(hasher, module.getGroup());
+        putString(hasher, module.getName());
+        putString(hasher, module.getVersion());
+        putString(hasher, module.getStatus());
+
+        for (Configuration hierarchyConfiguration : configuration.getHierarchy()) {
+            putString(hasher, hierarchyConfiguration.getName());
+            hasher.putBoolean(hierarchyConfiguration.isTransitive());
+            for (Map.Entry<String, String> attribute : new TreeMap<String, String>(hierarchyConfiguration.getAttributes()).entrySet()) {
+                putString(hasher, attribute.getKey());
+                putString(hasher, attribute.getValue());
+            }
+            putExcludeRules(hasher, hierarchyConfiguration.getExcludeRules());
+            for (ModuleDependency dependency : hierarchyConfiguration.getDependencies().withType(ModuleDependency.class)) {
+                if (!putDependency(hasher, dependency)) {
+                    LOGGER.debug("Not caching result of resolving {} as it declares dependency {}.", configuration, dependency);
+                    return null;
+                }
+            }
+        }
+
+        putString(hasher, resolutionStrategy.getConflictResolution().getClass().getName());
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            putString(hasher, forcedModule.getGroup());
+            putString(hasher, forcedModule.getName());
+            putString(hasher, forcedModule.getVersion());
+        }
+
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal()) {
+                LOGGER.debug("Not caching result of resolving {} as it uses local repository {}.", configuration, resolver.getName());
+                return null;
+            }
+            putString(hasher, resolver.getId());
+            hasher.putBoolean(resolver.isDynamicResolveMode());
+        }
+        return new HashValue(hasher.hash().asBytes());
+    }
+
+    /**
+     * Returns the module dependencies declared by the hierarchy of the given configuration, in the order used to calculate the cache key.
+     */
+    public List<ModuleDependency> getDeclaredDependencies(ConfigurationInternal configuration) {
+        List<ModuleDependency> dependencies = new ArrayList<ModuleDependency>();
+        for (Configuration hierarchyConfiguration : configuration.getHierarchy()) {
+            dependencies.addAll(hierarchyConfiguration.getDependencies().withType(ModuleDependency.class));
+        }
+        return dependencies;
+    }
+
+    public ResolvedGraphRecorder createRecorder(ConfigurationInternal configuration) {
+        return new ResolvedGraphRecorder(versionSelectorScheme, getDeclaredDependencies(configuration));
+    }
+
+    @Nullable
+    public ResolvedGraphCacheEntry get(final HashValue key) {
+        return cacheLockingManager.useCache("load resolved graph", new Factory<ResolvedGraphCacheEntry>() {
+            public ResolvedGraphCacheEntry create() {
+                return getCache().get(key);
+            }
+        });
+    }
+
+    /**
+     * Stores the recorded result of resolving the given configuration from the given repositories.
+     */
+    public void store(final HashValue key, ConfigurationInternal configuration, List<? extends ResolutionAwareRepository> repositories, final ResolvedGraphRecorder recorder) {
+        if (!recorder.isCacheable()) {
+            LOGGER.debug("Not caching result of resolving {} as {}.", configuration, recorder.getNotCacheableReason());
+            return;
+        }
+        final List<ModuleComponentRepository> resolvers = new ArrayList<ModuleComponentRepository>(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            resolvers.add(repository.createResolver());
+        }
+        cacheLockingManager.useCache("store resolved graph", new Runnable() {
+            public void run() {
+                long now = timeProvider.getCurrentTime();
+                getCache().put(key, recorder.toEntry(now, new RepositoryCacheTimestamps(resolvers, now)));
+            }
+        });
+    }
+
+    /**
+     * Checks whether a cached result can still be used, according to the given cache policy.
+     */
+    public boolean isUpToDate(ResolvedGraphCacheEntry entry, CachePolicy cachePolicy) {
+        long now = timeProvider.getCurrentTime();
+        for (Map.Entry<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion> dynamicVersion : entry.getDynamicVersions().entrySet()) {
+            long versionListAgeMillis = now - dynamicVersion.getValue().getVersionListTimestamp();
+            if (cachePolicy.mustRefreshVersionList(dynamicVersion.getKey(), Collections.singleton(dynamicVersion.getValue().getSelected()), versionListAgeMillis)) {
+                LOGGER.debug("Cached resolved graph has expired as the versions of {} must be refreshed.", dynamicVersion.getKey());
+                return false;
+            }
+        }
+        for (Map.Entry<ModuleComponentIdentifier, Long> changingModule : entry.getChangingModules().entrySet()) {
+            ModuleComponentIdentifier component = changingModule.getKey();
+            long metaDataAgeMillis = now - changingModule.getValue();
+            if (cachePolicy.mustRefreshChangingModule(component, new DefaultResolvedModuleVersion(DefaultModuleVersionIdentifier.newId(component)), metaDataAgeMillis)) {
+                LOGGER.debug("Cached resolved graph has expired as changing module {} must be refreshed.", component);
+                return false;
+            }
+        }
+        long ageMillis = now - entry.getCreateTimestamp();
+        for (ModuleComponentIdentifier component : entry.getModules()) {
+            if (cachePolicy.mustRefreshModule(component, new DefaultResolvedModuleVersion(DefaultModuleVersionIdentifier.newId(component)), ageMillis)) {
+                LOGGER.debug("Cached resolved graph has expired as module {} must be refreshed.", component);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean putDependency(Hasher hasher, ModuleDependency dependency) {
+        if (!(dependency instanceof ExternalModuleDependency) || dependency instanceof ClientModule) {
+            return false;
+        }
+        ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+        putString(hasher, moduleDependency.getGroup());
+        putString(hasher, moduleDependency.getName());
+        putString(hasher, moduleDependency.getVersion());
+        putString(hasher, moduleDependency.getTargetConfiguration());
+        hasher.putBoolean(moduleDependency.isTransitive());
+        hasher.putBoolean(moduleDependency.isForce());
+        hasher.putBoolean(moduleDependency.isChanging());
+        hasher.putInt(moduleDependency.getArtifacts().size());
+        for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+            if (artifact.getUrl() != null) {
+                return false;
+            }
+            putString(hasher, artifact.getName());
+            putString(hasher, artifact.getType());
+            putString(hasher, artifact.getExtension());
+            putString(hasher, artifact.getClassifier());
+        }
+        putExcludeRules(hasher, moduleDependency.getExcludeRules());
+        return true;
+    }
+
+    private static void putExcludeRules(Hasher hasher, Iterable<ExcludeRule> excludeRules) {
+        for (ExcludeRule excludeRule : excludeRules) {
+            putString(hasher, "exclude");
+            putString(hasher, excludeRule.getGroup());
+            putString(hasher, excludeRule.getModule());
+        }
+        putString(hasher, "end-excludes");
+    }
+
+    private static void putString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length());
+            hasher.putString(value, Charsets.UTF_8);
+        }
+    }
+
+    /**
+     * Looks up the timestamps of the version lists and meta-data cached for a set of repositories. When nothing is cached for any of the repositories,
+     * the given default timestamp is used.
+     */
+    private class RepositoryCacheTimestamps implements ResolvedGraphRecorder.CacheTimestamps {
+        private final List<ModuleComponentRepository> repositories;
+        private final long now;
+
+        RepositoryCacheTimestamps(List<ModuleComponentRepository> repositories, long now) {
+            this.repositories = repositories;
+            this.now = now;
+        }
+
+        public long getVersionListTimestamp(ModuleIdentifier module) {
+            long timestamp = now;
+            for (ModuleComponentRepository repository : repositories) {
+                ModuleVersionsCache.CachedModuleVersionList versionList = moduleVersionsCache.getCachedModuleResolution(repository, module);
+                if (versionList != null) {
+                    timestamp = Math.min(timestamp, now - versionList.getAgeMillis());
+                }
+            }
+            return timestamp;
+        }
+
+        public long getMetaDataTimestamp(ModuleComponentIdentifier component) {
+            long timestamp = now;
+            for (ModuleComponentRepository repository : repositories) {
+                ModuleMetaDataCache.CachedMetaData metaData = moduleMetaDataCache.getCachedModuleDescriptor(repository, component);
+                if (metaData != null && !metaData.isMissing()) {
+                    timestamp = Math.min(timestamp, now - metaData.getAgeMillis());
+                }
+            }
+            return timestamp;
+        }
+    }
+
+    private static class HashValueSerializer implements Serializer<HashValue> {
+        public void write(Encoder encoder, HashValue value) throws Exception {
+            encoder.writeBinary(value.asByteArray());
+        }
+
+        public HashValue read(Decoder decoder) throws Exception {
+            return new HashValue(decoder.readBinary());
+        }
+    }
+}
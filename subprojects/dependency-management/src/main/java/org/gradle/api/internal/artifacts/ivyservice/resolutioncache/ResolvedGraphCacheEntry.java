@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of resolving a configuration, as stored in the {@link ResolvedGraphCache}.
+ */
+public class ResolvedGraphCacheEntry {
+    private final long createTimestamp;
+    private final byte[] resolutionResult;
+    private final byte[] transientResults;
+    private final Map<Long, Integer> firstLevelDependencies;
+    private final List<CachedArtifactSet> artifactSets;
+    private final Set<ModuleComponentIdentifier> modules;
+    private final Map<ModuleComponentIdentifier, Long> changingModules;
+    private final Map<ModuleIdentifier, CachedDynamicVersion> dynamicVersions;
+
+    public ResolvedGraphCacheEntry(long createTimestamp, byte[] resolutionResult, byte[] transientResults, Map<Long, Integer> firstLevelDependencies,
+                                   List<CachedArtifactSet> artifactSets, Set<ModuleComponentIdentifier> modules, Map<ModuleComponentIdentifier, Long> changingModules,
+                                   Map<ModuleIdentifier, CachedDynamicVersion> dynamicVersions) {
+        this.createTimestamp = createTimestamp;
+        this.resolutionResult = resolutionResult;
+        this.transientResults = transientResults;
+        this.firstLevelDependencies = firstLevelDependencies;
+        this.artifactSets = artifactSets;
+        this.modules = modules;
+        this.changingModules = changingModules;
+        this.dynamicVersions = dynamicVersions;
+    }
+
+    public long getCreateTimestamp() {
+        return createTimestamp;
+    }
+
+    /**
+     * The serialized resolution result, as written by {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder}.
+     */
+    public byte[] getResolutionResult() {
+        return resolutionResult;
+    }
+
+    /**
+     * The serialized resolved configuration, as written by {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsBuilder}.
+     */
+    public byte[] getTransientResults() {
+        return transientResults;
+    }
+
+    /**
+     * Maps the result id of each first level dependency to the position of its declaring dependency in the configuration hierarchy.
+     */
+    public Map<Long, Integer> getFirstLevelDependencies() {
+        return firstLevelDependencies;
+    }
+
+    public List<CachedArtifactSet> getArtifactSets() {
+        return artifactSets;
+    }
+
+    /**
+     * The components in the graph that are not changing.
+     */
+    public Set<ModuleComponentIdentifier> getModules() {
+        return modules;
+    }
+
+    /**
+     * Maps each changing component in the graph to the timestamp of the oldest cached meta-data of the component that was used to resolve the graph.
+     */
+    public Map<ModuleComponentIdentifier, Long> getChangingModules() {
+        return changingModules;
+    }
+
+    /**
+     * The version selected for each module that was requested with a dynamic version.
+     */
+    public Map<ModuleIdentifier, CachedDynamicVersion> getDynamicVersions() {
+        return dynamicVersions;
+    }
+
+    public static class CachedDynamicVersion {
+        private final ModuleVersionIdentifier selected;
+        private final long versionListTimestamp;
+
+        public CachedDynamicVersion(ModuleVersionIdentifier selected, long versionListTimestamp) {
+            this.selected = selected;
+            this.versionListTimestamp = versionListTimestamp;
+        }
+
+        public ModuleVersionIdentifier getSelected() {
+            return selected;
+        }
+
+        /**
+         * The timestamp of the oldest cached version list of the module that was used to select the version.
+         */
+        public long getVersionListTimestamp() {
+            return versionListTimestamp;
+        }
+    }
+
+    public static class CachedArtifactSet {
+        private final long id;
+        private final ModuleVersionIdentifier moduleVersionIdentifier;
+        private final ModuleSource moduleSource;
+        private final List<ModuleComponentArtifactMetadata> artifacts;
+
+        public CachedArtifactSet(long id, ModuleVersionIdentifier moduleVersionIdentifier, ModuleSource moduleSource, List<ModuleComponentArtifactMetadata> artifacts) {
+            this.id = id;
+            this.moduleVersionIdentifier = moduleVersionIdentifier;
+            this.moduleSource = moduleSource;
+            this.artifacts = artifacts;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public ModuleVersionIdentifier getModuleVersionIdentifier() {
+            return moduleVersionIdentifier;
+        }
+
+        public ModuleSource getModuleSource() {
+            return moduleSource;
+        }
+
+        /**
+         * The artifacts of the set, with any exclusions already applied.
+         */
+        public List<ModuleComponentArtifactMetadata> getArtifacts() {
+            return artifacts;
+        }
+    }
+}
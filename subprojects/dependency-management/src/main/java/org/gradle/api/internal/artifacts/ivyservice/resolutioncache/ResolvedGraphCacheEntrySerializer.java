@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.metadata.ComponentArtifactMetadataSerializer;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.component.model.ModuleSource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.DefaultSerializer;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ResolvedGraphCacheEntrySerializer implements Serializer<ResolvedGraphCacheEntry> {
+    private final ModuleVersionIdentifierSerializer moduleVersionIdentifierSerializer = new ModuleVersionIdentifierSerializer();
+    private final ComponentArtifactMetadataSerializer artifactSerializer = new ComponentArtifactMetadataSerializer();
+    private final DefaultSerializer<ModuleSource> moduleSourceSerializer = new DefaultSerializer<ModuleSource>(ModuleSource.class.getClassLoader());
+
+    public void write(Encoder encoder, ResolvedGraphCacheEntry value) throws Exception {
+        encoder.writeLong(value.getCreateTimestamp());
+        encoder.writeBinary(value.getResolutionResult());
+        encoder.writeBinary(value.getTransientResults());
+
+        encoder.writeSmallInt(value.getFirstLevelDependencies().size());
+        for (Map.Entry<Long, Integer> entry : value.getFirstLevelDependencies().entrySet()) {
+            encoder.writeSmallLong(entry.getKey());
+            encoder.writeSmallInt(entry.getValue());
+        }
+
+        encoder.writeSmallInt(value.getArtifactSets().size());
+        for (ResolvedGraphCacheEntry.CachedArtifactSet artifactSet : value.getArtifactSets()) {
+            encoder.writeSmallLong(artifactSet.getId());
+            moduleVersionIdentifierSerializer.write(encoder, artifactSet.getModuleVersionIdentifier());
+            moduleSourceSerializer.write(encoder, artifactSet.getModuleSource());
+            encoder.writeSmallInt(artifactSet.getArtifacts().size());
+            for (ModuleComponentArtifactMetadata artifact : artifactSet.getArtifacts()) {
+                artifactSerializer.write(encoder, artifact);
+            }
+        }
+
+        writeComponents(encoder, value.getModules());
+
+        encoder.writeSmallInt(value.getChangingModules().size());
+        for (Map.Entry<ModuleComponentIdentifier, Long> entry : value.getChangingModules().entrySet()) {
+            writeComponent(encoder, entry.getKey());
+            encoder.writeLong(entry.getValue());
+        }
+
+        encoder.writeSmallInt(value.getDynamicVersions().size());
+        for (Map.Entry<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion> entry : value.getDynamicVersions().entrySet()) {
+            encoder.writeString(entry.getKey().getGroup());
+            encoder.writeString(entry.getKey().getName());
+            moduleVersionIdentifierSerializer.write(encoder, entry.getValue().getSelected());
+            encoder.writeLong(entry.getValue().getVersionListTimestamp());
+        }
+    }
+
+    public ResolvedGraphCacheEntry read(Decoder decoder) throws Exception {
+        long createTimestamp = decoder.readLong();
+        byte[] resolutionResult = decoder.readBinary();
+        byte[] transientResults = decoder.readBinary();
+
+        int firstLevelCount = decoder.readSmallInt();
+        Map<Long, Integer> firstLevelDependencies = new LinkedHashMap<Long, Integer>(firstLevelCount);
+        for (int i = 0; i < firstLevelCount; i++) {
+            long resultId = decoder.readSmallLong();
+            firstLevelDependencies.put(resultId, decoder.readSmallInt());
+        }
+
+        int artifactSetCount = decoder.readSmallInt();
+        List<ResolvedGraphCacheEntry.CachedArtifactSet> artifactSets = new ArrayList<ResolvedGraphCacheEntry.CachedArtifactSet>(artifactSetCount);
+        for (int i = 0; i < artifactSetCount; i++) {
+            long id = decoder.readSmallLong();
+            ModuleVersionIdentifier moduleVersionIdentifier = moduleVersionIdentifierSerializer.read(decoder);
+            ModuleSource moduleSource = moduleSourceSerializer.read(decoder);
+            int artifactCount = decoder.readSmallInt();
+            List<ModuleComponentArtifactMetadata> artifacts = new ArrayList<ModuleComponentArtifactMetadata>(artifactCount);
+            for (int j = 0; j < artifactCount; j++) {
+                artifacts.add((ModuleComponentArtifactMetadata) artifactSerializer.read(decoder));
+            }
+            artifactSets.add(new ResolvedGraphCacheEntry.CachedArtifactSet(id, moduleVersionIdentifier, moduleSource, artifacts));
+        }
+
+        Set<ModuleComponentIdentifier> modules = readComponents(decoder);
+
+        int changingModuleCount = decoder.readSmallInt();
+        Map<ModuleComponentIdentifier, Long> changingModules = new LinkedHashMap<ModuleComponentIdentifier, Long>(changingModuleCount);
+        for (int i = 0; i < changingModuleCount; i++) {
+            ModuleComponentIdentifier component = readComponent(decoder);
+            changingModules.put(component, decoder.readLong());
+        }
+
+        int dynamicVersionCount = decoder.readSmallInt();
+        Map<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion> dynamicVersions = new LinkedHashMap<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion>(dynamicVersionCount);
+        for (int i = 0; i < dynamicVersionCount; i++) {
+            String group = decoder.readString();
+            String name = decoder.readString();
+            ModuleVersionIdentifier selected = moduleVersionIdentifierSerializer.read(decoder);
+            dynamicVersions.put(DefaultModuleIdentifier.newId(group, name), new ResolvedGraphCacheEntry.CachedDynamicVersion(selected, decoder.readLong()));
+        }
+
+        return new ResolvedGraphCacheEntry(createTimestamp, resolutionResult, transientResults, firstLevelDependencies, artifactSets, modules, changingModules, dynamicVersions);
+    }
+
+    private static void writeComponents(Encoder encoder, Set<ModuleComponentIdentifier> components) throws Exception {
+        encoder.writeSmallInt(components.size());
+        for (ModuleComponentIdentifier component : components) {
+            writeComponent(encoder, component);
+        }
+    }
+
+    private static void writeComponent(Encoder encoder, ModuleComponentIdentifier component) throws Exception {
+        encoder.writeString(component.getGroup());
+        encoder.writeString(component.getModule());
+        encoder.writeString(component.getVersion());
+    }
+
+    private static Set<ModuleComponentIdentifier> readComponents(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        Set<ModuleComponentIdentifier> components = new LinkedHashSet<ModuleComponentIdentifier>(count);
+        for (int i = 0; i < count; i++) {
+            components.add(readComponent(decoder));
+        }
+        return components;
+    }
+
+    private static ModuleComponentIdentifier readComponent(Decoder decoder) throws Exception {
+        String group = decoder.readString();
+        String module = decoder.readString();
+        String version = decoder.readString();
+        return DefaultModuleComponentIdentifier.newId(group, module, version);
+    }
+}
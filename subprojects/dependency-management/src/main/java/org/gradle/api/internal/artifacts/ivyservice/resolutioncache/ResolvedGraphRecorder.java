@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache;
+
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.RecordingBinaryStore;
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.component.external.model.ModuleComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the information required to replay the result of resolving a configuration from the {@link ResolvedGraphCache}, while the graph is being resolved.
+ * The result can only be cached when the graph contains nothing but the root and external module components, and could be resolved without failures.
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor, DependencyArtifactsVisitor {
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final Map<ModuleDependency, Integer> dependencyPositions;
+    private final Map<Long, Integer> firstLevelDependencies = new LinkedHashMap<Long, Integer>();
+    private final Map<Long, ResolvedGraphCacheEntry.CachedArtifactSet> artifactSets = new LinkedHashMap<Long, ResolvedGraphCacheEntry.CachedArtifactSet>();
+    private final Set<ModuleComponentIdentifier> modules = new LinkedHashSet<ModuleComponentIdentifier>();
+    private final Set<ModuleComponentIdentifier> changingModules = new LinkedHashSet<ModuleComponentIdentifier>();
+    private final Map<ModuleIdentifier, ModuleVersionIdentifier> dynamicVersions = new LinkedHashMap<ModuleIdentifier, ModuleVersionIdentifier>();
+    private RecordingBinaryStore resolutionResultStore;
+    private RecordingBinaryStore transientResultsStore;
+    private DependencyGraphNode root;
+    private String notCacheableReason;
+
+    /**
+     * @param declaredDependencies The module dependencies declared by the configuration hierarchy, in the order used by {@link ResolvedGraphCacheEntry#getFirstLevelDependencies()}.
+     */
+    public ResolvedGraphRecorder(VersionSelectorScheme versionSelectorScheme, List<ModuleDependency> declaredDependencies) {
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.dependencyPositions = new IdentityHashMap<ModuleDependency, Integer>(declaredDependencies.size());
+        for (int i = 0; i < declaredDependencies.size(); i++) {
+            if (!dependencyPositions.containsKey(declaredDependencies.get(i))) {
+                dependencyPositions.put(declaredDependencies.get(i), i);
+            }
+        }
+    }
+
+    public BinaryStore recordResolutionResult(BinaryStore store) {
+        resolutionResultStore = new RecordingBinaryStore(store);
+        return resolutionResultStore;
+    }
+
+    public BinaryStore recordTransientResults(BinaryStore store) {
+        transientResultsStore = new RecordingBinaryStore(store);
+        return transientResultsStore;
+    }
+
+    @Override
+    public void start(DependencyGraphNode root) {
+        this.root = root;
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        DependencyGraphComponent component = node.getOwner();
+        if (component == root.getOwner()) {
+            return;
+        }
+        ComponentIdentifier componentId = component.getComponentId();
+        if (!(componentId instanceof ModuleComponentIdentifier)) {
+            notCacheable("the graph contains " + componentId.getDisplayName());
+            return;
+        }
+        if (component.getMetadata().isChanging()) {
+            changingModules.add((ModuleComponentIdentifier) componentId);
+        } else {
+            modules.add((ModuleComponentIdentifier) componentId);
+        }
+        for (DependencyGraphEdge dependency : node.getOutgoingEdges()) {
+            if (dependency.getFailure() != null) {
+                notCacheable("some dependencies could not be resolved");
+            }
+        }
+    }
+
+    @Override
+    public void visitEdge(DependencyGraphNode node) {
+        for (DependencyGraphEdge dependency : node.getIncomingEdges()) {
+            if (dependency.getFrom() == root) {
+                Integer position = dependencyPositions.get(dependency.getModuleDependency());
+                if (position == null) {
+                    notCacheable("a first level dependency is not declared by the configuration");
+                } else {
+                    firstLevelDependencies.put(node.getResultId(), position);
+                }
+            }
+            ModuleVersionSelector requested = dependency.getRequestedModuleVersion();
+            if (requested.getVersion() != null && versionSelectorScheme.parseSelector(requested.getVersion()).isDynamic()) {
+                dynamicVersions.put(DefaultModuleIdentifier.newId(requested.getGroup(), requested.getName()), node.getOwner().getModuleVersion());
+            }
+        }
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+    }
+
+    @Override
+    public void visitArtifacts(DependencyGraphNode parent, DependencyGraphNode child, ArtifactSet artifacts) {
+        if (artifactSets.containsKey(artifacts.getId())) {
+            return;
+        }
+        if (!(artifacts instanceof DefaultArtifactSet)) {
+            notCacheable("the artifacts of " + child.getOwner().getComponentId().getDisplayName() + " cannot be cached");
+            return;
+        }
+        DefaultArtifactSet artifactSet = (DefaultArtifactSet) artifacts;
+        List<ModuleComponentArtifactMetadata> includedArtifacts = new ArrayList<ModuleComponentArtifactMetadata>();
+        for (ComponentArtifactMetadata artifact : artifactSet.getIncludedArtifacts()) {
+            if (!(artifact instanceof ModuleComponentArtifactMetadata)) {
+                notCacheable("the graph contains artifact " + artifact.getId().getDisplayName());
+                return;
+            }
+            includedArtifacts.add((ModuleComponentArtifactMetadata) artifact);
+        }
+        artifactSets.put(artifactSet.getId(), new ResolvedGraphCacheEntry.CachedArtifactSet(artifactSet.getId(), artifactSet.getModuleVersionIdentifier(), artifactSet.getModuleSource(), includedArtifacts));
+    }
+
+    @Override
+    public void finishArtifacts() {
+    }
+
+    public boolean isCacheable() {
+        return notCacheableReason == null && root != null;
+    }
+
+    /**
+     * Describes why the result cannot be cached, when {@link #isCacheable()} returns false.
+     */
+    public String getNotCacheableReason() {
+        return root == null ? "the graph was not resolved" : notCacheableReason;
+    }
+
+    /**
+     * Creates the cache entry for the recorded result.
+     *
+     * @param timestamps Provides the timestamps of the cached version lists and meta-data that were used to resolve the graph.
+     */
+    public ResolvedGraphCacheEntry toEntry(long createTimestamp, CacheTimestamps timestamps) {
+        if (!isCacheable()) {
+            throw new IllegalStateException("Cannot cache resolved graph as " + getNotCacheableReason() + ".");
+        }
+        Map<ModuleComponentIdentifier, Long> changingModuleTimestamps = new LinkedHashMap<ModuleComponentIdentifier, Long>(changingModules.size());
+        for (ModuleComponentIdentifier component : changingModules) {
+            changingModuleTimestamps.put(component, timestamps.getMetaDataTimestamp(component));
+        }
+        Map<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion> cachedDynamicVersions = new LinkedHashMap<ModuleIdentifier, ResolvedGraphCacheEntry.CachedDynamicVersion>(dynamicVersions.size());
+        for (Map.Entry<ModuleIdentifier, ModuleVersionIdentifier> dynamicVersion : dynamicVersions.entrySet()) {
+            cachedDynamicVersions.put(dynamicVersion.getKey(), new ResolvedGraphCacheEntry.CachedDynamicVersion(dynamicVersion.getValue(), timestamps.getVersionListTimestamp(dynamicVersion.getKey())));
+        }
+        return new ResolvedGraphCacheEntry(createTimestamp, resolutionResultStore.getRecording(), transientResultsStore.getRecording(), firstLevelDependencies,
+            new ArrayList<ResolvedGraphCacheEntry.CachedArtifactSet>(artifactSets.values()), modules, changingModuleTimestamps, cachedDynamicVersions);
+    }
+
+    private void notCacheable(String reason) {
+        if (notCacheableReason == null) {
+            notCacheableReason = reason;
+        }
+    }
+
+    public interface CacheTimestamps {
+        /**
+         * Returns the timestamp of the oldest cached version list of the given module.
+         */
+        long getVersionListTimestamp(ModuleIdentifier module);
+
+        /**
+         * Returns the timestamp of the oldest cached meta-data of the given component.
+         */
+        long getMetaDataTimestamp(ModuleComponentIdentifier component);
+    }
+}
@@ -135,6 +135,10 @@ public class DefaultResolutionStrategy implements ResolutionStrategyInternal {
         return assumeFluidDependencies || dependencySubstitutions.hasRules() || globalDependencySubstitutionRules.hasRules();
     }
 
+    public boolean hasDependencySubstitutionRules() {
+        return dependencySubstitutions.hasAnyRules() || globalDependencySubstitutionRules.hasRules();
+    }
+
 
     public DefaultResolutionStrategy setForcedModules(Object ... moduleVersionSelectorNotations) {
         mutationValidator.validateMutation(STRATEGY);
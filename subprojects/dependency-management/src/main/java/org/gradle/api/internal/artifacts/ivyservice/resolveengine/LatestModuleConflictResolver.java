@@ -24,10 +24,11 @@ import java.util.*;
 
 class LatestModuleConflictResolver implements ModuleConflictResolver {
     private final Comparator<Version> versionComparator;
-    private final VersionParser versionParser = new VersionParser();
+    private final VersionParser versionParser;
 
-    LatestModuleConflictResolver(VersionComparator versionComparator) {
+    LatestModuleConflictResolver(VersionComparator versionComparator, VersionParser versionParser) {
         this.versionComparator = versionComparator.asVersionComparator();
+        this.versionParser = versionParser;
     }
 
     public <T extends ComponentResolutionState> T select(Collection<? extends T> candidates) {
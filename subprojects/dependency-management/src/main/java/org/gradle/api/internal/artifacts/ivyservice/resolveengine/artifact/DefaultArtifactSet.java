@@ -58,13 +58,34 @@ public class DefaultArtifactSet implements ArtifactSet {
         return id;
     }
 
+    public ModuleVersionIdentifier getModuleVersionIdentifier() {
+        return moduleVersionIdentifier;
+    }
+
+    public ModuleSource getModuleSource() {
+        return moduleSource;
+    }
+
+    /**
+     * Returns the metadata of the artifacts in this set that are not excluded, without resolving any files.
+     */
+    public Set<ComponentArtifactMetadata> getIncludedArtifacts() {
+        Set<ComponentArtifactMetadata> includedArtifacts = new LinkedHashSet<ComponentArtifactMetadata>(artifacts.size());
+        for (ComponentArtifactMetadata artifact : artifacts) {
+            if (!isExcluded(artifact)) {
+                includedArtifacts.add(artifact);
+            }
+        }
+        return includedArtifacts;
+    }
+
     public Set<ResolvedArtifact> getArtifacts() {
         Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(artifacts.size());
         for (ComponentArtifactMetadata artifact : artifacts) {
-            IvyArtifactName artifactName = artifact.getName();
-            if (exclusions.excludeArtifact(moduleVersionIdentifier.getModule(), artifactName)) {
+            if (isExcluded(artifact)) {
                 continue;
             }
+            IvyArtifactName artifactName = artifact.getName();
 
             ResolvedArtifact resolvedArtifact = allResolvedArtifacts.get(artifact.getId());
             if (resolvedArtifact == null) {
@@ -77,6 +98,10 @@ public class DefaultArtifactSet implements ArtifactSet {
         return resolvedArtifacts;
     }
 
+    private boolean isExcluded(ComponentArtifactMetadata artifact) {
+        return exclusions.excludeArtifact(moduleVersionIdentifier.getModule(), artifact.getName());
+    }
+
     private static class LazyArtifactSource implements Factory<File> {
         private final ArtifactResolver artifactResolver;
         private final ModuleSource moduleSource;
@@ -26,6 +26,10 @@ public class DefaultResolvedArtifactsBuilder implements ResolvedArtifactsBuilder
 
     @Override
     public void visitArtifacts(DependencyGraphNode parent, DependencyGraphNode child, ArtifactSet artifacts) {
+        addArtifactSet(artifacts);
+    }
+
+    public void addArtifactSet(ArtifactSet artifacts) {
         artifactResults.addArtifactSet(artifacts);
     }
 
@@ -19,6 +19,8 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 import java.util.Collection;
 
 abstract class AbstractCompositeExclusion extends AbstractModuleExclusion {
+    private int hashCode;
+
     abstract Collection<AbstractModuleExclusion> getFilters();
 
     @Override
@@ -37,27 +39,38 @@ abstract class AbstractCompositeExclusion extends AbstractModuleExclusion {
     @Override
     protected boolean doExcludesSameModulesAs(AbstractModuleExclusion other) {
         AbstractCompositeExclusion spec = (AbstractCompositeExclusion) other;
+        if (equals(spec)) {
+            return true;
+        }
         return implies(spec) && spec.implies(this);
     }
 
     @Override
     protected boolean doEquals(Object obj) {
         AbstractCompositeExclusion other = (AbstractCompositeExclusion) obj;
-        return getFilters().equals(other.getFilters());
+        return hashCode() == other.hashCode() && getFilters().equals(other.getFilters());
     }
 
     @Override
     protected int doHashCode() {
-        return getFilters().hashCode();
+        // Composites are immutable, and are hashed often when they are interned and used as keys for memoized results
+        if (hashCode == 0) {
+            hashCode = getFilters().hashCode();
+        }
+        return hashCode;
     }
 
     /**
      * Returns true if for every spec in this spec, there is a corresponding spec in the given spec that excludesSameModulesAs().
      */
     protected boolean implies(AbstractCompositeExclusion spec) {
+        Collection<AbstractModuleExclusion> otherFilters = spec.getFilters();
         for (AbstractModuleExclusion thisSpec : getFilters()) {
+            if (otherFilters.contains(thisSpec)) {
+                continue;
+            }
             boolean found = false;
-            for (AbstractModuleExclusion otherSpec : spec.getFilters()) {
+            for (AbstractModuleExclusion otherSpec : otherFilters) {
                 if (thisSpec.excludesSameModulesAs(otherSpec)) {
                     found = true;
                     break;
@@ -19,9 +19,16 @@ import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.IvyArtifactName;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 abstract class AbstractModuleExclusion implements ModuleExclusion {
     private static final String WILDCARD = "*";
+    private static final int MAX_MEMOIZED_RESULTS = 64;
+
+    // Results of combining this spec with other specs, see ModuleExclusions. Guarded by this
+    private Map<AbstractModuleExclusion, AbstractModuleExclusion> intersections;
+    private Map<AbstractModuleExclusion, AbstractModuleExclusion> unions;
 
     protected static boolean isWildcard(String attribute) {
         return WILDCARD.equals(attribute);
@@ -65,6 +72,32 @@ abstract class AbstractModuleExclusion implements ModuleExclusion {
         return false;
     }
 
+    synchronized AbstractModuleExclusion getIntersection(AbstractModuleExclusion other) {
+        return intersections == null ? null : intersections.get(other);
+    }
+
+    synchronized void putIntersection(AbstractModuleExclusion other, AbstractModuleExclusion result) {
+        if (intersections == null) {
+            intersections = new HashMap<AbstractModuleExclusion, AbstractModuleExclusion>();
+        }
+        if (intersections.size() < MAX_MEMOIZED_RESULTS) {
+            intersections.put(other, result);
+        }
+    }
+
+    synchronized AbstractModuleExclusion getUnion(AbstractModuleExclusion other) {
+        return unions == null ? null : unions.get(other);
+    }
+
+    synchronized void putUnion(AbstractModuleExclusion other, AbstractModuleExclusion result) {
+        if (unions == null) {
+            unions = new HashMap<AbstractModuleExclusion, AbstractModuleExclusion>();
+        }
+        if (unions.size() < MAX_MEMOIZED_RESULTS) {
+            unions.put(other, result);
+        }
+    }
+
     /**
      * Possibly unpack a composite spec into it's constituent parts, if those parts are applied as an intersection.
      */
@@ -19,17 +19,49 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.IvyArtifactName;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A spec that excludes modules or artifacts that are excluded by _any_ of the supplied exclusions.
  * As such, this is an intersection of the separate exclude rule filters.
+ *
+ * <p>Exact module id, group and module name exclusions are indexed, so that they can be matched with a hash lookup rather than by visiting each of them.</p>
  */
 class IntersectionExclusion extends AbstractCompositeExclusion {
     private final Set<AbstractModuleExclusion> excludeSpecs = new HashSet<AbstractModuleExclusion>();
+    private final Set<ModuleIdentifier> excludedModuleIds = new HashSet<ModuleIdentifier>();
+    private final Set<String> excludedGroups = new HashSet<String>();
+    private final Set<String> excludedModuleNames = new HashSet<String>();
+    private final List<AbstractModuleExclusion> otherModuleSpecs = new ArrayList<AbstractModuleExclusion>();
+    private final boolean excludesAllModules;
+    private final boolean excludesNoModules;
 
     public IntersectionExclusion(Collection<AbstractModuleExclusion> specs) {
         this.excludeSpecs.addAll(specs);
+        boolean excludesAllModules = false;
+        boolean excludesNoModules = true;
+        for (AbstractModuleExclusion spec : excludeSpecs) {
+            if (spec instanceof ModuleIdExcludeSpec) {
+                excludedModuleIds.add(((ModuleIdExcludeSpec) spec).moduleId);
+            } else if (spec instanceof GroupNameExcludeSpec) {
+                excludedGroups.add(((GroupNameExcludeSpec) spec).group);
+            } else if (spec instanceof ModuleNameExcludeSpec) {
+                excludedModuleNames.add(((ModuleNameExcludeSpec) spec).module);
+            } else if (spec instanceof ExcludeAllModulesSpec) {
+                excludesAllModules = true;
+            } else if (!spec.excludesNoModules()) {
+                otherModuleSpecs.add(spec);
+            }
+            if (!spec.excludesNoModules()) {
+                excludesNoModules = false;
+            }
+        }
+        this.excludesAllModules = excludesAllModules;
+        this.excludesNoModules = excludesNoModules;
     }
 
     Collection<AbstractModuleExclusion> getFilters() {
@@ -38,16 +70,17 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
 
     @Override
     protected boolean excludesNoModules() {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
-            if (!excludeSpec.excludesNoModules()) {
-                return false;
-            }
-        }
-        return true;
+        return excludesNoModules;
     }
 
     public boolean excludeModule(ModuleIdentifier element) {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
+        if (excludesAllModules
+            || excludedModuleIds.contains(element)
+            || excludedGroups.contains(element.getGroup())
+            || excludedModuleNames.contains(element.getName())) {
+            return true;
+        }
+        for (AbstractModuleExclusion excludeSpec : otherModuleSpecs) {
             if (excludeSpec.excludeModule(element)) {
                 return true;
             }
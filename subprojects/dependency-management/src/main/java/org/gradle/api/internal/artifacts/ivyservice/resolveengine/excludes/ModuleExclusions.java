@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import org.gradle.api.Transformer;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.Exclude;
@@ -45,10 +47,14 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  *     <li>When a module is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li>
  *     <li>When a module is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li>
  * </ul>
+ *
+ * <p>The specs are interned, and the results of union and intersection operations are memoized on the specs they were calculated from. The same specs are
+ * combined over and over again as the graph is traversed, so these operations usually return a spec that already exists, and equal specs are usually the same instance.</p>
  */
 public class ModuleExclusions {
     private static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
     private static final ExcludeAllModulesSpec EXCLUDE_ALL_MODULES_SPEC = new ExcludeAllModulesSpec();
+    private static final Interner<AbstractModuleExclusion> INTERNER = Interners.newWeakInterner();
 
     /**
      * Returns a spec that excludes nothing.
@@ -74,12 +80,16 @@ public class ModuleExclusions {
         if (excludes.isEmpty()) {
             return EXCLUDE_NONE;
         }
-        return new IntersectionExclusion(CollectionUtils.collect(excludes, new Transformer<AbstractModuleExclusion, Exclude>() {
+        return intern(new IntersectionExclusion(CollectionUtils.collect(excludes, new Transformer<AbstractModuleExclusion, Exclude>() {
             @Override
             public AbstractModuleExclusion transform(Exclude exclude) {
-                return forExclude(exclude);
+                return intern(forExclude(exclude));
             }
-        }));
+        })));
+    }
+
+    private static AbstractModuleExclusion intern(AbstractModuleExclusion spec) {
+        return INTERNER.intern(spec);
     }
 
     private static AbstractModuleExclusion forExclude(Exclude rule) {
@@ -127,11 +137,17 @@ public class ModuleExclusions {
             return one;
         }
 
-        List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
-        ((AbstractModuleExclusion) one).unpackIntersection(specs);
-        ((AbstractModuleExclusion) two).unpackIntersection(specs);
-
-        return new IntersectionExclusion(specs);
+        AbstractModuleExclusion first = (AbstractModuleExclusion) one;
+        AbstractModuleExclusion second = (AbstractModuleExclusion) two;
+        AbstractModuleExclusion intersection = first.getIntersection(second);
+        if (intersection == null) {
+            List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
+            first.unpackIntersection(specs);
+            second.unpackIntersection(specs);
+            intersection = intern(new IntersectionExclusion(specs));
+            first.putIntersection(second, intersection);
+        }
+        return intersection;
     }
 
     /**
@@ -148,9 +164,20 @@ public class ModuleExclusions {
             return one;
         }
 
+        AbstractModuleExclusion first = (AbstractModuleExclusion) one;
+        AbstractModuleExclusion second = (AbstractModuleExclusion) two;
+        AbstractModuleExclusion union = first.getUnion(second);
+        if (union == null) {
+            union = calculateUnion(first, second);
+            first.putUnion(second, union);
+        }
+        return union;
+    }
+
+    private static AbstractModuleExclusion calculateUnion(AbstractModuleExclusion one, AbstractModuleExclusion two) {
         List<AbstractModuleExclusion> specs = new ArrayList<AbstractModuleExclusion>();
-        ((AbstractModuleExclusion) one).unpackUnion(specs);
-        ((AbstractModuleExclusion) two).unpackUnion(specs);
+        one.unpackUnion(specs);
+        two.unpackUnion(specs);
         for (int i = 0; i < specs.size();) {
             AbstractModuleExclusion spec = specs.get(i);
             AbstractModuleExclusion merged = null;
@@ -169,9 +196,9 @@ public class ModuleExclusions {
             }
         }
         if (specs.size() == 1) {
-            return specs.get(0);
+            return intern(specs.get(0));
         }
-        return new UnionExclusion(specs);
+        return intern(new UnionExclusion(specs));
     }
 
     /**
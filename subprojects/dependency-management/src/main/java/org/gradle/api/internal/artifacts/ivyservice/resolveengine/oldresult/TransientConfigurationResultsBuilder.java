@@ -83,6 +83,14 @@ public class TransientConfigurationResultsBuilder {
         binaryData = binaryStore.done();
     }
 
+    /**
+     * Completes the results when they, including the root, have already been written to the binary store. This is the case for results recorded by an earlier resolution.
+     */
+    public void done() {
+        LOG.debug("Flushing replayed resolved configuration data in {}.", binaryStore);
+        binaryData = binaryStore.done();
+    }
+
     public void firstLevelDependency(final Long id) {
         binaryStore.write(new BinaryStore.WriteAction() {
             @Override
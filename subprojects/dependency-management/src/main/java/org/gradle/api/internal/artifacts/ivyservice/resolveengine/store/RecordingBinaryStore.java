@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
+
+/**
+ * A {@link BinaryStore} that keeps an in-memory copy of the data written to it, so that the data can be persisted once complete and replayed into another store later.
+ */
+public class RecordingBinaryStore implements BinaryStore {
+    private final BinaryStore delegate;
+    private final ByteArrayOutputStream recording = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(recording);
+
+    public RecordingBinaryStore(BinaryStore delegate) {
+        this.delegate = delegate;
+    }
+
+    public void write(WriteAction write) {
+        delegate.write(write);
+        try {
+            write.write(encoder);
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
+    public BinaryData done() {
+        encoder.flush();
+        return delegate.done();
+    }
+
+    /**
+     * Returns the data written to this store so far, in the format understood by the readers of the delegate store.
+     */
+    public byte[] getRecording() {
+        encoder.flush();
+        return recording.toByteArray();
+    }
+
+    /**
+     * Writes data previously returned by {@link #getRecording()} to the given store.
+     */
+    public static void replay(BinaryStore store, final byte[] recording) {
+        store.write(new WriteAction() {
+            public void write(Encoder encoder) throws IOException {
+                encoder.writeBytes(recording);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -51,4 +51,17 @@ class DefaultArtifactCacheMetaDataTest extends Specification {
         then:
         metadataStore == new File(testCacheDir, CacheLayout.META_DATA.key + '/descriptors')
     }
+
+    def "calculates previous metadata store directory"() {
+        given:
+        TestFile testCacheDir = temporaryFolder.file("test/cache")
+        scopeMapping.getBaseDirectory(null, CacheLayout.ROOT.key, VersionStrategy.SharedCache) >> testCacheDir
+
+        when:
+        def metaData = new DefaultArtifactCacheMetaData(scopeMapping)
+        File metadataStore = metaData.getPreviousMetaDataStoreDirectory()
+
+        then:
+        metadataStore == new File(testCacheDir, CacheLayout.PREVIOUS_META_DATA.key + '/descriptors')
+    }
 }
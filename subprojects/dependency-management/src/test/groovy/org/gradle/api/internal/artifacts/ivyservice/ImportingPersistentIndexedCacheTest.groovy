@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.cache.PersistentIndexedCache
+import spock.lang.Specification
+
+class ImportingPersistentIndexedCacheTest extends Specification {
+    def cache = Mock(PersistentIndexedCache)
+    def previousCache = Mock(PersistentIndexedCache)
+    def importingCache = new ImportingPersistentIndexedCache(cache, previousCache)
+
+    def "returns entry from current cache without looking at previous cache"() {
+        when:
+        def value = importingCache.get("key")
+
+        then:
+        value == "value"
+        1 * cache.get("key") >> "value"
+        0 * previousCache._
+    }
+
+    def "imports entry missing from current cache from previous cache"() {
+        when:
+        def value = importingCache.get("key")
+
+        then:
+        value == "previous"
+        1 * cache.get("key") >> null
+        1 * previousCache.get("key") >> "previous"
+        1 * cache.put("key", "previous")
+        0 * previousCache._
+    }
+
+    def "returns null when entry is missing from both caches"() {
+        when:
+        def value = importingCache.get("key")
+
+        then:
+        value == null
+        1 * cache.get("key") >> null
+        1 * previousCache.get("key") >> null
+        0 * cache.put(_, _)
+    }
+
+    def "does not modify previous cache"() {
+        when:
+        importingCache.put("key", "value")
+        importingCache.remove("other")
+
+        then:
+        1 * cache.put("key", "value")
+        1 * cache.remove("other")
+        0 * previousCache._
+    }
+}
@@ -113,6 +113,27 @@ class DefaultDependencySubstitutionsSpec extends Specification {
         0 * _
     }
 
+    def "reports rules registered with allWithDependencyResolveDetails() only as any rules"() {
+        expect:
+        !substitutions.hasRules()
+        !substitutions.hasAnyRules()
+
+        when:
+        substitutions.allWithDependencyResolveDetails(Mock(Action))
+
+        then:
+        !substitutions.hasRules()
+        substitutions.hasAnyRules()
+        substitutions.copy().hasAnyRules()
+
+        when:
+        substitutions.all(Mock(Action))
+
+        then:
+        substitutions.hasRules()
+        substitutions.hasAnyRules()
+    }
+
     @Unroll
     def "substitute module() matches only given module: #matchingModule"() {
         given:
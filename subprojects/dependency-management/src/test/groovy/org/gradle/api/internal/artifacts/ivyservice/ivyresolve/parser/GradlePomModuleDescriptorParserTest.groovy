@@ -152,6 +152,58 @@ class GradlePomModuleDescriptorParserTest extends AbstractGradlePomModuleDescrip
         inheritedDep.scope == MavenScope.Compile
     }
 
+    def "reuses parent pom parsed earlier while the parent pom file is unchanged"() {
+        given:
+        def parent = tmpDir.file("parent.xml") << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>parent</artifactId>
+    <version>version-one</version>
+
+    <dependencies>
+        <dependency>
+            <groupId>group-two</groupId>
+            <artifactId>artifact-two</artifactId>
+            <version>1.2</version>
+        </dependency>
+    </dependencies>
+</project>
+"""
+
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <artifactId>artifact-one</artifactId>
+
+    <parent>
+        <groupId>group-one</groupId>
+        <artifactId>parent</artifactId>
+        <version>version-one</version>
+    </parent>
+</project>
+"""
+        and:
+        parseContext.getMetaDataArtifact(_, MAVEN_POM) >> { new DefaultLocallyAvailableExternalResource(parent.toURI(), new DefaultLocallyAvailableResource(parent)) }
+
+        when:
+        parsePom()
+        def lastModified = parent.lastModified()
+        parent.text = parent.text.replace("1.2", "1.3")
+        parent.lastModified = lastModified
+        parsePom()
+
+        then:
+        metadata.dependencies*.requested == [moduleId('group-two', 'artifact-two', '1.2')]
+
+        when:
+        parent.lastModified = lastModified - 2000
+        parsePom()
+
+        then:
+        metadata.dependencies*.requested == [moduleId('group-two', 'artifact-two', '1.3')]
+    }
+
     def "uses dependency management section to provide default values for a dependency"() {
         given:
         pomFile << """
@@ -180,6 +180,46 @@ class DefaultVersionComparatorTest extends Specification {
         "1.0"                     | "1.1-20150201.121010-12"
     }
 
+    def "compares numeric parts with leading zeros or many digits by value"() {
+        expect:
+        compare(smaller, larger) < 0
+        compare(larger, smaller) > 0
+        compare(smaller, smaller) == 0
+        compare(larger, larger) == 0
+
+        where:
+        smaller                 | larger
+        "1.09"                  | "1.10"
+        "1.08"                  | "1.009"
+        "1.123456789012345678"  | "1.1234567890123456789"
+        "1.0123456789012345678" | "1.123456789012345679"
+        "1.123456789012345678"  | "1.123456789012345679"
+    }
+
+    def "compares numeric parts that differ only in leading zeros equal"() {
+        expect:
+        compare("1.01", "1.1") == 0
+        compare("1.0", "1.00") == 0
+    }
+
+    def "compares parsed versions the same as other Version implementations"() {
+        def versions = ["1", "1.0", "1.0.0", "1.00", "1.01", "1.1", "1.10", "1.0-dev-1", "1.0-DEV-2", "1.0-rc-1", "1.0-RC-1", "1.0-final", "1.0-alpha", "1.0-beta",
+                        "1.0.a", "1.0-SNAPSHOT", "1.0-20150201.121010-123", "a", "abc123", "123abc", "", "..."]
+        def parser = new VersionParser()
+        def versionComparator = comparator.asVersionComparator()
+
+        expect:
+        versions.each { v1 ->
+            versions.each { v2 ->
+                def parsed1 = parser.transform(v1)
+                def parsed2 = parser.transform(v2)
+                def other1 = Stub(Version) { getParts() >> parsed1.parts }
+                def other2 = Stub(Version) { getParts() >> parsed2.parts }
+                assert Math.signum(versionComparator.compare(parsed1, parsed2)) == Math.signum(versionComparator.compare(other1, other2))
+            }
+        }
+    }
+
     def "can compare version strings"() {
         expect:
         def stringComparator = comparator.asStringComparator()
@@ -97,6 +97,12 @@ class VersionParserTest extends Specification {
         '-a b c-  ' | ['', 'a b c', '  ']
     }
 
+    def "reuses parsed versions"() {
+        expect:
+        parse("1.2-beta-3").is(parse("1.2-beta-3"))
+        !parse("1.2-beta-3").is(new VersionParser().transform("1.2-beta-3"))
+    }
+
     def parse(String v) {
         return versionParser.transform(v)
     }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import com.google.common.collect.LinkedHashMultimap
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.ivyservice.NamespaceId
+import org.gradle.internal.component.external.descriptor.Artifact
+import org.gradle.internal.component.external.descriptor.Configuration
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.external.descriptor.MavenScope
+import org.gradle.internal.component.external.descriptor.MutableModuleDescriptorState
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultMutableIvyModuleResolveMetadata
+import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata
+import org.gradle.internal.component.external.model.IvyDependencyMetadata
+import org.gradle.internal.component.external.model.MavenDependencyMetadata
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class CompactModuleMetadataSerializerTest extends Specification {
+    def serializer = new CompactModuleMetadataSerializer()
+    def id = DefaultModuleComponentIdentifier.newId("org.test", "module", "1.2")
+
+    def "writes and reads maven module metadata"() {
+        def descriptor = new MutableModuleDescriptorState(id, "release", false)
+        descriptor.description = "description"
+        descriptor.branch = "branch"
+        descriptor.publicationDate = new Date(1234)
+        descriptor.extraInfo.put(new NamespaceId("ns", "name"), "value")
+        descriptor.addArtifact(new DefaultIvyArtifactName("module", "jar", "jar", "sources"), ["compile"] as Set)
+        descriptor.addExclude(new DefaultExclude("org.excluded", "excluded"))
+        def dependency = new MavenDependencyMetadata(MavenScope.Runtime, true, DefaultModuleVersionSelector.newSelector("org.dep", "dep", "2.0"),
+            [new Artifact(new DefaultIvyArtifactName("dep", "zip", null, null), ["runtime"] as Set)], [new DefaultExclude("org.other", "other")])
+        def mutable = new DefaultMutableMavenModuleResolveMetadata(id, descriptor, "pom", true, [dependency])
+        mutable.snapshotTimestamp = "20160101.120000-1"
+
+        when:
+        def result = read(mutable.asImmutable()).createMetadata().asImmutable()
+
+        then:
+        result.componentId == id
+        result.packaging == "pom"
+        result.relocated
+        result.snapshotTimestamp == "20160101.120000-1"
+        result.descriptor.status == "release"
+        !result.descriptor.generated
+        result.descriptor.description == "description"
+        result.descriptor.branch == "branch"
+        result.descriptor.publicationDate == new Date(1234)
+        result.descriptor.extraInfo == [(new NamespaceId("ns", "name")): "value"]
+        result.descriptor.artifacts*.artifactName == [new DefaultIvyArtifactName("module", "jar", "jar", "sources")]
+        result.descriptor.artifacts*.configurations == [["compile"] as Set]
+        result.descriptor.excludes*.moduleId*.group == ["org.excluded"]
+
+        and:
+        result.dependencies.size() == 1
+        def readDependency = result.dependencies[0] as MavenDependencyMetadata
+        readDependency.requested == dependency.requested
+        readDependency.scope == MavenScope.Runtime
+        readDependency.optional
+        readDependency.dependencyArtifacts*.artifactName == [new DefaultIvyArtifactName("dep", "zip", null, null)]
+        readDependency.dependencyArtifacts*.configurations == [["runtime"] as Set]
+        readDependency.dependencyExcludes*.moduleId*.name == ["other"]
+    }
+
+    def "writes and reads ivy module metadata"() {
+        def descriptor = new MutableModuleDescriptorState(id, "integration", true)
+        descriptor.publicationDate = null
+        descriptor.addArtifact(new DefaultIvyArtifactName("module", "jar", "jar", null), ["runtime", "default"] as Set)
+        def configurations = [new Configuration("runtime", true, true, []), new Configuration("default", false, false, ["runtime"])]
+        def confMappings = LinkedHashMultimap.create()
+        confMappings.putAll("runtime", ["default", "runtime"])
+        def exclude = new DefaultExclude("org.excluded", "excluded", "artifact", "jar", "jar", ["runtime"] as String[], "exact")
+        def dependency = new IvyDependencyMetadata(DefaultModuleVersionSelector.newSelector("org.dep", "dep", "latest.integration"), "1.+", true, true, false, confMappings, [], [exclude])
+        def mutable = new DefaultMutableIvyModuleResolveMetadata(id, descriptor, configurations, [dependency])
+
+        when:
+        def result = read(mutable.asImmutable()).createMetadata().asImmutable()
+
+        then:
+        result.componentId == id
+        result.descriptor.generated
+        result.descriptor.publicationDate == null
+        result.descriptor.description == null
+        result.configurationNames == ["runtime", "default"] as Set
+        result.configurationDefinitions["default"].extendsFrom == ["runtime"]
+        !result.configurationDefinitions["default"].transitive
+        !result.configurationDefinitions["default"].visible
+        result.descriptor.artifacts*.configurations == [["runtime", "default"] as Set]
+
+        and:
+        def readDependency = result.dependencies[0] as IvyDependencyMetadata
+        readDependency.requested == dependency.requested
+        readDependency.dynamicConstraintVersion == "1.+"
+        readDependency.force
+        readDependency.changing
+        !readDependency.transitive
+        readDependency.confMappings == confMappings
+        def readExclude = readDependency.dependencyExcludes[0]
+        readExclude.moduleId == exclude.moduleId
+        readExclude.artifact == exclude.artifact
+        readExclude.configurations == ["runtime"] as Set
+        readExclude.matcher == "exact"
+    }
+
+    def "decodes sections on demand"() {
+        def dependencies = (0..<3).collect {
+            new MavenDependencyMetadata(MavenScope.Compile, false, DefaultModuleVersionSelector.newSelector("org.dep", "dep$it", "1.$it"), [], [])
+        }
+        def descriptor = new MutableModuleDescriptorState(id, "release", false)
+        descriptor.addExclude(new DefaultExclude("org.excluded", "excluded"))
+
+        when:
+        def metadata = read(new DefaultMutableMavenModuleResolveMetadata(id, descriptor, "jar", false, dependencies).asImmutable())
+
+        then:
+        metadata.maven
+        metadata.componentId == id
+        metadata.dependencyCount == 3
+        metadata.getRequested(1) == DefaultModuleVersionSelector.newSelector("org.dep", "dep1", "1.1")
+        metadata.getRequested(2) == DefaultModuleVersionSelector.newSelector("org.dep", "dep2", "1.2")
+        metadata.excludes*.moduleId*.name == ["excluded"]
+        metadata.artifacts.empty
+        metadata.configurations.empty
+
+        and:
+        def readDependencies = metadata.dependencies
+        readDependencies*.requested == dependencies*.requested
+        readDependencies[0].requested.group.is(readDependencies[2].requested.group)
+    }
+
+    def "rejects content written in another format version"() {
+        def bytes = write(new DefaultMutableMavenModuleResolveMetadata(id, new MutableModuleDescriptorState(id), "jar", false, []).asImmutable())
+        bytes[4] = CompactModuleMetadataSerializer.FORMAT_VERSION + 1
+
+        when:
+        serializer.read(ByteBuffer.wrap(bytes))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Unexpected module metadata format version ${CompactModuleMetadataSerializer.FORMAT_VERSION + 1}, expected ${CompactModuleMetadataSerializer.FORMAT_VERSION}."
+    }
+
+    def "rejects content that is not module metadata"() {
+        when:
+        serializer.read(ByteBuffer.wrap(new byte[64]))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Not a module metadata file."
+    }
+
+    private CompactModuleMetadata read(ModuleComponentResolveMetadata metadata) {
+        return serializer.read(ByteBuffer.wrap(write(metadata)))
+    }
+
+    private byte[] write(ModuleComponentResolveMetadata metadata) {
+        def outputStream = new ByteArrayOutputStream()
+        serializer.write(outputStream, metadata)
+        return outputStream.toByteArray()
+    }
+}
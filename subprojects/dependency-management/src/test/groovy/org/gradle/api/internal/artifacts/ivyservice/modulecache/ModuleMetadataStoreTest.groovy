@@ -22,10 +22,13 @@ import org.gradle.internal.component.external.model.DefaultModuleComponentIdenti
 import org.gradle.internal.component.external.model.DefaultMutableMavenModuleResolveMetadata
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 class ModuleMetadataStoreTest extends Specification {
 
     @Rule TestNameTestDirectoryProvider temporaryFolder
@@ -33,8 +36,10 @@ class ModuleMetadataStoreTest extends Specification {
     String repository = "repositoryId"
     LocallyAvailableResource fileStoreEntry = Mock()
     ModuleComponentIdentifier moduleComponentIdentifier = DefaultModuleComponentIdentifier.newId("org.test", "testArtifact", "1.0")
-    ModuleMetadataSerializer serializer = Mock()
-    ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer);
+    CompactModuleMetadataSerializer serializer = Mock()
+    PathKeyFileStore previousPathKeyFileStore = Mock()
+    ModuleMetadataSerializer previousSerializer = new ModuleMetadataSerializer()
+    ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer, previousPathKeyFileStore, previousSerializer);
 
     def "getModuleDescriptorFile returns null for not cached descriptors"() {
         when:
@@ -50,6 +55,49 @@ class ModuleMetadataStoreTest extends Specification {
         1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> null
     }
 
+    def "getModuleDescriptorFile reads descriptor in place"() {
+        File descriptorFile = temporaryFolder.createFile("descriptor.bin")
+        def metadata = new DefaultMutableMavenModuleResolveMetadata(moduleComponentIdentifier, new MutableModuleDescriptorState(moduleComponentIdentifier), "packaging", false, [])
+        def outputStream = new ByteArrayOutputStream()
+        new CompactModuleMetadataSerializer().write(outputStream, metadata.asImmutable())
+        descriptorFile.bytes = outputStream.toByteArray()
+
+        when:
+        def result = store.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        _ * fileStoreEntry.file >> descriptorFile
+        1 * serializer.read({ it.remaining() == descriptorFile.length() }) >> { ByteBuffer buffer -> new CompactModuleMetadata(buffer) }
+        result.componentId == moduleComponentIdentifier
+        result.packaging == "packaging"
+    }
+
+    def "imports descriptor from previous store when not cached"() {
+        File previousDescriptorFile = temporaryFolder.createFile("previous/descriptor.bin")
+        File descriptorFile = temporaryFolder.createFile("descriptor.bin")
+        def metadata = new DefaultMutableMavenModuleResolveMetadata(moduleComponentIdentifier, new MutableModuleDescriptorState(moduleComponentIdentifier), "packaging", false, [])
+        def encoder = new KryoBackedEncoder(new FileOutputStream(previousDescriptorFile))
+        previousSerializer.write(encoder, metadata.asImmutable())
+        encoder.close()
+
+        when:
+        def result = store.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> null
+        1 * previousPathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        _ * fileStoreEntry.file >> previousDescriptorFile
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); Mock(LocallyAvailableResource)
+        }
+        1 * serializer.write(_, { it.componentId == moduleComponentIdentifier && it.packaging == "packaging" })
+        0 * previousPathKeyFileStore._
+        result.componentId == moduleComponentIdentifier
+        result.packaging == "packaging"
+        previousDescriptorFile.exists()
+    }
+
     def "putModuleDescriptor uses PathKeyFileStore to write file"() {
         setup:
         File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
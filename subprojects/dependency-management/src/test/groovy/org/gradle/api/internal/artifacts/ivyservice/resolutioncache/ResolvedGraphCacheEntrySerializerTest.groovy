@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactMetadata
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.serialize.SerializerSpec
+
+class ResolvedGraphCacheEntrySerializerTest extends SerializerSpec {
+    def serializer = new ResolvedGraphCacheEntrySerializer()
+
+    def "serializes entry"() {
+        def component = DefaultModuleComponentIdentifier.newId("org", "a", "1.0")
+        def artifact = new DefaultModuleComponentArtifactMetadata(component, new DefaultIvyArtifactName("a", "jar", "jar", "sources"))
+        def artifactSet = new ResolvedGraphCacheEntry.CachedArtifactSet(7, DefaultModuleVersionIdentifier.newId("org", "a", "1.0"), null, [artifact])
+        def snapshot = DefaultModuleComponentIdentifier.newId("org", "b", "1.0-SNAPSHOT")
+        def entry = new ResolvedGraphCacheEntry(1234, [1, 2, 3] as byte[], [4, 5] as byte[], [(2L): 0, (5L): 3], [artifactSet], [component] as Set, [(snapshot): 1200L],
+            [(DefaultModuleIdentifier.newId("org", "c")): new ResolvedGraphCacheEntry.CachedDynamicVersion(DefaultModuleVersionIdentifier.newId("org", "c", "2.1"), 1100)])
+
+        when:
+        def result = serialize(entry, serializer)
+
+        then:
+        result.createTimestamp == 1234
+        result.resolutionResult == [1, 2, 3] as byte[]
+        result.transientResults == [4, 5] as byte[]
+        result.firstLevelDependencies == [(2L): 0, (5L): 3]
+        result.artifactSets.size() == 1
+        result.artifactSets[0].id == 7
+        result.artifactSets[0].moduleVersionIdentifier == DefaultModuleVersionIdentifier.newId("org", "a", "1.0")
+        result.artifactSets[0].artifacts*.id == [artifact.id]
+        result.artifactSets[0].artifacts[0].name.classifier == "sources"
+        result.modules == [component] as Set
+        result.changingModules == [(snapshot): 1200L]
+        result.dynamicVersions.keySet() == [DefaultModuleIdentifier.newId("org", "c")] as Set
+        result.dynamicVersions.values()*.selected == [DefaultModuleVersionIdentifier.newId("org", "c", "2.1")]
+        result.dynamicVersions.values()*.versionListTimestamp == [1100L]
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolutioncache
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.internal.DefaultDomainObjectSet
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.ModuleMetaDataCache
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.hash.HashValue
+import org.gradle.util.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+class ResolvedGraphCacheTest extends Specification {
+    def timeProvider = Stub(BuildCommencedTimeProvider) {
+        getCurrentTime() >> 2000
+    }
+    def persistentCache = Mock(PersistentIndexedCache)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache(_, _, _) >> persistentCache
+        useCache(_, _ as Runnable) >> { String operation, Runnable action -> action.run() }
+    }
+    def moduleVersionsCache = Mock(ModuleVersionsCache)
+    def moduleMetaDataCache = Mock(ModuleMetaDataCache)
+    def cache = new ResolvedGraphCache(cacheLockingManager, Stub(VersionSelectorScheme), moduleVersionsCache, moduleMetaDataCache, timeProvider, true)
+    def rules = Stub(GlobalDependencyResolutionRules)
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getConflictResolution() >> new LatestConflictResolution()
+    }
+    def dependencies = new DefaultDomainObjectSet<ModuleDependency>(ModuleDependency)
+    def configuration = configuration(dependencies)
+    def cachePolicy = Mock(CachePolicy)
+
+    def "calculates same key for same dependencies and repositories"() {
+        dependencies.add(new DefaultExternalModuleDependency("org", "a", "1.0"))
+
+        expect:
+        def key = cache.createKey(configuration, [repository("repo")], rules)
+        key != null
+        cache.createKey(configuration, [repository("repo")], rules) == key
+    }
+
+    def "calculates different key when dependencies or repositories change"() {
+        dependencies.add(new DefaultExternalModuleDependency("org", "a", "1.0"))
+        def key = cache.createKey(configuration, [repository("repo")], rules)
+
+        expect:
+        cache.createKey(configuration, [repository("other")], rules) != key
+
+        when:
+        dependencies.add(new DefaultExternalModuleDependency("org", "b", "1.0"))
+
+        then:
+        cache.createKey(configuration, [repository("repo")], rules) != key
+    }
+
+    def "does not cache results that depend on local repositories or project dependencies"() {
+        expect:
+        cache.createKey(configuration, [], rules) == null
+        cache.createKey(configuration, [repository("repo", true)], rules) == null
+
+        when:
+        dependencies.add(Stub(ProjectDependency))
+
+        then:
+        cache.createKey(configuration, [repository("repo")], rules) == null
+    }
+
+    def "does not cache results that depend on resolution rules"() {
+        given:
+        resolutionStrategy.resolveGraphToDetermineTaskDependencies() >> true
+
+        expect:
+        cache.createKey(configuration, [repository("repo")], rules) == null
+    }
+
+    def "does not cache results that depend on dependency resolve rules"() {
+        given:
+        resolutionStrategy.hasDependencySubstitutionRules() >> true
+
+        expect:
+        cache.createKey(configuration, [repository("repo")], rules) == null
+    }
+
+    def "does not cache results when disabled"() {
+        def disabled = new ResolvedGraphCache(cacheLockingManager, Stub(VersionSelectorScheme), moduleVersionsCache, moduleMetaDataCache, timeProvider, false)
+
+        expect:
+        disabled.createKey(configuration, [repository("repo")], rules) == null
+    }
+
+    def "cached result is up-to-date when cache policy does not require any module to be refreshed"() {
+        def entry = entry()
+
+        when:
+        def upToDate = cache.isUpToDate(entry, cachePolicy)
+
+        then:
+        upToDate
+        1 * cachePolicy.mustRefreshVersionList(DefaultModuleIdentifier.newId("org", "dynamic"), [DefaultModuleVersionIdentifier.newId("org", "dynamic", "1.2")] as Set, 1800) >> false
+        1 * cachePolicy.mustRefreshChangingModule(DefaultModuleComponentIdentifier.newId("org", "changing", "1.0-SNAPSHOT"), _, 1500) >> false
+        1 * cachePolicy.mustRefreshModule(DefaultModuleComponentIdentifier.newId("org", "static", "1.0"), _, 1000) >> false
+        0 * cachePolicy._
+    }
+
+    def "cached result is not up-to-date when dynamic versions must be refreshed"() {
+        when:
+        def upToDate = cache.isUpToDate(entry(), cachePolicy)
+
+        then:
+        !upToDate
+        1 * cachePolicy.mustRefreshVersionList(_, _, 1800) >> true
+        0 * cachePolicy._
+    }
+
+    def "cached result is not up-to-date when changing module must be refreshed"() {
+        when:
+        def upToDate = cache.isUpToDate(entry(), cachePolicy)
+
+        then:
+        !upToDate
+        1 * cachePolicy.mustRefreshVersionList(_, _, _) >> false
+        1 * cachePolicy.mustRefreshChangingModule(_, _, _) >> true
+        0 * cachePolicy._
+    }
+
+    def "cached result is not up-to-date when module must be refreshed"() {
+        when:
+        def upToDate = cache.isUpToDate(entry(), cachePolicy)
+
+        then:
+        !upToDate
+        1 * cachePolicy.mustRefreshVersionList(_, _, _) >> false
+        1 * cachePolicy.mustRefreshChangingModule(_, _, _) >> false
+        1 * cachePolicy.mustRefreshModule(_, _, _) >> true
+    }
+
+    def "stores result with the timestamps of the oldest cached version lists and meta-data that were used"() {
+        def key = new HashValue("1234")
+        def dynamicModule = DefaultModuleIdentifier.newId("org", "dynamic")
+        def changingModule = DefaultModuleComponentIdentifier.newId("org", "changing", "1.0-SNAPSHOT")
+        def repo1 = repository("repo1")
+        def repo2 = repository("repo2")
+        def resolver1 = repo1.createResolver()
+        def resolver2 = repo2.createResolver()
+        def recorder = Mock(ResolvedGraphRecorder)
+        def entry = entry()
+        ResolvedGraphRecorder.CacheTimestamps timestamps = null
+
+        when:
+        cache.store(key, configuration, [repo1, repo2], recorder)
+
+        then:
+        _ * recorder.isCacheable() >> true
+        1 * recorder.toEntry(2000, _) >> { long createTimestamp, ResolvedGraphRecorder.CacheTimestamps cacheTimestamps ->
+            timestamps = cacheTimestamps
+            return entry
+        }
+        1 * persistentCache.put(key, entry)
+
+        when:
+        def versionListTimestamp = timestamps.getVersionListTimestamp(dynamicModule)
+        def metaDataTimestamp = timestamps.getMetaDataTimestamp(changingModule)
+
+        then:
+        versionListTimestamp == 1400
+        metaDataTimestamp == 1700
+        1 * moduleVersionsCache.getCachedModuleResolution(resolver1, dynamicModule) >> Stub(ModuleVersionsCache.CachedModuleVersionList) {
+            getAgeMillis() >> 100
+        }
+        1 * moduleVersionsCache.getCachedModuleResolution(resolver2, dynamicModule) >> Stub(ModuleVersionsCache.CachedModuleVersionList) {
+            getAgeMillis() >> 600
+        }
+        1 * moduleMetaDataCache.getCachedModuleDescriptor(resolver1, changingModule) >> null
+        1 * moduleMetaDataCache.getCachedModuleDescriptor(resolver2, changingModule) >> Stub(ModuleMetaDataCache.CachedMetaData) {
+            getAgeMillis() >> 300
+        }
+    }
+
+    def "uses the time the result is stored when nothing is cached for a module"() {
+        def recorder = Mock(ResolvedGraphRecorder)
+        ResolvedGraphRecorder.CacheTimestamps timestamps = null
+
+        given:
+        recorder.isCacheable() >> true
+        recorder.toEntry(_, _) >> { long createTimestamp, ResolvedGraphRecorder.CacheTimestamps cacheTimestamps ->
+            timestamps = cacheTimestamps
+            return entry()
+        }
+        cache.store(new HashValue("1234"), configuration, [repository("repo")], recorder)
+
+        expect:
+        timestamps.getVersionListTimestamp(DefaultModuleIdentifier.newId("org", "dynamic")) == 2000
+        timestamps.getMetaDataTimestamp(DefaultModuleComponentIdentifier.newId("org", "changing", "1.0-SNAPSHOT")) == 2000
+    }
+
+    private ConfigurationInternal configuration(DefaultDomainObjectSet<ModuleDependency> dependencies) {
+        def dependencySet = Stub(DependencySet) {
+            withType(ModuleDependency) >> dependencies
+        }
+        def hierarchyConfiguration = Stub(Configuration) {
+            getName() >> "compile"
+            getDependencies() >> dependencySet
+        }
+        return Stub(ConfigurationInternal) {
+            getPath() >> ":compile"
+            getHierarchy() >> ([hierarchyConfiguration] as Set)
+            getResolutionStrategy() >> resolutionStrategy
+        }
+    }
+
+    private ResolutionAwareRepository repository(String id, boolean local = false) {
+        def resolver = Stub(ConfiguredModuleComponentRepository) {
+            getId() >> id
+            isLocal() >> local
+        }
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> resolver
+        }
+    }
+
+    private static ResolvedGraphCacheEntry entry() {
+        return new ResolvedGraphCacheEntry(1000, new byte[0], new byte[0], [:], [],
+            [DefaultModuleComponentIdentifier.newId("org", "static", "1.0")] as Set,
+            [(DefaultModuleComponentIdentifier.newId("org", "changing", "1.0-SNAPSHOT")): 500L],
+            [(DefaultModuleIdentifier.newId("org", "dynamic")): new ResolvedGraphCacheEntry.CachedDynamicVersion(DefaultModuleVersionIdentifier.newId("org", "dynamic", "1.2"), 200)])
+    }
+}
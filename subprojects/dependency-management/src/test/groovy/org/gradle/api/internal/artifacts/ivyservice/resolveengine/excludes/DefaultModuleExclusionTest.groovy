@@ -752,6 +752,30 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
+    def "equal specs are the same instance"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = excludeGroupRule("org2")
+        def rule3 = regexpExcludeRule("org3", "module.*")
+
+        expect:
+        excludeAny(rule1, rule2, rule3).is(excludeAny(rule3, rule1, rule2))
+        intersect(excludeAny(rule1), excludeAny(rule2)).is(excludeAny(rule1, rule2))
+        union(excludeAny(rule1, rule2), excludeAny(rule1, rule3)).is(union(excludeAny(rule1, rule2), excludeAny(rule1, rule3)))
+    }
+
+    def "matches modules against mix of indexed and other rules"() {
+        def spec = excludeAny(excludeRule("org", "module"), excludeGroupRule("org2"), excludeModuleRule("module3"), regexpExcludeRule("org4", "mod.*"), excludeArtifactRule("a", "jar", "jar"))
+
+        expect:
+        spec.excludeModule(moduleId("org", "module"))
+        !spec.excludeModule(moduleId("org", "other"))
+        spec.excludeModule(moduleId("org2", "anything"))
+        spec.excludeModule(moduleId("any", "module3"))
+        spec.excludeModule(moduleId("org4", "module4"))
+        !spec.excludeModule(moduleId("org4", "other"))
+        spec.excludeArtifact(moduleId("any", "any"), artifactName("a", "jar", "jar"))
+    }
+
     static ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
         ModuleExclusions.union(spec, otherRule)
     }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.internal.cache.BinaryStore
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class RecordingBinaryStoreTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def "writes to delegate and records written data"() {
+        def delegate = new DefaultBinaryStore(temp.file("foo.bin"))
+        def store = new RecordingBinaryStore(delegate)
+
+        when:
+        store.write({ it.writeInt(10) } as BinaryStore.WriteAction)
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+        store.recording.length > 0
+
+        cleanup:
+        data?.close()
+        delegate.close()
+    }
+
+    def "recorded data can be replayed into another store"() {
+        def first = new DefaultBinaryStore(temp.file("first.bin"))
+        def recorder = new RecordingBinaryStore(first)
+        recorder.write({ it.writeInt(10); it.writeString("x") } as BinaryStore.WriteAction)
+        recorder.done().close()
+
+        def second = new DefaultBinaryStore(temp.file("second.bin"))
+        second.write({ it.writeString("unrelated") } as BinaryStore.WriteAction)
+        second.done().close()
+
+        when:
+        RecordingBinaryStore.replay(second, recorder.recording)
+        def data = second.done()
+
+        then:
+        data.read({ it.readInt() } as BinaryStore.ReadAction) == 10
+        data.read({ it.readString() } as BinaryStore.ReadAction) == "x"
+
+        cleanup:
+        data?.close()
+        first.close()
+        second.close()
+    }
+}
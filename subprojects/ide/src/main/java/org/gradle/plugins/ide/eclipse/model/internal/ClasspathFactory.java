@@ -39,11 +39,18 @@ public class ClasspathFactory {
     }
 
     public List<ClasspathEntry> createEntries() {
+        return createEntries(createDependencyEntries());
+    }
+
+    /**
+     * Creates the classpath entries, using the given dependency entries rather than resolving the dependencies.
+     */
+    public List<ClasspathEntry> createEntries(List<? extends ClasspathEntry> dependencyEntries) {
         List<ClasspathEntry> entries = Lists.newArrayList();
         entries.add(createOutput());
         entries.addAll(createSourceFolders());
         entries.addAll(createContainers());
-        entries.addAll(createDependencies());
+        entries.addAll(dependencyEntries);
         entries.addAll(createClassFolders());
         return entries;
     }
@@ -65,7 +72,7 @@ public class ClasspathFactory {
         return containers;
     }
 
-    private List<AbstractClasspathEntry> createDependencies() {
+    public List<AbstractClasspathEntry> createDependencyEntries() {
         return dependenciesCreator.createDependencyEntries();
     }
 
@@ -21,9 +21,11 @@ import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.internal.composite.CompositeBuildIdeProjectResolver;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.plugins.ide.api.XmlFileContentMerger;
 import org.gradle.plugins.ide.eclipse.EclipsePlugin;
 import org.gradle.plugins.ide.eclipse.model.AbstractClasspathEntry;
 import org.gradle.plugins.ide.eclipse.model.AbstractLibrary;
@@ -40,6 +42,9 @@ import org.gradle.plugins.ide.eclipse.model.Link;
 import org.gradle.plugins.ide.eclipse.model.Output;
 import org.gradle.plugins.ide.eclipse.model.ProjectDependency;
 import org.gradle.plugins.ide.eclipse.model.SourceFolder;
+import org.gradle.plugins.ide.eclipse.model.internal.ClasspathFactory;
+import org.gradle.plugins.ide.internal.resolver.UnresolvedDependenciesLogger;
+import org.gradle.plugins.ide.internal.resolver.model.UnresolvedIdeRepoFileDependency;
 import org.gradle.plugins.ide.internal.tooling.eclipse.DefaultAccessRule;
 import org.gradle.plugins.ide.internal.tooling.eclipse.DefaultClasspathAttribute;
 import org.gradle.plugins.ide.internal.tooling.eclipse.DefaultEclipseBuildCommand;
@@ -61,10 +66,13 @@ import org.gradle.util.GUtil;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class EclipseModelBuilder implements ToolingModelBuilder {
     private final GradleProjectBuilder gradleProjectBuilder;
@@ -76,9 +84,12 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
     private TasksFactory tasksFactory;
     private DefaultGradleProject<?> rootGradleProject;
     private Project currentProject;
+    private Map<Project, List<AbstractClasspathEntry>> resolvedDependencies;
+    private final ServiceRegistry services;
 
     public EclipseModelBuilder(GradleProjectBuilder gradleProjectBuilder, ServiceRegistry services) {
         this.gradleProjectBuilder = gradleProjectBuilder;
+        this.services = services;
         compositeProjectMapper = new CompositeBuildIdeProjectResolver(services);
     }
 
@@ -99,6 +110,7 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
         tasksFactory.collectTasks(root);
         applyEclipsePlugin(root);
         buildHierarchy(root);
+        resolveDependencies(root);
         populate(root);
         return result;
     }
@@ -139,18 +151,28 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
         eclipseProjects.add(eclipseProject);
     }
 
+    private void resolveDependencies(Project root) {
+        Map<Project, EclipseClasspath> classpaths = Maps.newLinkedHashMap();
+        for (Project project : root.getAllprojects()) {
+            EclipseClasspath eclipseClasspath = project.getExtensions().getByType(EclipseModel.class).getClasspath();
+            eclipseClasspath.setProjectDependenciesOnly(projectDependenciesOnly);
+            classpaths.put(project, eclipseClasspath);
+        }
+        resolvedDependencies = new IdeDependencyResolver(services).resolveAll(new ArrayList<Project>(classpaths.keySet()), new EclipseDependencyResolution(classpaths, projectDependenciesOnly));
+    }
+
     private void populate(Project project) {
         EclipseModel eclipseModel = project.getExtensions().getByType(EclipseModel.class);
         EclipseClasspath eclipseClasspath = eclipseModel.getClasspath();
 
-        eclipseClasspath.setProjectDependenciesOnly(projectDependenciesOnly);
-
-        List<ClasspathEntry> classpathEntries;
-        if (eclipseClasspath.getFile() == null) {
-            classpathEntries = eclipseClasspath.resolveDependencies();
-        } else {
+        List<ClasspathEntry> classpathEntries = new ClasspathFactory(eclipseClasspath).createEntries(resolvedDependencies.get(project));
+        XmlFileContentMerger classpathFile = eclipseClasspath.getFile();
+        if (classpathFile != null) {
+            // Same as EclipseClasspath.mergeXmlClasspath(), but with the dependencies that have already been resolved
             Classpath classpath = new Classpath(eclipseClasspath.getFileReferenceFactory());
-            eclipseClasspath.mergeXmlClasspath(classpath);
+            classpathFile.getBeforeMerged().execute(classpath);
+            classpath.configure(classpathEntries);
+            classpathFile.getWhenMerged().execute(classpath);
             classpathEntries = classpath.getEntries();
         }
 
@@ -288,4 +310,70 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
     private static String convertGString(CharSequence original) {
         return original.toString();
     }
+
+    private static class EclipseDependencyResolution implements IdeDependencyResolver.ProjectResolution<List<AbstractClasspathEntry>> {
+        private final Map<Project, EclipseClasspath> classpaths;
+        private final boolean projectDependenciesOnly;
+        private final Set<Project> unresolved = Collections.newSetFromMap(new ConcurrentHashMap<Project, Boolean>());
+
+        EclipseDependencyResolution(Map<Project, EclipseClasspath> classpaths, boolean projectDependenciesOnly) {
+            this.classpaths = classpaths;
+            this.projectDependenciesOnly = projectDependenciesOnly;
+        }
+
+        @Override
+        public String getModelKind() {
+            return projectDependenciesOnly ? "eclipse-project-dependencies" : "eclipse";
+        }
+
+        @Override
+        public String getSettings(Project project) {
+            EclipseClasspath classpath = classpaths.get(project);
+            StringBuilder settings = new StringBuilder();
+            settings.append(classpath.isProjectDependenciesOnly()).append(':').append(classpath.isDownloadSources()).append(':').append(classpath.isDownloadJavadoc());
+            settings.append(':').append(classpath.getPathVariables());
+            for (Configuration configuration : classpath.getPlusConfigurations()) {
+                settings.append(":+").append(configuration.getName());
+            }
+            for (Configuration configuration : classpath.getMinusConfigurations()) {
+                settings.append(":-").append(configuration.getName());
+            }
+            return settings.toString();
+        }
+
+        @Override
+        public List<AbstractClasspathEntry> resolve(Project project) {
+            ClasspathFactory classpathFactory = new ClasspathFactory(classpaths.get(project));
+            List<AbstractClasspathEntry> entries = classpathFactory.createDependencyEntries();
+            Collection<UnresolvedIdeRepoFileDependency> unresolvedDependencies = classpathFactory.getUnresolvedDependencies();
+            new UnresolvedDependenciesLogger().log(unresolvedDependencies);
+            if (!unresolvedDependencies.isEmpty()) {
+                unresolved.add(project);
+            }
+            return entries;
+        }
+
+        @Override
+        public boolean canReuse(Project project, List<AbstractClasspathEntry> result) {
+            return !unresolved.contains(project);
+        }
+
+        @Override
+        public Iterable<File> getFiles(List<AbstractClasspathEntry> result) {
+            List<File> files = new ArrayList<File>();
+            for (AbstractClasspathEntry entry : result) {
+                if (entry instanceof AbstractLibrary) {
+                    AbstractLibrary library = (AbstractLibrary) entry;
+                    files.add(library.getLibrary().getFile());
+                    if (library.getSourcePath() != null) {
+                        files.add(library.getSourcePath().getFile());
+                    }
+                    if (library.getJavadocPath() != null) {
+                        files.add(library.getJavadocPath().getFile());
+                    }
+                }
+            }
+            return files;
+        }
+    }
 }
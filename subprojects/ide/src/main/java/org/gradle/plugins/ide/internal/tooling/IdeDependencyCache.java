@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.plugins.ide.internal.tooling;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Nullable;
+
+/**
+ * Retains the resolved dependencies of the IDE model of each project across builds in the same process, so that a project's dependencies only need to be resolved again
+ * when the inputs to its dependency resolution have changed. Enabled using the {@value #ENABLED_PROPERTY} system property.
+ */
+@ThreadSafe
+public class IdeDependencyCache {
+    public static final String ENABLED_PROPERTY = "org.gradle.ide.cache-dependencies";
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Cache<String, Entry> entries = CacheBuilder.newBuilder().maximumSize(MAX_ENTRIES).build();
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the dependencies retained for the given project, or null when there are none or they were resolved from different inputs.
+     */
+    @Nullable
+    public Object get(String projectId, HashCode inputsHash) {
+        Entry entry = entries.getIfPresent(projectId);
+        if (entry == null || !entry.inputsHash.equals(inputsHash)) {
+            return null;
+        }
+        return entry.dependencies;
+    }
+
+    public void put(String projectId, HashCode inputsHash, Object dependencies) {
+        entries.put(projectId, new Entry(inputsHash, dependencies));
+    }
+
+    public void invalidate(String projectId) {
+        entries.invalidate(projectId);
+    }
+
+    private static class Entry {
+        private final HashCode inputsHash;
+        private final Object dependencies;
+
+        Entry(HashCode inputsHash, Object dependencies) {
+            this.inputsHash = inputsHash;
+            this.dependencies = dependencies;
+        }
+    }
+}
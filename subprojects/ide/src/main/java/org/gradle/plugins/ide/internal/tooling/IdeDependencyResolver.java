@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.plugins.ide.internal.tooling;
+
+import com.google.common.hash.HashCode;
+import org.gradle.StartParameter;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Resolves the dependencies of the IDE model for a set of projects.
+ *
+ * <p>When the {@value IdeDependencyCache#ENABLED_PROPERTY} system property is set, dependencies resolved by an earlier build are reused for each project whose inputs have not changed.
+ * When the {@value #PARALLEL_PROPERTY} system property is set, the dependencies of the remaining projects are resolved in parallel, using up to the maximum number of workers.</p>
+ */
+class IdeDependencyResolver {
+    public static final String PARALLEL_PROPERTY = "org.gradle.ide.parallel-resolution";
+    private static final Logger LOGGER = Logging.getLogger(IdeDependencyResolver.class);
+
+    /**
+     * Resolves the dependencies for the IDE model of a single project.
+     */
+    interface ProjectResolution<T> {
+        /**
+         * Identifies the kind of model.
+         */
+        String getModelKind();
+
+        /**
+         * Describes the model settings of the given project that affect its dependencies, such as the configurations that are used and the offline flag.
+         */
+        String getSettings(Project project);
+
+        T resolve(Project project);
+
+        /**
+         * Returns true when the given result can be reused by a later build, for example because all dependencies could be resolved.
+         * Called after the result has been resolved, so should use information recorded while resolving rather than resolve again.
+         */
+        boolean canReuse(Project project, T result);
+
+        /**
+         * The files referenced by the given result. A result is only reused when all of these files still exist.
+         */
+        Iterable<File> getFiles(T result);
+    }
+
+    private final ServiceRegistry services;
+
+    IdeDependencyResolver(ServiceRegistry services) {
+        this.services = services;
+    }
+
+    public <T> Map<Project, T> resolveAll(List<Project> projects, final ProjectResolution<T> resolution) {
+        Map<Project, T> results = new LinkedHashMap<Project, T>();
+        Map<Project, HashCode> inputHashes = new LinkedHashMap<Project, HashCode>();
+        List<Project> unresolved = new ArrayList<Project>();
+
+        IdeDependencyCache cache = null;
+        ProjectDependencyInputsHasher hasher = null;
+        StartParameter startParameter = null;
+        if (IdeDependencyCache.isEnabled() || isParallel()) {
+            startParameter = services.get(StartParameter.class);
+        }
+        if (IdeDependencyCache.isEnabled() && !startParameter.isRefreshDependencies()) {
+            cache = services.get(IdeDependencyCache.class);
+            hasher = new ProjectDependencyInputsHasher(startParameter);
+            for (Project project : projects) {
+                HashCode inputHash = hasher.hash(project, resolution.getSettings(project));
+                T cached = inputHash == null ? null : reusable(resolution, cache.get(cacheId(project, resolution), inputHash));
+                if (cached != null) {
+                    results.put(project, cached);
+                } else {
+                    inputHashes.put(project, inputHash);
+                    unresolved.add(project);
+                }
+            }
+        } else {
+            unresolved.addAll(projects);
+        }
+
+        if (isParallel() && unresolved.size() > 1 && startParameter.getMaxWorkerCount() > 1) {
+            results.putAll(resolveInParallel(unresolved, resolution, startParameter.getMaxWorkerCount()));
+        } else {
+            for (Project project : unresolved) {
+                results.put(project, resolution.resolve(project));
+            }
+        }
+
+        if (cache != null) {
+            for (Project project : unresolved) {
+                HashCode inputHash = inputHashes.get(project);
+                if (inputHash != null && hasher.hasStableGraphs(project) && resolution.canReuse(project, results.get(project))) {
+                    cache.put(cacheId(project, resolution), inputHash, results.get(project));
+                } else {
+                    cache.invalidate(cacheId(project, resolution));
+                }
+            }
+            LOGGER.info("Resolved IDE dependencies for {} projects, reused dependencies from an earlier build for {} projects.", unresolved.size(), projects.size() - unresolved.size());
+        }
+
+        // Preserve the order of the projects
+        Map<Project, T> ordered = new LinkedHashMap<Project, T>();
+        for (Project project : projects) {
+            ordered.put(project, results.get(project));
+        }
+        return ordered;
+    }
+
+    private <T> Map<Project, T> resolveInParallel(List<Project> projects, final ProjectResolution<T> resolution, int maxWorkers) {
+        StoppableExecutor executor = services.get(ExecutorFactory.class).create("IDE dependency resolution", Math.min(maxWorkers, projects.size()));
+        try {
+            Map<Project, Future<T>> futures = new LinkedHashMap<Project, Future<T>>();
+            for (final Project project : projects) {
+                futures.put(project, executor.submit(new Callable<T>() {
+                    @Override
+                    public T call() {
+                        return resolution.resolve(project);
+                    }
+                }));
+            }
+            Map<Project, T> results = new LinkedHashMap<Project, T>();
+            for (Map.Entry<Project, Future<T>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    throw UncheckedException.throwAsUncheckedException(e.getCause());
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return results;
+        } finally {
+            executor.stop();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T reusable(ProjectResolution<T> resolution, Object cached) {
+        if (cached == null) {
+            return null;
+        }
+        T result = (T) cached;
+        for (File file : resolution.getFiles(result)) {
+            if (file != null && !file.exists()) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static String cacheId(Project project, ProjectResolution<?> resolution) {
+        return project.getRootDir().getAbsolutePath() + ":" + project.getPath() + ":" + resolution.getModelKind();
+    }
+
+    private static boolean isParallel() {
+        return Boolean.getBoolean(PARALLEL_PROPERTY);
+    }
+}
@@ -18,7 +18,9 @@ package org.gradle.plugins.ide.internal.tooling;
 
 import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.internal.composite.CompositeBuildIdeProjectResolver;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.plugins.JavaPluginConvention;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.plugins.ide.idea.IdeaPlugin;
@@ -29,6 +31,9 @@ import org.gradle.plugins.ide.idea.model.IdeaModule;
 import org.gradle.plugins.ide.idea.model.IdeaProject;
 import org.gradle.plugins.ide.idea.model.ModuleDependency;
 import org.gradle.plugins.ide.idea.model.SingleEntryModuleLibrary;
+import org.gradle.plugins.ide.idea.model.internal.IdeaDependenciesProvider;
+import org.gradle.plugins.ide.internal.resolver.UnresolvedDependenciesLogger;
+import org.gradle.plugins.ide.internal.resolver.model.UnresolvedIdeRepoFileDependency;
 import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaCompilerOutput;
 import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaContentRoot;
 import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaDependency;
@@ -46,23 +51,28 @@ import org.gradle.tooling.internal.gradle.DefaultGradleProject;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IdeaModelBuilder implements ToolingModelBuilder {
     private final GradleProjectBuilder gradleProjectBuilder;
     private final CompositeBuildIdeProjectResolver compositeProjectMapper;
+    private final ServiceRegistry services;
 
     private boolean offlineDependencyResolution;
 
     public IdeaModelBuilder(GradleProjectBuilder gradleProjectBuilder, ServiceRegistry services) {
         this.gradleProjectBuilder = gradleProjectBuilder;
+        this.services = services;
         compositeProjectMapper = new CompositeBuildIdeProjectResolver(services);
     }
 
@@ -106,8 +116,9 @@ public class IdeaModelBuilder implements ToolingModelBuilder {
         for (IdeaModule module : projectModel.getModules()) {
             appendModule(modules, module, out, rootGradleProject);
         }
+        Map<Project, Set<Dependency>> resolvedDependencies = resolveDependencies(projectModel.getModules());
         for (IdeaModule module : projectModel.getModules()) {
-            buildDependencies(modules, module);
+            buildDependencies(modules, module, resolvedDependencies.get(module.getProject()));
         }
         final Collection<DefaultIdeaModule> ideaModules = modules.values();
         out.setChildren(new LinkedList<DefaultIdeaModule>(ideaModules));
@@ -118,9 +129,16 @@ public class IdeaModelBuilder implements ToolingModelBuilder {
         return project.getPlugins().getPlugin(IdeaPlugin.class);
     }
 
-    private void buildDependencies(Map<String, DefaultIdeaModule> modules, IdeaModule ideaModule) {
-        ideaModule.setOffline(offlineDependencyResolution);
-        Set<Dependency> resolved = ideaModule.resolveDependencies();
+    private Map<Project, Set<Dependency>> resolveDependencies(Collection<IdeaModule> ideaModules) {
+        Map<Project, IdeaModule> modulesByProject = new LinkedHashMap<Project, IdeaModule>();
+        for (IdeaModule ideaModule : ideaModules) {
+            ideaModule.setOffline(offlineDependencyResolution);
+            modulesByProject.put(ideaModule.getProject(), ideaModule);
+        }
+        return new IdeDependencyResolver(services).resolveAll(new ArrayList<Project>(modulesByProject.keySet()), new IdeaDependencyResolution(modulesByProject));
+    }
+
+    private void buildDependencies(Map<String, DefaultIdeaModule> modules, IdeaModule ideaModule, Set<Dependency> resolved) {
         List<DefaultIdeaDependency> dependencies = new LinkedList<DefaultIdeaDependency>();
         for (Dependency dependency : resolved) {
             if (dependency instanceof SingleEntryModuleLibrary) {
@@ -208,4 +226,67 @@ public class IdeaModelBuilder implements ToolingModelBuilder {
         String languageLevel = ideaLanguageLevel.getLevel();
         return JavaVersion.valueOf(languageLevel.replaceFirst("JDK", "VERSION"));
     }
+
+    private static class IdeaDependencyResolution implements IdeDependencyResolver.ProjectResolution<Set<Dependency>> {
+        private final Map<Project, IdeaModule> modules;
+        private final Set<Project> unresolved = Collections.newSetFromMap(new ConcurrentHashMap<Project, Boolean>());
+
+        IdeaDependencyResolution(Map<Project, IdeaModule> modules) {
+            this.modules = modules;
+        }
+
+        @Override
+        public String getModelKind() {
+            return "idea";
+        }
+
+        @Override
+        public String getSettings(Project project) {
+            IdeaModule module = modules.get(project);
+            StringBuilder settings = new StringBuilder();
+            settings.append(module.getName()).append(':').append(module.isOffline()).append(':').append(module.isDownloadSources()).append(':').append(module.isDownloadJavadoc());
+            settings.append(':').append(module.getPathVariables());
+            for (Map.Entry<String, Map<String, Collection<Configuration>>> scope : module.getScopes().entrySet()) {
+                settings.append(':').append(scope.getKey());
+                for (Map.Entry<String, Collection<Configuration>> entry : scope.getValue().entrySet()) {
+                    settings.append(':').append(entry.getKey());
+                    for (Configuration configuration : entry.getValue()) {
+                        settings.append(',').append(configuration.getName());
+                    }
+                }
+            }
+            return settings.toString();
+        }
+
+        @Override
+        public Set<Dependency> resolve(Project project) {
+            IdeaModule module = modules.get(project);
+            IdeaDependenciesProvider dependenciesProvider = new IdeaDependenciesProvider(((ProjectInternal) project).getServices());
+            Collection<UnresolvedIdeRepoFileDependency> unresolvedDependencies = dependenciesProvider.getUnresolvedDependencies(module);
+            new UnresolvedDependenciesLogger().log(unresolvedDependencies);
+            if (!unresolvedDependencies.isEmpty()) {
+                unresolved.add(project);
+            }
+            return dependenciesProvider.provide(module);
+        }
+
+        @Override
+        public boolean canReuse(Project project, Set<Dependency> result) {
+            return !unresolved.contains(project);
+        }
+
+        @Override
+        public Iterable<File> getFiles(Set<Dependency> result) {
+            List<File> files = new ArrayList<File>();
+            for (Dependency dependency : result) {
+                if (dependency instanceof SingleEntryModuleLibrary) {
+                    SingleEntryModuleLibrary library = (SingleEntryModuleLibrary) dependency;
+                    files.add(library.getLibraryFile());
+                    files.add(library.getSourceFile());
+                    files.add(library.getJavadocFile());
+                }
+            }
+            return files;
+        }
+    }
 }
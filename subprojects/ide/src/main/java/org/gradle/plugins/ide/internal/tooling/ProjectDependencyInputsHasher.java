@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.plugins.ide.internal.tooling;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.artifacts.SelfResolvingDependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.repositories.ArtifactRepository;
+import org.gradle.api.artifacts.repositories.FlatDirectoryArtifactRepository;
+import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
+import org.gradle.api.artifacts.repositories.MavenArtifactRepository;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
+import org.gradle.internal.UncheckedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Calculates a hash of the inputs that determine the resolved dependencies of a project:
+ * the build scripts of the project and its ancestors, the settings and init scripts, the repositories of the project,
+ * and the dependencies declared by the project and every project that it depends on, along with their build scripts.
+ *
+ * <p>No hash is calculated for a project whose resolved dependencies can change even when these inputs do not,
+ * such as a project that declares a dependency with a dynamic version or on a changing module. As such versions and modules can also be reached
+ * transitively, the resolved dependency graphs of a project must also be checked using {@link #hasStableGraphs(Project)} before its result is reused.</p>
+ */
+class ProjectDependencyInputsHasher {
+    private final StartParameter startParameter;
+
+    ProjectDependencyInputsHasher(StartParameter startParameter) {
+        this.startParameter = startParameter;
+    }
+
+    /**
+     * Returns the hash of the inputs of the given project, or null when the resolved dependencies of the project cannot be reused.
+     *
+     * @param modelSettings The settings of the IDE model that affect the dependencies of the project.
+     */
+    @Nullable
+    public HashCode hash(Project project, String modelSettings) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(project.getPath(), Charsets.UTF_8);
+        hasher.putString(modelSettings, Charsets.UTF_8);
+        hasher.putBoolean(startParameter.isOffline());
+        File settingsFile = startParameter.getSettingsFile() != null ? startParameter.getSettingsFile() : new File(project.getRootDir(), "settings.gradle");
+        hashFile(settingsFile, hasher);
+        hashFile(new File(project.getRootDir(), "gradle.properties"), hasher);
+        for (File initScript : startParameter.getAllInitScripts()) {
+            hashFile(initScript, hasher);
+        }
+        for (Project ancestor = project.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            hashFile(ancestor.getBuildFile(), hasher);
+        }
+        for (ArtifactRepository repository : project.getRepositories()) {
+            hashRepository(repository, hasher);
+        }
+
+        Set<Project> seen = new HashSet<Project>();
+        Deque<Project> queue = new ArrayDeque<Project>();
+        queue.add(project);
+        seen.add(project);
+        while (!queue.isEmpty()) {
+            Project current = queue.removeFirst();
+            hasher.putString(current.getPath(), Charsets.UTF_8);
+            hashFile(current.getBuildFile(), hasher);
+            hashFile(new File(current.getProjectDir(), "gradle.properties"), hasher);
+            for (Configuration configuration : current.getConfigurations()) {
+                if (!hashConfiguration(configuration, hasher)) {
+                    return null;
+                }
+                for (ProjectDependency dependency : configuration.getDependencies().withType(ProjectDependency.class)) {
+                    Project target = dependency.getDependencyProject();
+                    if (seen.add(target)) {
+                        queue.add(target);
+                    }
+                }
+            }
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Returns true when every configuration of the given project that has been resolved was resolved without failures,
+     * and its dependency graph does not contain any dynamic versions or changing modules, including transitive ones.
+     * Maven snapshots are treated as changing modules.
+     */
+    public boolean hasStableGraphs(Project project) {
+        for (Configuration configuration : project.getConfigurations()) {
+            if (configuration.getState() == Configuration.State.UNRESOLVED) {
+                continue;
+            }
+            if (configuration.getState() == Configuration.State.RESOLVED_WITH_FAILURES) {
+                return false;
+            }
+            for (DependencyResult dependency : configuration.getIncoming().getResolutionResult().getAllDependencies()) {
+                if (dependency instanceof UnresolvedDependencyResult) {
+                    return false;
+                }
+                ComponentSelector requested = dependency.getRequested();
+                if (requested instanceof ModuleComponentSelector && isDynamic(((ModuleComponentSelector) requested).getVersion())) {
+                    return false;
+                }
+                ComponentIdentifier selected = ((ResolvedDependencyResult) dependency).getSelected().getId();
+                if (selected instanceof ModuleComponentIdentifier && isDynamic(((ModuleComponentIdentifier) selected).getVersion())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean hashConfiguration(Configuration configuration, Hasher hasher) {
+        hasher.putString(configuration.getName(), Charsets.UTF_8);
+        hasher.putBoolean(configuration.isTransitive());
+        for (Configuration parent : configuration.getExtendsFrom()) {
+            hasher.putString(parent.getName(), Charsets.UTF_8);
+        }
+        for (ExcludeRule excludeRule : configuration.getExcludeRules()) {
+            hashExcludeRule(excludeRule, hasher);
+        }
+        for (Dependency dependency : configuration.getDependencies()) {
+            hasher.putString(dependency.getClass().getName(), Charsets.UTF_8);
+            hasher.putString(String.valueOf(dependency.getGroup()), Charsets.UTF_8);
+            hasher.putString(String.valueOf(dependency.getName()), Charsets.UTF_8);
+            hasher.putString(String.valueOf(dependency.getVersion()), Charsets.UTF_8);
+            if (dependency instanceof ExternalModuleDependency) {
+                ExternalModuleDependency externalDependency = (ExternalModuleDependency) dependency;
+                if (externalDependency.isChanging() || isDynamic(externalDependency.getVersion())) {
+                    return false;
+                }
+                hasher.putBoolean(externalDependency.isForce());
+            }
+            if (dependency instanceof ModuleDependency) {
+                ModuleDependency moduleDependency = (ModuleDependency) dependency;
+                hasher.putString(String.valueOf(moduleDependency.getConfiguration()), Charsets.UTF_8);
+                hasher.putBoolean(moduleDependency.isTransitive());
+                for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+                    hasher.putString(artifact.getName() + ":" + artifact.getType() + ":" + artifact.getExtension() + ":" + artifact.getClassifier(), Charsets.UTF_8);
+                }
+                for (ExcludeRule excludeRule : moduleDependency.getExcludeRules()) {
+                    hashExcludeRule(excludeRule, hasher);
+                }
+            }
+            if (dependency instanceof SelfResolvingDependency && !(dependency instanceof ProjectDependency)) {
+                for (File file : ((SelfResolvingDependency) dependency).resolve()) {
+                    hasher.putString(file.getAbsolutePath(), Charsets.UTF_8);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void hashExcludeRule(ExcludeRule excludeRule, Hasher hasher) {
+        hasher.putString(excludeRule.getGroup() + ":" + excludeRule.getModule(), Charsets.UTF_8);
+    }
+
+    private static void hashRepository(ArtifactRepository repository, Hasher hasher) {
+        hasher.putString(repository.getClass().getName(), Charsets.UTF_8);
+        hasher.putString(repository.getName(), Charsets.UTF_8);
+        if (repository instanceof MavenArtifactRepository) {
+            MavenArtifactRepository mavenRepository = (MavenArtifactRepository) repository;
+            hasher.putString(String.valueOf(mavenRepository.getUrl()), Charsets.UTF_8);
+            for (URI url : mavenRepository.getArtifactUrls()) {
+                hasher.putString(url.toString(), Charsets.UTF_8);
+            }
+        }
+        if (repository instanceof IvyArtifactRepository) {
+            hasher.putString(String.valueOf(((IvyArtifactRepository) repository).getUrl()), Charsets.UTF_8);
+        }
+        if (repository instanceof FlatDirectoryArtifactRepository) {
+            for (File dir : ((FlatDirectoryArtifactRepository) repository).getDirs()) {
+                hasher.putString(dir.getAbsolutePath(), Charsets.UTF_8);
+            }
+        }
+    }
+
+    private static void hashFile(@Nullable File file, Hasher hasher) {
+        if (file == null || !file.isFile()) {
+            hasher.putBoolean(false);
+            return;
+        }
+        hasher.putBoolean(true);
+        hasher.putString(file.getAbsolutePath(), Charsets.UTF_8);
+        try {
+            hasher.putBytes(Files.hash(file, Hashing.md5()).asBytes());
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static boolean isDynamic(@Nullable String version) {
+        return version == null
+            || version.contains("+")
+            || version.startsWith("[")
+            || version.startsWith("]")
+            || version.startsWith("(")
+            || version.startsWith("latest.")
+            || version.endsWith("SNAPSHOT");
+    }
+}
@@ -20,15 +20,21 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublica
 import org.gradle.api.internal.project.ProjectTaskLister;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.service.scopes.GradleUserHomeScopePluginServices;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.internal.DefaultToolingModelBuilderRegistry;
 
-public class ToolingModelServices implements PluginServiceRegistry {
+public class ToolingModelServices implements PluginServiceRegistry, GradleUserHomeScopePluginServices {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
     }
 
+    @Override
+    public void registerGradleUserHomeServices(ServiceRegistration registration) {
+        registration.add(IdeDependencyCache.class);
+    }
+
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
     }
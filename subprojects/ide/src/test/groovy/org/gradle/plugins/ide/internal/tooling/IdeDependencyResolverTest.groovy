@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.plugins.ide.internal.tooling
+
+import org.gradle.StartParameter
+import org.gradle.api.Project
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.service.ServiceRegistry
+import org.gradle.test.fixtures.AbstractProjectBuilderSpec
+import org.gradle.testfixtures.ProjectBuilder
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class IdeDependencyResolverTest extends AbstractProjectBuilderSpec {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+    def cache = new IdeDependencyCache()
+    def startParameter = new StartParameter()
+    def executorFactory = new DefaultExecutorFactory()
+    def services = Stub(ServiceRegistry) {
+        get(IdeDependencyCache) >> cache
+        get(StartParameter) >> startParameter
+        get(ExecutorFactory) >> executorFactory
+    }
+    def resolution = new TestResolution()
+    Project child1
+    Project child2
+
+    def setup() {
+        child1 = ProjectBuilder.builder().withName("child1").withParent(project).build()
+        child2 = ProjectBuilder.builder().withName("child2").withParent(project).build()
+        [child1, child2].each {
+            it.configurations.create("compile")
+            it.file("lib.jar").text = "jar"
+            resolution.results[it] = [it.file("lib.jar")]
+        }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolves each project when caching is disabled"() {
+        def services = Mock(ServiceRegistry)
+
+        when:
+        def results = new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        results.keySet() as List == [child1, child2]
+        results[child1] == [child1.file("lib.jar")]
+        resolution.resolved == [child1, child2, child1, child2]
+        0 * services._
+    }
+
+    def "reuses dependencies resolved by an earlier build when inputs have not changed"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        def results = new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2]
+        results[child2] == [child2.file("lib.jar")]
+    }
+
+    def "resolves project again when its build script changes"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        child1.file("build.gradle").text = "// changed"
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1]
+    }
+
+    def "resolves all projects again when the build script of a common ancestor changes"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        project.file("build.gradle").text = "// changed"
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1, child2]
+    }
+
+    def "resolves project again when the declared dependencies of a project it depends on change"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+        child1.dependencies.add("compile", child2)
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        child2.dependencies.add("compile", "org:lib:1.0")
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1, child2]
+    }
+
+    def "does not reuse dependencies of project with dynamic dependencies"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+        child1.dependencies.add("compile", "org:lib:1.+")
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1]
+    }
+
+    def "does not reuse dependencies of project with dynamic versions in its transitive dependency graph"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+        def repo = temporaryFolder.createDir("repo")
+        publish(repo, "lib", "1.0", "<dependency><groupId>org</groupId><artifactId>other</artifactId><version>[1.0,2.0)</version></dependency>")
+        publish(repo, "other", "1.1", "")
+        child1.repositories.maven { url repo }
+        child1.dependencies.add("compile", "org:lib:1.0")
+
+        when:
+        child1.configurations.compile.incoming.resolutionResult.allDependencies
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1]
+    }
+
+    def "does not reuse dependencies of project with unresolved dependencies in its transitive dependency graph"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+        child1.dependencies.add("compile", child2)
+        child2.dependencies.add("compile", "org:missing:1.0")
+
+        when:
+        child1.configurations.compile.incoming.resolutionResult.allDependencies
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1]
+    }
+
+    def "does not reuse dependencies when a referenced file no longer exists"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        child2.file("lib.jar").delete()
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child2]
+    }
+
+    def "does not reuse dependencies that cannot be reused"() {
+        System.setProperty(IdeDependencyCache.ENABLED_PROPERTY, "true")
+        resolution.notReusable << child1
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        resolution.resolved == [child1, child2, child1]
+    }
+
+    def "resolves projects in parallel"() {
+        System.setProperty(IdeDependencyResolver.PARALLEL_PROPERTY, "true")
+        startParameter.maxWorkerCount = 2
+
+        when:
+        def results = new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        results.keySet() as List == [child1, child2]
+        results[child1] == [child1.file("lib.jar")]
+        results[child2] == [child2.file("lib.jar")]
+        resolution.resolved as Set == [child1, child2] as Set
+    }
+
+    def "propagates failure to resolve project in parallel"() {
+        System.setProperty(IdeDependencyResolver.PARALLEL_PROPERTY, "true")
+        startParameter.maxWorkerCount = 2
+        def failure = new RuntimeException("broken")
+        resolution.failures[child2] = failure
+
+        when:
+        new IdeDependencyResolver(services).resolveAll([child1, child2], resolution)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    private static void publish(File repo, String name, String version, String dependencies) {
+        def dir = new File(repo, "org/$name/$version")
+        dir.mkdirs()
+        new File(dir, "$name-${version}.pom").text = """<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>org</groupId>
+    <artifactId>$name</artifactId>
+    <version>$version</version>
+    <packaging>pom</packaging>
+    <dependencies>$dependencies</dependencies>
+</project>"""
+    }
+
+    static class TestResolution implements IdeDependencyResolver.ProjectResolution<List<File>> {
+        final Map<Project, List<File>> results = [:]
+        final Map<Project, RuntimeException> failures = [:]
+        final List<Project> resolved = new CopyOnWriteArrayList<Project>()
+        final Set<Project> notReusable = []
+
+        @Override
+        String getModelKind() {
+            return "test"
+        }
+
+        @Override
+        String getSettings(Project project) {
+            return ""
+        }
+
+        @Override
+        List<File> resolve(Project project) {
+            resolved << project
+            if (failures[project]) {
+                throw failures[project]
+            }
+            return results[project]
+        }
+
+        @Override
+        boolean canReuse(Project project, List<File> result) {
+            return !notReusable.contains(project)
+        }
+
+        @Override
+        Iterable<File> getFiles(List<File> result) {
+            return result
+        }
+    }
+}
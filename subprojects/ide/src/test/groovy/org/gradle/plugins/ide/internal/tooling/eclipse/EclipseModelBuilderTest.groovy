@@ -32,6 +32,7 @@ import org.gradle.plugins.ear.EarPlugin
 import org.gradle.plugins.ide.eclipse.EclipsePlugin
 import org.gradle.plugins.ide.eclipse.EclipseWtpPlugin
 import org.gradle.plugins.ide.eclipse.model.BuildCommand
+import org.gradle.plugins.ide.eclipse.model.Library
 import org.gradle.plugins.ide.internal.tooling.EclipseModelBuilder
 import org.gradle.plugins.ide.internal.tooling.GradleProjectBuilder
 import org.gradle.test.fixtures.AbstractProjectBuilderSpec
@@ -295,6 +296,27 @@ class EclipseModelBuilderTest extends AbstractProjectBuilderSpec {
         ['e1', 'e2'] | ['i1', 'i2']
     }
 
+    def "uses resolved dependencies when merging the default classpath file of java projects"() {
+        given:
+        def modelBuilder = createEclipseModelBuilder()
+        project.plugins.apply(JavaPlugin)
+        def lib = project.file("lib/lib.jar")
+        project.dependencies.add("compile", project.files(lib))
+        def mergedEntries = []
+        def beforeMergedCalled = false
+        project.eclipse.classpath.file.beforeMerged { beforeMergedCalled = true }
+        project.eclipse.classpath.file.whenMerged { classpath -> mergedEntries.addAll(classpath.entries) }
+
+        when:
+        def eclipseModel = modelBuilder.buildAll("org.gradle.tooling.model.eclipse.EclipseProject", project)
+
+        then:
+        project.eclipse.classpath.file != null
+        beforeMergedCalled
+        mergedEntries.findAll { it instanceof Library }*.library*.file == [lib]
+        eclipseModel.classpath*.file == [lib]
+    }
+
     private def createEclipseModelBuilder() {
         def gradleProjectBuilder = Mock(GradleProjectBuilder)
         gradleProjectBuilder.buildAll(_) >> Mock(DefaultGradleProject)
@@ -26,9 +26,12 @@ import org.slf4j.LoggerFactory;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
@@ -42,6 +45,10 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK Java compiler API.");
 
+        if (SharedJavaFileManagers.isEnabled()) {
+            return executeWithSharedFileManager(spec);
+        }
+
         JavaCompiler.CompilationTask task = createCompileTask(spec);
         boolean success = task.call();
         if (!success) {
@@ -51,12 +58,47 @@ public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable
         return new SimpleWorkResult(true);
     }
 
+    private WorkResult executeWithSharedFileManager(JavaCompileSpec spec) {
+        SharedJavaFileManagers fileManagers = SharedJavaFileManagers.getInstance();
+        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
+        List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
+        Iterable<File> classpath = spec.getClasspath() == null ? Collections.<File>emptyList() : spec.getClasspath();
+        SharedJavaFileManagers.SharedFileManager sharedFileManager = fileManagers.acquire(compiler, getCharset(spec), options, classpath);
+        long start = System.nanoTime();
+        boolean success;
+        boolean completed = false;
+        try {
+            StandardJavaFileManager fileManager = sharedFileManager.getFileManager();
+            Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
+            success = compiler.getTask(null, fileManager, null, options, null, compilationUnits).call();
+            completed = true;
+        } finally {
+            // The file manager may be left in an unknown state by any failure, including errors such as OutOfMemoryError
+            if (completed) {
+                fileManagers.release(sharedFileManager);
+            } else {
+                fileManagers.discard(sharedFileManager);
+            }
+        }
+        LOGGER.info("Compiled using {} Java file manager in {} ms, {} of {} classpath jars were already open.",
+            sharedFileManager.isReused() ? "shared" : "new", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), sharedFileManager.getReusedJarCount(), sharedFileManager.getClasspathJarCount());
+        if (!success) {
+            throw new CompilationFailedException();
+        }
+
+        return new SimpleWorkResult(true);
+    }
+
     private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec) {
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
         JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
-        CompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, getCharset(spec));
         Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
         return compiler.getTask(null, null, null, options, null, compilationUnits);
     }
+
+    private static Charset getCharset(JavaCompileSpec spec) {
+        CompileOptions compileOptions = spec.getCompileOptions();
+        return compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+    }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares Java file managers between compilations in the same process, so that javac does not need to open and index the same classpath jars for every compilation.
+ *
+ * <p>Each file manager is used by a single compilation at a time. A file manager remembers the size and timestamp of every jar it has been used with,
+ * and is discarded when one of these jars changes, as the file manager does not notice changes to jars that it has already opened.</p>
+ *
+ * <p>javac only updates the locations of a file manager for the options that are present, so the class path, source path, annotation processor path
+ * and output locations are reset before each use. The platform class path cannot be reset reliably, so file managers are only shared between
+ * compilations that use the same options for the platform class path.</p>
+ *
+ * <p>Enabled using the {@value #ENABLED_PROPERTY} system property. When compiling in a compiler daemon, the property needs to be set on the daemon using
+ * the fork options. File managers keep the jars they have opened open, which prevents the jars from being deleted on Windows.</p>
+ */
+@ThreadSafe
+public class SharedJavaFileManagers {
+    public static final String ENABLED_PROPERTY = "org.gradle.java.compile.shared-file-manager";
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedJavaFileManagers.class);
+    private static final int MAX_IDLE_PER_KEY = 4;
+    private static final List<String> PLATFORM_OPTIONS_WITH_VALUE = Arrays.asList("-bootclasspath", "-extdirs", "-endorseddirs", "-release", "--release", "--system");
+    private static final List<String> PLATFORM_OPTION_PREFIXES = Arrays.asList("-Xbootclasspath", "-Djava.ext.dirs=", "-Djava.endorsed.dirs=", "--boot-class-path", "--release=", "--system=");
+    private static final SharedJavaFileManagers INSTANCE = new SharedJavaFileManagers();
+
+    private final Map<Key, LinkedList<SharedFileManager>> idle = new HashMap<Key, LinkedList<SharedFileManager>>();
+    private final Object lock = new Object();
+    private long reused;
+    private long created;
+
+    SharedJavaFileManagers() {
+    }
+
+    public static SharedJavaFileManagers getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns a file manager for a compilation with the given compiler options and classpath. The file manager must be released once the compilation has completed.
+     */
+    public SharedFileManager acquire(JavaCompiler compiler, @Nullable Charset charset, List<String> options, Iterable<File> classpath) {
+        Key key = new Key(compiler.getClass(), charset, platformOptions(options));
+        List<SharedFileManager> stale = new ArrayList<SharedFileManager>();
+        SharedFileManager fileManager = null;
+        synchronized (lock) {
+            LinkedList<SharedFileManager> candidates = idle.get(key);
+            if (candidates != null) {
+                for (Iterator<SharedFileManager> iterator = candidates.iterator(); iterator.hasNext() && fileManager == null;) {
+                    SharedFileManager candidate = iterator.next();
+                    iterator.remove();
+                    if (candidate.isUpToDate()) {
+                        fileManager = candidate;
+                    } else {
+                        stale.add(candidate);
+                    }
+                }
+            }
+            if (fileManager != null) {
+                reused++;
+            } else {
+                created++;
+            }
+        }
+        for (SharedFileManager staleFileManager : stale) {
+            staleFileManager.close();
+        }
+        if (fileManager == null) {
+            fileManager = new SharedFileManager(key, compiler.getStandardFileManager(null, null, charset));
+        }
+        try {
+            fileManager.startUse(classpath);
+        } catch (IOException e) {
+            fileManager.close();
+            throw new UncheckedIOException(e);
+        }
+        return fileManager;
+    }
+
+    private static List<String> platformOptions(List<String> options) {
+        List<String> platformOptions = new ArrayList<String>();
+        for (int i = 0; i < options.size(); i++) {
+            String option = options.get(i);
+            if (PLATFORM_OPTIONS_WITH_VALUE.contains(option)) {
+                platformOptions.add(option);
+                if (i + 1 < options.size()) {
+                    platformOptions.add(options.get(++i));
+                }
+                continue;
+            }
+            for (String prefix : PLATFORM_OPTION_PREFIXES) {
+                if (option.startsWith(prefix)) {
+                    platformOptions.add(option);
+                    break;
+                }
+            }
+        }
+        return platformOptions;
+    }
+
+    /**
+     * Makes the given file manager available to other compilations.
+     */
+    public void release(SharedFileManager fileManager) {
+        SharedFileManager evicted = null;
+        synchronized (lock) {
+            LinkedList<SharedFileManager> candidates = idle.get(fileManager.key);
+            if (candidates == null) {
+                candidates = new LinkedList<SharedFileManager>();
+                idle.put(fileManager.key, candidates);
+            }
+            candidates.addFirst(fileManager);
+            if (candidates.size() > MAX_IDLE_PER_KEY) {
+                evicted = candidates.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    /**
+     * Discards the given file manager, for example because the compilation failed unexpectedly.
+     */
+    public void discard(SharedFileManager fileManager) {
+        fileManager.close();
+    }
+
+    public long getReusedCount() {
+        synchronized (lock) {
+            return reused;
+        }
+    }
+
+    public long getCreatedCount() {
+        synchronized (lock) {
+            return created;
+        }
+    }
+
+    /**
+     * A file manager, along with the jars that it has been used with.
+     */
+    public static class SharedFileManager {
+        private final Key key;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, FileState> jars = new HashMap<File, FileState>();
+        private int useCount;
+        private int reusedJars;
+        private int classpathJars;
+
+        private SharedFileManager(Key key, StandardJavaFileManager fileManager) {
+            this.key = key;
+            this.fileManager = fileManager;
+        }
+
+        public StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        /**
+         * Returns true when this file manager has been used by an earlier compilation.
+         */
+        public boolean isReused() {
+            return useCount > 1;
+        }
+
+        /**
+         * The number of jars on the classpath of the current compilation that this file manager had already been used with.
+         */
+        public int getReusedJarCount() {
+            return reusedJars;
+        }
+
+        /**
+         * The number of jars on the classpath of the current compilation.
+         */
+        public int getClasspathJarCount() {
+            return classpathJars;
+        }
+
+        private boolean isUpToDate() {
+            for (Map.Entry<File, FileState> entry : jars.entrySet()) {
+                if (!entry.getValue().equals(FileState.of(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void startUse(Iterable<File> classpath) throws IOException {
+            useCount++;
+            reusedJars = 0;
+            classpathJars = 0;
+            // Locations set by an earlier compilation are only replaced by javac for the options that are present
+            fileManager.setLocation(StandardLocation.CLASS_PATH, Lists.newArrayList(classpath));
+            fileManager.setLocation(StandardLocation.SOURCE_PATH, Collections.<File>emptyList());
+            fileManager.setLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH, null);
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, null);
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, null);
+            for (File file : classpath) {
+                if (!file.isFile()) {
+                    continue;
+                }
+                classpathJars++;
+                if (jars.containsKey(file)) {
+                    reusedJars++;
+                } else {
+                    jars.put(file, FileState.of(file));
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close Java file manager.", e);
+            }
+        }
+    }
+
+    private static class FileState {
+        private final long length;
+        private final long lastModified;
+
+        private FileState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static FileState of(File file) {
+            return new FileState(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileState other = (FileState) o;
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(length, lastModified);
+        }
+    }
+
+    private static class Key {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final List<String> platformOptions;
+
+        private Key(Class<?> compilerType, @Nullable Charset charset, List<String> platformOptions) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.platformOptions = platformOptions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return compilerType.equals(other.compilerType) && Objects.equal(charset, other.charset) && platformOptions.equals(other.platformOptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(compilerType, charset, platformOptions);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import java.nio.charset.Charset
+
+class SharedJavaFileManagersTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def fileManagers = new SharedJavaFileManagers()
+
+    def "reuses released file manager"() {
+        def jar = tmpDir.createFile("lib.jar")
+        def fileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def first = fileManagers.acquire(compiler, null, [], [jar])
+        fileManagers.release(first)
+        def second = fileManagers.acquire(compiler, null, [], [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        second.is(first)
+        second.fileManager.is(fileManager)
+        second.reused
+        second.reusedJarCount == 1
+        second.classpathJarCount == 1
+        fileManagers.reusedCount == 1
+        fileManagers.createdCount == 1
+    }
+
+    def "does not share file manager that is in use"() {
+        when:
+        def first = fileManagers.acquire(compiler, null, [], [])
+        def second = fileManagers.acquire(compiler, null, [], [])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+        !second.is(first)
+        !second.reused
+    }
+
+    def "does not share file manager between charsets"() {
+        def utf8 = Charset.forName("UTF-8")
+
+        when:
+        fileManagers.release(fileManagers.acquire(compiler, null, [], []))
+        def fileManager = fileManagers.acquire(compiler, utf8, [], [])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+        1 * compiler.getStandardFileManager(null, null, utf8) >> Mock(StandardJavaFileManager)
+        !fileManager.reused
+    }
+
+    def "discards file manager when a jar it has used has changed"() {
+        def jar = tmpDir.createFile("lib.jar")
+        def staleFileManager = Mock(StandardJavaFileManager)
+
+        given:
+        compiler.getStandardFileManager(null, null, null) >>> [staleFileManager, Mock(StandardJavaFileManager)]
+        fileManagers.release(fileManagers.acquire(compiler, null, [], [jar]))
+
+        when:
+        jar.text = "changed"
+        jar.lastModified = jar.lastModified() - 2000
+        def fileManager = fileManagers.acquire(compiler, null, [], [jar])
+
+        then:
+        1 * staleFileManager.close()
+        !fileManager.reused
+        fileManager.reusedJarCount == 0
+    }
+
+    def "does not share file manager between different platform class paths"() {
+        when:
+        fileManagers.release(fileManagers.acquire(compiler, null, ["-bootclasspath", "a.jar"], []))
+        def fileManager = fileManagers.acquire(compiler, null, ["-bootclasspath", "b.jar"], [])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >> Mock(StandardJavaFileManager)
+        !fileManager.reused
+    }
+
+    def "resets locations of shared file manager"() {
+        def jar = tmpDir.createFile("lib.jar")
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+        fileManagers.release(fileManagers.acquire(compiler, null, [], [jar]))
+
+        when:
+        fileManagers.acquire(compiler, null, [], [])
+
+        then:
+        1 * fileManager.setLocation(StandardLocation.CLASS_PATH, [])
+        1 * fileManager.setLocation(StandardLocation.SOURCE_PATH, [])
+        1 * fileManager.setLocation(StandardLocation.ANNOTATION_PROCESSOR_PATH, null)
+        1 * fileManager.setLocation(StandardLocation.CLASS_OUTPUT, null)
+        1 * fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, null)
+    }
+
+    @Requires(TestPrecondition.JDK)
+    def "compiles specs with different classpaths using shared file manager"() {
+        def libClasses = tmpDir.createDir("lib-classes")
+        def libSource = tmpDir.file("lib/Lib.java") << "public class Lib {}"
+        def withLibSource = tmpDir.file("a/A.java") << "public class A extends Lib {}"
+        def withoutLibSource = tmpDir.file("b/B.java") << "public class B extends Lib {}"
+        def javaCompiler = new JdkJavaCompiler({ JdkTools.current().systemJavaCompiler } as Factory<JavaCompiler>)
+        System.setProperty(SharedJavaFileManagers.ENABLED_PROPERTY, "true")
+
+        when:
+        javaCompiler.execute(compileSpec(libSource, [], libClasses))
+        javaCompiler.execute(compileSpec(withLibSource, [libClasses], tmpDir.createDir("a-classes")))
+
+        then:
+        tmpDir.file("a-classes/A.class").file
+
+        when:
+        javaCompiler.execute(compileSpec(withoutLibSource, [], tmpDir.createDir("b-classes")))
+
+        then:
+        thrown(CompilationFailedException)
+
+        cleanup:
+        System.clearProperty(SharedJavaFileManagers.ENABLED_PROPERTY)
+    }
+
+    private JavaCompileSpec compileSpec(File source, List<File> classpath, File destinationDir) {
+        def spec = new DefaultJavaCompileSpec()
+        spec.tempDir = tmpDir.createDir("tmp")
+        spec.compileOptions = new CompileOptions()
+        spec.source = new SimpleFileCollection(source)
+        spec.classpath = classpath
+        spec.destinationDir = destinationDir
+        spec
+    }
+
+    def "closes discarded file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(null, null, null) >> fileManager
+
+        when:
+        fileManagers.discard(fileManagers.acquire(compiler, null, [], []))
+
+        then:
+        1 * fileManager.close()
+    }
+}
@@ -17,29 +17,51 @@ package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CompilerClientsManager {
 
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
 
     private final Object lock = new Object();
-    private final List<CompilerDaemonClient> allClients = new ArrayList<CompilerDaemonClient>();
+    private final Map<CompilerDaemonClient, CompilerDaemonPool.DaemonRequest> allClients = new LinkedHashMap<CompilerDaemonClient, CompilerDaemonPool.DaemonRequest>();
     private final List<CompilerDaemonClient> idleClients = new ArrayList<CompilerDaemonClient>();
+    private StoppableExecutor prewarmExecutor;
 
-    private CompilerDaemonStarter compilerDaemonStarter;
+    private final CompilerDaemonStarter compilerDaemonStarter;
+    private final CompilerDaemonPool pool;
 
     public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter) {
+        this(compilerDaemonStarter, new CompilerDaemonPool(false, false, 0, 0, new TrueTimeProvider(), null));
+    }
+
+    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter, CompilerDaemonPool pool) {
         this.compilerDaemonStarter = compilerDaemonStarter;
+        this.pool = pool;
     }
 
-    public CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+    public CompilerDaemonClient reserveIdleClient(File workingDir, DaemonForkOptions forkOptions) {
+        CompilerDaemonClient client = reserveIdleClient(forkOptions, idleClients);
+        if (client == null) {
+            CompilerDaemonPool.DaemonRequest request = new CompilerDaemonPool.DaemonRequest(workingDir, forkOptions);
+            client = pool.reserveIdleClient(request, compilerDaemonStarter.getLogLevel());
+            if (client != null) {
+                synchronized (lock) {
+                    allClients.put(client, request);
+                }
+            }
+        }
+        return client;
     }
 
     CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
@@ -57,10 +79,11 @@ public class CompilerClientsManager {
     }
 
     public CompilerDaemonClient reserveNewClient(File workingDir, DaemonForkOptions forkOptions) {
+        pool.makeRoomFor(forkOptions);
         //allow the daemon to be started concurrently
         CompilerDaemonClient client = compilerDaemonStarter.startDaemon(workingDir, forkOptions);
         synchronized (lock) {
-            allClients.add(client);
+            allClients.put(client, new CompilerDaemonPool.DaemonRequest(workingDir, forkOptions));
         }
         return client;
     }
@@ -71,12 +94,45 @@ public class CompilerClientsManager {
         }
     }
 
+    /**
+     * Starts the daemons used by the previous build that are not available from the pool, in the background.
+     */
+    public void prewarm(ExecutorFactory executorFactory) {
+        List<CompilerDaemonPool.DaemonRequest> requests = pool.getDaemonsToPrewarm(compilerDaemonStarter.getLogLevel());
+        if (requests.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Starting {} compiler daemon(s) in advance.", requests.size());
+        synchronized (lock) {
+            if (prewarmExecutor == null) {
+                prewarmExecutor = executorFactory.create("Compiler daemon prewarm");
+            }
+            for (final CompilerDaemonPool.DaemonRequest request : requests) {
+                prewarmExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        release(reserveNewClient(request.getWorkingDir(), request.getForkOptions()));
+                    }
+                });
+            }
+        }
+    }
+
     public void stop() {
+        StoppableExecutor executor;
+        synchronized (lock) {
+            executor = prewarmExecutor;
+            prewarmExecutor = null;
+        }
+        try {
+            CompositeStoppable.stoppable(executor).stop();
+        } catch (Exception e) {
+            LOGGER.debug("Could not start compiler daemon in advance.", e);
+        }
         synchronized (lock) {
-            LOGGER.debug("Stopping {} compiler daemon(s).", allClients.size());
-            CompositeStoppable.stoppable(allClients).stop();
-            LOGGER.info("Stopped {} compiler daemon(s).", allClients.size());
+            pool.retain(new LinkedHashMap<CompilerDaemonClient, CompilerDaemonPool.DaemonRequest>(allClients), compilerDaemonStarter.getLogLevel());
             allClients.clear();
+            idleClients.clear();
         }
     }
-}
\ No newline at end of file
+}
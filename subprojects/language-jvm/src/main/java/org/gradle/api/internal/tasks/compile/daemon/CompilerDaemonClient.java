@@ -35,6 +35,10 @@ class CompilerDaemonClient implements CompilerDaemon, Stoppable {
         return workerProcess.execute(compiler, spec);
     }
 
+    public DaemonForkOptions getForkOptions() {
+        return forkOptions;
+    }
+
     public boolean isCompatibleWith(DaemonForkOptions required) {
         return forkOptions.isCompatibleWith(required);
     }
@@ -22,7 +22,7 @@ import org.gradle.language.base.internal.compile.CompileSpec;
 import java.io.File;
 
 /**
- * Controls the lifecycle of the compiler daemon and provides access to it.
+ * Controls the lifecycle of the compiler daemon and provides access to it. Daemons are handed over to the {@link CompilerDaemonPool} when stopped.
  */
 @ThreadSafe
 public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
@@ -37,7 +37,7 @@ public class CompilerDaemonManager implements CompilerDaemonFactory, Stoppable {
     public CompilerDaemon getDaemon(final File workingDir, final DaemonForkOptions forkOptions) {
         return new CompilerDaemon() {
             public <T extends CompileSpec> CompileResult execute(org.gradle.language.base.internal.compile.Compiler<T> compiler, T spec) {
-                CompilerDaemonClient client = clientsManager.reserveIdleClient(forkOptions);
+                CompilerDaemonClient client = clientsManager.reserveIdleClient(workingDir, forkOptions);
                 if (client == null) {
                     client = clientsManager.reserveNewClient(workingDir, forkOptions);
                 }
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps idle compiler daemons alive between builds, so that later builds do not need to start them again.
+ *
+ * <p>A daemon is only reused by a build with the same working directory and log level as the build that started it.
+ * The daemons kept by the pool are bounded by the sum of their maximum heap sizes. When the bound is exceeded, the least recently used daemons
+ * are stopped. Daemons that have been idle for longer than the idle timeout are stopped by a background check, or earlier when the pool is
+ * used, and daemons that do not fit into the pool at all are not kept.</p>
+ *
+ * <p>The pool also remembers which daemons were used by the last build, so that they can be started in advance by the next build.</p>
+ *
+ * <p>Enabled using the {@value #ENABLED_PROPERTY} system property. When disabled, daemons are stopped at the end of each build.</p>
+ */
+@ThreadSafe
+public class CompilerDaemonPool implements Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.compiler.daemon.pool";
+    public static final String MAX_HEAP_PROPERTY = "org.gradle.compiler.daemon.pool.maxheap";
+    public static final String PREWARM_PROPERTY = "org.gradle.compiler.daemon.pool.prewarm";
+    private static final Logger LOGGER = Logging.getLogger(CompilerDaemonPool.class);
+    private static final int DEFAULT_MAX_HEAP_MB = 2048;
+    // Heap size assumed for daemons that do not specify a maximum heap size
+    private static final int ASSUMED_HEAP_MB = 512;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final boolean enabled;
+    private final boolean prewarm;
+    private final int maxHeapMb;
+    private final long idleTimeoutMillis;
+    private final TimeProvider timeProvider;
+    private final Object lock = new Object();
+    // Most recently used first
+    private final LinkedList<PooledClient> idleClients = new LinkedList<PooledClient>();
+    private List<DaemonRequest> lastBuildRequests = new ArrayList<DaemonRequest>();
+    // The following are guarded by lock
+    private ScheduledExecutorService expiryExecutor;
+    private ScheduledFuture<?> expiryCheck;
+    private boolean stopped;
+
+    public CompilerDaemonPool(TimeProvider timeProvider) {
+        this(Boolean.getBoolean(ENABLED_PROPERTY), Boolean.getBoolean(PREWARM_PROPERTY), Integer.getInteger(MAX_HEAP_PROPERTY, DEFAULT_MAX_HEAP_MB), IDLE_TIMEOUT_MILLIS, timeProvider, null);
+    }
+
+    /**
+     * @param expiryExecutor Runs the idle expiry check. When null, an executor is created when the first daemon is kept.
+     */
+    CompilerDaemonPool(boolean enabled, boolean prewarm, int maxHeapMb, long idleTimeoutMillis, TimeProvider timeProvider, @Nullable ScheduledExecutorService expiryExecutor) {
+        this.enabled = enabled;
+        this.prewarm = enabled && prewarm;
+        this.maxHeapMb = maxHeapMb;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.timeProvider = timeProvider;
+        this.expiryExecutor = expiryExecutor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves an idle daemon that satisfies the given request and was started with the given log level. Returns null when there is no such daemon.
+     */
+    @Nullable
+    public CompilerDaemonClient reserveIdleClient(DaemonRequest request, LogLevel logLevel) {
+        if (!enabled) {
+            return null;
+        }
+        List<CompilerDaemonClient> expired = new ArrayList<CompilerDaemonClient>();
+        try {
+            synchronized (lock) {
+                removeExpired(expired);
+                for (Iterator<PooledClient> iterator = idleClients.iterator(); iterator.hasNext();) {
+                    PooledClient candidate = iterator.next();
+                    if (candidate.satisfies(request, logLevel)) {
+                        iterator.remove();
+                        return candidate.client;
+                    }
+                }
+                return null;
+            }
+        } finally {
+            CompositeStoppable.stoppable(expired).stop();
+        }
+    }
+
+    /**
+     * Stops idle daemons, least recently used first, until a daemon with the given fork options fits into the pool alongside the remaining idle daemons.
+     */
+    public void makeRoomFor(DaemonForkOptions forkOptions) {
+        if (!enabled) {
+            return;
+        }
+        List<CompilerDaemonClient> evicted = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            removeExpired(evicted);
+            int required = heapSizeOf(forkOptions);
+            while (!idleClients.isEmpty() && pooledHeapSize() + required > maxHeapMb) {
+                evicted.add(idleClients.removeLast().client);
+            }
+        }
+        stopClients(evicted, "to make room for a new compiler daemon");
+    }
+
+    /**
+     * Takes ownership of the daemons used by a build once the build has finished with them. Daemons that are not kept are stopped.
+     */
+    public void retain(Map<CompilerDaemonClient, DaemonRequest> clients, LogLevel logLevel) {
+        List<CompilerDaemonClient> stopped = new ArrayList<CompilerDaemonClient>();
+        if (!enabled) {
+            stopped.addAll(clients.keySet());
+        } else {
+            synchronized (lock) {
+                lastBuildRequests = new ArrayList<DaemonRequest>(clients.values());
+                long now = timeProvider.getCurrentTime();
+                for (Map.Entry<CompilerDaemonClient, DaemonRequest> entry : clients.entrySet()) {
+                    CompilerDaemonClient client = entry.getKey();
+                    if (heapSizeOf(client.getForkOptions()) > maxHeapMb) {
+                        stopped.add(client);
+                    } else {
+                        idleClients.addFirst(new PooledClient(client, entry.getValue().getWorkingDir(), logLevel, now));
+                    }
+                }
+                removeExpired(stopped);
+                while (pooledHeapSize() > maxHeapMb) {
+                    stopped.add(idleClients.removeLast().client);
+                }
+                scheduleExpiryCheck();
+            }
+        }
+        stopClients(stopped, "at the end of the build");
+    }
+
+    /**
+     * Stops the daemons that have been idle for longer than the idle timeout.
+     */
+    void expireIdleClients() {
+        List<CompilerDaemonClient> expired = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            expiryCheck = null;
+            removeExpired(expired);
+            scheduleExpiryCheck();
+        }
+        stopClients(expired, "as they have been idle for too long");
+    }
+
+    /**
+     * Returns the daemons that should be started in advance, as they were used by the last build but are not available in the pool.
+     */
+    public List<DaemonRequest> getDaemonsToPrewarm(LogLevel logLevel) {
+        List<DaemonRequest> result = new ArrayList<DaemonRequest>();
+        if (!prewarm) {
+            return result;
+        }
+        synchronized (lock) {
+            List<PooledClient> available = new ArrayList<PooledClient>(idleClients);
+            for (DaemonRequest request : lastBuildRequests) {
+                PooledClient match = null;
+                for (PooledClient candidate : available) {
+                    if (candidate.satisfies(request, logLevel)) {
+                        match = candidate;
+                        break;
+                    }
+                }
+                if (match != null) {
+                    available.remove(match);
+                } else {
+                    result.add(request);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void stop() {
+        List<CompilerDaemonClient> stopped = new ArrayList<CompilerDaemonClient>();
+        synchronized (lock) {
+            this.stopped = true;
+            for (PooledClient pooledClient : idleClients) {
+                stopped.add(pooledClient.client);
+            }
+            idleClients.clear();
+            if (expiryExecutor != null) {
+                expiryExecutor.shutdownNow();
+            }
+        }
+        stopClients(stopped, "as the pool has been stopped");
+    }
+
+    /**
+     * Schedules a check for when the daemon that has been idle the longest expires, unless a check is already scheduled.
+     */
+    private void scheduleExpiryCheck() {
+        if (stopped || expiryCheck != null || idleClients.isEmpty()) {
+            return;
+        }
+        if (expiryExecutor == null) {
+            expiryExecutor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("Compiler daemon pool expiry"));
+        }
+        long delay = idleClients.getLast().idleSince + idleTimeoutMillis - timeProvider.getCurrentTime() + 1;
+        expiryCheck = expiryExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                expireIdleClients();
+            }
+        }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+    }
+
+    private void removeExpired(List<CompilerDaemonClient> expired) {
+        long expiry = timeProvider.getCurrentTime() - idleTimeoutMillis;
+        for (Iterator<PooledClient> iterator = idleClients.iterator(); iterator.hasNext();) {
+            PooledClient pooledClient = iterator.next();
+            if (pooledClient.idleSince < expiry) {
+                iterator.remove();
+                expired.add(pooledClient.client);
+            }
+        }
+    }
+
+    private int pooledHeapSize() {
+        int total = 0;
+        for (PooledClient pooledClient : idleClients) {
+            total += heapSizeOf(pooledClient.client.getForkOptions());
+        }
+        return total;
+    }
+
+    private static int heapSizeOf(DaemonForkOptions forkOptions) {
+        int heapSize = forkOptions.getMaxHeapSizeMb();
+        return heapSize > 0 ? heapSize : ASSUMED_HEAP_MB;
+    }
+
+    private static void stopClients(List<CompilerDaemonClient> clients, String reason) {
+        if (!clients.isEmpty()) {
+            LOGGER.debug("Stopping {} compiler daemon(s) {}.", clients.size(), reason);
+            CompositeStoppable.stoppable(clients).stop();
+            LOGGER.info("Stopped {} compiler daemon(s) {}.", clients.size(), reason);
+        }
+    }
+
+    /**
+     * A request for a compiler daemon made by a build.
+     */
+    public static class DaemonRequest {
+        private final File workingDir;
+        private final DaemonForkOptions forkOptions;
+
+        public DaemonRequest(File workingDir, DaemonForkOptions forkOptions) {
+            this.workingDir = workingDir;
+            this.forkOptions = forkOptions;
+        }
+
+        public File getWorkingDir() {
+            return workingDir;
+        }
+
+        public DaemonForkOptions getForkOptions() {
+            return forkOptions;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+
+        DaemonThreadFactory(String displayName) {
+            delegate = new ThreadFactoryImpl(displayName);
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = delegate.newThread(r);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static class PooledClient {
+        final CompilerDaemonClient client;
+        final File workingDir;
+        final LogLevel logLevel;
+        final long idleSince;
+
+        PooledClient(CompilerDaemonClient client, File workingDir, LogLevel logLevel, long idleSince) {
+            this.client = client;
+            this.workingDir = workingDir;
+            this.logLevel = logLevel;
+            this.idleSince = idleSince;
+        }
+
+        boolean satisfies(DaemonRequest request, LogLevel logLevel) {
+            return this.logLevel == logLevel && workingDir.equals(request.getWorkingDir()) && client.isCompatibleWith(request.getForkOptions());
+        }
+    }
+}
@@ -30,7 +30,7 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
 
     def "does not reserve idle client when no clients"() {
         expect:
-        manager.reserveIdleClient(options) == null
+        manager.reserveIdleClient(workingDir, options) == null
     }
 
     def "does not reserve idle client when no matching client found"() {
@@ -86,12 +86,12 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
         manager.reserveNewClient(workingDir, options)
 
         then:
-        manager.reserveIdleClient(options) == null
+        manager.reserveIdleClient(workingDir, options) == null
 
         when:
         manager.release(client)
 
         then:
-        manager.reserveIdleClient(options) == client
+        manager.reserveIdleClient(workingDir, options) == client
     }
 }
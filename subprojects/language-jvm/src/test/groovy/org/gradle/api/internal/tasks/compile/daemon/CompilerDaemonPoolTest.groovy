@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+import static org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonPool.DaemonRequest
+
+class CompilerDaemonPoolTest extends Specification {
+    def timeProvider = Mock(TimeProvider)
+    def workingDir = new File("some-dir")
+    def expiryExecutor = Mock(ScheduledExecutorService)
+    def pool = new CompilerDaemonPool(true, true, 1024, 1000, timeProvider, expiryExecutor)
+    long now = 0
+
+    def setup() {
+        _ * timeProvider.currentTime >> { now }
+    }
+
+    def "reuses retained client for compatible request with same working dir and log level"() {
+        def client = client(256)
+        def request = new DaemonRequest(workingDir, client.forkOptions)
+
+        when:
+        pool.retain([(client): request], LogLevel.LIFECYCLE)
+
+        then:
+        pool.reserveIdleClient(new DaemonRequest(new File("other-dir"), client.forkOptions), LogLevel.LIFECYCLE) == null
+        pool.reserveIdleClient(request, LogLevel.INFO) == null
+        pool.reserveIdleClient(request, LogLevel.LIFECYCLE) == client
+        pool.reserveIdleClient(request, LogLevel.LIFECYCLE) == null
+        0 * client.stop()
+    }
+
+    def "stops least recently used clients when retained heap exceeds the maximum"() {
+        def client1 = client(512)
+        def client2 = client(512)
+        def client3 = client(512)
+
+        when:
+        pool.retain([(client1): request(client1)], LogLevel.LIFECYCLE)
+        pool.retain([(client2): request(client2), (client3): request(client3)], LogLevel.LIFECYCLE)
+
+        then:
+        1 * client1.stop()
+        0 * client2.stop()
+        0 * client3.stop()
+    }
+
+    def "does not retain clients that do not fit into the pool"() {
+        def client = client(2048)
+
+        when:
+        pool.retain([(client): request(client)], LogLevel.LIFECYCLE)
+
+        then:
+        1 * client.stop()
+    }
+
+    def "stops clients that have been idle for longer than the timeout"() {
+        def client = client(256)
+
+        when:
+        pool.retain([(client): request(client)], LogLevel.LIFECYCLE)
+        now = 2000
+        def reserved = pool.reserveIdleClient(request(client), LogLevel.LIFECYCLE)
+
+        then:
+        reserved == null
+        1 * client.stop()
+    }
+
+    def "schedules a check that stops clients once they have been idle for longer than the timeout"() {
+        def client1 = client(256)
+        def client2 = client(256)
+        Runnable check = null
+
+        when:
+        pool.retain([(client1): request(client1)], LogLevel.LIFECYCLE)
+
+        then:
+        1 * expiryExecutor.schedule(_, 1001, TimeUnit.MILLISECONDS) >> { args -> check = args[0]; Stub(ScheduledFuture) }
+
+        when:
+        now = 500
+        pool.retain([(client2): request(client2)], LogLevel.LIFECYCLE)
+
+        then:
+        0 * expiryExecutor.schedule(_, _, _)
+
+        when:
+        now = 1001
+        check.run()
+
+        then:
+        1 * client1.stop()
+        0 * client2.stop()
+        1 * expiryExecutor.schedule(_, 500, TimeUnit.MILLISECONDS) >> Stub(ScheduledFuture)
+    }
+
+    def "makes room for new client by stopping idle clients"() {
+        def client = client(768)
+
+        when:
+        pool.retain([(client): request(client)], LogLevel.LIFECYCLE)
+        pool.makeRoomFor(new DaemonForkOptions(null, "512m", []))
+
+        then:
+        1 * client.stop()
+    }
+
+    def "prewarms clients used by last build that are not available"() {
+        def client1 = client(256)
+        def client2 = client(256)
+
+        when:
+        pool.retain([(client1): request(client1), (client2): request(client2)], LogLevel.LIFECYCLE)
+        pool.reserveIdleClient(request(client1), LogLevel.LIFECYCLE)
+        def toPrewarm = pool.getDaemonsToPrewarm(LogLevel.LIFECYCLE)
+
+        then:
+        toPrewarm.size() == 1
+        toPrewarm[0].workingDir == workingDir
+    }
+
+    def "stops all clients when disabled"() {
+        def pool = new CompilerDaemonPool(false, false, 1024, 1000, timeProvider, expiryExecutor)
+        def client = client(256)
+
+        when:
+        pool.retain([(client): request(client)], LogLevel.LIFECYCLE)
+
+        then:
+        1 * client.stop()
+        pool.reserveIdleClient(request(client), LogLevel.LIFECYCLE) == null
+        pool.getDaemonsToPrewarm(LogLevel.LIFECYCLE).empty
+    }
+
+    def "stops idle clients when stopped"() {
+        def client = client(256)
+
+        when:
+        pool.retain([(client): request(client)], LogLevel.LIFECYCLE)
+        pool.stop()
+
+        then:
+        1 * client.stop()
+        1 * expiryExecutor.shutdownNow()
+    }
+
+    private CompilerDaemonClient client(int heapSizeMb) {
+        def forkOptions = new DaemonForkOptions(null, "${heapSizeMb}m", [])
+        def client = Mock(CompilerDaemonClient)
+        _ * client.forkOptions >> forkOptions
+        _ * client.isCompatibleWith(_) >> { DaemonForkOptions required -> forkOptions.isCompatibleWith(required) }
+        return client
+    }
+
+    private DaemonRequest request(CompilerDaemonClient client) {
+        new DaemonRequest(workingDir, client.forkOptions)
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.language.nativeplatform.internal;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder;
 import org.gradle.internal.operations.logging.BuildOperationLogger;
 import org.gradle.nativeplatform.internal.AbstractBinaryToolSpec;
@@ -37,6 +38,7 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     private File prefixHeaderFile;
     private File preCompiledHeaderObjectFile;
     private Map<File, IncludeDirectives> sourceFileIncludeDirectives;
+    private Map<File, HashCode> sourceFileInputHashes;
     private String preCompiledHeader;
     private DiscoveredInputRecorder discoveredInputRecorder;
 
@@ -193,6 +195,16 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
         this.sourceFileIncludeDirectives = map;
     }
 
+    @Override
+    public Map<File, HashCode> getSourceFileInputHashes() {
+        return sourceFileInputHashes;
+    }
+
+    @Override
+    public void setSourceFileInputHashes(Map<File, HashCode> map) {
+        this.sourceFileInputHashes = map;
+    }
+
     @Override
     public void setDiscoveredInputRecorder(DiscoveredInputRecorder inputs) {
         this.discoveredInputRecorder = inputs;
@@ -21,19 +21,35 @@ import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.gradle.nativeplatform.toolchain.internal.TranslationUnitCachingCompiler;
+
+import java.io.File;
 
 public class IncrementalCompilerBuilder {
     private final FileSnapshotter fileSnapshotter;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final TranslationUnitCacheProvider translationUnitCacheProvider;
 
-    public IncrementalCompilerBuilder(FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalCompilerBuilder(FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory, TranslationUnitCacheProvider translationUnitCacheProvider) {
         this.fileSnapshotter = fileSnapshotter;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.translationUnitCacheProvider = translationUnitCacheProvider;
     }
 
     public <T extends NativeCompileSpec> Compiler<T> createIncrementalCompiler(TaskInternal task, Compiler<T> compiler, NativeToolChain toolchain) {
-        return new IncrementalNativeCompiler<T>(task, fileSnapshotter, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory);
+        return new IncrementalNativeCompiler<T>(task, fileSnapshotter, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory, translationUnitCacheProvider.isEnabled());
+    }
+
+    /**
+     * Decorates the given compiler to restore and store the object file for each source file individually, when caching of translation units is enabled.
+     * Paths under the given root directory are made relative to it in cache keys.
+     */
+    public <T extends NativeCompileSpec> Compiler<T> createTranslationUnitCachingCompiler(Compiler<T> compiler, File rootDir, String toolChainIdentity, String objectFileSuffix) {
+        if (!translationUnitCacheProvider.isEnabled()) {
+            return compiler;
+        }
+        return new TranslationUnitCachingCompiler<T>(compiler, translationUnitCacheProvider.getCache(), rootDir, toolChainIdentity, objectFileSuffix);
     }
 }
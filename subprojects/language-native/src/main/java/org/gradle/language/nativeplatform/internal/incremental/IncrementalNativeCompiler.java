@@ -15,6 +15,10 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileVisitDetails;
@@ -41,7 +45,10 @@ import org.gradle.util.CollectionUtils;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
     private static final Logger LOGGER = Logging.getLogger(IncrementalNativeCompiler.class);
@@ -51,16 +58,22 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     private final FileSnapshotter fileSnapshotter;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
+    private final boolean calculateInputHashes;
 
     private final CSourceParser sourceParser = new RegexBackedCSourceParser();
 
     public IncrementalNativeCompiler(TaskInternal task, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
+        this(task, fileSnapshotter, compilationStateCacheFactory, delegateCompiler, toolChain, directoryFileTreeFactory, false);
+    }
+
+    public IncrementalNativeCompiler(TaskInternal task, FileSnapshotter fileSnapshotter, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory, boolean calculateInputHashes) {
         this.task = task;
         this.fileSnapshotter = fileSnapshotter;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.delegateCompiler = delegateCompiler;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.importsAreIncludes = Clang.class.isAssignableFrom(toolChain.getClass()) || Gcc.class.isAssignableFrom(toolChain.getClass());
+        this.calculateInputHashes = calculateInputHashes;
     }
 
     @Override
@@ -71,6 +84,9 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
         IncrementalCompilation compilation = processor.processSourceFiles(spec.getSourceFiles());
 
         spec.setSourceFileIncludeDirectives(mapIncludes(spec.getSourceFiles(), compilation.getFinalState()));
+        if (calculateInputHashes) {
+            spec.setSourceFileInputHashes(calculateInputHashes(spec.getSourceFiles(), compilation.getFinalState()));
+        }
 
         handleDiscoveredInputs(spec, compilation, spec.getDiscoveredInputRecorder());
 
@@ -114,6 +130,43 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
         });
     }
 
+    private Map<File, HashCode> calculateInputHashes(Collection<File> files, CompilationState compilationState) {
+        Map<File, HashCode> inputHashes = new HashMap<File, HashCode>();
+        for (File file : files) {
+            Hasher hasher = Hashing.md5().newHasher();
+            if (hashIncludeGraph(file, compilationState, hasher, new HashSet<File>())) {
+                inputHashes.put(file, hasher.hash());
+            }
+        }
+        return inputHashes;
+    }
+
+    /**
+     * Hashes the given file and everything it includes, in include order. Returns false when the set of included files cannot be determined.
+     * Includes that cannot be found in the include roots are assumed to be provided by the tool chain and are hashed by name only. Changes to
+     * these headers are detected by including the tool chain identity and version in the cache key, see {@link org.gradle.nativeplatform.toolchain.internal.PlatformToolProvider#getCompilerIdentity()}.
+     */
+    private boolean hashIncludeGraph(File file, CompilationState compilationState, Hasher hasher, Set<File> visited) {
+        if (!visited.add(file)) {
+            return true;
+        }
+        CompilationFileState fileState = compilationState.getState(file);
+        if (fileState == null) {
+            return false;
+        }
+        hasher.putBytes(fileState.getHash().asBytes());
+        for (ResolvedInclude include : fileState.getResolvedIncludes()) {
+            if (include.isMaybeMacro()) {
+                return false;
+            }
+            hasher.putString(include.getInclude(), Charsets.UTF_8);
+            if (!include.isUnknown() && !hashIncludeGraph(include.getFile(), compilationState, hasher, visited)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean sourceFilesUseMacroIncludes(Collection<File> files, final CompilationState compilationState) {
         // If we couldn't determine all dependencies of some files due to macros, we have to scan all include directories.
         return CollectionUtils.any(files, new Spec<File>() {
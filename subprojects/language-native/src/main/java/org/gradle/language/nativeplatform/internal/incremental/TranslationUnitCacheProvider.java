@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental;
+
+import org.gradle.StartParameter;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Provides the task output cache used to store individual object files, when caching of translation units is enabled.
+ * Caching of translation units requires task output caching to be enabled, and is enabled with the {@value #ENABLED_PROPERTY} system property.
+ */
+public class TranslationUnitCacheProvider {
+    public static final String ENABLED_PROPERTY = "org.gradle.cache.tasks.native.objects";
+    private static final Logger LOGGER = Logging.getLogger(TranslationUnitCacheProvider.class);
+
+    private final GradleInternal gradle;
+    private final StartParameter startParameter;
+    private TaskOutputCache cache;
+
+    public TranslationUnitCacheProvider(GradleInternal gradle, StartParameter startParameter) {
+        this.gradle = gradle;
+        this.startParameter = startParameter;
+    }
+
+    public boolean isEnabled() {
+        return startParameter.isTaskOutputCacheEnabled() && Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    public synchronized TaskOutputCache getCache() {
+        if (cache == null) {
+            cache = gradle.getTaskCaching().getCacheFactory().createCache(startParameter);
+            LOGGER.info("Using {} for object files", cache.getDescription());
+        }
+        return cache;
+    }
+}
@@ -111,11 +111,24 @@ public abstract class AbstractNativeCompileTask extends DefaultTask {
     private <T extends NativeCompileSpec> WorkResult doCompile(T spec, PlatformToolProvider platformToolProvider) {
         Class<T> specType = Cast.uncheckedCast(spec.getClass());
         Compiler<T> baseCompiler = platformToolProvider.newCompiler(specType);
+        String objectFileExtension = getCacheableObjectFileExtension(platformToolProvider);
+        String compilerIdentity = platformToolProvider.getCompilerIdentity();
+        if (objectFileExtension != null && compilerIdentity != null) {
+            String toolChainIdentity = NativeToolChainInternal.Identifier.identify(toolChain, targetPlatform) + ":" + compilerIdentity;
+            baseCompiler = getIncrementalCompilerBuilder().createTranslationUnitCachingCompiler(baseCompiler, getProject().getRootDir(), toolChainIdentity, objectFileExtension);
+        }
         Compiler<T> incrementalCompiler = getIncrementalCompilerBuilder().createIncrementalCompiler(this, baseCompiler, toolChain);
         Compiler<T> loggingCompiler = BuildOperationLoggingCompilerDecorator.wrap(incrementalCompiler);
         return loggingCompiler.execute(spec);
     }
 
+    /**
+     * Returns the extension of the object file produced for each source file, or null when object files cannot be cached per source file.
+     */
+    String getCacheableObjectFileExtension(PlatformToolProvider platformToolProvider) {
+        return null;
+    }
+
     protected abstract NativeCompileSpec createCompileSpec();
 
     /**
@@ -22,6 +22,7 @@ import org.gradle.api.tasks.Optional;
 import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultInclude;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
 import org.gradle.nativeplatform.toolchain.internal.PCHUtils;
+import org.gradle.nativeplatform.toolchain.internal.PlatformToolProvider;
 import org.gradle.nativeplatform.toolchain.internal.PreCompiledHeader;
 
 import java.io.File;
@@ -49,6 +50,11 @@ public abstract class AbstractNativeSourceCompileTask extends AbstractNativeComp
         }
     }
 
+    @Override
+    String getCacheableObjectFileExtension(PlatformToolProvider platformToolProvider) {
+        return platformToolProvider.getObjectFileExtension();
+    }
+
     /**
      * Returns the pre-compiled header to be used during compilation
      */
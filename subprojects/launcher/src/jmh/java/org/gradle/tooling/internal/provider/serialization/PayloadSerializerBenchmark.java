@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compares Java serialization with the binary payload format, using a model shaped like the IDEA model of a large multi-project build.
+ * The payload size for each format is reported in the {@code payloadBytes} counter.
+ */
+@State(Scope.Benchmark)
+public class PayloadSerializerBenchmark {
+
+    @Param({"java", "binary"})
+    String format;
+
+    @Param({"100", "900"})
+    int projects;
+
+    private PayloadSerializer serializer;
+    private Object model;
+    private SerializedPayload serialized;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        serializer = new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())), format.equals("binary"));
+        model = createModel(projects, 60);
+        serialized = serializer.serialize(model);
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Benchmark
+    public void serialize(PayloadSize size, Blackhole bh) {
+        SerializedPayload payload = serializer.serialize(model);
+        size.payloadBytes = sizeOf(payload);
+        bh.consume(payload);
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole bh) {
+        bh.consume(serializer.deserialize(serialized));
+    }
+
+    private static long sizeOf(SerializedPayload payload) {
+        long size = 0;
+        for (byte[] chunk : payload.getSerializedModel()) {
+            size += chunk.length;
+        }
+        return size;
+    }
+
+    private static Project createModel(int projectCount, int dependenciesPerProject) {
+        Project root = new Project();
+        root.name = "root";
+        for (int i = 0; i < projectCount; i++) {
+            Module module = new Module();
+            module.name = "project-" + i;
+            module.project = root;
+            module.contentRoot = new File("/work/build/project-" + i);
+            module.sourceDirectories.add(new File(module.contentRoot, "src/main/java"));
+            module.sourceDirectories.add(new File(module.contentRoot, "src/test/java"));
+            for (int j = 0; j < dependenciesPerProject; j++) {
+                // Most projects share the same external dependencies
+                int library = (i + j) % 200;
+                Dependency dependency = new Dependency();
+                dependency.file = new File("/home/user/.gradle/caches/modules-2/files-2.1/org.example/library-" + library + "/1.0/library-" + library + "-1.0.jar");
+                dependency.source = new File("/home/user/.gradle/caches/modules-2/files-2.1/org.example/library-" + library + "/1.0/library-" + library + "-1.0-sources.jar");
+                dependency.group = "org.example";
+                dependency.module = "library-" + library;
+                dependency.version = "1.0";
+                dependency.scope = j % 3 == 0 ? "TEST" : "COMPILE";
+                module.dependencies.add(dependency);
+            }
+            root.modules.add(module);
+        }
+        return root;
+    }
+
+    static class Project implements Serializable {
+        String name;
+        List<Module> modules = new ArrayList<Module>();
+    }
+
+    static class Module implements Serializable {
+        String name;
+        Project project;
+        File contentRoot;
+        List<File> sourceDirectories = new LinkedList<File>();
+        List<Dependency> dependencies = new LinkedList<Dependency>();
+    }
+
+    static class Dependency implements Serializable {
+        File file;
+        File source;
+        String group;
+        String module;
+        String version;
+        String scope;
+        boolean exported;
+    }
+}
@@ -131,6 +131,7 @@ public class LogToClient extends BuildCommandOnly {
         }
 
         public void waitForCompletion() {
+            loggingOutput.flush();
             loggingOutput.removeOutputEventListener(listener);
             shouldStop = true;
             try {
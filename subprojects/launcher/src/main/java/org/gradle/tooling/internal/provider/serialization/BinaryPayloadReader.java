@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.internal.serialize.Decoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.tooling.internal.provider.serialization.BinaryPayloadWriter.*;
+import static org.gradle.tooling.internal.provider.serialization.PayloadSerializerObjectOutputStream.SAME_CLASSLOADER_TOKEN;
+
+/**
+ * Reads an object graph written by {@link BinaryPayloadWriter}.
+ */
+class BinaryPayloadReader {
+    private final Decoder decoder;
+    private final ClassLoader defaultClassLoader;
+    private final Map<Short, ClassLoaderDetails> classLoaderDetails;
+    private final DeserializeMap map;
+    private final List<String> strings = new ArrayList<String>();
+    private final List<Class<?>> classes = new ArrayList<Class<?>>();
+    private final Map<Class<?>, Field[]> fieldsByClass = new HashMap<Class<?>, Field[]>();
+    private final Map<Class<?>, SerializableClassSchema> schemas = new HashMap<Class<?>, SerializableClassSchema>();
+    private final List<Object> objects = new ArrayList<Object>();
+    private final ChunkInputStream javaSerializedBytes = new ChunkInputStream();
+    private ObjectInputStream javaSerializedStream;
+
+    BinaryPayloadReader(Decoder decoder, ClassLoader defaultClassLoader, Map<Short, ClassLoaderDetails> classLoaderDetails, DeserializeMap map) {
+        this.decoder = decoder;
+        this.defaultClassLoader = defaultClassLoader;
+        this.classLoaderDetails = classLoaderDetails;
+        this.map = map;
+    }
+
+    public Object read() throws Exception {
+        byte tag = decoder.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case REFERENCE:
+                return objects.get(decoder.readSmallInt());
+            case STRING:
+                return readString();
+            case BOOLEAN:
+                return decoder.readBoolean();
+            case BYTE:
+                return decoder.readByte();
+            case SHORT:
+                return (short) decoder.readInt();
+            case CHAR:
+                return (char) decoder.readInt();
+            case INT:
+                return decoder.readInt();
+            case LONG:
+                return decoder.readLong();
+            case FLOAT:
+                return Float.intBitsToFloat(decoder.readInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(decoder.readLong());
+            case FILE:
+                return new File(readString());
+            case ENUM:
+                return readEnum();
+            case EMPTY_LIST:
+                return Collections.EMPTY_LIST;
+            case EMPTY_SET:
+                return Collections.EMPTY_SET;
+            case EMPTY_MAP:
+                return Collections.EMPTY_MAP;
+            case ARRAY_LIST:
+                return readCollection(new ArrayList<Object>());
+            case LINKED_LIST:
+                return readCollection(new LinkedList<Object>());
+            case HASH_SET:
+                return readCollection(new HashSet<Object>());
+            case LINKED_HASH_SET:
+                return readCollection(new LinkedHashSet<Object>());
+            case HASH_MAP:
+                return readMap(new HashMap<Object, Object>());
+            case LINKED_HASH_MAP:
+                return readMap(new LinkedHashMap<Object, Object>());
+            case OBJECT:
+                return readObject();
+            case JAVA_SERIALIZED:
+                return readJavaSerialized();
+            default:
+                throw new StreamCorruptedException(String.format("Unexpected tag %d in payload.", tag));
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws Exception {
+        Class type = readClass();
+        return Enum.valueOf(type, readString());
+    }
+
+    private Object readCollection(Collection<Object> collection) throws Exception {
+        objects.add(collection);
+        int size = decoder.readSmallInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(read());
+        }
+        return collection;
+    }
+
+    private Object readMap(Map<Object, Object> map) throws Exception {
+        objects.add(map);
+        int size = decoder.readSmallInt();
+        for (int i = 0; i < size; i++) {
+            Object key = read();
+            map.put(key, read());
+        }
+        return map;
+    }
+
+    private Object readObject() throws Exception {
+        int classCount = classes.size();
+        Class<?> type = readClass();
+        SerializableClassSchema schema = schemas.get(type);
+        if (classes.size() > classCount) {
+            schema = SerializableClassSchema.of(type);
+            if (schema == null) {
+                throw new InvalidClassException(type.getName(), "Class cannot be read field by field.");
+            }
+            int fieldCount = decoder.readSmallInt();
+            Field[] fields = new Field[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                String declaringClass = readString();
+                // Fields that no longer exist are read and discarded
+                fields[i] = schema.findField(declaringClass, readString());
+            }
+            schemas.put(type, schema);
+            fieldsByClass.put(type, fields);
+        }
+
+        Object value = schema.newInstance();
+        objects.add(value);
+        for (Field field : fieldsByClass.get(type)) {
+            Object fieldValue = read();
+            if (field != null) {
+                field.set(value, fieldValue);
+            }
+        }
+        return value;
+    }
+
+    private Object readJavaSerialized() throws Exception {
+        javaSerializedBytes.append(decoder.readBinary());
+        if (javaSerializedStream == null) {
+            javaSerializedStream = new ReferenceResolvingObjectInputStream(javaSerializedBytes, defaultClassLoader, classLoaderDetails, map);
+        }
+        Object value = javaSerializedStream.readObject();
+        objects.add(value);
+        return value;
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+        int id = decoder.readSmallInt();
+        if (id > 0) {
+            return classes.get(id - 1);
+        }
+        int classLoaderId = decoder.readSmallInt();
+        String className = readString();
+        Class<?> type;
+        if (classLoaderId == SAME_CLASSLOADER_TOKEN) {
+            type = Class.forName(className, false, defaultClassLoader);
+        } else {
+            type = map.resolveClass(classLoaderDetails.get((short) classLoaderId), className);
+        }
+        classes.add(type);
+        return type;
+    }
+
+    private String readString() throws IOException {
+        int id = decoder.readSmallInt();
+        if (id > 0) {
+            return strings.get(id - 1);
+        }
+        String value = decoder.readString();
+        strings.add(value);
+        return value;
+    }
+
+    private class ReferenceResolvingObjectInputStream extends PayloadSerializerObjectInputStream {
+        ReferenceResolvingObjectInputStream(InputStream inputStream, ClassLoader classLoader, Map<Short, ClassLoaderDetails> classLoaderDetails, DeserializeMap map) throws IOException {
+            super(inputStream, classLoader, classLoaderDetails, map);
+        }
+
+        @Override
+        protected Object doResolveObject(Object obj) throws IOException {
+            if (obj instanceof BinaryPayloadReference) {
+                return objects.get(((BinaryPayloadReference) obj).getIndex());
+            }
+            return super.doResolveObject(obj);
+        }
+    }
+
+    /**
+     * Provides the chunks of the Java serialization stream, one at a time. Each chunk holds a single object, so the stream only needs the next chunk once
+     * it has finished reading the current one.
+     */
+    private static class ChunkInputStream extends InputStream {
+        private byte[] chunk = new byte[0];
+        private int pos;
+
+        void append(byte[] bytes) throws IOException {
+            if (pos < chunk.length) {
+                throw new StreamCorruptedException("Unread bytes in Java serialized object.");
+            }
+            chunk = bytes;
+            pos = 0;
+        }
+
+        @Override
+        public int read() {
+            return pos < chunk.length ? chunk[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (pos >= chunk.length) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - pos);
+            System.arraycopy(chunk, pos, buffer, offset, count);
+            pos += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - pos;
+        }
+    }
+}
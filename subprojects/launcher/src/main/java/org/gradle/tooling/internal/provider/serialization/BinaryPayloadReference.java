@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import java.io.Serializable;
+
+/**
+ * Stands in for an object that has already been written by {@link BinaryPayloadWriter} in the compact format, when the object is reached again
+ * from an object written using Java serialization.
+ */
+class BinaryPayloadReference implements Serializable {
+    private final int index;
+
+    BinaryPayloadReference(int index) {
+        this.index = index;
+    }
+
+    int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.TopLevelExceptionPlaceholder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+import static org.gradle.tooling.internal.provider.serialization.PayloadSerializerObjectOutputStream.SAME_CLASSLOADER_TOKEN;
+
+/**
+ * Writes an object graph in a compact binary format, as an alternative to Java serialization.
+ *
+ * <ul>
+ * <li>Each distinct string is written once, and referenced by index after that.</li>
+ * <li>The schema of each class, made up of the names of its serializable fields, is written once. Instances are written as a sequence of field values.</li>
+ * <li>Common collection types, files, enums and boxed primitives are written using dedicated tags.</li>
+ * <li>Objects that use custom serialization are written using Java serialization. All such objects are written to a single Java serialization stream,
+ * which is split into one chunk per object.</li>
+ * </ul>
+ *
+ * <p>Shared references and cycles are preserved for everything except strings, files and boxed primitives, including references between objects
+ * written using Java serialization and objects written in the compact format. An object that has already been written in the compact format is
+ * replaced by a {@link BinaryPayloadReference} in the Java serialization stream. An object that has already been written to the Java serialization
+ * stream is written to it again, as a back reference, when it is later reached from an object written in the compact format.</p>
+ */
+class BinaryPayloadWriter {
+    static final byte MAGIC = (byte) 0xB1;
+
+    static final byte NULL = 0;
+    static final byte REFERENCE = 1;
+    static final byte STRING = 2;
+    static final byte BOOLEAN = 3;
+    static final byte BYTE = 4;
+    static final byte SHORT = 5;
+    static final byte CHAR = 6;
+    static final byte INT = 7;
+    static final byte LONG = 8;
+    static final byte FLOAT = 9;
+    static final byte DOUBLE = 10;
+    static final byte FILE = 11;
+    static final byte ENUM = 12;
+    static final byte ARRAY_LIST = 13;
+    static final byte LINKED_LIST = 14;
+    static final byte HASH_SET = 15;
+    static final byte LINKED_HASH_SET = 16;
+    static final byte HASH_MAP = 17;
+    static final byte LINKED_HASH_MAP = 18;
+    static final byte EMPTY_LIST = 19;
+    static final byte EMPTY_SET = 20;
+    static final byte EMPTY_MAP = 21;
+    static final byte OBJECT = 22;
+    static final byte JAVA_SERIALIZED = 23;
+
+    private final Encoder encoder;
+    private final SerializeMap map;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+    private final Map<Class<?>, Integer> classes = new HashMap<Class<?>, Integer>();
+    private final Map<Class<?>, SerializableClassSchema> schemas = new HashMap<Class<?>, SerializableClassSchema>();
+    private final Map<Object, Integer> objects = new IdentityHashMap<Object, Integer>();
+    // Objects that have been written to the Java serialization stream
+    private final Map<Object, Boolean> javaSerializedObjects = new IdentityHashMap<Object, Boolean>();
+    private final ByteArrayOutputStream javaSerializedBytes = new ByteArrayOutputStream();
+    private ObjectOutputStream javaSerializedStream;
+
+    BinaryPayloadWriter(Encoder encoder, SerializeMap map) {
+        this.encoder = encoder;
+        this.map = map;
+    }
+
+    public void write(Object value) throws Exception {
+        if (value == null) {
+            encoder.writeByte(NULL);
+            return;
+        }
+        Integer reference = objects.get(value);
+        if (reference != null) {
+            encoder.writeByte(REFERENCE);
+            encoder.writeSmallInt(reference);
+            return;
+        }
+        if (javaSerializedObjects.containsKey(value)) {
+            writeJavaSerialized(value);
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            encoder.writeByte(STRING);
+            writeString((String) value);
+        } else if (type == Boolean.class) {
+            encoder.writeByte(BOOLEAN);
+            encoder.writeBoolean((Boolean) value);
+        } else if (type == Byte.class) {
+            encoder.writeByte(BYTE);
+            encoder.writeByte((Byte) value);
+        } else if (type == Short.class) {
+            encoder.writeByte(SHORT);
+            encoder.writeInt((Short) value);
+        } else if (type == Character.class) {
+            encoder.writeByte(CHAR);
+            encoder.writeInt((Character) value);
+        } else if (type == Integer.class) {
+            encoder.writeByte(INT);
+            encoder.writeInt((Integer) value);
+        } else if (type == Long.class) {
+            encoder.writeByte(LONG);
+            encoder.writeLong((Long) value);
+        } else if (type == Float.class) {
+            encoder.writeByte(FLOAT);
+            encoder.writeInt(Float.floatToIntBits((Float) value));
+        } else if (type == Double.class) {
+            encoder.writeByte(DOUBLE);
+            encoder.writeLong(Double.doubleToLongBits((Double) value));
+        } else if (type == File.class) {
+            encoder.writeByte(FILE);
+            writeString(((File) value).getPath());
+        } else if (value instanceof Enum) {
+            Enum<?> enumValue = (Enum<?>) value;
+            encoder.writeByte(ENUM);
+            writeClass(enumValue.getDeclaringClass());
+            writeString(enumValue.name());
+        } else if (value == Collections.EMPTY_LIST) {
+            encoder.writeByte(EMPTY_LIST);
+        } else if (value == Collections.EMPTY_SET) {
+            encoder.writeByte(EMPTY_SET);
+        } else if (value == Collections.EMPTY_MAP) {
+            encoder.writeByte(EMPTY_MAP);
+        } else if (type == ArrayList.class) {
+            writeCollection(ARRAY_LIST, (Collection<?>) value);
+        } else if (type == LinkedList.class) {
+            writeCollection(LINKED_LIST, (Collection<?>) value);
+        } else if (type == HashSet.class) {
+            writeCollection(HASH_SET, (Collection<?>) value);
+        } else if (type == LinkedHashSet.class) {
+            writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+        } else if (type == HashMap.class) {
+            writeMap(HASH_MAP, (Map<?, ?>) value);
+        } else if (type == LinkedHashMap.class) {
+            writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+        } else {
+            SerializableClassSchema schema = getSchema(type);
+            if (schema != null) {
+                writeObject(schema, value);
+            } else {
+                writeJavaSerialized(value);
+            }
+        }
+    }
+
+    private void writeCollection(byte tag, Collection<?> collection) throws Exception {
+        encoder.writeByte(tag);
+        register(collection);
+        encoder.writeSmallInt(collection.size());
+        for (Object element : collection) {
+            write(element);
+        }
+    }
+
+    private void writeMap(byte tag, Map<?, ?> map) throws Exception {
+        encoder.writeByte(tag);
+        register(map);
+        encoder.writeSmallInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            write(entry.getKey());
+            write(entry.getValue());
+        }
+    }
+
+    private void writeObject(SerializableClassSchema schema, Object value) throws Exception {
+        encoder.writeByte(OBJECT);
+        if (writeClass(schema.getType())) {
+            encoder.writeSmallInt(schema.getFields().size());
+            for (Field field : schema.getFields()) {
+                writeString(field.getDeclaringClass().getName());
+                writeString(field.getName());
+            }
+        }
+        register(value);
+        for (Field field : schema.getFields()) {
+            write(field.get(value));
+        }
+    }
+
+    private void writeJavaSerialized(Object value) throws IOException {
+        encoder.writeByte(JAVA_SERIALIZED);
+        if (javaSerializedStream == null) {
+            javaSerializedStream = new ReferenceReplacingObjectOutputStream(javaSerializedBytes, map);
+        }
+        javaSerializedStream.writeObject(value);
+        javaSerializedStream.flush();
+        encoder.writeBinary(javaSerializedBytes.toByteArray());
+        javaSerializedBytes.reset();
+        // Registered after the object has been written, so that the object itself is not replaced with a reference
+        register(value);
+    }
+
+    private void register(Object value) {
+        objects.put(value, objects.size());
+    }
+
+    /**
+     * Writes a reference to the given class, returning true when this is the first time the class has been written.
+     */
+    private boolean writeClass(Class<?> type) throws IOException {
+        Integer id = classes.get(type);
+        if (id != null) {
+            encoder.writeSmallInt(id);
+            return false;
+        }
+        classes.put(type, classes.size() + 1);
+        encoder.writeSmallInt(0);
+        if (TopLevelExceptionPlaceholder.class.getPackage().equals(type.getPackage())) {
+            encoder.writeSmallInt(SAME_CLASSLOADER_TOKEN);
+        } else {
+            encoder.writeSmallInt(map.visitClass(type));
+        }
+        writeString(type.getName());
+        return true;
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer id = strings.get(value);
+        if (id != null) {
+            encoder.writeSmallInt(id);
+            return;
+        }
+        strings.put(value, strings.size() + 1);
+        encoder.writeSmallInt(0);
+        encoder.writeString(value);
+    }
+
+    private static boolean hasIdentity(Object value) {
+        Class<?> type = value.getClass();
+        return !(type == String.class || type == File.class || value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum);
+    }
+
+    private SerializableClassSchema getSchema(Class<?> type) {
+        if (schemas.containsKey(type)) {
+            return schemas.get(type);
+        }
+        SerializableClassSchema schema = SerializableClassSchema.of(type);
+        schemas.put(type, schema);
+        return schema;
+    }
+
+    private class ReferenceReplacingObjectOutputStream extends PayloadSerializerObjectOutputStream {
+        ReferenceReplacingObjectOutputStream(OutputStream outputStream, SerializeMap map) throws IOException {
+            super(outputStream, map);
+        }
+
+        @Override
+        protected Object doReplaceObject(Object obj) throws IOException {
+            Integer reference = objects.get(obj);
+            if (reference != null) {
+                return new BinaryPayloadReference(reference);
+            }
+            if (hasIdentity(obj)) {
+                javaSerializedObjects.put(obj, Boolean.TRUE);
+            }
+            return super.doReplaceObject(obj);
+        }
+    }
+}
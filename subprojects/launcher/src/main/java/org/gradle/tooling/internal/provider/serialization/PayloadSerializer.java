@@ -20,46 +20,86 @@ import net.jcip.annotations.ThreadSafe;
 import org.gradle.internal.IoActions;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.io.StreamByteBuffer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Serializes objects, such as tooling models, so they can be sent between the tooling API client and the daemon.
+ *
+ * <p>By default, objects are written using Java serialization. When the {@value #BINARY_FORMAT_PROPERTY} system property is set, objects are written using
+ * the more compact format implemented by {@link BinaryPayloadWriter}. Both formats can always be read.</p>
+ */
 @ThreadSafe
 public class PayloadSerializer {
+    public static final String BINARY_FORMAT_PROPERTY = "org.gradle.tooling.binary-payload";
     private final PayloadClassLoaderRegistry classLoaderRegistry;
+    private final boolean binaryFormat;
 
     public PayloadSerializer(PayloadClassLoaderRegistry registry) {
+        this(registry, Boolean.getBoolean(BINARY_FORMAT_PROPERTY));
+    }
+
+    PayloadSerializer(PayloadClassLoaderRegistry registry, boolean binaryFormat) {
         classLoaderRegistry = registry;
+        this.binaryFormat = binaryFormat;
     }
 
     public SerializedPayload serialize(Object payload) {
         final SerializeMap map = classLoaderRegistry.newSerializeSession();
         try {
             StreamByteBuffer buffer = new StreamByteBuffer();
-            final ObjectOutputStream objectStream = new PayloadSerializerObjectOutputStream(buffer.getOutputStream(), map);
-
-            try {
-                objectStream.writeObject(payload);
-            } finally {
-                IoActions.closeQuietly(objectStream);
+            if (binaryFormat) {
+                writeBinary(payload, map, buffer.getOutputStream());
+            } else {
+                writeJavaSerialized(payload, map, buffer.getOutputStream());
             }
 
             Map<Short, ClassLoaderDetails> classLoaders = new HashMap<Short, ClassLoaderDetails>();
             map.collectClassLoaderDefinitions(classLoaders);
             return new SerializedPayload(classLoaders, buffer.readAsListOfByteArrays());
-        } catch (IOException e) {
+        } catch (Exception e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
 
+    private void writeJavaSerialized(Object payload, SerializeMap map, OutputStream outputStream) throws IOException {
+        final ObjectOutputStream objectStream = new PayloadSerializerObjectOutputStream(outputStream, map);
+        try {
+            objectStream.writeObject(payload);
+        } finally {
+            IoActions.closeQuietly(objectStream);
+        }
+    }
+
+    private void writeBinary(Object payload, SerializeMap map, OutputStream outputStream) throws Exception {
+        outputStream.write(BinaryPayloadWriter.MAGIC);
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        try {
+            new BinaryPayloadWriter(encoder, map).write(payload);
+        } finally {
+            encoder.close();
+        }
+    }
+
     public Object deserialize(SerializedPayload payload) {
         final DeserializeMap map = classLoaderRegistry.newDeserializeSession();
         try {
             final Map<Short, ClassLoaderDetails> classLoaderDetails = (Map<Short, ClassLoaderDetails>) payload.getHeader();
             StreamByteBuffer buffer = StreamByteBuffer.of(payload.getSerializedModel());
+            if (isBinary(payload.getSerializedModel())) {
+                InputStream inputStream = buffer.getInputStream();
+                inputStream.read();
+                return new BinaryPayloadReader(new KryoBackedDecoder(inputStream), getClass().getClassLoader(), classLoaderDetails, map).read();
+            }
             final ObjectInputStream objectStream = new PayloadSerializerObjectInputStream(buffer.getInputStream(), getClass().getClassLoader(), classLoaderDetails, map);
             return objectStream.readObject();
         } catch (Exception e) {
@@ -67,4 +107,12 @@ public class PayloadSerializer {
         }
     }
 
+    private static boolean isBinary(List<byte[]> serializedModel) {
+        for (byte[] chunk : serializedModel) {
+            if (chunk.length > 0) {
+                return chunk[0] == BinaryPayloadWriter.MAGIC;
+            }
+        }
+        return false;
+    }
 }
@@ -57,7 +57,7 @@ class PayloadSerializerObjectOutputStream extends ExceptionReplacingObjectOutput
     }
 
     private void writeClassLoader(Class<?> targetClass) throws IOException {
-        if (TopLevelExceptionPlaceholder.class.getPackage().equals(targetClass.getPackage())) {
+        if (TopLevelExceptionPlaceholder.class.getPackage().equals(targetClass.getPackage()) || targetClass == BinaryPayloadReference.class) {
             writeShort(SAME_CLASSLOADER_TOKEN);
         } else {
             writeShort(map.visitClass(targetClass));
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.api.Nullable;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fields of a serializable class that uses default Java serialization, along with a way to create instances of the class without running its constructors.
+ * JVM classes and classes that customize their serialized form are not described, and are written using Java serialization instead.
+ */
+class SerializableClassSchema {
+    private static final Object REFLECTION_FACTORY;
+    private static final Method NEW_CONSTRUCTOR_FOR_SERIALIZATION;
+
+    static {
+        Object reflectionFactory = null;
+        Method newConstructorForSerialization = null;
+        try {
+            Class<?> factoryType = Class.forName("sun.reflect.ReflectionFactory");
+            reflectionFactory = factoryType.getMethod("getReflectionFactory").invoke(null);
+            newConstructorForSerialization = factoryType.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+        } catch (Exception e) {
+            // Not available on this JVM, so use Java serialization for everything
+        }
+        REFLECTION_FACTORY = reflectionFactory;
+        NEW_CONSTRUCTOR_FOR_SERIALIZATION = newConstructorForSerialization;
+    }
+
+    private final Class<?> type;
+    private final Constructor<?> constructor;
+    private final List<Field> fields;
+
+    private SerializableClassSchema(Class<?> type, Constructor<?> constructor, List<Field> fields) {
+        this.type = type;
+        this.constructor = constructor;
+        this.fields = fields;
+    }
+
+    /**
+     * Returns the schema for the given type, or null when instances of the type cannot be written field by field.
+     */
+    @Nullable
+    static SerializableClassSchema of(Class<?> type) {
+        if (NEW_CONSTRUCTOR_FOR_SERIALIZATION == null
+            || type.getClassLoader() == null
+            || !Serializable.class.isAssignableFrom(type)
+            || Externalizable.class.isAssignableFrom(type)
+            || type.isArray()
+            || type.isEnum()
+            || Proxy.isProxyClass(type)) {
+            return null;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (hasMethod(current, "writeReplace") || hasMethod(current, "readResolve")) {
+                return null;
+            }
+        }
+
+        List<Field> fields = new ArrayList<Field>();
+        Class<?> current = type;
+        for (; Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+            if (hasMethod(current, "writeObject", ObjectOutputStream.class)
+                || hasMethod(current, "readObject", ObjectInputStream.class)
+                || hasMethod(current, "readObjectNoData")) {
+                return null;
+            }
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (field.getName().equals("serialPersistentFields") && Modifier.isStatic(modifiers)) {
+                    return null;
+                }
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+
+        Constructor<?> constructor = serializationConstructor(type, current);
+        if (constructor == null) {
+            return null;
+        }
+        return new SerializableClassSchema(type, constructor, Collections.unmodifiableList(fields));
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Finds the field with the given declaring class and name, as written by {@link BinaryPayloadWriter}.
+     */
+    @Nullable
+    public Field findField(String declaringClass, String name) {
+        for (Field field : fields) {
+            if (field.getName().equals(name) && field.getDeclaringClass().getName().equals(declaringClass)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates an instance, running only the no-args constructor of the first non-serializable superclass, in the same way as Java serialization.
+     */
+    public Object newInstance() throws Exception {
+        return constructor.newInstance();
+    }
+
+    @Nullable
+    private static Constructor<?> serializationConstructor(Class<?> type, Class<?> nonSerializableSuperType) {
+        try {
+            Constructor<?> superConstructor = nonSerializableSuperType.getDeclaredConstructor();
+            int modifiers = superConstructor.getModifiers();
+            if (Modifier.isPrivate(modifiers)) {
+                return null;
+            }
+            if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers) && !samePackage(type, nonSerializableSuperType)) {
+                return null;
+            }
+            Constructor<?> constructor = (Constructor<?>) NEW_CONSTRUCTOR_FOR_SERIALIZATION.invoke(REFLECTION_FACTORY, type, superConstructor);
+            if (constructor == null) {
+                return null;
+            }
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean samePackage(Class<?> type1, Class<?> type2) {
+        return type1.getClassLoader() == type2.getClassLoader() && packageName(type1).equals(packageName(type2));
+    }
+
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(0, index);
+    }
+
+    private static boolean hasMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            type.getDeclaredMethod(name, parameterTypes);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization
+
+import org.gradle.tooling.internal.provider.CustomPayload
+
+import java.util.concurrent.TimeUnit
+
+class BinaryPayloadSerializerTest extends PayloadSerializerTest {
+    @Override
+    PayloadSerializer createSerializer() {
+        return new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())), true)
+    }
+
+    def "writes payload in binary format"() {
+        when:
+        def serialized = originator.serialize("value")
+
+        then:
+        serialized.serializedModel[0][0] == BinaryPayloadWriter.MAGIC
+    }
+
+    def "can read payload written using Java serialization"() {
+        def javaSerializer = new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())), false)
+
+        expect:
+        receiver.deserialize(javaSerializer.serialize([a: 1, b: "2"])) == [a: 1, b: "2"]
+    }
+
+    def "can send values of well known types"() {
+        expect:
+        def received = receiver.deserialize(originator.serialize(source))
+        received == source
+        received.getClass() == source.getClass()
+
+        where:
+        source << [
+            true, (byte) 1, (short) -2, (char) 'c', -3, 4L, 1.5f, 2.5d,
+            new File("some/file"),
+            TimeUnit.SECONDS,
+            ["a", "b", null],
+            new LinkedList(["a"]),
+            ["a", "b"] as HashSet,
+            ["a", "b"] as LinkedHashSet,
+            [a: 1, b: [c: "d"]],
+            [a: 1] as HashMap,
+            Collections.emptyList(),
+            Collections.emptySet(),
+            Collections.emptyMap(),
+            Collections.singletonList("a"),
+            [1, 2] as int[]
+        ]
+    }
+
+    def "preserves shared references and cycles"() {
+        def model = new Node(name: "root")
+        def child = new Node(name: "child", parent: model)
+        model.children = [child, child]
+
+        when:
+        Node received = receiver.deserialize(originator.serialize(model))
+
+        then:
+        received.name == "root"
+        received.children.size() == 2
+        received.children[0].is(received.children[1])
+        received.children[0].parent.is(received)
+        received.children[0].name == "child"
+    }
+
+    def "writes each distinct string once"() {
+        def path = "/some/long/path/to/a/jar/in/the/dependency/cache/library-1.0.jar"
+        def nodes = (1..100).collect { new Node(name: new String(path)) }
+
+        when:
+        def binary = originator.serialize(nodes)
+        def javaSerialized = new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())), false).serialize(nodes)
+
+        then:
+        size(binary) < path.length() + 1000
+        size(binary) < size(javaSerialized) / 5
+        receiver.deserialize(binary)*.name == nodes*.name
+    }
+
+    def "uses Java serialization for objects with custom serialization"() {
+        def original = new CustomPayload(value: "value")
+
+        when:
+        def received = receiver.deserialize(originator.serialize([new CustomSerialization(value: "value"), original]))
+
+        then:
+        received[0].value == "value"
+        received[0].written
+        received[1].value == "value"
+    }
+
+    def "preserves shared references and cycles between objects written using Java serialization and other objects"() {
+        def shared = new Node(name: "shared")
+        def custom1 = new CustomSerialization(value: "1", node: shared)
+        custom1.other = custom1
+        shared.children = [custom1]
+        def custom2 = new CustomSerialization(value: "2", node: shared)
+        def later = new Node(name: "later", parent: shared)
+        def custom3 = new CustomSerialization(value: "3", node: later, other: custom1)
+
+        when:
+        def received = receiver.deserialize(originator.serialize([shared, custom1, custom2, custom3, later, custom3]))
+
+        then:
+        def (receivedShared, received1, received2, received3, receivedLater) = received
+        received1.node.is(receivedShared)
+        received1.other.is(received1)
+        receivedShared.children[0].is(received1)
+        received2.node.is(receivedShared)
+        received3.node.is(receivedLater)
+        received3.other.is(received1)
+        receivedLater.parent.is(receivedShared)
+        received[5].is(received3)
+        received*.getClass() == [Node, CustomSerialization, CustomSerialization, CustomSerialization, Node, CustomSerialization]
+        receivedLater.name == "later"
+        received3.value == "3"
+    }
+
+    private static int size(SerializedPayload payload) {
+        return payload.serializedModel.sum { it.length } as int
+    }
+
+    static class Node implements Serializable {
+        String name
+        Node parent
+        List<Node> children = []
+    }
+
+    static class CustomSerialization implements Serializable {
+        String value
+        Object node
+        Object other
+        transient boolean written
+
+        private void writeObject(ObjectOutputStream outputStream) {
+            outputStream.defaultWriteObject()
+        }
+
+        private void readObject(ObjectInputStream inputStream) {
+            inputStream.defaultReadObject()
+            written = true
+        }
+    }
+}
@@ -68,4 +68,9 @@ public interface LoggingOutputInternal extends LoggingOutput {
      * Adds the given listener.
      */
     void removeOutputEventListener(OutputEventListener listener);
+
+    /**
+     * Blocks until all output generated so far has been delivered to the logging destinations.
+     */
+    void flush();
 }
@@ -22,12 +22,17 @@ import org.gradle.internal.logging.text.AbstractLineChoppingStyledTextOutput;
 
 import java.io.Flushable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class AnsiConsole implements Console {
     private static final int CHARS_PER_TAB_STOP = 8;
     private final Appendable target;
     private final Flushable flushable;
-    private final LabelImpl statusBar;
+    private final LabelImpl statusBar = new LabelImpl();
+    private final List<LabelImpl> workerLabels = new ArrayList<LabelImpl>();
+    private final StatusAreaImpl statusArea = new StatusAreaImpl();
     private final TextAreaImpl textArea;
     private final ColorMap colorMap;
     private final boolean forceAnsi;
@@ -44,13 +49,12 @@ public class AnsiConsole implements Console {
         this.flushable = flushable;
         this.colorMap = colorMap;
         textArea = new TextAreaImpl(textCursor);
-        statusBar = new LabelImpl(statusBarCursor);
         this.forceAnsi = forceAnsi;
     }
 
     @Override
     public void flush() {
-        statusBar.redraw();
+        statusArea.redraw();
         try {
             flushable.flush();
         } catch (IOException e) {
@@ -121,6 +125,14 @@ public class AnsiConsole implements Console {
         return statusBar;
     }
 
+    @Override
+    public Label getWorkerStatus(int index) {
+        while (workerLabels.size() <= index) {
+            workerLabels.add(new LabelImpl());
+        }
+        return workerLabels.get(index);
+    }
+
     public TextArea getMainArea() {
         return textArea;
     }
@@ -137,62 +149,140 @@ public class AnsiConsole implements Console {
             this.row = position.row;
         }
 
-        public void bottomLeft() {
-            col = 0;
-            row = 0;
-        }
     }
 
     private class LabelImpl implements Label {
-        private final Cursor writePos;
-        private String writtenText = "";
         private String text = "";
 
-        public LabelImpl(Cursor writePos) {
-            this.writePos = writePos;
+        public void setText(String text) {
+            this.text = text;
         }
+    }
 
-        public void setText(String text) {
-            if (text.equals(this.text)) {
-                return;
+    /**
+     * The status bar followed by the non-empty worker labels, rendered as a block of lines below the text area.
+     * Only the characters that have changed since the previous redraw are written to the console.
+     */
+    private class StatusAreaImpl {
+        private List<String> writtenLines = Collections.emptyList();
+        private boolean drawn;
+
+        /**
+         * Is the status area still displayed on the console, starting at {@link #statusBarCursor}?
+         */
+        private boolean isIntact() {
+            return drawn && (textCursor.row > statusBarCursor.row || (textCursor.row == statusBarCursor.row && textCursor.col == 0));
+        }
+
+        /**
+         * Called before text is written to the text area. Removes the status area when it spans multiple lines and the text would be written over it.
+         */
+        public void beforeTextWritten(Ansi ansi) {
+            if (isIntact() && textCursor.row == statusBarCursor.row && statusBarCursor.row > 0) {
+                positionCursorAt(textCursor, ansi);
+                ansi.eraseScreen(Ansi.Erase.FORWARD);
+                writtenLines = Collections.emptyList();
+                drawn = false;
+                statusBarCursor.col = 0;
             }
-            this.text = text;
         }
 
         public void redraw() {
-            boolean hasTextOnBottomLine = textCursor.row == 0 && textCursor.col > 0;
-            if (writePos.row == 0 && writtenText.equals(text) && !hasTextOnBottomLine) {
+            List<String> lines = getLines();
+            boolean intact = isIntact();
+            if (intact && lines.equals(writtenLines)) {
                 // Does not need to be redrawn
                 return;
             }
             Ansi ansi = createAnsi();
-            if (hasTextOnBottomLine) {
-                int staleStatusChars = writePos.row > 0 ? 0 : writtenText.length();
-                writePos.copyFrom(textCursor);
-                positionCursorAt(writePos, ansi);
-                if (staleStatusChars > textCursor.col) {
+            boolean modified = false;
+            List<String> onScreen = writtenLines;
+            if (!intact) {
+                onScreen = Collections.emptyList();
+                if (textCursor.col > 0 && textCursor.row == 0) {
+                    // Start the status area on a new line below the text
+                    int staleStatusChars = statusBarCursor.row > 0 || writtenLines.isEmpty() ? 0 : writtenLines.get(0).length();
+                    positionCursorAt(textCursor, ansi);
+                    if (staleStatusChars > textCursor.col) {
+                        ansi.eraseLine(Ansi.Erase.FORWARD);
+                    }
+                    ansi.newline();
+                    newLineWritten(statusBarCursor);
+                    modified = true;
+                } else {
+                    statusBarCursor.row = textCursor.col > 0 ? textCursor.row - 1 : textCursor.row;
+                    statusBarCursor.col = 0;
+                }
+            }
+
+            int lineCount = Math.max(lines.size(), onScreen.size());
+            for (int i = 0; i < lineCount; i++) {
+                String text = i < lines.size() ? lines.get(i) : "";
+                String previous = i < onScreen.size() ? onScreen.get(i) : "";
+                int unchanged = commonPrefixLength(text, previous);
+                if (unchanged == text.length() && unchanged == previous.length()) {
+                    continue;
+                }
+                Cursor linePos = startOfLine(i, ansi);
+                linePos.col = unchanged;
+                positionCursorAt(linePos, ansi);
+                if (unchanged < text.length()) {
+                    ColorMap.Color color = colorMap.getStatusBarColor();
+                    color.on(ansi);
+                    ansi.a(text.substring(unchanged));
+                    color.off(ansi);
+                    charactersWritten(linePos, text.length() - unchanged);
+                }
+                if (text.length() < previous.length()) {
                     ansi.eraseLine(Ansi.Erase.FORWARD);
                 }
-                ansi.newline();
-                newLineWritten(writePos);
-                writtenText = "";
-            } else {
-                writePos.bottomLeft();
-                positionCursorAt(writePos, ansi);
+                modified = true;
             }
-            if (text.length() > 0) {
-                ColorMap.Color color = colorMap.getStatusBarColor();
-                color.on(ansi);
-                ansi.a(text);
-                color.off(ansi);
+            if (modified) {
+                write(ansi);
             }
-            if (text.length() < writtenText.length()) {
-                ansi.eraseLine(Ansi.Erase.FORWARD);
+            statusBarCursor.col = lines.get(0).length();
+            writtenLines = lines;
+            drawn = true;
+        }
+
+        private List<String> getLines() {
+            List<String> lines = new ArrayList<String>(1 + workerLabels.size());
+            lines.add(statusBar.text);
+            for (LabelImpl workerLabel : workerLabels) {
+                if (workerLabel.text.length() > 0) {
+                    lines.add(workerLabel.text);
+                }
             }
-            write(ansi);
-            charactersWritten(writePos, text.length());
-            writtenText = text;
+            return lines;
+        }
+
+        /**
+         * Returns the start of the given line of the status area, scrolling the console when the line is below the bottom of the screen.
+         */
+        private Cursor startOfLine(int index, Ansi ansi) {
+            while (statusBarCursor.row - index < 0) {
+                Cursor bottom = new Cursor();
+                if (writeCursor.row == 0) {
+                    bottom.copyFrom(writeCursor);
+                }
+                positionCursorAt(bottom, ansi);
+                ansi.newline();
+                newLineWritten(bottom);
+            }
+            Cursor lineStart = new Cursor();
+            lineStart.row = statusBarCursor.row - index;
+            return lineStart;
+        }
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
         }
+        return i;
     }
 
     private class TextAreaImpl extends AbstractLineChoppingStyledTextOutput implements TextArea {
@@ -208,6 +298,7 @@ public class AnsiConsole implements Console {
                 return;
             }
             Ansi ansi = createAnsi();
+            statusArea.beforeTextWritten(ansi);
             positionCursorAt(writePos, ansi);
             ColorMap.Color color = colorMap.getColourFor(getStyle());
             color.on(ansi);
@@ -240,6 +331,7 @@ public class AnsiConsole implements Console {
         @Override
         protected void doEndLine(CharSequence endOfLine) {
             Ansi ansi = createAnsi();
+            statusArea.beforeTextWritten(ansi);
             positionCursorAt(writePos, ansi);
             if (writePos.row == statusBarCursor.row && statusBarCursor.col > writePos.col) {
                 ansi.eraseLine(Ansi.Erase.FORWARD);
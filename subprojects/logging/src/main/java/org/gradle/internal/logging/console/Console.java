@@ -21,6 +21,11 @@ public interface Console {
 
     Label getStatusBar();
 
+    /**
+     * Returns the label describing the work of the given worker. Worker labels with text are displayed below the status bar, one per line.
+     */
+    Label getWorkerStatus(int index);
+
     /**
      * Flushes any pending updates. Updates may or may not be buffered, and this method should be called to finish rendering and pending updates, such as
      * updating the status bar.
@@ -31,6 +31,11 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class ConsoleBackedProgressRenderer implements OutputEventListener {
+    /**
+     * The maximum number of lines used to show the operations that are running concurrently, below the status bar. Defaults to 0, which shows the status bar only.
+     */
+    public static final String WORKER_LINES_PROPERTY = "org.gradle.console.workers";
+
     private final OutputEventListener listener;
     private final Console console;
     private final ProgressOperations operations = new ProgressOperations();
@@ -38,19 +43,26 @@ public class ConsoleBackedProgressRenderer implements OutputEventListener {
     private final ScheduledExecutorService executor;
     private final TimeProvider timeProvider;
     private final int throttleMs;
+    private final int maxWorkerLines;
     // Protected by lock
     private final Object lock = new Object();
     private long lastUpdate;
     private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
     private ProgressOperation mostRecentOperation;
     private Label statusBar;
+    private int workerLines;
 
     public ConsoleBackedProgressRenderer(OutputEventListener listener, Console console, DefaultStatusBarFormatter statusBarFormatter, TimeProvider timeProvider) {
-        this(listener, console, statusBarFormatter, Integer.getInteger("org.gradle.console.throttle", 85), Executors.newSingleThreadScheduledExecutor(), timeProvider);
+        this(listener, console, statusBarFormatter, Integer.getInteger("org.gradle.console.throttle", 85), Integer.getInteger(WORKER_LINES_PROPERTY, 0), Executors.newSingleThreadScheduledExecutor(), timeProvider);
     }
 
     ConsoleBackedProgressRenderer(OutputEventListener listener, Console console, DefaultStatusBarFormatter statusBarFormatter, int throttleMs, ScheduledExecutorService executor, TimeProvider timeProvider) {
+        this(listener, console, statusBarFormatter, throttleMs, 0, executor, timeProvider);
+    }
+
+    ConsoleBackedProgressRenderer(OutputEventListener listener, Console console, DefaultStatusBarFormatter statusBarFormatter, int throttleMs, int maxWorkerLines, ScheduledExecutorService executor, TimeProvider timeProvider) {
         this.throttleMs = throttleMs;
+        this.maxWorkerLines = maxWorkerLines;
         this.listener = listener;
         this.console = console;
         this.statusBarFormatter = statusBarFormatter;
@@ -122,12 +134,28 @@ public class ConsoleBackedProgressRenderer implements OutputEventListener {
         } else if (mostRecentOperation != null) {
             getStatusBar().setText("");
         }
+        if (maxWorkerLines > 0) {
+            updateWorkerStatus();
+        }
         console.flush();
         mostRecentOperation = lastOp;
         queue.clear();
         lastUpdate = now;
     }
 
+    private void updateWorkerStatus() {
+        List<ProgressOperation> leafOperations = operations.getLeafOperations();
+        // A single operation is already shown in the status bar
+        int lines = leafOperations.size() > 1 ? Math.min(leafOperations.size(), maxWorkerLines) : 0;
+        for (int i = 0; i < lines; i++) {
+            console.getWorkerStatus(i).setText(statusBarFormatter.format(leafOperations.get(i)));
+        }
+        for (int i = lines; i < workerLines; i++) {
+            console.getWorkerStatus(i).setText("");
+        }
+        workerLines = lines;
+    }
+
     private Label getStatusBar() {
         if (statusBar == null) {
             statusBar = console.getStatusBar();
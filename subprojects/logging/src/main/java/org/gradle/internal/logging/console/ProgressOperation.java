@@ -23,6 +23,7 @@ public class ProgressOperation {
     private final String shortDescription;
     private String status;
     private ProgressOperation parent;
+    private int runningChildren;
 
     public ProgressOperation(String shortDescription, String status, ProgressOperation parent) {
         this.shortDescription = shortDescription;
@@ -47,4 +48,16 @@ public class ProgressOperation {
     public ProgressOperation getParent() {
         return parent;
     }
+
+    void childStarted() {
+        runningChildren++;
+    }
+
+    void childCompleted() {
+        runningChildren--;
+    }
+
+    boolean hasRunningChildren() {
+        return runningChildren > 0;
+    }
 }
@@ -19,17 +19,22 @@ package org.gradle.internal.logging.console;
 import org.gradle.api.Nullable;
 import org.gradle.internal.logging.events.OperationIdentifier;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ProgressOperations {
 
-    private final Map<OperationIdentifier, ProgressOperation> operationsById = new HashMap<OperationIdentifier, ProgressOperation>();
+    private final Map<OperationIdentifier, ProgressOperation> operationsById = new LinkedHashMap<OperationIdentifier, ProgressOperation>();
 
     public ProgressOperation start(String description, String status, OperationIdentifier operationId, @Nullable OperationIdentifier parentOperationId) {
         ProgressOperation parent = null;
         if (parentOperationId != null) {
             parent = operationsById.get(parentOperationId);
+            if (parent != null) {
+                parent.childStarted();
+            }
         }
         ProgressOperation operation = new ProgressOperation(description, status, parent);
         operationsById.put(operationId, operation);
@@ -50,6 +55,22 @@ public class ProgressOperations {
         if (op == null) {
             throw new IllegalStateException("Received complete event for an unknown operation (id: " + operationId + ")");
         }
+        if (op.getParent() != null) {
+            op.getParent().childCompleted();
+        }
         return op;
     }
+
+    /**
+     * Returns the running operations that have no running children, in the order they were started.
+     */
+    public List<ProgressOperation> getLeafOperations() {
+        List<ProgressOperation> leaves = new ArrayList<ProgressOperation>();
+        for (ProgressOperation operation : operationsById.values()) {
+            if (!operation.hasRunningChildren()) {
+                leaves.add(operation);
+            }
+        }
+        return leaves;
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Reads the events of a log written by {@link OutputEventLogWriter}.
+ */
+public class OutputEventLogReader {
+    private final File logFile;
+
+    public OutputEventLogReader(File logFile) {
+        this.logFile = logFile;
+    }
+
+    /**
+     * Passes each event of the log to the given listener, in the order the events were written. An incomplete record at the end of the log is ignored.
+     *
+     * @return The number of events read.
+     */
+    public long replay(OutputEventListener listener) {
+        long count = 0;
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(logFile));
+            try {
+                ObjectReader<OutputEvent> reader = new OutputEventLogSerializer().newReader(decoder);
+                while (true) {
+                    OutputEvent event;
+                    try {
+                        event = reader.read();
+                    } catch (EOFException e) {
+                        return count;
+                    }
+                    listener.onOutput(event);
+                    count++;
+                }
+            } finally {
+                decoder.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read output event log %s.", logFile), e);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
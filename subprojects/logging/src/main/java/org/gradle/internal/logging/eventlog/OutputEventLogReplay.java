@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog;
+
+import org.gradle.internal.logging.config.LoggingSystem;
+import org.gradle.internal.logging.events.EndOutputEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.sink.OutputEventRenderer;
+
+import java.io.File;
+import java.io.PrintWriter;
+
+/**
+ * Replays an output event log, either by rendering the events as they would have been rendered on the console or by printing a summary of the log.
+ *
+ * <pre>
+ * OutputEventLogReplay &lt;log-file&gt; [--rich | --summary]
+ * </pre>
+ */
+public class OutputEventLogReplay {
+    private static final int SLOWEST_OPERATIONS = 20;
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--rich") && !args[1].equals("--summary"))) {
+            System.err.println("usage: OutputEventLogReplay <log-file> [--rich | --summary]");
+            System.exit(1);
+        }
+        OutputEventLogReader reader = new OutputEventLogReader(new File(args[0]));
+        String mode = args.length == 2 ? args[1] : "";
+        if (mode.equals("--summary")) {
+            OutputEventLogSummary summary = new OutputEventLogSummary(SLOWEST_OPERATIONS);
+            reader.replay(summary);
+            summary.render(new PrintWriter(System.out));
+        } else {
+            replayToConsole(reader, mode.equals("--rich"));
+        }
+    }
+
+    private static void replayToConsole(OutputEventLogReader reader, boolean rich) {
+        final OutputEventRenderer renderer = new OutputEventRenderer();
+        LoggingSystem.Snapshot withoutConsole = renderer.snapshot();
+        if (rich) {
+            renderer.attachAnsiConsole(System.out);
+        } else {
+            renderer.attachSystemOutAndErr();
+        }
+        reader.replay(new OutputEventListener() {
+            @Override
+            public void onOutput(OutputEvent event) {
+                if (!(event instanceof EndOutputEvent)) {
+                    renderer.onOutput(event);
+                }
+            }
+        });
+        // Removes the console, which finishes rendering
+        renderer.restore(withoutConsole);
+    }
+}
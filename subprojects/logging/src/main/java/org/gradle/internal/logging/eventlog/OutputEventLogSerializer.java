@@ -0,0 +1,320 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.EndOutputEvent;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.LogLevelChangeEvent;
+import org.gradle.internal.logging.events.OperationIdentifier;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.ProgressCompleteEvent;
+import org.gradle.internal.logging.events.ProgressEvent;
+import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.logging.events.StyledTextOutputEvent;
+import org.gradle.internal.logging.text.StyledTextOutput;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.ObjectReader;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.StatefulSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The compact binary format of the output event log.
+ *
+ * <p>A log is a sequence of sessions, each of which starts with a header record followed by one record per event. Integers are written as
+ * variable length values, timestamps are written as the zig-zag encoded difference to the previous timestamp of the session, and categories
+ * are replaced with a reference to their first occurrence in the session. Events of other types than those supported are not written.</p>
+ */
+public class OutputEventLogSerializer implements StatefulSerializer<OutputEvent> {
+    static final int MAGIC = 0x47454c47;
+    static final int VERSION = 1;
+    // Limits the memory used by a long running writer. Categories seen after the table is full are written in full.
+    private static final int MAX_STRING_TABLE_SIZE = 4096;
+
+    private static final byte SESSION = 0;
+    private static final byte LOG = 1;
+    private static final byte STYLED_TEXT = 2;
+    private static final byte PROGRESS_START = 3;
+    private static final byte PROGRESS = 4;
+    private static final byte PROGRESS_COMPLETE = 5;
+    private static final byte LOG_LEVEL_CHANGE = 6;
+    private static final byte END = 7;
+
+    private static final LogLevel[] LOG_LEVELS = LogLevel.values();
+    private static final StyledTextOutput.Style[] STYLES = StyledTextOutput.Style.values();
+
+    private final Serializer<Throwable> throwableSerializer = new BaseSerializerFactory().getSerializerFor(Throwable.class);
+
+    @Override
+    public ObjectReader<OutputEvent> newReader(Decoder decoder) {
+        return new EventReader(decoder);
+    }
+
+    @Override
+    public ObjectWriter<OutputEvent> newWriter(Encoder encoder) {
+        return new EventWriter(encoder);
+    }
+
+    /**
+     * Returns true when events of the given type are written to the log.
+     */
+    public static boolean isSupported(OutputEvent event) {
+        return event instanceof LogEvent
+            || event instanceof StyledTextOutputEvent
+            || event instanceof ProgressStartEvent
+            || event instanceof ProgressEvent
+            || event instanceof ProgressCompleteEvent
+            || event instanceof LogLevelChangeEvent
+            || event instanceof EndOutputEvent;
+    }
+
+    private class EventWriter implements ObjectWriter<OutputEvent> {
+        private final Encoder encoder;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        private boolean started;
+        private long lastTimestamp;
+
+        EventWriter(Encoder encoder) {
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void write(OutputEvent event) throws Exception {
+            if (!started) {
+                lastTimestamp = System.currentTimeMillis();
+                encoder.writeByte(SESSION);
+                encoder.writeInt(MAGIC);
+                encoder.writeSmallInt(VERSION);
+                encoder.writeLong(lastTimestamp);
+                started = true;
+            }
+            if (event instanceof LogEvent) {
+                LogEvent logEvent = (LogEvent) event;
+                encoder.writeByte(LOG);
+                writeTimestamp(logEvent.getTimestamp());
+                writeCategory(logEvent.getCategory());
+                writeLogLevel(logEvent.getLogLevel());
+                encoder.writeString(logEvent.getMessage());
+                if (logEvent.getThrowable() == null) {
+                    encoder.writeBoolean(false);
+                } else {
+                    encoder.writeBoolean(true);
+                    throwableSerializer.write(encoder, logEvent.getThrowable());
+                }
+            } else if (event instanceof StyledTextOutputEvent) {
+                StyledTextOutputEvent textEvent = (StyledTextOutputEvent) event;
+                encoder.writeByte(STYLED_TEXT);
+                writeTimestamp(textEvent.getTimestamp());
+                writeCategory(textEvent.getCategory());
+                writeLogLevel(textEvent.getLogLevel());
+                encoder.writeSmallInt(textEvent.getSpans().size());
+                for (StyledTextOutputEvent.Span span : textEvent.getSpans()) {
+                    encoder.writeSmallInt(span.getStyle().ordinal());
+                    encoder.writeString(span.getText());
+                }
+            } else if (event instanceof ProgressStartEvent) {
+                ProgressStartEvent startEvent = (ProgressStartEvent) event;
+                encoder.writeByte(PROGRESS_START);
+                encoder.writeSmallLong(startEvent.getOperationId().getId());
+                encoder.writeSmallLong(startEvent.getParentId() == null ? 0 : startEvent.getParentId().getId() + 1);
+                writeTimestamp(startEvent.getTimestamp());
+                writeCategory(startEvent.getCategory());
+                encoder.writeString(startEvent.getDescription());
+                encoder.writeNullableString(startEvent.getShortDescription());
+                encoder.writeNullableString(startEvent.getLoggingHeader());
+                encoder.writeString(startEvent.getStatus());
+            } else if (event instanceof ProgressEvent) {
+                ProgressEvent progressEvent = (ProgressEvent) event;
+                encoder.writeByte(PROGRESS);
+                encoder.writeSmallLong(progressEvent.getOperationId().getId());
+                writeTimestamp(progressEvent.getTimestamp());
+                writeCategory(progressEvent.getCategory());
+                encoder.writeString(progressEvent.getStatus());
+            } else if (event instanceof ProgressCompleteEvent) {
+                ProgressCompleteEvent completeEvent = (ProgressCompleteEvent) event;
+                encoder.writeByte(PROGRESS_COMPLETE);
+                encoder.writeSmallLong(completeEvent.getOperationId().getId());
+                writeTimestamp(completeEvent.getTimestamp());
+                writeCategory(completeEvent.getCategory());
+                encoder.writeString(completeEvent.getDescription());
+                encoder.writeString(completeEvent.getStatus());
+            } else if (event instanceof LogLevelChangeEvent) {
+                encoder.writeByte(LOG_LEVEL_CHANGE);
+                writeLogLevel(((LogLevelChangeEvent) event).getNewLogLevel());
+            } else if (event instanceof EndOutputEvent) {
+                encoder.writeByte(END);
+            }
+        }
+
+        private void writeTimestamp(long timestamp) throws IOException {
+            long delta = timestamp - lastTimestamp;
+            encoder.writeSmallLong((delta << 1) ^ (delta >> 63));
+            lastTimestamp = timestamp;
+        }
+
+        private void writeCategory(String category) throws IOException {
+            Integer index = strings.get(category);
+            if (index != null) {
+                encoder.writeSmallInt(index);
+                return;
+            }
+            encoder.writeSmallInt(0);
+            encoder.writeString(category);
+            if (strings.size() < MAX_STRING_TABLE_SIZE) {
+                strings.put(category, strings.size() + 1);
+            }
+        }
+
+        private void writeLogLevel(LogLevel logLevel) throws IOException {
+            encoder.writeSmallInt(logLevel == null ? 0 : logLevel.ordinal() + 1);
+        }
+    }
+
+    private class EventReader implements ObjectReader<OutputEvent> {
+        private final Decoder decoder;
+        private final List<String> strings = new ArrayList<String>();
+        private long lastTimestamp;
+
+        EventReader(Decoder decoder) {
+            this.decoder = decoder;
+        }
+
+        @Override
+        public OutputEvent read() throws Exception {
+            while (true) {
+                byte tag = decoder.readByte();
+                switch (tag) {
+                    case SESSION:
+                        readSessionHeader();
+                        break;
+                    case LOG:
+                        return readLogEvent();
+                    case STYLED_TEXT:
+                        return readStyledTextEvent();
+                    case PROGRESS_START:
+                        return readProgressStartEvent();
+                    case PROGRESS:
+                        return readProgressEvent();
+                    case PROGRESS_COMPLETE:
+                        return readProgressCompleteEvent();
+                    case LOG_LEVEL_CHANGE:
+                        return new LogLevelChangeEvent(readLogLevel());
+                    case END:
+                        return new EndOutputEvent();
+                    default:
+                        throw new IOException("Unexpected record type " + tag + " in output event log.");
+                }
+            }
+        }
+
+        private void readSessionHeader() throws IOException {
+            int magic = decoder.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not an output event log.");
+            }
+            int version = decoder.readSmallInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported output event log version " + version + ".");
+            }
+            lastTimestamp = decoder.readLong();
+            strings.clear();
+        }
+
+        private LogEvent readLogEvent() throws Exception {
+            long timestamp = readTimestamp();
+            String category = readCategory();
+            LogLevel logLevel = readLogLevel();
+            String message = decoder.readString();
+            Throwable throwable = decoder.readBoolean() ? throwableSerializer.read(decoder) : null;
+            return new LogEvent(timestamp, category, logLevel, message, throwable);
+        }
+
+        private StyledTextOutputEvent readStyledTextEvent() throws IOException {
+            long timestamp = readTimestamp();
+            String category = readCategory();
+            LogLevel logLevel = readLogLevel();
+            int count = decoder.readSmallInt();
+            List<StyledTextOutputEvent.Span> spans = new ArrayList<StyledTextOutputEvent.Span>(count);
+            for (int i = 0; i < count; i++) {
+                StyledTextOutput.Style style = STYLES[decoder.readSmallInt()];
+                spans.add(new StyledTextOutputEvent.Span(style, decoder.readString()));
+            }
+            return new StyledTextOutputEvent(timestamp, category, logLevel, spans);
+        }
+
+        private ProgressStartEvent readProgressStartEvent() throws IOException {
+            OperationIdentifier id = new OperationIdentifier(decoder.readSmallLong());
+            long parentId = decoder.readSmallLong();
+            long timestamp = readTimestamp();
+            String category = readCategory();
+            String description = decoder.readString();
+            String shortDescription = decoder.readNullableString();
+            String loggingHeader = decoder.readNullableString();
+            String status = decoder.readString();
+            return new ProgressStartEvent(id, parentId == 0 ? null : new OperationIdentifier(parentId - 1), timestamp, category, description, shortDescription, loggingHeader, status);
+        }
+
+        private ProgressEvent readProgressEvent() throws IOException {
+            OperationIdentifier id = new OperationIdentifier(decoder.readSmallLong());
+            long timestamp = readTimestamp();
+            String category = readCategory();
+            String status = decoder.readString();
+            return new ProgressEvent(id, timestamp, category, status);
+        }
+
+        private ProgressCompleteEvent readProgressCompleteEvent() throws IOException {
+            OperationIdentifier id = new OperationIdentifier(decoder.readSmallLong());
+            long timestamp = readTimestamp();
+            String category = readCategory();
+            String description = decoder.readString();
+            String status = decoder.readString();
+            return new ProgressCompleteEvent(id, timestamp, category, description, status);
+        }
+
+        private long readTimestamp() throws IOException {
+            long encoded = decoder.readSmallLong();
+            lastTimestamp += (encoded >>> 1) ^ -(encoded & 1);
+            return lastTimestamp;
+        }
+
+        private String readCategory() throws IOException {
+            int index = decoder.readSmallInt();
+            if (index > 0) {
+                return strings.get(index - 1);
+            }
+            String category = decoder.readString();
+            if (strings.size() < MAX_STRING_TABLE_SIZE) {
+                strings.add(category);
+            }
+            return category;
+        }
+
+        private LogLevel readLogLevel() throws IOException {
+            int value = decoder.readSmallInt();
+            return value == 0 ? null : LOG_LEVELS[value - 1];
+        }
+    }
+}
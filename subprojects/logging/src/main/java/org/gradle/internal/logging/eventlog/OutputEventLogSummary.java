@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.OperationIdentifier;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.ProgressCompleteEvent;
+import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.logging.events.RenderableOutputEvent;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects statistics about the events of an output event log, such as the number of log messages at each level and the slowest operations and tasks.
+ */
+public class OutputEventLogSummary implements OutputEventListener {
+    private static final String TASK_CATEGORY = "org.gradle.internal.buildevents.TaskExecutionLogger";
+
+    private final int maxOperations;
+    private final Map<String, Integer> eventCounts = new TreeMap<String, Integer>();
+    private final Map<LogLevel, Integer> messageCounts = new EnumMap<LogLevel, Integer>(LogLevel.class);
+    private final Map<OperationIdentifier, ProgressStartEvent> running = new HashMap<OperationIdentifier, ProgressStartEvent>();
+    private final List<CompletedOperation> operations = new ArrayList<CompletedOperation>();
+    private final List<CompletedOperation> tasks = new ArrayList<CompletedOperation>();
+    private long firstTimestamp = -1;
+    private long lastTimestamp = -1;
+
+    /**
+     * @param maxOperations The number of slowest operations and tasks to report.
+     */
+    public OutputEventLogSummary(int maxOperations) {
+        this.maxOperations = maxOperations;
+    }
+
+    @Override
+    public void onOutput(OutputEvent event) {
+        increment(eventCounts, event.getClass().getSimpleName());
+        if (event instanceof RenderableOutputEvent) {
+            RenderableOutputEvent renderableEvent = (RenderableOutputEvent) event;
+            if (renderableEvent.getLogLevel() != null) {
+                increment(messageCounts, renderableEvent.getLogLevel());
+            }
+            timestamp(renderableEvent.getTimestamp());
+        } else if (event instanceof ProgressStartEvent) {
+            ProgressStartEvent startEvent = (ProgressStartEvent) event;
+            running.put(startEvent.getOperationId(), startEvent);
+            timestamp(startEvent.getTimestamp());
+        } else if (event instanceof ProgressCompleteEvent) {
+            ProgressCompleteEvent completeEvent = (ProgressCompleteEvent) event;
+            timestamp(completeEvent.getTimestamp());
+            ProgressStartEvent startEvent = running.remove(completeEvent.getOperationId());
+            if (startEvent != null) {
+                CompletedOperation operation = new CompletedOperation(startEvent.getDescription(), completeEvent.getTimestamp() - startEvent.getTimestamp());
+                operations.add(operation);
+                if (TASK_CATEGORY.equals(startEvent.getCategory())) {
+                    tasks.add(operation);
+                }
+            }
+        }
+    }
+
+    public void render(PrintWriter writer) {
+        writer.println("Events:");
+        for (Map.Entry<String, Integer> entry : eventCounts.entrySet()) {
+            writer.format("  %-24s %d%n", entry.getKey(), entry.getValue());
+        }
+        if (firstTimestamp >= 0) {
+            writer.format("Elapsed: %dms%n", lastTimestamp - firstTimestamp);
+        }
+        writer.println("Messages:");
+        for (Map.Entry<LogLevel, Integer> entry : messageCounts.entrySet()) {
+            writer.format("  %-24s %d%n", entry.getKey(), entry.getValue());
+        }
+        writer.format("Operations: %d completed, %d incomplete%n", operations.size(), running.size());
+        renderSlowest("Slowest operations:", operations, writer);
+        writer.format("Tasks: %d%n", tasks.size());
+        renderSlowest("Slowest tasks:", tasks, writer);
+        writer.flush();
+    }
+
+    private void renderSlowest(String title, List<CompletedOperation> operations, PrintWriter writer) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        List<CompletedOperation> sorted = new ArrayList<CompletedOperation>(operations);
+        Collections.sort(sorted, new Comparator<CompletedOperation>() {
+            @Override
+            public int compare(CompletedOperation o1, CompletedOperation o2) {
+                return o1.duration > o2.duration ? -1 : o1.duration < o2.duration ? 1 : 0;
+            }
+        });
+        writer.println(title);
+        for (CompletedOperation operation : sorted.subList(0, Math.min(maxOperations, sorted.size()))) {
+            writer.format("  %8dms %s%n", operation.duration, operation.description);
+        }
+    }
+
+    private void timestamp(long timestamp) {
+        if (firstTimestamp < 0 || timestamp < firstTimestamp) {
+            firstTimestamp = timestamp;
+        }
+        lastTimestamp = Math.max(lastTimestamp, timestamp);
+    }
+
+    private static <K> void increment(Map<K, Integer> counts, K key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static class CompletedOperation {
+        final String description;
+        final long duration;
+
+        CompletedOperation(String description, long duration) {
+            this.description = description;
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog;
+
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.sink.BatchingOutputEventDispatcher;
+import org.gradle.internal.serialize.ObjectWriter;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.util.List;
+
+/**
+ * Appends output events to a binary log file, in the format described by {@link OutputEventLogSerializer}.
+ *
+ * <p>Events are handed over to a dedicated thread, which encodes and writes them in batches, so that recording an event costs little more
+ * than publishing it into a buffer. If the log cannot be written, recording stops and the build is not affected.</p>
+ */
+public class OutputEventLogWriter implements OutputEventListener, Stoppable {
+    private static final int BUFFER_CAPACITY = 8192;
+
+    private final File logFile;
+    private final KryoBackedEncoder encoder;
+    private final ObjectWriter<OutputEvent> writer;
+    private final BatchingOutputEventDispatcher dispatcher;
+    // Guarded by this
+    private boolean closed;
+
+    public OutputEventLogWriter(File logFile) {
+        this.logFile = logFile;
+        File parent = logFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try {
+            encoder = new KryoBackedEncoder(new FileOutputStream(logFile, true));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(String.format("Could not open output event log %s.", logFile), e);
+        }
+        writer = new OutputEventLogSerializer().newWriter(encoder);
+        dispatcher = new BatchingOutputEventDispatcher(new Action<List<OutputEvent>>() {
+            @Override
+            public void execute(List<OutputEvent> events) {
+                write(events);
+            }
+        }, BUFFER_CAPACITY, BatchingOutputEventDispatcher.OverflowPolicy.BLOCK);
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    @Override
+    public void onOutput(OutputEvent event) {
+        if (OutputEventLogSerializer.isSupported(event)) {
+            dispatcher.onOutput(event);
+        }
+    }
+
+    /**
+     * Blocks until all events received so far have been written to the log file.
+     */
+    public void flush() {
+        dispatcher.flush();
+    }
+
+    @Override
+    public void stop() {
+        dispatcher.stop();
+        synchronized (this) {
+            if (!closed) {
+                closed = true;
+                encoder.close();
+            }
+        }
+    }
+
+    private synchronized void write(List<OutputEvent> events) {
+        if (closed) {
+            return;
+        }
+        try {
+            for (OutputEvent event : events) {
+                writer.write(event);
+            }
+            encoder.flush();
+        } catch (Exception e) {
+            // Stop recording, rather than failing the build. The events written so far can still be read
+            closed = true;
+            try {
+                encoder.close();
+            } catch (Exception ignored) {
+                // Ignore
+            }
+        }
+    }
+}
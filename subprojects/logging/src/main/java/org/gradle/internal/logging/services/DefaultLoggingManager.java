@@ -82,6 +82,8 @@ public class DefaultLoggingManager implements LoggingManagerInternal, Closeable
     public DefaultLoggingManager stop() {
         try {
             CompositeStoppable.stoppable(slf4jLoggingSystem, javaUtilLoggingSystem, stdOutLoggingSystem, stdErrLoggingSystem).stop();
+            // Deliver any output that is still queued to the listeners before they are removed
+            loggingOutput.flush();
             for (StandardOutputListener stdoutListener : stdoutListeners) {
                 loggingOutput.removeStandardOutputListener(stdoutListener);
             }
@@ -184,6 +186,11 @@ public class DefaultLoggingManager implements LoggingManagerInternal, Closeable
         }
     }
 
+    @Override
+    public void flush() {
+        loggingOutput.flush();
+    }
+
     public void attachProcessConsole(ConsoleOutput consoleOutput) {
         loggingRouter.attachProcessConsole(consoleOutput);
     }
@@ -25,9 +25,11 @@ import org.gradle.internal.logging.LoggingCommandLineConverter;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.config.LoggingSourceSystem;
 import org.gradle.internal.logging.config.LoggingSystemAdapter;
+import org.gradle.internal.logging.eventlog.OutputEventLogWriter;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.logging.progress.DefaultProgressLoggerFactory;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.logging.sink.BatchingOutputEventDispatcher;
 import org.gradle.internal.logging.sink.OutputEventRenderer;
 import org.gradle.internal.logging.slf4j.Slf4jLoggingConfigurer;
 import org.gradle.internal.logging.source.DefaultStdErrLoggingSystem;
@@ -37,6 +39,9 @@ import org.gradle.internal.logging.source.NoOpLoggingSystem;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
 import org.gradle.internal.service.DefaultServiceRegistry;
 
+import java.io.File;
+import java.util.Locale;
+
 /**
  * A {@link org.gradle.internal.service.ServiceRegistry} implementation that provides the logging services. To use this:
  *
@@ -49,6 +54,15 @@ import org.gradle.internal.service.DefaultServiceRegistry;
  * </ol>
  */
 public abstract class LoggingServiceRegistry extends DefaultServiceRegistry {
+    public static final String ASYNC_RENDERING_PROPERTY = "org.gradle.internal.logging.async";
+    public static final String ASYNC_RENDERING_CAPACITY_PROPERTY = "org.gradle.internal.logging.async.capacity";
+    public static final String ASYNC_RENDERING_OVERFLOW_PROPERTY = "org.gradle.internal.logging.async.overflow";
+    /**
+     * The file to append a binary log of all output events to. Each process should use its own file.
+     */
+    public static final String EVENT_LOG_PROPERTY = "org.gradle.internal.logging.eventlog";
+    private static final int DEFAULT_ASYNC_RENDERING_CAPACITY = 8192;
+
     private TextStreamOutputEventListener stdoutListener;
 
     /**
@@ -143,10 +157,26 @@ public abstract class LoggingServiceRegistry extends DefaultServiceRegistry {
     }
 
     protected OutputEventRenderer createOutputEventRenderer() {
-        return new OutputEventRenderer();
+        OutputEventRenderer renderer = new OutputEventRenderer();
+        if (Boolean.getBoolean(ASYNC_RENDERING_PROPERTY)) {
+            int capacity = Integer.getInteger(ASYNC_RENDERING_CAPACITY_PROPERTY, DEFAULT_ASYNC_RENDERING_CAPACITY);
+            String overflow = System.getProperty(ASYNC_RENDERING_OVERFLOW_PROPERTY, BatchingOutputEventDispatcher.OverflowPolicy.BLOCK.name());
+            renderer.renderAsynchronously(capacity, BatchingOutputEventDispatcher.OverflowPolicy.valueOf(overflow.toUpperCase(Locale.ENGLISH)));
+        }
+        return renderer;
     }
 
     private static class CommandLineLogging extends LoggingServiceRegistry {
+        @Override
+        protected OutputEventRenderer createOutputEventRenderer() {
+            OutputEventRenderer renderer = super.createOutputEventRenderer();
+            // Only the process wide logging is recorded, as nested logging scopes would write to the same file
+            String eventLog = System.getProperty(EVENT_LOG_PROPERTY);
+            if (eventLog != null && eventLog.length() > 0) {
+                renderer.recordTo(new OutputEventLogWriter(new File(eventLog)));
+            }
+            return renderer;
+        }
     }
 
     private static class NestedLogging extends LoggingServiceRegistry {
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.sink;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Action;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.RenderableOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands output events over to a dedicated thread, which passes them on to a renderer in batches.
+ *
+ * <p>Events are published into a bounded, lock-free ring buffer, so that the threads producing output do not contend with each other on the renderer.
+ * Events are delivered in the order in which they were published. What happens when the buffer is full is determined by the {@link OverflowPolicy}.</p>
+ *
+ * <p>Use {@link #flush()} to wait until all events published so far have been rendered, and {@link #stop()} to render the remaining events and stop the thread.
+ * The thread sleeps while there are no events to render, and is woken by the thread that publishes the next event.</p>
+ */
+@ThreadSafe
+public class BatchingOutputEventDispatcher implements OutputEventListener, Stoppable {
+    public enum OverflowPolicy {
+        /**
+         * Blocks the producing thread until there is space in the buffer.
+         */
+        BLOCK,
+        /**
+         * Discards log output below {@link LogLevel#WARN}, and blocks for all other events.
+         */
+        DISCARD
+    }
+
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    // Set in the published sequence by the dispatcher thread when it stops, so that no further events can be published to the buffer
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final Action<? super List<OutputEvent>> renderer;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicReferenceArray<OutputEvent> buffer;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong rendered = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final Object renderedLock = new Object();
+    private final Thread consumer;
+    private volatile boolean consumerWaiting;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+
+    /**
+     * @param renderer Receives batches of events on the dispatcher thread.
+     * @param capacity The number of events that can be buffered. Rounded up to a power of two.
+     */
+    public BatchingOutputEventDispatcher(Action<? super List<OutputEvent>> renderer, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.renderer = renderer;
+        this.overflowPolicy = overflowPolicy;
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new AtomicReferenceArray<OutputEvent>(size);
+        this.mask = size - 1;
+        this.consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "Output event dispatcher");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void onOutput(OutputEvent event) {
+        if (Thread.currentThread() == consumer) {
+            // Output generated while rendering
+            renderer.execute(singletonBatch(event));
+            return;
+        }
+        while (!tryPublish(event)) {
+            if (published.get() < 0) {
+                // The dispatcher thread has rendered all published events and stopped
+                renderer.execute(singletonBatch(event));
+                return;
+            }
+            if (overflowPolicy == OverflowPolicy.DISCARD && isDiscardable(event)) {
+                discarded.incrementAndGet();
+                return;
+            }
+            wakeConsumer();
+            LockSupport.parkNanos(FULL_WAIT_NANOS);
+        }
+        if (consumerWaiting) {
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Blocks until all events published before this method was called have been rendered. Rethrows any failure that occurred while rendering.
+     */
+    public void flush() {
+        reportDiscardedEvents();
+        if (Thread.currentThread() != consumer) {
+            long target = published.get() & ~CLOSED;
+            synchronized (renderedLock) {
+                while (rendered.get() < target && consumer.isAlive()) {
+                    try {
+                        renderedLock.wait();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            }
+        }
+        Throwable renderFailure = failure;
+        if (renderFailure != null) {
+            failure = null;
+            throw UncheckedException.throwAsUncheckedException(renderFailure);
+        }
+    }
+
+    /**
+     * Renders all pending events and stops the dispatcher thread. Events published after the dispatcher thread has stopped are rendered on the publishing thread.
+     */
+    @Override
+    public void stop() {
+        try {
+            flush();
+        } finally {
+            stopped = true;
+            wakeConsumer();
+            if (Thread.currentThread() != consumer) {
+                try {
+                    consumer.join();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
+    }
+
+    private boolean tryPublish(OutputEvent event) {
+        while (true) {
+            long sequence = published.get();
+            if (sequence < 0 || sequence - consumed.get() >= buffer.length()) {
+                return false;
+            }
+            if (published.compareAndSet(sequence, sequence + 1)) {
+                // A volatile write, so that either the consumer sees the event or this thread sees that the consumer is waiting
+                buffer.set((int) sequence & mask, event);
+                return true;
+            }
+        }
+    }
+
+    private void consume() {
+        try {
+            consumeUntilStopped();
+        } finally {
+            synchronized (renderedLock) {
+                renderedLock.notifyAll();
+            }
+        }
+    }
+
+    private void consumeUntilStopped() {
+        List<OutputEvent> batch = new ArrayList<OutputEvent>(MAX_BATCH_SIZE);
+        long sequence = 0;
+        while (true) {
+            while (batch.size() < MAX_BATCH_SIZE) {
+                int index = (int) sequence & mask;
+                OutputEvent event = buffer.get(index);
+                if (event == null) {
+                    // Either empty, or a producer has claimed the slot but not yet written to it
+                    break;
+                }
+                buffer.lazySet(index, null);
+                batch.add(event);
+                sequence++;
+            }
+            if (batch.isEmpty()) {
+                // Only stop once no further events can be published to the buffer, so that none are left behind
+                if (stopped && published.compareAndSet(sequence, sequence | CLOSED)) {
+                    return;
+                }
+                consumerWaiting = true;
+                if (buffer.get((int) sequence & mask) == null && !stopped) {
+                    LockSupport.park(this);
+                }
+                consumerWaiting = false;
+                continue;
+            }
+            consumed.lazySet(sequence);
+            render(batch);
+            batch.clear();
+            rendered.set(sequence);
+            synchronized (renderedLock) {
+                renderedLock.notifyAll();
+            }
+        }
+    }
+
+    private void render(List<OutputEvent> batch) {
+        try {
+            renderer.execute(batch);
+        } catch (Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+        }
+    }
+
+    private void reportDiscardedEvents() {
+        long count = discarded.getAndSet(0);
+        if (count > 0) {
+            String message = String.format("%d log messages were discarded because output could not be rendered fast enough.", count);
+            onOutput(new LogEvent(System.currentTimeMillis(), BatchingOutputEventDispatcher.class.getName(), LogLevel.WARN, message, null));
+        }
+    }
+
+    private void wakeConsumer() {
+        LockSupport.unpark(consumer);
+    }
+
+    private static boolean isDiscardable(OutputEvent event) {
+        return event instanceof RenderableOutputEvent && event.getLogLevel() != null && event.getLogLevel().compareTo(LogLevel.WARN) < 0;
+    }
+
+    private static List<OutputEvent> singletonBatch(OutputEvent event) {
+        List<OutputEvent> batch = new ArrayList<OutputEvent>(1);
+        batch.add(event);
+        return batch;
+    }
+}
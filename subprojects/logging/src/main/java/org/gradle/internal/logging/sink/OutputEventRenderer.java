@@ -17,10 +17,13 @@
 package org.gradle.internal.logging.sink;
 
 import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.Action;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.api.logging.configuration.ConsoleOutput;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.logging.config.LoggingRouter;
 import org.gradle.internal.logging.console.AnsiConsole;
@@ -30,6 +33,7 @@ import org.gradle.internal.logging.console.ConsoleBackedProgressRenderer;
 import org.gradle.internal.logging.console.DefaultColorMap;
 import org.gradle.internal.logging.console.DefaultStatusBarFormatter;
 import org.gradle.internal.logging.console.StyledTextOutputBackedRenderer;
+import org.gradle.internal.logging.eventlog.OutputEventLogWriter;
 import org.gradle.internal.logging.events.EndOutputEvent;
 import org.gradle.internal.logging.events.LogLevelChangeEvent;
 import org.gradle.internal.logging.events.OutputEvent;
@@ -41,13 +45,14 @@ import org.gradle.internal.nativeintegration.console.FallbackConsoleMetaData;
 
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.List;
 
 /**
  * A {@link OutputEventListener} implementation which renders output events to various
  * destinations. This implementation is thread-safe.
  */
 @ThreadSafe
-public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
+public class OutputEventRenderer implements OutputEventListener, LoggingRouter, Stoppable {
     private final ListenerBroadcast<OutputEventListener> formatters = new ListenerBroadcast<OutputEventListener>(OutputEventListener.class);
     private final ListenerBroadcast<StandardOutputListener> stdoutListeners = new ListenerBroadcast<StandardOutputListener>(StandardOutputListener.class);
     private final ListenerBroadcast<StandardOutputListener> stderrListeners = new ListenerBroadcast<StandardOutputListener>(StandardOutputListener.class);
@@ -60,6 +65,8 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
     private StreamBackedStandardOutputListener stdOutListener;
     private StreamBackedStandardOutputListener stdErrListener;
     private OutputEventListener console;
+    private volatile BatchingOutputEventDispatcher dispatcher;
+    private volatile OutputEventLogWriter eventLog;
 
     public OutputEventRenderer() {
         OutputEventListener stdOutChain = onNonError(new ProgressLogEventGenerator(new StyledTextOutputBackedRenderer(new StreamingStyledTextOutput(stdoutListeners.getSource())), false));
@@ -79,6 +86,7 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
 
     @Override
     public void restore(Snapshot state) {
+        flush();
         synchronized (lock) {
             SnapshotImpl snapshot = (SnapshotImpl) state;
             if (snapshot.logLevel != logLevel) {
@@ -98,6 +106,70 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
         }
     }
 
+    /**
+     * Renders output events on a dedicated thread, rather than on the thread that generates them. Output events are buffered until they can be rendered.
+     *
+     * @param capacity The maximum number of output events to buffer.
+     * @param overflowPolicy What to do with output events generated when the buffer is full.
+     */
+    public void renderAsynchronously(int capacity, BatchingOutputEventDispatcher.OverflowPolicy overflowPolicy) {
+        synchronized (lock) {
+            if (dispatcher != null) {
+                return;
+            }
+            dispatcher = new BatchingOutputEventDispatcher(new Action<List<OutputEvent>>() {
+                @Override
+                public void execute(List<OutputEvent> events) {
+                    synchronized (lock) {
+                        for (OutputEvent event : events) {
+                            render(event);
+                        }
+                    }
+                }
+            }, capacity, overflowPolicy);
+        }
+    }
+
+    /**
+     * Records all output events in the given log, including those below the current log level.
+     */
+    public void recordTo(OutputEventLogWriter eventLog) {
+        synchronized (lock) {
+            this.eventLog = eventLog;
+        }
+    }
+
+    @Override
+    public void flush() {
+        BatchingOutputEventDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            dispatcher.flush();
+        }
+        OutputEventLogWriter eventLog = this.eventLog;
+        if (eventLog != null) {
+            eventLog.flush();
+        }
+    }
+
+    /**
+     * Renders any buffered output events, then stops the thread that renders them and closes the event log. Output events received afterwards are
+     * rendered on the thread that generates them.
+     */
+    @Override
+    public void stop() {
+        // Don't hold the lock while stopping, as the dispatcher thread needs it to render the remaining events
+        BatchingOutputEventDispatcher dispatcher = this.dispatcher;
+        OutputEventLogWriter eventLog = this.eventLog;
+        try {
+            CompositeStoppable.stoppable(dispatcher, eventLog).stop();
+        } finally {
+            synchronized (lock) {
+                this.dispatcher = null;
+                this.eventLog = null;
+            }
+        }
+    }
+
     public ColorMap getColourMap() {
         return colourMap;
     }
@@ -264,20 +336,32 @@ public class OutputEventRenderer implements OutputEventListener, LoggingRouter {
     }
 
     public void onOutput(OutputEvent event) {
+        BatchingOutputEventDispatcher dispatcher = this.dispatcher;
+        if (dispatcher != null) {
+            dispatcher.onOutput(event);
+            return;
+        }
         synchronized (lock) {
-            if (event.getLogLevel() != null && event.getLogLevel().compareTo(logLevel) < 0) {
+            render(event);
+        }
+    }
+
+    private void render(OutputEvent event) {
+        if (eventLog != null) {
+            eventLog.onOutput(event);
+        }
+        if (event.getLogLevel() != null && event.getLogLevel().compareTo(logLevel) < 0) {
+            return;
+        }
+        if (event instanceof LogLevelChangeEvent) {
+            LogLevelChangeEvent changeEvent = (LogLevelChangeEvent) event;
+            LogLevel newLogLevel = changeEvent.getNewLogLevel();
+            if (newLogLevel == this.logLevel) {
                 return;
             }
-            if (event instanceof LogLevelChangeEvent) {
-                LogLevelChangeEvent changeEvent = (LogLevelChangeEvent) event;
-                LogLevel newLogLevel = changeEvent.getNewLogLevel();
-                if (newLogLevel == this.logLevel) {
-                    return;
-                }
-                this.logLevel = newLogLevel;
-            }
-            formatters.getSource().onOutput(event);
+            this.logLevel = newLogLevel;
         }
+        formatters.getSource().onOutput(event);
     }
 
     private class SnapshotImpl implements Snapshot {
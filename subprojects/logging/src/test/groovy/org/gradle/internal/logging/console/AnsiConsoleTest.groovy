@@ -163,9 +163,8 @@ class AnsiConsoleTest extends Specification {
         1 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
         1 * ansi.a('123')
         1 * ansi.a(Ansi.Attribute.RESET)
-        1 * ansi.cursorLeft(3)
         1 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
-        1 * ansi.a('123456')
+        1 * ansi.a('456')
         1 * ansi.a(Ansi.Attribute.RESET)
         0 * ansi._
     }
@@ -183,10 +182,7 @@ class AnsiConsoleTest extends Specification {
         1 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
         1 * ansi.a('123456')
         1 * ansi.a(Ansi.Attribute.RESET)
-        1 * ansi.cursorLeft(6)
-        1 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
-        1 * ansi.a('123')
-        1 * ansi.a(Ansi.Attribute.RESET)
+        1 * ansi.cursorLeft(3)
         1 * ansi.eraseLine(Ansi.Erase.FORWARD)
         0 * ansi._
     }
@@ -550,4 +546,74 @@ class AnsiConsoleTest extends Specification {
         1 * ansi.a(Ansi.Attribute.RESET)
         0 * ansi._
     }
+
+    def flushDisplaysWorkerStatusBelowStatusBar() {
+        when:
+        console.statusBar.text = 'status'
+        console.getWorkerStatus(0).text = 'a'
+        console.getWorkerStatus(1).text = 'b'
+        console.flush()
+
+        then:
+        3 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
+        1 * ansi.a('status')
+        2 * ansi.newline()
+        1 * ansi.a('a')
+        1 * ansi.a('b')
+        3 * ansi.a(Ansi.Attribute.RESET)
+        0 * ansi._
+
+        when:
+        console.getWorkerStatus(1).text = 'c'
+        console.flush()
+
+        then:
+        1 * ansi.cursorLeft(1)
+        1 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
+        1 * ansi.a('c')
+        1 * ansi.a(Ansi.Attribute.RESET)
+        0 * ansi._
+
+        when:
+        console.getWorkerStatus(1).text = ''
+        console.flush()
+
+        then:
+        1 * ansi.cursorLeft(1)
+        1 * ansi.eraseLine(Ansi.Erase.FORWARD)
+        0 * ansi._
+    }
+
+    def removesWorkerStatusWhenTextAppendedAndRedrawsItBelowText() {
+        given:
+        console.statusBar.text = 'status'
+        console.getWorkerStatus(0).text = 'a'
+        console.getWorkerStatus(1).text = 'b'
+        console.flush()
+
+        when:
+        console.mainArea.append("message${EOL}")
+
+        then:
+        1 * ansi.cursorLeft(1)
+        1 * ansi.cursorUp(2)
+        1 * ansi.eraseScreen(Ansi.Erase.FORWARD)
+        1 * ansi.a('message')
+        1 * ansi.newline()
+        0 * ansi._
+
+        when:
+        console.flush()
+
+        then:
+        1 * ansi.a('status')
+        1 * ansi.cursorLeft(6)
+        1 * ansi.cursorDown(1)
+        1 * ansi.a('a')
+        1 * ansi.newline()
+        1 * ansi.a('b')
+        3 * ansi.a(Ansi.Attribute.INTENSITY_BOLD)
+        3 * ansi.a(Ansi.Attribute.RESET)
+        0 * ansi._
+    }
 }
@@ -17,7 +17,10 @@ package org.gradle.internal.logging.console
 
 import org.gradle.internal.logging.OutputSpecification
 import org.gradle.internal.logging.events.EndOutputEvent
+import org.gradle.internal.logging.events.OperationIdentifier
 import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.logging.events.ProgressCompleteEvent
+import org.gradle.internal.logging.events.ProgressStartEvent
 import org.gradle.internal.nativeintegration.console.ConsoleMetaData
 import org.gradle.util.MockExecutor
 import org.gradle.util.MockTimeProvider
@@ -371,6 +374,38 @@ class ConsoleBackedProgressRendererTest extends OutputSpecification {
         0 * statusBar._
     }
 
+    def showsConcurrentOperationsBelowStatusBarWhenEnabled() {
+        def renderer = new ConsoleBackedProgressRenderer(listener, console, statusBarFormatter, 100, 2, executor, timeProvider)
+        def worker1 = Mock(Label)
+        def worker2 = Mock(Label)
+        _ * console.getWorkerStatus(0) >> worker1
+        _ * console.getWorkerStatus(1) >> worker2
+
+        when:
+        renderer.onOutput(startWorker(10, 'task1'))
+
+        then:
+        1 * statusBar.setText('> task1')
+        0 * worker1._
+        0 * worker2._
+
+        when:
+        renderer.onOutput(startWorker(11, 'task2'))
+        flush()
+
+        then:
+        1 * worker1.setText('> task1')
+        1 * worker2.setText('> task2')
+
+        when:
+        renderer.onOutput(new ProgressCompleteEvent(new OperationIdentifier(10), tenAm, 'category', 'description', 'done'))
+        flush()
+
+        then:
+        1 * worker1.setText('')
+        1 * worker2.setText('')
+    }
+
     def "failure to process the event contains the context"() {
         when:
         renderer.onOutput(complete('unstarted operation'))
@@ -380,6 +415,10 @@ class ConsoleBackedProgressRendererTest extends OutputSpecification {
         e.message.contains('unstarted operation')
     }
 
+    ProgressStartEvent startWorker(long id, String status) {
+        new ProgressStartEvent(new OperationIdentifier(id), null, tenAm, 'category', status, null, null, status)
+    }
+
     void flush() {
         executor.runNow()
     }
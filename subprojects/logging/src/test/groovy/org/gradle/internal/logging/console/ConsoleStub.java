@@ -30,6 +30,11 @@ public class ConsoleStub implements Console {
         };
     }
 
+    @Override
+    public Label getWorkerStatus(int index) {
+        return getStatusBar();
+    }
+
     @Override
     public void flush() {
     }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.eventlog
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.OutputSpecification
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.LogLevelChangeEvent
+import org.gradle.internal.logging.events.OperationIdentifier
+import org.gradle.internal.logging.events.OutputEvent
+import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.logging.events.ProgressCompleteEvent
+import org.gradle.internal.logging.events.ProgressEvent
+import org.gradle.internal.logging.events.ProgressStartEvent
+import org.gradle.internal.logging.events.StyledTextOutputEvent
+import org.gradle.internal.logging.text.StyledTextOutput
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+class OutputEventLogWriterTest extends OutputSpecification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def logFile = tmpDir.file("events.bin")
+
+    def "reads events in the order they were written"() {
+        def failure = new RuntimeException("broken")
+        def events = [
+            new LogLevelChangeEvent(LogLevel.INFO),
+            new ProgressStartEvent(new OperationIdentifier(1), null, 1000, 'category', 'Build', null, null, 'Configuring'),
+            new ProgressStartEvent(new OperationIdentifier(2), new OperationIdentifier(1), 1010, 'category', 'Task :a', 'a', ':a', ''),
+            new LogEvent(1005, 'other', LogLevel.WARN, 'warning', failure),
+            new StyledTextOutputEvent(1020, 'category', LogLevel.LIFECYCLE, [new StyledTextOutputEvent.Span(StyledTextOutput.Style.Header, 'header'), new StyledTextOutputEvent.Span('text')]),
+            new ProgressEvent(new OperationIdentifier(2), 1030, 'category', 'running'),
+            new ProgressCompleteEvent(new OperationIdentifier(2), 1040, 'category', 'Task :a', 'UP-TO-DATE'),
+            new ProgressCompleteEvent(new OperationIdentifier(1), 1050, 'category', 'Build', 'done')
+        ]
+
+        when:
+        def writer = new OutputEventLogWriter(logFile)
+        events.each { writer.onOutput(it) }
+        writer.stop()
+        def read = readEvents()
+
+        then:
+        read.size() == events.size()
+        read*.toString() == events*.toString()
+        read*.class == events*.class
+        read[1].parentId == null
+        read[2].parentId == new OperationIdentifier(1)
+        read[2].loggingHeader == ':a'
+        read[3].timestamp == 1005
+        read[3].throwable.message == 'broken'
+        read[4].spans*.style == [StyledTextOutput.Style.Header, StyledTextOutput.Style.Normal]
+        read[7].timestamp == 1050
+    }
+
+    def "appends a new session each time the log is opened"() {
+        when:
+        def writer = new OutputEventLogWriter(logFile)
+        writer.onOutput(event('first'))
+        writer.stop()
+        writer = new OutputEventLogWriter(logFile)
+        writer.onOutput(event('second'))
+        writer.onOutput(event('third'))
+        writer.stop()
+
+        then:
+        readEvents()*.message == ['first', 'second', 'third']
+    }
+
+    def "ignores incomplete record at end of log"() {
+        given:
+        def writer = new OutputEventLogWriter(logFile)
+        writer.onOutput(event('first'))
+        writer.onOutput(event('second'))
+        writer.stop()
+
+        when:
+        def bytes = logFile.bytes
+        logFile.bytes = bytes[0..<(bytes.length - 3)] as byte[]
+
+        then:
+        readEvents()*.message == ['first']
+    }
+
+    def "summarises events of log"() {
+        given:
+        def writer = new OutputEventLogWriter(logFile)
+        writer.onOutput(new ProgressStartEvent(new OperationIdentifier(1), null, 1000, 'org.gradle.internal.buildevents.TaskExecutionLogger', 'Task :slow', null, null, ''))
+        writer.onOutput(new ProgressStartEvent(new OperationIdentifier(2), null, 1000, 'org.gradle.internal.buildevents.TaskExecutionLogger', 'Task :fast', null, null, ''))
+        writer.onOutput(new LogEvent(1001, 'category', LogLevel.WARN, 'warning', null))
+        writer.onOutput(new ProgressCompleteEvent(new OperationIdentifier(2), 1010, 'category', 'Task :fast', ''))
+        writer.onOutput(new ProgressCompleteEvent(new OperationIdentifier(1), 1500, 'category', 'Task :slow', ''))
+        writer.stop()
+        def summary = new OutputEventLogSummary(10)
+        def output = new StringWriter()
+
+        when:
+        new OutputEventLogReader(logFile).replay(summary)
+        summary.render(new PrintWriter(output))
+
+        then:
+        def text = output.toString()
+        text.contains("Elapsed: 500ms")
+        text.contains("Tasks: 2")
+        text.indexOf("Task :slow") < text.indexOf("Task :fast")
+        text =~ /WARN\s+1/
+    }
+
+    private List<OutputEvent> readEvents() {
+        def events = []
+        new OutputEventLogReader(logFile).replay({ events << it } as OutputEventListener)
+        return events
+    }
+}
@@ -147,6 +147,7 @@ public class DefaultLoggingManagerTest extends Specification {
         1 * slf4jLoggingSystem.restore(slf4jSnapshot)
         1 * javaUtilLoggingSystem.restore(javaUtilSnapshot)
         1 * loggingRouter.restore(routerSnapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
         0 * slf4jLoggingSystem._
         0 * javaUtilLoggingSystem._
@@ -176,6 +177,7 @@ public class DefaultLoggingManagerTest extends Specification {
         1 * loggingRouter.restore(routerSnapshot)
         1 * slf4jLoggingSystem.restore(slf4jSnapshot)
         1 * javaUtilLoggingSystem.restore(javaUtilSnapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
         0 * slf4jLoggingSystem._
         0 * javaUtilLoggingSystem._
@@ -246,6 +248,7 @@ public class DefaultLoggingManagerTest extends Specification {
         1 * slf4jLoggingSystem.restore(slf4jSnapshot)
         1 * javaUtilLoggingSystem.restore(javaUtilSnapshot)
         1 * loggingRouter.restore(routerSnapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
         0 * slf4jLoggingSystem._
         0 * javaUtilLoggingSystem._
@@ -269,6 +272,30 @@ public class DefaultLoggingManagerTest extends Specification {
         1 * loggingRouter.removeStandardOutputListener(stdoutListener)
     }
 
+    public void "flushes queued output before removing listeners on stop"() {
+        final StandardOutputListener stdoutListener = Mock(StandardOutputListener.class)
+        final OutputEventListener listener = Mock(OutputEventListener.class)
+        final routerSnapshot = Mock(LoggingSystem.Snapshot.class)
+
+        loggingRouter.snapshot() >> routerSnapshot
+        loggingManager.addStandardOutputListener(stdoutListener)
+        loggingManager.addOutputEventListener(listener)
+        loggingManager.start()
+
+        when:
+        loggingManager.stop()
+
+        then:
+        1 * loggingRouter.flush()
+
+        then:
+        1 * loggingRouter.removeStandardOutputListener(stdoutListener)
+        1 * loggingRouter.removeOutputEventListener(listener)
+
+        then:
+        1 * loggingRouter.restore(routerSnapshot)
+    }
+
     public void "adds standard error listener on start and removes on stop"() {
         final StandardOutputListener stderrListener = Mock(StandardOutputListener.class)
 
@@ -449,6 +476,7 @@ public class DefaultLoggingManagerTest extends Specification {
 
         then:
         1 * loggingRouter.restore(snapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
     }
 
@@ -474,6 +502,7 @@ public class DefaultLoggingManagerTest extends Specification {
 
         then:
         1 * loggingRouter.restore(snapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
     }
 
@@ -496,6 +525,7 @@ public class DefaultLoggingManagerTest extends Specification {
 
         then:
         1 * loggingRouter.restore(snapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
     }
 
@@ -522,6 +552,7 @@ public class DefaultLoggingManagerTest extends Specification {
 
         then:
         1 * loggingRouter.restore(snapshot)
+        1 * loggingRouter.flush()
         0 * loggingRouter._
     }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.sink
+
+import org.gradle.api.Action
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.OutputSpecification
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.OutputEvent
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static org.gradle.internal.logging.sink.BatchingOutputEventDispatcher.OverflowPolicy.BLOCK
+import static org.gradle.internal.logging.sink.BatchingOutputEventDispatcher.OverflowPolicy.DISCARD
+
+class BatchingOutputEventDispatcherTest extends OutputSpecification {
+    final List<OutputEvent> rendered = new CopyOnWriteArrayList<OutputEvent>()
+    final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>()
+    final Action<List<OutputEvent>> renderer = { List<OutputEvent> batch ->
+        batchSizes << batch.size()
+        rendered.addAll(batch)
+    } as Action
+    BatchingOutputEventDispatcher dispatcher
+
+    def cleanup() {
+        dispatcher?.stop()
+    }
+
+    def "renders all events published before flush in order"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 16, BLOCK)
+
+        when:
+        100.times { dispatcher.onOutput(event("message $it")) }
+        dispatcher.flush()
+
+        then:
+        rendered*.message == (0..<100).collect { "message $it" }
+    }
+
+    def "preserves the order of events published by each thread"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 64, BLOCK)
+        def threads = (0..<4).collect { thread ->
+            Thread.start {
+                1000.times { dispatcher.onOutput(event("$thread:$it")) }
+            }
+        }
+
+        when:
+        threads*.join()
+        dispatcher.flush()
+
+        then:
+        rendered.size() == 4000
+        (0..<4).every { thread ->
+            rendered*.message.findAll { it.startsWith("$thread:") } == (0..<1000).collect { "$thread:$it" }
+        }
+        batchSizes.every { it <= 256 }
+    }
+
+    def "discards low priority log events when buffer is full"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def blockingRenderer = { List<OutputEvent> batch ->
+            started.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            rendered.addAll(batch)
+        } as Action
+        dispatcher = new BatchingOutputEventDispatcher(blockingRenderer, 2, DISCARD)
+
+        when:
+        dispatcher.onOutput(event("first"))
+        started.await(10, TimeUnit.SECONDS)
+        dispatcher.onOutput(event("second"))
+        dispatcher.onOutput(event("third"))
+        dispatcher.onOutput(event("discarded"))
+        release.countDown()
+        dispatcher.flush()
+
+        then:
+        rendered*.message.take(3) == ["first", "second", "third"]
+        rendered.size() == 4
+        def warning = rendered[3] as LogEvent
+        warning.logLevel == LogLevel.WARN
+        warning.message == "1 log messages were discarded because output could not be rendered fast enough."
+    }
+
+    def "flush rethrows failure to render events"() {
+        def failure = new RuntimeException("broken")
+        dispatcher = new BatchingOutputEventDispatcher({ throw failure } as Action, 16, BLOCK)
+
+        when:
+        dispatcher.onOutput(event("message"))
+        dispatcher.flush()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "renders events on the publishing thread after stop"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 16, BLOCK)
+
+        when:
+        dispatcher.onOutput(event("before"))
+        dispatcher.stop()
+        dispatcher.onOutput(event("after"))
+
+        then:
+        rendered*.message == ["before", "after"]
+    }
+
+    def "renders events published after the dispatcher thread has become idle"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 16, BLOCK)
+        Thread consumer = dispatcher.@consumer
+
+        when:
+        dispatcher.onOutput(event("first"))
+        dispatcher.flush()
+        waitUntilWaiting(consumer)
+        dispatcher.onOutput(event("second"))
+        dispatcher.flush()
+
+        then:
+        rendered*.message == ["first", "second"]
+    }
+
+    def "stop renders pending events and terminates the dispatcher thread"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 16, BLOCK)
+        Thread consumer = dispatcher.@consumer
+
+        when:
+        10.times { dispatcher.onOutput(event("message $it")) }
+        dispatcher.stop()
+
+        then:
+        rendered*.message == (0..<10).collect { "message $it" }
+        !consumer.alive
+    }
+
+    def "renders all events published while the dispatcher is stopping"() {
+        dispatcher = new BatchingOutputEventDispatcher(renderer, 16, BLOCK)
+        def started = new CountDownLatch(4)
+        def threads = (0..<4).collect { thread ->
+            Thread.start {
+                started.countDown()
+                1000.times { dispatcher.onOutput(event("$thread:$it")) }
+            }
+        }
+
+        when:
+        started.await(10, TimeUnit.SECONDS)
+        dispatcher.stop()
+        threads*.join()
+
+        then:
+        rendered.size() == 4000
+        (0..<4).every { thread ->
+            rendered*.message.findAll { it.startsWith("$thread:") } == (0..<1000).collect { "$thread:$it" }
+        }
+    }
+
+    private static void waitUntilWaiting(Thread thread) {
+        def timeout = System.currentTimeMillis() + 10000
+        while (thread.state != Thread.State.WAITING) {
+            assert System.currentTimeMillis() < timeout
+            Thread.sleep(10)
+        }
+    }
+}
@@ -48,6 +48,20 @@ class OutputEventRendererTest extends OutputSpecification {
         outputs.stdErr == ''
     }
 
+    def rendersLogEventsAsynchronously() {
+        def listener = new TestListener()
+
+        when:
+        renderer.renderAsynchronously(16, BatchingOutputEventDispatcher.OverflowPolicy.BLOCK)
+        renderer.addStandardOutputListener(listener)
+        renderer.onOutput(event('message', LogLevel.INFO))
+        renderer.onOutput(event('debug', LogLevel.DEBUG))
+        renderer.flush()
+
+        then:
+        listener.value.readLines() == ['message']
+    }
+
     def rendersErrorLogEventsToStdErr() {
         when:
         renderer.attachSystemOutAndErr()
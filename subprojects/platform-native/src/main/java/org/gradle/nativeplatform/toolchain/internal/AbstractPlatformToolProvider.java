@@ -166,4 +166,9 @@ public abstract class AbstractPlatformToolProvider implements PlatformToolProvid
     public String getObjectFileExtension() {
         return targetOperatingSystem.isWindows() ? ".obj" : ".o";
     }
+
+    @Override
+    public String getCompilerIdentity() {
+        return null;
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.nativeplatform.internal.BinaryToolSpec;
@@ -83,6 +84,14 @@ public interface NativeCompileSpec extends BinaryToolSpec {
 
     void setSourceFileIncludeDirectives(Map<File, IncludeDirectives> map);
 
+    /**
+     * Returns a hash of each source file combined with all of the headers it includes, or {@code null} when these hashes have not been calculated.
+     * Source files whose includes could not be fully resolved have no entry.
+     */
+    Map<File, HashCode> getSourceFileInputHashes();
+
+    void setSourceFileInputHashes(Map<File, HashCode> map);
+
     DiscoveredInputRecorder getDiscoveredInputRecorder();
 
     void setDiscoveredInputRecorder(DiscoveredInputRecorder inputs);
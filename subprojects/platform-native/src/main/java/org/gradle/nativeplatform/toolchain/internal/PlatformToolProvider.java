@@ -16,11 +16,19 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import org.gradle.api.Nullable;
 import org.gradle.platform.base.internal.toolchain.ToolProvider;
 
 public interface PlatformToolProvider extends ToolProvider {
     String getObjectFileExtension();
 
+    /**
+     * Returns a string that identifies the implementation and version of the compilers provided by this provider, or null when this is not known.
+     * Changes when the compilers, and the system headers that they provide, are upgraded.
+     */
+    @Nullable
+    String getCompilerIdentity();
+
     String getExecutableName(String executablePath);
 
     String getSharedLibraryName(String libraryPath);
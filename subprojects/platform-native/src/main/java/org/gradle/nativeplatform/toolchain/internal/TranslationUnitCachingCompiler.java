@@ -0,0 +1,191 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.nativeplatform.toolchain.internal;
+
+import com.google.common.hash.HashCode;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.internal.tasks.cache.DefaultTaskCacheKeyBuilder;
+import org.gradle.api.internal.tasks.cache.TaskCacheKey;
+import org.gradle.api.internal.tasks.cache.TaskCacheKeyBuilder;
+import org.gradle.api.internal.tasks.cache.TaskOutputCache;
+import org.gradle.api.internal.tasks.cache.TaskOutputReader;
+import org.gradle.api.internal.tasks.cache.TaskOutputWriter;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.nativeplatform.internal.CompilerOutputFileNamingScheme;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the object file produced for each individual source file in a {@link TaskOutputCache}, so that only the translation units
+ * whose inputs have changed need to be compiled when the task outputs as a whole cannot be reused.
+ *
+ * <p>The cache key for a translation unit is made up of the hash of the source file and all the headers it includes, the
+ * compiler arguments and the identity and version of the tool chain. Source files without an input hash are always compiled.</p>
+ *
+ * <p>Paths that are located under the root directory of the build are hashed relative to that directory, so that the cached object
+ * files can be reused by builds in other locations.</p>
+ */
+public class TranslationUnitCachingCompiler<T extends NativeCompileSpec> implements Compiler<T> {
+    private static final Logger LOGGER = Logging.getLogger(TranslationUnitCachingCompiler.class);
+    private static final int CACHE_FORMAT_VERSION = 2;
+    private static final String ROOT_DIR_PLACEHOLDER = "$ROOT_DIR";
+
+    private final Compiler<T> delegate;
+    private final TaskOutputCache cache;
+    private final String rootPath;
+    private final String toolChainIdentity;
+    private final String objectFileSuffix;
+
+    public TranslationUnitCachingCompiler(Compiler<T> delegate, TaskOutputCache cache, File rootDir, String toolChainIdentity, String objectFileSuffix) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.rootPath = rootDir.getAbsolutePath();
+        this.toolChainIdentity = toolChainIdentity;
+        this.objectFileSuffix = objectFileSuffix;
+    }
+
+    @Override
+    public WorkResult execute(T spec) {
+        Map<File, HashCode> inputHashes = spec.getSourceFileInputHashes();
+        if (inputHashes == null || spec.getSourceFiles().isEmpty()) {
+            return delegate.execute(spec);
+        }
+
+        List<File> toCompile = new ArrayList<File>();
+        Map<File, TaskCacheKey> toStore = new LinkedHashMap<File, TaskCacheKey>();
+        int restored = 0;
+        for (File sourceFile : spec.getSourceFiles()) {
+            HashCode inputHash = inputHashes.get(sourceFile);
+            if (inputHash == null) {
+                LOGGER.info("Not caching object file for {} as its includes could not be resolved.", sourceFile);
+                toCompile.add(sourceFile);
+                continue;
+            }
+            TaskCacheKey key = calculateKey(spec, sourceFile, inputHash);
+            File objectFile = getObjectFile(spec.getObjectFileDir(), sourceFile);
+            if (load(key, objectFile)) {
+                restored++;
+            } else {
+                toCompile.add(sourceFile);
+                toStore.put(sourceFile, key);
+            }
+        }
+        LOGGER.info("Restored {} of {} object files from {}.", restored, spec.getSourceFiles().size(), cache.getDescription());
+
+        spec.setSourceFiles(toCompile);
+        boolean didCompile = delegate.execute(spec).getDidWork();
+
+        for (Map.Entry<File, TaskCacheKey> entry : toStore.entrySet()) {
+            store(entry.getValue(), getObjectFile(spec.getObjectFileDir(), entry.getKey()));
+        }
+        return new SimpleWorkResult(didCompile || restored > 0);
+    }
+
+    private TaskCacheKey calculateKey(T spec, File sourceFile, HashCode inputHash) {
+        TaskCacheKeyBuilder builder = new DefaultTaskCacheKeyBuilder();
+        builder.putString("translation-unit");
+        builder.putInt(CACHE_FORMAT_VERSION);
+        builder.putString(toolChainIdentity);
+        builder.putString(objectFileSuffix);
+        builder.putString(normalizePath(sourceFile));
+        builder.putBytes(inputHash.asBytes());
+        for (String arg : spec.getAllArgs()) {
+            builder.putString(normalizeArg(arg));
+        }
+        for (Map.Entry<String, String> macro : new TreeMap<String, String>(spec.getMacros()).entrySet()) {
+            builder.putString(macro.getKey());
+            builder.putString(normalizeArg(String.valueOf(macro.getValue())));
+        }
+        for (File includeRoot : spec.getIncludeRoots()) {
+            builder.putString(normalizePath(includeRoot));
+        }
+        builder.putBoolean(spec.isPositionIndependentCode());
+        builder.putString(String.valueOf(spec.getPreCompiledHeader()));
+        return builder.build();
+    }
+
+    /**
+     * Returns the path of the given file relative to the root directory, or its absolute path when it is not located under the root directory.
+     */
+    private String normalizePath(File file) {
+        String path = file.getAbsolutePath();
+        if (path.equals(rootPath)) {
+            return ROOT_DIR_PLACEHOLDER;
+        }
+        if (path.startsWith(rootPath + File.separator)) {
+            return ROOT_DIR_PLACEHOLDER + path.substring(rootPath.length()).replace(File.separatorChar, '/');
+        }
+        return path;
+    }
+
+    /**
+     * Replaces the root directory in an argument that may contain paths, such as an include or a macro definition, with a placeholder.
+     */
+    private String normalizeArg(String arg) {
+        return arg.replace(rootPath, ROOT_DIR_PLACEHOLDER);
+    }
+
+    private boolean load(TaskCacheKey key, final File objectFile) {
+        try {
+            return cache.load(key, new TaskOutputReader() {
+                @Override
+                public void readFrom(InputStream input) throws IOException {
+                    FileUtils.copyInputStreamToFile(input, objectFile);
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Could not load cached object file {} with cache key {}", objectFile, key, e);
+            FileUtils.deleteQuietly(objectFile);
+            return false;
+        }
+    }
+
+    private void store(TaskCacheKey key, final File objectFile) {
+        if (!objectFile.isFile()) {
+            return;
+        }
+        try {
+            cache.store(key, new TaskOutputWriter() {
+                @Override
+                public void writeTo(OutputStream output) throws IOException {
+                    FileUtils.copyFile(objectFile, output);
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warn("Could not cache object file {} for cache key {}", objectFile, key, e);
+        }
+    }
+
+    private File getObjectFile(File objectFileRoot, File sourceFile) {
+        return new CompilerOutputFileNamingScheme()
+                        .withObjectFileNameSuffix(objectFileSuffix)
+                        .withOutputBaseFolder(objectFileRoot)
+                        .map(sourceFile);
+    }
+}
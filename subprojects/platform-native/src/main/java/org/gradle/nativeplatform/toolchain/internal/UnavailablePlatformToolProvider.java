@@ -54,6 +54,11 @@ public class UnavailablePlatformToolProvider implements PlatformToolProvider {
         throw failure();
     }
 
+    @Override
+    public String getCompilerIdentity() {
+        return null;
+    }
+
     @Override
     public String getExecutableName(String executablePath) {
         return targetOperatingSystem.getInternalOs().getExecutableName(executablePath);
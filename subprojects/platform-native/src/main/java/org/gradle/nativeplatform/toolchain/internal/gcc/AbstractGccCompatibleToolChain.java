@@ -17,6 +17,7 @@ package org.gradle.nativeplatform.toolchain.internal.gcc;
 
 import com.google.common.collect.Maps;
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.internal.Actions;
 import org.gradle.internal.operations.BuildOperationProcessor;
@@ -142,28 +143,34 @@ public abstract class AbstractGccCompatibleToolChain extends ExtendableToolChain
         targetPlatformConfigurationConfiguration.apply(configurableToolChain);
         configureActions.execute(configurableToolChain);
 
-        initTools(configurableToolChain, result);
+        GccVersionResult compilerVersion = initTools(configurableToolChain, result);
         if (!result.isAvailable()) {
             return new UnavailablePlatformToolProvider(targetPlatform.getOperatingSystem(), result);
         }
 
-        return new GccPlatformToolProvider(buildOperationProcessor, targetPlatform.getOperatingSystem(), toolSearchPath, configurableToolChain, execActionFactory, configurableToolChain.isCanUseCommandFile());
+        return new GccPlatformToolProvider(buildOperationProcessor, targetPlatform.getOperatingSystem(), toolSearchPath, configurableToolChain, execActionFactory, configurableToolChain.isCanUseCommandFile(), compilerVersion);
     }
 
-    protected void initTools(DefaultGccPlatformToolChain platformToolChain, ToolChainAvailability availability) {
+    /**
+     * Locates the tools for the given platform tool chain. Returns the version of the compiler that was found, or null when no compiler was found.
+     */
+    @Nullable
+    protected GccVersionResult initTools(DefaultGccPlatformToolChain platformToolChain, ToolChainAvailability availability) {
         // Attempt to determine whether the compiler is the correct implementation
         boolean found = false;
+        GccVersionResult compilerVersion = null;
         for (GccCommandLineToolConfigurationInternal tool : platformToolChain.getCompilers()) {
             CommandLineToolSearchResult compiler = locate(tool);
             if (compiler.isAvailable()) {
                 GccVersionResult versionResult = getMetaDataProvider().getGccMetaData(compiler.getTool(), platformToolChain.getCompilerProbeArgs());
                 availability.mustBeAvailable(versionResult);
                 if (!versionResult.isAvailable()) {
-                    return;
+                    return null;
                 }
                 // Assume all the other compilers are ok, if they happen to be installed
                 LOGGER.debug("Found {} with version {}", ToolType.C_COMPILER.getToolName(), versionResult);
                 found = true;
+                compilerVersion = versionResult;
                 initForImplementation(platformToolChain, versionResult);
                 break;
             }
@@ -179,6 +186,7 @@ public abstract class AbstractGccCompatibleToolChain extends ExtendableToolChain
             GccCommandLineToolConfigurationInternal cCompiler = platformToolChain.getcCompiler();
             availability.mustBeAvailable(locate(cCompiler));
         }
+        return compilerVersion;
     }
 
     protected void initForImplementation(DefaultGccPlatformToolChain platformToolChain, GccVersionResult versionResult) {
@@ -51,6 +51,11 @@ public class IarArmPlatformToolProvider extends AbstractPlatformToolProvider {
         this.execActionFactory = execActionFactory;
     }
 
+    @Override
+    public String getCompilerIdentity() {
+        return "iar:" + iarArm.getName() + ":" + iarArm.getVersion();
+    }
+
     @Override
     public String getStaticLibraryName(String libraryName) {
         return super.getStaticLibraryName(libraryName).replaceFirst("\\.lib", ".a");
@@ -56,6 +56,11 @@ class VisualCppPlatformToolProvider extends AbstractPlatformToolProvider {
         this.execActionFactory = execActionFactory;
     }
 
+    @Override
+    public String getCompilerIdentity() {
+        return "visualcpp:" + visualCpp.getVersion() + ":" + sdk.getName() + ":" + sdk.getVersion();
+    }
+
     @Override
     public String getSharedLibraryLinkFileName(String libraryName) {
         return getSharedLibraryName(libraryName).replaceFirst("\\.dll$", ".lib");
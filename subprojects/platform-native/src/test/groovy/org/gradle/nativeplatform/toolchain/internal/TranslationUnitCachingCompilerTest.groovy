@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.nativeplatform.toolchain.internal
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.tasks.SimpleWorkResult
+import org.gradle.api.internal.tasks.cache.MapBasedTaskOutputCache
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.nativeplatform.internal.CompilerOutputFileNamingScheme
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+
+class TranslationUnitCachingCompilerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDirProvider = new TestNameTestDirectoryProvider()
+
+    def cacheEntries = new ConcurrentHashMap<String, byte[]>()
+    def cache = new MapBasedTaskOutputCache("test", cacheEntries)
+    def delegate = Mock(Compiler)
+    def spec = Mock(NativeCompileSpec)
+    def rootDir = tmpDirProvider.createDir("root")
+    def compiler = new TranslationUnitCachingCompiler<NativeCompileSpec>(delegate, cache, rootDir, "gcc:x86", ".o")
+
+    def objectDir = tmpDirProvider.createDir("objs")
+    def source1 = rootDir.file("src/main/c/one.c")
+    def source2 = rootDir.file("src/main/c/two.c")
+    List<File> compiled = []
+    List<String> args = ["-O2"]
+    List<File> includeRoots = []
+
+    def setup() {
+        _ * spec.objectFileDir >> objectDir
+        _ * spec.allArgs >> { args }
+        _ * spec.macros >> [:]
+        _ * spec.includeRoots >> { includeRoots }
+        _ * spec.setSourceFiles(_) >> { args -> compiled = args[0] as List }
+        _ * delegate.execute(spec) >> {
+            compiled.each { objectFile(it).text = "object for ${it.name}" }
+            new SimpleWorkResult(!compiled.empty)
+        }
+    }
+
+    def "stores compiled object files and restores them on the next compilation"() {
+        given:
+        spec.sourceFiles >> [source1, source2]
+        spec.sourceFileInputHashes >> [(source1): hash(1), (source2): hash(2)]
+
+        when:
+        def result = compiler.execute(spec)
+
+        then:
+        result.didWork
+        compiled == [source1, source2]
+        cacheEntries.size() == 2
+
+        when:
+        objectDir.deleteDir()
+        result = compiler.execute(spec)
+
+        then:
+        result.didWork
+        compiled == []
+        objectFile(source1).text == "object for one.c"
+        objectFile(source2).text == "object for two.c"
+    }
+
+    def "recompiles only translation units whose inputs have changed"() {
+        given:
+        spec.sourceFiles >> [source1, source2]
+        def hashes = [(source1): hash(1), (source2): hash(2)]
+        spec.sourceFileInputHashes >> { hashes }
+
+        when:
+        compiler.execute(spec)
+        hashes[source2] = hash(3)
+        compiler.execute(spec)
+
+        then:
+        compiled == [source2]
+        cacheEntries.size() == 3
+    }
+
+    def "always compiles source files without an input hash"() {
+        given:
+        spec.sourceFiles >> [source1, source2]
+        spec.sourceFileInputHashes >> [(source1): hash(1)]
+
+        when:
+        compiler.execute(spec)
+        compiler.execute(spec)
+
+        then:
+        compiled == [source2]
+        cacheEntries.size() == 1
+    }
+
+    def "delegates when input hashes have not been calculated"() {
+        given:
+        spec.sourceFiles >> [source1]
+        spec.sourceFileInputHashes >> null
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        0 * spec.setSourceFiles(_)
+        cacheEntries.isEmpty()
+    }
+
+    def "uses separate cache entries for source files with the same name in different directories"() {
+        given:
+        def util1 = rootDir.file("src/main/c/util.c")
+        def util2 = rootDir.file("src/other/c/util.c")
+        spec.sourceFiles >> [util1, util2]
+        spec.sourceFileInputHashes >> [(util1): hash(1), (util2): hash(1)]
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        compiled == [util1, util2]
+        cacheEntries.size() == 2
+    }
+
+    def "reuses cached object files for a build in another location"() {
+        given:
+        def otherRootDir = tmpDirProvider.createDir("other")
+        def otherCompiler = new TranslationUnitCachingCompiler<NativeCompileSpec>(delegate, cache, otherRootDir, "gcc:x86", ".o")
+        def otherSource = otherRootDir.file("src/main/c/one.c")
+        def sources = [source1]
+        spec.sourceFiles >> { sources }
+        spec.sourceFileInputHashes >> { [(sources[0]): hash(1)] }
+
+        when:
+        args = ["-O2", "-I${rootDir}/include".toString()]
+        includeRoots = [rootDir.file("src/main/headers")]
+        compiler.execute(spec)
+
+        then:
+        compiled == [source1]
+        cacheEntries.size() == 1
+
+        when:
+        sources = [otherSource]
+        args = ["-O2", "-I${otherRootDir}/include".toString()]
+        includeRoots = [otherRootDir.file("src/main/headers")]
+        otherCompiler.execute(spec)
+
+        then:
+        compiled == []
+        objectFile(otherSource).text == "object for one.c"
+        cacheEntries.size() == 1
+    }
+
+    private static HashCode hash(int value) {
+        HashCode.fromInt(value)
+    }
+
+    private File objectFile(File sourceFile) {
+        def file = new CompilerOutputFileNamingScheme()
+            .withObjectFileNameSuffix(".o")
+            .withOutputBaseFolder(objectDir)
+            .map(sourceFile)
+        file.parentFile.mkdirs()
+        file
+    }
+}
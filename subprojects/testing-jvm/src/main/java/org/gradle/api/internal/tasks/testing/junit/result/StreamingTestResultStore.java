@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spools test class results to a file as they complete, so that the results of a test task do not need to be held in memory.
+ *
+ * <p>The results for a class are appended as one or more fragments, each containing some of the test methods of the class.
+ * Only the location of the fragments of each class is kept in memory. The results are read back one class at a time,
+ * merging the fragments of the class.</p>
+ */
+public class StreamingTestResultStore {
+    private final File spoolFile;
+    private final Map<Long, ClassEntry> classes = new LinkedHashMap<Long, ClassEntry>();
+
+    public StreamingTestResultStore(File resultsDir) {
+        this.spoolFile = new File(resultsDir, "results.spool");
+    }
+
+    public File getSpoolFile() {
+        return spoolFile;
+    }
+
+    private static class ClassEntry {
+        final String className;
+        long startTime;
+        long[] fragments = new long[1];
+        int fragmentCount;
+
+        ClassEntry(String className, long startTime) {
+            this.className = className;
+            this.startTime = startTime;
+        }
+
+        void addFragment(long offset) {
+            if (fragmentCount == fragments.length) {
+                fragments = Arrays.copyOf(fragments, fragmentCount * 2);
+            }
+            fragments[fragmentCount++] = offset;
+        }
+    }
+
+    public class Writer implements Closeable {
+        private final KryoBackedEncoder output;
+
+        public Writer() {
+            try {
+                output = new KryoBackedEncoder(new FileOutputStream(spoolFile));
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Appends the given results. The same class may be written several times, in which case its test methods are merged when read.
+         */
+        public void write(TestClassResult classResult) {
+            ClassEntry entry = classes.get(classResult.getId());
+            if (entry == null) {
+                entry = new ClassEntry(classResult.getClassName(), classResult.getStartTime());
+                classes.put(classResult.getId(), entry);
+            } else if (entry.startTime == 0) {
+                entry.startTime = classResult.getStartTime();
+            }
+            if (classResult.getResults().isEmpty()) {
+                return;
+            }
+            entry.addFragment(output.getWritePosition());
+            try {
+                output.writeSmallInt(classResult.getResults().size());
+                for (TestMethodResult methodResult : classResult.getResults()) {
+                    TestResultSerializer.write(methodResult, output);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            output.close();
+        }
+    }
+
+    public Writer writer() {
+        return new Writer();
+    }
+
+    public boolean isHasResults() {
+        return !classes.isEmpty();
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    /**
+     * Visits the results of each class, in the order in which the classes were first written. Must be called only after the writer has been closed.
+     */
+    public void visitClasses(Action<? super TestClassResult> visitor) {
+        if (classes.isEmpty()) {
+            return;
+        }
+        try {
+            RandomAccessFile dataFile = new RandomAccessFile(spoolFile, "r");
+            try {
+                for (Map.Entry<Long, ClassEntry> mapEntry : classes.entrySet()) {
+                    ClassEntry entry = mapEntry.getValue();
+                    TestClassResult classResult = new TestClassResult(mapEntry.getKey(), entry.className, entry.startTime);
+                    for (int i = 0; i < entry.fragmentCount; i++) {
+                        dataFile.seek(entry.fragments[i]);
+                        KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
+                        int methodCount = decoder.readSmallInt();
+                        for (int j = 0; j < methodCount; j++) {
+                            classResult.add(TestResultSerializer.readMethodResult(decoder));
+                        }
+                    }
+                    visitor.execute(classResult);
+                }
+            } finally {
+                dataFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -25,18 +25,41 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Collects the test results into memory and spools the test output to file during execution (to avoid holding it all in memory).
+ * Collects the test results and spools the test output to file during execution (to avoid holding it all in memory).
+ *
+ * <p>When a {@link StreamingTestResultStore.Writer} is provided, the results of each test class are also spooled to file as soon as the class completes,
+ * and only the results of the classes that are still running are kept in memory. Otherwise all results are collected into memory.</p>
  */
 public class TestReportDataCollector implements TestListener, TestOutputListener {
 
     private final Map<String, TestClassResult> results;
     private final TestOutputStore.Writer outputWriter;
+    private final StreamingTestResultStore.Writer resultWriter;
     private final Map<TestDescriptor, TestMethodResult> currentTestMethods = new HashMap<TestDescriptor, TestMethodResult>();
+    private final Map<String, TestClassResult> completedClasses = new HashMap<String, TestClassResult>();
     private long internalIdCounter = 1;
 
     public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter) {
+        this(results, outputWriter, null);
+    }
+
+    public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter, StreamingTestResultStore.Writer resultWriter) {
         this.results = results;
         this.outputWriter = outputWriter;
+        this.resultWriter = resultWriter;
+    }
+
+    /**
+     * Spools the results of the classes that are still held in memory. Does nothing when results are collected into memory.
+     */
+    public void flush() {
+        if (resultWriter == null) {
+            return;
+        }
+        for (TestClassResult classResult : results.values()) {
+            resultWriter.write(classResult);
+        }
+        results.clear();
     }
 
     @Override
@@ -56,9 +79,34 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             TestClassResult classResult = new TestClassResult(internalIdCounter++, suite.getName(), result.getStartTime());
             classResult.add(methodResult);
             results.put(suite.getName(), classResult);
+            spool(suite.getName());
+        } else if (suite.getClassName() != null) {
+            spool(suite.getClassName());
+        }
+    }
+
+    private void spool(String className) {
+        if (resultWriter == null) {
+            return;
+        }
+        TestClassResult classResult = results.remove(className);
+        if (classResult != null) {
+            resultWriter.write(classResult);
+            // Keep only the identity of the class, in case further results or output are received for it
+            completedClasses.put(className, new TestClassResult(classResult.getId(), className, classResult.getStartTime()));
         }
     }
 
+    private TestClassResult getClassResult(String className, long startTime) {
+        TestClassResult classResult = results.get(className);
+        if (classResult == null) {
+            TestClassResult completed = completedClasses.remove(className);
+            classResult = completed != null ? completed : new TestClassResult(internalIdCounter++, className, startTime);
+            results.put(className, classResult);
+        }
+        return classResult;
+    }
+
     @Override
     public void beforeTest(TestDescriptor testDescriptor) {
         TestMethodResult methodResult = new TestMethodResult(internalIdCounter++, testDescriptor.getName());
@@ -72,11 +120,8 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
         for (Throwable throwable : result.getExceptions()) {
             methodResult.addFailure(failureMessage(throwable), stackTrace(throwable), exceptionClassName(throwable));
         }
-        TestClassResult classResult = results.get(className);
-        if (classResult == null) {
-            classResult = new TestClassResult(internalIdCounter++, className, result.getStartTime());
-            results.put(className, classResult);
-        } else if (classResult.getStartTime() == 0) {
+        TestClassResult classResult = getClassResult(className, result.getStartTime());
+        if (classResult.getStartTime() == 0) {
             //class results may be created earlier, where we don't yet have access to the start time
             classResult.setStartTime(result.getStartTime());
         }
@@ -125,14 +170,10 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             //In short, the TestNG support could be better. See also TestNGOutputEventsIntegrationTest
             return;
         }
-        TestClassResult classResult = results.get(className);
-        if (classResult == null) {
-            //it's possible that we receive an output for a suite here
-            //in this case we will create the test result for a suite that normally would not be created
-            //feels like this scenario should modelled more explicitly
-            classResult = new TestClassResult(internalIdCounter++, className, 0);
-            results.put(className, classResult);
-        }
+        //it's possible that we receive an output for a suite here
+        //in this case we will create the test result for a suite that normally would not be created
+        //feels like this scenario should modelled more explicitly
+        TestClassResult classResult = getClassResult(className, 0);
 
         TestMethodResult methodResult = currentTestMethods.get(testDescriptor);
         if (methodResult == null) {
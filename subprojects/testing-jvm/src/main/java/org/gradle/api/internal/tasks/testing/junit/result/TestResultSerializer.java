@@ -56,6 +56,37 @@ public class TestResultSerializer {
         }
     }
 
+    /**
+     * Writes the results held by the given store, reading them back from the store one class at a time.
+     */
+    public void write(StreamingTestResultStore store) {
+        try {
+            OutputStream outputStream = new FileOutputStream(resultsFile);
+            try {
+                if (store.isHasResults()) {
+                    final FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                    encoder.writeSmallInt(RESULT_VERSION);
+                    encoder.writeSmallInt(store.getClassCount());
+                    store.visitClasses(new Action<TestClassResult>() {
+                        @Override
+                        public void execute(TestClassResult classResult) {
+                            try {
+                                write(classResult, encoder);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    });
+                    encoder.flush();
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private void write(Collection<TestClassResult> results, Encoder encoder) throws IOException {
         encoder.writeSmallInt(results.size());
         for (TestClassResult result : results) {
@@ -73,7 +104,7 @@ public class TestResultSerializer {
         }
     }
 
-    private void write(TestMethodResult methodResult, Encoder encoder) throws IOException {
+    static void write(TestMethodResult methodResult, Encoder encoder) throws IOException {
         encoder.writeSmallLong(methodResult.getId());
         encoder.writeString(methodResult.getName());
         encoder.writeSmallInt(methodResult.getResultType().ordinal());
@@ -133,7 +164,7 @@ public class TestResultSerializer {
         return result;
     }
 
-    private TestMethodResult readMethodResult(Decoder decoder) throws ClassNotFoundException, IOException {
+    static TestMethodResult readMethodResult(Decoder decoder) throws IOException {
         long id = decoder.readSmallLong();
         String name = decoder.readString();
         TestResult.ResultType resultType = TestResult.ResultType.values()[decoder.readSmallInt()];
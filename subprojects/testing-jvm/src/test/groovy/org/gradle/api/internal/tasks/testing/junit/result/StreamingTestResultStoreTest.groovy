@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.Action
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class StreamingTestResultStoreTest extends Specification {
+    @Rule
+    private TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
+
+    def resultsDir = tmp.createDir("results")
+    def store = new StreamingTestResultStore(resultsDir)
+
+    def "can write and read results"() {
+        def class1 = new TestClassResult(1, 'Class1', 1234)
+        class1.add(new TestMethodResult(3, "method1", TestResult.ResultType.SUCCESS, 100, 2300))
+        class1.add(new TestMethodResult(4, "method2", TestResult.ResultType.FAILURE, 200, 2700).addFailure("message", "stack-trace", "ExceptionType"))
+        def class2 = new TestClassResult(2, 'Class2', 5678)
+
+        when:
+        def writer = store.writer()
+        writer.write(class1)
+        writer.write(class2)
+        writer.close()
+        def read = visit()
+
+        then:
+        store.hasResults
+        store.classCount == 2
+        read*.className == ['Class1', 'Class2']
+        read*.id == [1, 2]
+        read*.startTime == [1234, 5678]
+        read[0].results*.name == ['method1', 'method2']
+        read[0].results*.id == [3, 4]
+        read[0].failuresCount == 1
+        read[0].results[1].failures[0].stackTrace == "stack-trace"
+        read[1].results.empty
+    }
+
+    def "merges results written for a class in several fragments"() {
+        when:
+        def writer = store.writer()
+        writer.write(new TestClassResult(1, 'Class1', 0).add(new TestMethodResult(2, "method1", TestResult.ResultType.SUCCESS, 100, 200)))
+        writer.write(new TestClassResult(3, 'Class2', 300).add(new TestMethodResult(4, "method1", TestResult.ResultType.SUCCESS, 100, 400)))
+        writer.write(new TestClassResult(1, 'Class1', 100).add(new TestMethodResult(5, "method2", TestResult.ResultType.SKIPPED, 100, 500)))
+        writer.close()
+        def read = visit()
+
+        then:
+        store.classCount == 2
+        read*.className == ['Class1', 'Class2']
+        read[0].startTime == 100
+        read[0].results*.name == ['method1', 'method2']
+        read[0].skippedCount == 1
+        read[1].results*.name == ['method1']
+    }
+
+    def "has no results when nothing written"() {
+        when:
+        store.writer().close()
+
+        then:
+        !store.hasResults
+        visit().empty
+    }
+
+    def "results can be copied to the results file"() {
+        def writer = store.writer()
+        writer.write(new TestClassResult(1, 'Class1', 100).add(new TestMethodResult(2, "method1", TestResult.ResultType.SUCCESS, 100, 200)))
+        writer.write(new TestClassResult(3, 'Class2', 300))
+        writer.close()
+
+        when:
+        def serializer = new TestResultSerializer(resultsDir)
+        serializer.write(store)
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        read*.className == ['Class1', 'Class2']
+        read[0].results*.name == ['method1']
+    }
+
+    List<TestClassResult> visit() {
+        def result = []
+        store.visitClasses({ result << it } as Action)
+        return result
+    }
+}
@@ -219,4 +219,41 @@ class TestReportDataCollectorSpec extends Specification {
         then:
         results.get("FooTest").startTime == 100
     }
+
+    def "spools results of each class when the class completes"() {
+        def resultWriter = Mock(StreamingTestResultStore.Writer)
+        def collector = new TestReportDataCollector(results, writer, resultWriter)
+        def root = new DefaultTestSuiteDescriptor("1", "Suite")
+        def clazz = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "FooTest"), root)
+        def test1 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod"), clazz)
+        def test2 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.2", "BarTest", "testMethod"), root)
+        def written = []
+
+        when:
+        collector.beforeSuite(root)
+        collector.beforeSuite(clazz)
+        collector.beforeTest(test1)
+        collector.afterTest(test1, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+        collector.beforeTest(test2)
+        collector.afterTest(test2, new DefaultTestResult(SUCCESS, 200, 300, 1, 1, 0, []))
+        collector.afterSuite(clazz, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+
+        then:
+        1 * resultWriter.write(_) >> { TestClassResult result -> written << result }
+        written*.className == ['FooTest']
+        written[0].results*.name == ['testMethod']
+        results.keySet() == ['BarTest'] as Set
+
+        when:
+        collector.onOutput(test1, new DefaultTestOutputEvent(StdOut, "late-out"))
+        collector.afterSuite(root, new DefaultTestResult(SUCCESS, 0, 300, 2, 2, 0, []))
+        collector.flush()
+
+        then:
+        1 * writer.onOutput(written[0].id, new DefaultTestOutputEvent(StdOut, "late-out"))
+        2 * resultWriter.write(_) >> { TestClassResult result -> written << result }
+        written*.className as Set == ['FooTest', 'BarTest'] as Set
+        written.findAll { it.className == 'FooTest' }*.id.unique().size() == 1
+        results.isEmpty()
+    }
 }